@@ -0,0 +1,20 @@
+-- ====================================
+-- 铃鲜好物 - 游标分页索引
+-- 订单、钱包流水、积分记录、评价列表按 (create_time, id) 倒序游标分页，
+-- 需要以过滤列开头、(create_time, id) 结尾的组合索引支撑索引范围扫描
+-- ====================================
+
+CREATE INDEX IF NOT EXISTS idx_order_user_keyset
+    ON t_order(user_id, create_time DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_wallet_record_merchant_keyset
+    ON t_wallet_record(merchant_id, create_time DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_points_record_user_keyset
+    ON t_points_record(user_id, create_time DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_product_comment_merchant_keyset
+    ON t_product_comment(merchant_id, create_time DESC, id DESC);
+
+-- 完成
+SELECT '游标分页索引创建完成！' AS message;
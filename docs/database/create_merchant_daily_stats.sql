@@ -0,0 +1,100 @@
+-- ====================================
+-- 铃鲜好物 - 商户日统计表、商户客户表
+-- 按商户、下单日期汇总已支付订单、销售额、发货、退款及新老客户数，
+-- 订单支付、发货、拒单及退款审核通过时增量更新，商户工作台直接读取
+-- ====================================
+
+CREATE TABLE IF NOT EXISTS t_merchant_daily_stats (
+    id BIGSERIAL PRIMARY KEY,
+    merchant_id BIGINT NOT NULL,
+    stat_date DATE NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    sales_amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    delivered_count BIGINT NOT NULL DEFAULT 0,
+    pending_count BIGINT NOT NULL DEFAULT 0,
+    refund_count BIGINT NOT NULL DEFAULT 0,
+    refund_amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    new_customers BIGINT NOT NULL DEFAULT 0,
+    returning_customers BIGINT NOT NULL DEFAULT 0,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_merchant_daily_stats UNIQUE (merchant_id, stat_date)
+);
+
+COMMENT ON TABLE t_merchant_daily_stats IS '商户日统计表';
+COMMENT ON COLUMN t_merchant_daily_stats.stat_date IS '统计日期（订单下单日期）';
+COMMENT ON COLUMN t_merchant_daily_stats.order_count IS '已支付订单数';
+COMMENT ON COLUMN t_merchant_daily_stats.sales_amount IS '销售额（实付金额合计）';
+COMMENT ON COLUMN t_merchant_daily_stats.delivered_count IS '已发货订单数';
+COMMENT ON COLUMN t_merchant_daily_stats.pending_count IS '已支付待发货订单数';
+COMMENT ON COLUMN t_merchant_daily_stats.refund_count IS '退款订单数（商家拒单及同意退款）';
+COMMENT ON COLUMN t_merchant_daily_stats.refund_amount IS '退款金额';
+COMMENT ON COLUMN t_merchant_daily_stats.new_customers IS '新客户数（当天首次在该商户下单）';
+COMMENT ON COLUMN t_merchant_daily_stats.returning_customers IS '老客户数（当天下单且此前下过单）';
+
+CREATE TABLE IF NOT EXISTS t_merchant_customer (
+    merchant_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    first_order_id BIGINT,
+    first_order_date DATE NOT NULL,
+    last_order_date DATE NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (merchant_id, user_id)
+);
+
+COMMENT ON TABLE t_merchant_customer IS '商户客户表（每个商户、用户一行）';
+COMMENT ON COLUMN t_merchant_customer.first_order_id IS '首单ID';
+COMMENT ON COLUMN t_merchant_customer.first_order_date IS '首单下单日期';
+COMMENT ON COLUMN t_merchant_customer.last_order_date IS '最近下单日期';
+COMMENT ON COLUMN t_merchant_customer.order_count IS '已支付订单数';
+
+-- 回填现有订单（与 MerchantDailyStatsService.rebuild 一致）
+DELETE FROM t_merchant_daily_stats;
+DELETE FROM t_merchant_customer;
+
+INSERT INTO t_merchant_daily_stats (merchant_id, stat_date, order_count, sales_amount,
+                                    delivered_count, pending_count, refund_count, refund_amount,
+                                    new_customers, returning_customers)
+SELECT merchant_id, create_time::date, COUNT(*), COALESCE(SUM(pay_amount), 0),
+       COUNT(*) FILTER (WHERE delivery_time IS NOT NULL), COUNT(*) FILTER (WHERE status = 2),
+       COUNT(*) FILTER (WHERE status = 6), COALESCE(SUM(pay_amount) FILTER (WHERE status = 6), 0),
+       0, 0
+FROM t_order
+WHERE pay_time IS NOT NULL AND merchant_id IS NOT NULL
+GROUP BY merchant_id, create_time::date;
+
+UPDATE t_merchant_daily_stats s
+SET refund_count = s.refund_count + r.cnt,
+    refund_amount = s.refund_amount + r.amount
+FROM (SELECT o.merchant_id, o.create_time::date AS stat_date, COUNT(*) AS cnt,
+             COALESCE(SUM(f.refund_amount), 0) AS amount
+      FROM t_refund f
+      JOIN t_order o ON o.id = f.order_id
+      WHERE f.status IN (1, 2) AND f.deleted = 0 AND o.pay_time IS NOT NULL
+      GROUP BY o.merchant_id, o.create_time::date) r
+WHERE s.merchant_id = r.merchant_id AND s.stat_date = r.stat_date;
+
+INSERT INTO t_merchant_customer (merchant_id, user_id, first_order_id, first_order_date,
+                                 last_order_date, order_count)
+SELECT merchant_id, user_id, (ARRAY_AGG(id ORDER BY create_time, id))[1],
+       MIN(create_time)::date, MAX(create_time)::date, COUNT(*)
+FROM t_order
+WHERE pay_time IS NOT NULL AND merchant_id IS NOT NULL AND user_id IS NOT NULL
+GROUP BY merchant_id, user_id;
+
+UPDATE t_merchant_daily_stats s
+SET new_customers = c.new_customers,
+    returning_customers = c.returning_customers
+FROM (SELECT d.merchant_id, d.stat_date,
+             COUNT(*) FILTER (WHERE d.stat_date = mc.first_order_date) AS new_customers,
+             COUNT(*) FILTER (WHERE d.stat_date > mc.first_order_date) AS returning_customers
+      FROM (SELECT DISTINCT merchant_id, user_id, create_time::date AS stat_date
+            FROM t_order
+            WHERE pay_time IS NOT NULL AND merchant_id IS NOT NULL AND user_id IS NOT NULL) d
+      JOIN t_merchant_customer mc ON mc.merchant_id = d.merchant_id AND mc.user_id = d.user_id
+      GROUP BY d.merchant_id, d.stat_date) c
+WHERE s.merchant_id = c.merchant_id AND s.stat_date = c.stat_date;
+
+-- 完成
+SELECT '商户日统计表创建完成！' AS message;
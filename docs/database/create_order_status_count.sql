@@ -0,0 +1,41 @@
+-- ====================================
+-- 铃鲜好物 - 订单/退款状态计数表
+-- 每个商户、每种状态一行，merchant_id = 0 为全平台合计；
+-- 订单、退款状态变更时在同一事务内增减商户计数，全平台合计（merchant_id = 0）在事务提交后增减；订单统计与工作台待处理数量直接读取
+-- ====================================
+
+CREATE TABLE IF NOT EXISTS t_order_status_count (
+    id BIGSERIAL PRIMARY KEY,
+    merchant_id BIGINT NOT NULL,
+    kind SMALLINT NOT NULL,
+    status INT NOT NULL,
+    total BIGINT NOT NULL DEFAULT 0,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_order_status_count UNIQUE (merchant_id, kind, status)
+);
+
+COMMENT ON TABLE t_order_status_count IS '订单/退款状态计数表';
+COMMENT ON COLUMN t_order_status_count.merchant_id IS '商户ID（0为全平台合计）';
+COMMENT ON COLUMN t_order_status_count.kind IS '计数类型：1-订单状态 2-退款状态';
+COMMENT ON COLUMN t_order_status_count.status IS '订单状态或退款状态';
+COMMENT ON COLUMN t_order_status_count.total IS '处于该状态的数量';
+
+-- 初始化现有订单、退款（与 OrderStatusCountService.reconcile 一致）
+DELETE FROM t_order_status_count;
+
+INSERT INTO t_order_status_count (merchant_id, kind, status, total)
+SELECT CASE WHEN GROUPING(merchant_id) = 1 THEN 0 ELSE merchant_id END, 1, status, COUNT(*)
+FROM t_order
+WHERE deleted = 0
+GROUP BY GROUPING SETS ((merchant_id, status), (status))
+HAVING GROUPING(merchant_id) = 1 OR merchant_id IS NOT NULL;
+
+INSERT INTO t_order_status_count (merchant_id, kind, status, total)
+SELECT CASE WHEN GROUPING(merchant_id) = 1 THEN 0 ELSE merchant_id END, 2, status, COUNT(*)
+FROM t_refund
+WHERE deleted = 0
+GROUP BY GROUPING SETS ((merchant_id, status), (status))
+HAVING GROUPING(merchant_id) = 1 OR merchant_id IS NOT NULL;
+
+-- 完成
+SELECT '订单状态计数表创建完成！' AS message;
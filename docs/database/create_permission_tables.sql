@@ -0,0 +1,74 @@
+-- ====================================
+-- 铃鲜好物 - 管理后台角色权限
+-- 每个菜单模块下有 "模块:view"（查询）、"模块:edit"（新增、修改、删除）两个按钮权限，
+-- 管理后台接口按路径前缀归属模块后校验对应权限，见 AdminPermissionAuthorizationManager；
+-- 超级管理员角色（SUPER_ADMIN）不需要绑定，拥有全部权限
+-- ====================================
+
+CREATE TABLE IF NOT EXISTS t_permission (
+    id BIGSERIAL PRIMARY KEY,
+    parent_id BIGINT DEFAULT 0,
+    name VARCHAR(64) NOT NULL,
+    code VARCHAR(64),
+    type SMALLINT DEFAULT 1,
+    icon VARCHAR(64),
+    path VARCHAR(128),
+    component VARCHAR(128),
+    sort INTEGER DEFAULT 0,
+    status SMALLINT DEFAULT 1,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    deleted SMALLINT DEFAULT 0
+);
+
+COMMENT ON TABLE t_permission IS '权限(菜单)表';
+COMMENT ON COLUMN t_permission.code IS '权限编码';
+COMMENT ON COLUMN t_permission.type IS '类型 1-目录 2-菜单 3-按钮';
+
+CREATE TABLE IF NOT EXISTS t_role_permission (
+    id BIGSERIAL PRIMARY KEY,
+    role_id BIGINT NOT NULL,
+    permission_id BIGINT NOT NULL,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_role_permission ON t_role_permission(role_id, permission_id);
+
+COMMENT ON TABLE t_role_permission IS '角色权限关联表';
+
+ALTER TABLE t_role ADD COLUMN IF NOT EXISTS sort INTEGER DEFAULT 0;
+
+-- 菜单模块
+INSERT INTO t_permission (parent_id, name, code, type, path, sort)
+SELECT 0, m.name, m.code, 2, m.path, m.sort
+FROM (VALUES
+    ('数据概览', 'dashboard', '/dashboard', 1),
+    ('用户管理', 'user', '/user', 2),
+    ('商户管理', 'merchant', '/merchant', 3),
+    ('商品管理', 'product', '/product', 4),
+    ('订单管理', 'order', '/order', 5),
+    ('拼团管理', 'group', '/group', 6),
+    ('营销管理', 'marketing', '/marketing', 7),
+    ('系统管理', 'system', '/system', 8)
+) AS m(name, code, path, sort)
+WHERE NOT EXISTS (SELECT 1 FROM t_permission p WHERE p.code = m.code AND p.deleted = 0);
+
+-- 按钮权限
+INSERT INTO t_permission (parent_id, name, code, type, sort)
+SELECT p.id, b.name, p.code || ':' || b.action, 3, b.sort
+FROM t_permission p
+CROSS JOIN (VALUES ('查看', 'view', 1), ('编辑', 'edit', 2)) AS b(name, action, sort)
+WHERE p.type = 2 AND p.parent_id = 0 AND p.deleted = 0
+  AND p.code IN ('dashboard', 'user', 'merchant', 'product', 'order', 'group', 'marketing', 'system')
+  AND NOT EXISTS (SELECT 1 FROM t_permission e WHERE e.code = p.code || ':' || b.action AND e.deleted = 0);
+
+-- 运营管理员：原 permissions 字段中的查看权限，加上数据概览
+INSERT INTO t_role_permission (role_id, permission_id)
+SELECT r.id, p.id
+FROM t_role r
+JOIN t_permission p ON p.code IN ('dashboard:view', 'user:view', 'merchant:view', 'order:view', 'product:view')
+WHERE r.code = 'OPERATOR' AND p.deleted = 0
+ON CONFLICT (role_id, permission_id) DO NOTHING;
+
+-- 完成
+SELECT '角色权限表创建完成！' AS message;
@@ -0,0 +1,98 @@
+-- ====================================
+-- 铃鲜好物 - 平台统计表、平台分维度统计表、用户活跃表
+-- 订单、退款、用户事件发生时按事件时间增量写入小时与日统计，管理后台统计接口直接读取；
+-- 历史数据建表后调用 POST /admin/statistics/backfill?startDate=&endDate= 按天回填
+-- ====================================
+
+CREATE TABLE IF NOT EXISTS t_platform_stats (
+    id BIGSERIAL PRIMARY KEY,
+    period_type SMALLINT NOT NULL,
+    period_start TIMESTAMP NOT NULL,
+    created_orders BIGINT NOT NULL DEFAULT 0,
+    paid_orders BIGINT NOT NULL DEFAULT 0,
+    sales_amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    completed_orders BIGINT NOT NULL DEFAULT 0,
+    cancelled_orders BIGINT NOT NULL DEFAULT 0,
+    refund_count BIGINT NOT NULL DEFAULT 0,
+    refund_amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    new_users BIGINT NOT NULL DEFAULT 0,
+    active_users BIGINT NOT NULL DEFAULT 0,
+    ordering_users BIGINT NOT NULL DEFAULT 0,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_platform_stats UNIQUE (period_type, period_start)
+);
+
+COMMENT ON TABLE t_platform_stats IS '平台统计表（按小时、按天）';
+COMMENT ON COLUMN t_platform_stats.period_type IS '统计周期：0-小时 1-天';
+COMMENT ON COLUMN t_platform_stats.period_start IS '周期开始时间（整点或零点）';
+COMMENT ON COLUMN t_platform_stats.created_orders IS '下单数';
+COMMENT ON COLUMN t_platform_stats.paid_orders IS '支付订单数';
+COMMENT ON COLUMN t_platform_stats.sales_amount IS '销售额（实付金额合计）';
+COMMENT ON COLUMN t_platform_stats.completed_orders IS '完成订单数';
+COMMENT ON COLUMN t_platform_stats.cancelled_orders IS '取消订单数';
+COMMENT ON COLUMN t_platform_stats.refund_count IS '退款数（已支付订单被拒单及退款审核通过）';
+COMMENT ON COLUMN t_platform_stats.refund_amount IS '退款金额';
+COMMENT ON COLUMN t_platform_stats.new_users IS '新增用户数';
+COMMENT ON COLUMN t_platform_stats.active_users IS '活跃用户数（按天去重）';
+COMMENT ON COLUMN t_platform_stats.ordering_users IS '下单用户数（按天去重）';
+
+CREATE TABLE IF NOT EXISTS t_platform_dim_stats (
+    id BIGSERIAL PRIMARY KEY,
+    stat_date DATE NOT NULL,
+    dimension SMALLINT NOT NULL,
+    dim_key BIGINT NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_platform_dim_stats UNIQUE (stat_date, dimension, dim_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_platform_dim_stats_dimension ON t_platform_dim_stats (dimension, stat_date);
+
+COMMENT ON TABLE t_platform_dim_stats IS '平台分维度日统计表';
+COMMENT ON COLUMN t_platform_dim_stats.dimension IS '统计维度：1-订单类型 2-支付方式 3-商品分类';
+COMMENT ON COLUMN t_platform_dim_stats.dim_key IS '维度取值（订单类型、支付方式或分类ID）';
+COMMENT ON COLUMN t_platform_dim_stats.order_count IS '订单数（订单类型按下单，支付方式与分类按支付）';
+COMMENT ON COLUMN t_platform_dim_stats.amount IS '金额（分类维度为该分类商品小计）';
+
+CREATE TABLE IF NOT EXISTS t_user_activity (
+    user_id BIGINT PRIMARY KEY,
+    last_active_date DATE,
+    last_order_date DATE,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_activity_active ON t_user_activity (last_active_date);
+
+COMMENT ON TABLE t_user_activity IS '用户活跃表（每个用户一行）';
+COMMENT ON COLUMN t_user_activity.last_active_date IS '最近活跃日期';
+COMMENT ON COLUMN t_user_activity.last_order_date IS '最近支付日期';
+COMMENT ON COLUMN t_user_activity.order_count IS '已支付订单数';
+
+-- 回填按天读取订单、退款、用户，需以下索引；订单按 (时间, ID) 游标分批读取
+DROP INDEX IF EXISTS idx_order_pay_time;
+DROP INDEX IF EXISTS idx_order_cancel_time;
+DROP INDEX IF EXISTS idx_order_complete_time;
+CREATE INDEX IF NOT EXISTS idx_order_create_time_id ON t_order (create_time, id);
+CREATE INDEX IF NOT EXISTS idx_order_pay_time_id ON t_order (pay_time, id);
+CREATE INDEX IF NOT EXISTS idx_order_cancel_time_id ON t_order (cancel_time, id);
+CREATE INDEX IF NOT EXISTS idx_order_complete_time_id ON t_order (complete_time, id);
+CREATE INDEX IF NOT EXISTS idx_refund_audit_time ON t_refund (audit_time);
+CREATE INDEX IF NOT EXISTS idx_user_create_time ON t_user (create_time);
+CREATE INDEX IF NOT EXISTS idx_user_last_login_time ON t_user (last_login_time);
+
+-- 用户活跃表初始化：最近登录与下单情况
+INSERT INTO t_user_activity (user_id, last_active_date, order_count, update_time)
+SELECT id, last_login_time::date, 0, CURRENT_TIMESTAMP
+FROM t_user WHERE deleted = 0
+ON CONFLICT (user_id) DO NOTHING;
+
+INSERT INTO t_user_activity (user_id, last_active_date, last_order_date, order_count, update_time)
+SELECT user_id, MAX(pay_time)::date, MAX(pay_time)::date, COUNT(*), CURRENT_TIMESTAMP
+FROM t_order WHERE pay_time IS NOT NULL AND user_id IS NOT NULL
+GROUP BY user_id
+ON CONFLICT (user_id) DO UPDATE SET last_order_date = EXCLUDED.last_order_date,
+    order_count = EXCLUDED.order_count,
+    last_active_date = GREATEST(t_user_activity.last_active_date, EXCLUDED.last_active_date),
+    update_time = CURRENT_TIMESTAMP;
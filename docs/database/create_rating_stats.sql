@@ -0,0 +1,72 @@
+-- ====================================
+-- 铃鲜好物 - 评分统计表
+-- 按商品、商户、平台维护评价数、评分合计、星级分布和待回复数，
+-- 评价新增、回复、显示隐藏、删除时增量更新，统计接口直接读取
+-- ====================================
+
+CREATE TABLE IF NOT EXISTS t_rating_stats (
+    id BIGSERIAL PRIMARY KEY,
+    target_type SMALLINT NOT NULL,
+    target_id BIGINT NOT NULL,
+    rating_count BIGINT NOT NULL DEFAULT 0,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    star_1 BIGINT NOT NULL DEFAULT 0,
+    star_2 BIGINT NOT NULL DEFAULT 0,
+    star_3 BIGINT NOT NULL DEFAULT 0,
+    star_4 BIGINT NOT NULL DEFAULT 0,
+    star_5 BIGINT NOT NULL DEFAULT 0,
+    unreplied_count BIGINT NOT NULL DEFAULT 0,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_rating_stats_target UNIQUE (target_type, target_id)
+);
+
+COMMENT ON TABLE t_rating_stats IS '评分统计表';
+COMMENT ON COLUMN t_rating_stats.target_type IS '统计对象类型 0-平台 1-商品 2-商户';
+COMMENT ON COLUMN t_rating_stats.target_id IS '统计对象ID，平台为0';
+COMMENT ON COLUMN t_rating_stats.rating_count IS '评价数（商品只计显示中的评价，商户和平台计全部未删除评价）';
+COMMENT ON COLUMN t_rating_stats.rating_sum IS '评分合计';
+COMMENT ON COLUMN t_rating_stats.star_1 IS '1星评价数';
+COMMENT ON COLUMN t_rating_stats.star_2 IS '2星评价数';
+COMMENT ON COLUMN t_rating_stats.star_3 IS '3星评价数';
+COMMENT ON COLUMN t_rating_stats.star_4 IS '4星评价数';
+COMMENT ON COLUMN t_rating_stats.star_5 IS '5星评价数';
+COMMENT ON COLUMN t_rating_stats.unreplied_count IS '待回复评价数（商户、平台）';
+
+-- 回填现有评价（与 RatingStatsService.rebuild 一致）
+DELETE FROM t_rating_stats;
+
+INSERT INTO t_rating_stats (target_type, target_id, rating_count, rating_sum,
+                            star_1, star_2, star_3, star_4, star_5, unreplied_count)
+SELECT 1, product_id, COUNT(*), COALESCE(SUM(LEAST(5, GREATEST(1, COALESCE(rating, 5)))), 0),
+       COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 1), COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 2),
+       COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 3), COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 4),
+       COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 5), 0
+FROM t_product_comment
+WHERE deleted = 0 AND status = 1 AND product_id IS NOT NULL
+GROUP BY product_id;
+
+INSERT INTO t_rating_stats (target_type, target_id, rating_count, rating_sum,
+                            star_1, star_2, star_3, star_4, star_5, unreplied_count)
+SELECT 2, merchant_id, COUNT(*), COALESCE(SUM(LEAST(5, GREATEST(1, COALESCE(rating, 5)))), 0),
+       COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 1), COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 2),
+       COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 3), COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 4),
+       COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 5), COUNT(*) FILTER (WHERE reply_content IS NULL)
+FROM t_product_comment
+WHERE deleted = 0 AND merchant_id IS NOT NULL
+GROUP BY merchant_id;
+
+INSERT INTO t_rating_stats (target_type, target_id, rating_count, rating_sum,
+                            star_1, star_2, star_3, star_4, star_5, unreplied_count)
+SELECT 0, 0, COUNT(*), COALESCE(SUM(LEAST(5, GREATEST(1, COALESCE(rating, 5)))), 0),
+       COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 1), COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 2),
+       COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 3), COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 4),
+       COUNT(*) FILTER (WHERE LEAST(5, GREATEST(1, COALESCE(rating, 5))) = 5), COUNT(*) FILTER (WHERE reply_content IS NULL)
+FROM t_product_comment
+WHERE deleted = 0;
+
+UPDATE t_merchant m SET rating = ROUND(s.rating_sum::numeric / s.rating_count, 1)
+FROM t_rating_stats s
+WHERE s.target_type = 2 AND s.target_id = m.id AND s.rating_count > 0;
+
+-- 完成
+SELECT '评分统计表创建完成！' AS message;
@@ -413,17 +413,15 @@ CREATE TABLE t_system_config (
 
 COMMENT ON TABLE t_system_config IS '系统配置表';
 
--- 初始化配置数据
+-- 初始化配置数据（键为 "分组.字段"，定义及默认值见 SystemConfigKey）
 INSERT INTO t_system_config (config_key, config_value, description) VALUES
-('points_sign_in_daily', '5', '每日签到积分'),
-('points_order_rate', '1', '订单金额积分比例(1元=N积分)'),
-('points_invite_reward', '100', '邀请新用户奖励积分'),
-('points_exchange_rate', '100', '积分兑换比例(N积分=1元)'),
-('delivery_default_fee', '3.00', '默认配送费'),
-('delivery_free_amount', '30.00', '免配送费金额'),
-('delivery_max_distance', '5', '最大配送距离(公里)'),
-('group_expire_hours', '24', '拼团过期时间(小时)'),
-('group_max_participants', '10', '最大参团人数');
+('order.autoCancelMinutes', '30', '未支付自动取消(分钟)'),
+('order.autoReceiveDays', '7', '发货后自动确认收货(天)'),
+('order.autoCompleteHours', '24', '收货后自动完成(小时)'),
+('delivery.defaultFreight', '5', '默认运费'),
+('points.signInPoints', '10', '每日签到积分'),
+('commission.minWithdrawAmount', '10', '最低提现金额'),
+('commission.withdrawFeeRate', '0.006', '提现手续费率');
 
 -- 初始化管理员账号 (密码: admin123)
 INSERT INTO t_admin_user (username, password, real_name, role_id, status) VALUES
@@ -0,0 +1,24 @@
+-- ====================================
+-- 铃鲜好物 - 拼团成员唯一约束
+-- 参团在 Redis 中原子完成后异步批量写入 t_group_member，
+-- 写入使用 ON CONFLICT (group_id, user_id) DO NOTHING，重复回写不会产生重复成员
+-- ====================================
+
+-- 清理历史并发参团产生的重复成员，保留最早的一条
+DELETE FROM t_group_member m
+USING t_group_member d
+WHERE m.group_id = d.group_id
+  AND m.user_id = d.user_id
+  AND m.id > d.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_group_member_group_user ON t_group_member(group_id, user_id);
+
+-- 按实际成员数修正拼团人数
+UPDATE t_group_record r
+SET current_size = c.member_count
+FROM (SELECT group_id, COUNT(*) AS member_count FROM t_group_member GROUP BY group_id) c
+WHERE r.id = c.group_id
+  AND r.current_size <> c.member_count;
+
+-- 完成
+SELECT '拼团成员唯一约束创建完成！' AS message;
@@ -0,0 +1,98 @@
+-- ====================================
+-- 铃鲜好物 - 商户统计时间序列
+-- 商户日统计增加收货、完成、取消计数；新增商户月汇总表与商品日销量表，
+-- 商户端数据统计按日/按月读取，并与上一周期对比
+-- 依赖 create_merchant_daily_stats.sql
+-- ====================================
+
+ALTER TABLE t_merchant_daily_stats ADD COLUMN IF NOT EXISTS received_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE t_merchant_daily_stats ADD COLUMN IF NOT EXISTS completed_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE t_merchant_daily_stats ADD COLUMN IF NOT EXISTS cancelled_count BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN t_merchant_daily_stats.received_count IS '已收货订单数';
+COMMENT ON COLUMN t_merchant_daily_stats.completed_count IS '已完成订单数';
+COMMENT ON COLUMN t_merchant_daily_stats.cancelled_count IS '已支付后取消（拒单）订单数';
+
+CREATE TABLE IF NOT EXISTS t_merchant_monthly_stats (
+    id BIGSERIAL PRIMARY KEY,
+    merchant_id BIGINT NOT NULL,
+    stat_month DATE NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    sales_amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    delivered_count BIGINT NOT NULL DEFAULT 0,
+    pending_count BIGINT NOT NULL DEFAULT 0,
+    received_count BIGINT NOT NULL DEFAULT 0,
+    completed_count BIGINT NOT NULL DEFAULT 0,
+    cancelled_count BIGINT NOT NULL DEFAULT 0,
+    refund_count BIGINT NOT NULL DEFAULT 0,
+    refund_amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    new_customers BIGINT NOT NULL DEFAULT 0,
+    returning_customers BIGINT NOT NULL DEFAULT 0,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_merchant_monthly_stats UNIQUE (merchant_id, stat_month)
+);
+
+COMMENT ON TABLE t_merchant_monthly_stats IS '商户月统计表（由日统计汇总）';
+COMMENT ON COLUMN t_merchant_monthly_stats.stat_month IS '统计月份（月初日期）';
+
+CREATE TABLE IF NOT EXISTS t_product_daily_sales (
+    id BIGSERIAL PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    stat_date DATE NOT NULL,
+    merchant_id BIGINT NOT NULL,
+    category_id BIGINT,
+    quantity BIGINT NOT NULL DEFAULT 0,
+    amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_product_daily_sales UNIQUE (product_id, stat_date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_daily_sales_merchant ON t_product_daily_sales (merchant_id, stat_date);
+
+COMMENT ON TABLE t_product_daily_sales IS '商品日销量表';
+COMMENT ON COLUMN t_product_daily_sales.stat_date IS '统计日期（订单下单日期）';
+COMMENT ON COLUMN t_product_daily_sales.quantity IS '销量（已支付且未取消）';
+COMMENT ON COLUMN t_product_daily_sales.amount IS '销售金额（订单项小计合计）';
+COMMENT ON COLUMN t_product_daily_sales.order_count IS '订单数';
+
+-- 回填现有订单（与 MerchantDailyStatsService.rebuildDays 一致）
+UPDATE t_merchant_daily_stats s
+SET received_count = o.received_count,
+    completed_count = o.completed_count,
+    cancelled_count = o.cancelled_count
+FROM (SELECT merchant_id, create_time::date AS stat_date,
+             COUNT(*) FILTER (WHERE receive_time IS NOT NULL) AS received_count,
+             COUNT(*) FILTER (WHERE status = 5) AS completed_count,
+             COUNT(*) FILTER (WHERE status = 6) AS cancelled_count
+      FROM t_order
+      WHERE pay_time IS NOT NULL AND merchant_id IS NOT NULL
+      GROUP BY merchant_id, create_time::date) o
+WHERE s.merchant_id = o.merchant_id AND s.stat_date = o.stat_date;
+
+DELETE FROM t_merchant_monthly_stats;
+
+INSERT INTO t_merchant_monthly_stats (merchant_id, stat_month, order_count, sales_amount,
+                                      delivered_count, pending_count, received_count, completed_count,
+                                      cancelled_count, refund_count, refund_amount,
+                                      new_customers, returning_customers)
+SELECT merchant_id, date_trunc('month', stat_date)::date, SUM(order_count), SUM(sales_amount),
+       SUM(delivered_count), SUM(pending_count), SUM(received_count), SUM(completed_count),
+       SUM(cancelled_count), SUM(refund_count), SUM(refund_amount),
+       SUM(new_customers), SUM(returning_customers)
+FROM t_merchant_daily_stats
+GROUP BY merchant_id, date_trunc('month', stat_date);
+
+DELETE FROM t_product_daily_sales;
+
+INSERT INTO t_product_daily_sales (product_id, stat_date, merchant_id, category_id, quantity, amount, order_count)
+SELECT oi.product_id, o.create_time::date, MIN(o.merchant_id), MIN(p.category_id), SUM(oi.quantity),
+       COALESCE(SUM(oi.total_amount), 0), COUNT(DISTINCT o.id)
+FROM t_order_item oi
+JOIN t_order o ON o.id = oi.order_id
+LEFT JOIN t_product p ON p.id = oi.product_id
+WHERE o.pay_time IS NOT NULL AND o.status <> 6 AND o.merchant_id IS NOT NULL
+GROUP BY oi.product_id, o.create_time::date;
+
+-- 完成
+SELECT '商户统计时间序列表创建完成！' AS message;
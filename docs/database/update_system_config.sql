@@ -0,0 +1,54 @@
+-- ====================================
+-- 铃鲜好物 - 系统配置
+-- 配置项键为 "分组.字段"（与管理后台系统配置接口一致），定义及默认值见 SystemConfigKey；
+-- 表中没有的配置项取默认值，保存配置时按键覆盖写入
+-- ====================================
+
+CREATE TABLE IF NOT EXISTS t_system_config (
+    id BIGSERIAL PRIMARY KEY,
+    config_key VARCHAR(64) NOT NULL,
+    config_value TEXT,
+    description VARCHAR(256),
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_system_config_key ON t_system_config(config_key);
+
+COMMENT ON TABLE t_system_config IS '系统配置表';
+COMMENT ON COLUMN t_system_config.config_key IS '配置键（分组.字段）';
+COMMENT ON COLUMN t_system_config.config_value IS '配置值';
+
+-- 初始化当前线上使用的取值
+INSERT INTO t_system_config (config_key, config_value, description) VALUES
+('order.autoCancelMinutes', '30', '未支付自动取消(分钟)'),
+('order.autoReceiveDays', '7', '发货后自动确认收货(天)'),
+('order.autoCompleteHours', '24', '收货后自动完成(小时)'),
+('delivery.defaultFreight', '5', '默认运费'),
+('points.signInPoints', '10', '每日签到积分'),
+('commission.minWithdrawAmount', '10', '最低提现金额'),
+('commission.withdrawFeeRate', '0.006', '提现手续费率')
+ON CONFLICT (config_key) DO NOTHING;
+
+-- 迁移旧版 schema.sql 初始化的下划线键。旧键从未被代码读取，上面已写入线上取值的配置项以上面为准，
+-- 其余改名为新键保留原取值
+UPDATE t_system_config c
+SET config_key = m.new_key, description = m.description, update_time = CURRENT_TIMESTAMP
+FROM (VALUES
+    ('points_sign_in_daily', 'points.signInPoints', '每日签到积分'),
+    ('points_order_rate', 'points.orderPointsRate', '订单金额积分比例(1元=N积分)'),
+    ('points_exchange_rate', 'points.pointsToMoneyRate', '积分兑换比例(N积分=1元)'),
+    ('delivery_default_fee', 'delivery.defaultFreight', '默认运费'),
+    ('delivery_free_amount', 'delivery.freeShippingAmount', '免运费金额')
+) AS m(old_key, new_key, description)
+WHERE c.config_key = m.old_key
+  AND NOT EXISTS (SELECT 1 FROM t_system_config e WHERE e.config_key = m.new_key);
+
+-- 删除剩余旧键：已有新键的重复项，以及没有对应配置项的邀请奖励、配送距离、拼团设置
+DELETE FROM t_system_config
+WHERE config_key IN ('points_sign_in_daily', 'points_order_rate', 'points_invite_reward', 'points_exchange_rate',
+                     'delivery_default_fee', 'delivery_free_amount', 'delivery_max_distance',
+                     'group_expire_hours', 'group_max_participants');
+
+-- 完成
+SELECT '系统配置表更新完成！' AS message;
@@ -0,0 +1,89 @@
+package com.lingxian.admin.config;
+
+import com.lingxian.common.cache.AdminPermissionIndex;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 管理后台接口鉴权
+ * 按请求路径前缀确定所属模块，查询类请求需要 "模块:view" 权限，其余需要 "模块:edit" 权限；
+ * 不修改数据的 POST 等动作接口在 {@link #ACTIONS} 中单独指定权限；
+ * 未归属任何模块的接口（如上传、个人信息）只要求已登录且账号可用。判断由 {@link AdminPermissionIndex} 的位掩码完成，不访问数据库。
+ */
+@Component
+@RequiredArgsConstructor
+public class AdminPermissionAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    /**
+     * 路径前缀 -> 权限模块，与管理后台菜单对应
+     */
+    private static final Map<String, String> MODULES = new LinkedHashMap<>();
+
+    static {
+        MODULES.put("/admin/dashboard", "dashboard");
+        MODULES.put("/admin/statistics", "dashboard");
+        MODULES.put("/admin/users", "user");
+        MODULES.put("/admin/merchants", "merchant");
+        MODULES.put("/admin/products", "product");
+        MODULES.put("/admin/categories", "product");
+        MODULES.put("/admin/orders", "order");
+        MODULES.put("/admin/refunds", "order");
+        MODULES.put("/admin/reviews", "order");
+        MODULES.put("/admin/groups", "group");
+        MODULES.put("/admin/banners", "marketing");
+        MODULES.put("/admin/system", "system");
+    }
+
+    /**
+     * 动作接口 "请求方法 路径" -> 权限编码，优先于按模块和请求方法推断。
+     * 异步导出只读取订单，与同步导出 GET /admin/orders/export 一样只需要查看权限
+     */
+    private static final Map<String, String> ACTIONS = Map.of(
+            "POST /admin/orders/export/jobs", "order:view"
+    );
+
+    private final AdminPermissionIndex adminPermissionIndex;
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        HttpServletRequest request = context.getRequest();
+        Object adminId = request.getAttribute(JwtAuthenticationFilter.ADMIN_ID_ATTRIBUTE);
+        if (!(adminId instanceof Long id)) {
+            return new AuthorizationDecision(false);
+        }
+        String code = requiredPermission(request);
+        return new AuthorizationDecision(code != null
+                ? adminPermissionIndex.hasPermission(id, code)
+                : adminPermissionIndex.isActive(id));
+    }
+
+    /**
+     * 请求所需的权限编码，不需要具体权限时返回null
+     */
+    private static String requiredPermission(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String action = ACTIONS.get(request.getMethod() + " " + path);
+        if (action != null) {
+            return action;
+        }
+        for (Map.Entry<String, String> entry : MODULES.entrySet()) {
+            String prefix = entry.getKey();
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                String method = request.getMethod();
+                boolean read = HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+                return entry.getValue() + (read ? ":view" : ":edit");
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.lingxian.admin.config;
+
+import com.lingxian.common.util.JwtPrincipal;
+import com.lingxian.common.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * JWT认证过滤器 - 管理后台
+ * 从Authorization头提取JWT，验证后将管理员ID设置到X-Admin-Id请求头；
+ * 同时写入请求属性 {@link #ADMIN_ID_ATTRIBUTE}，鉴权只认该属性；客户端自带的X-Admin-Id请求头总是被移除
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String ADMIN_ID_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".adminId";
+
+    private static final String ADMIN_ID_HEADER = "X-Admin-Id";
+
+    private final JwtUtil jwtUtil;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        // 客户端自带的管理员ID请求头一律移除，只有令牌有效时才由过滤器写入
+        MutableHttpServletRequest mutableRequest = new MutableHttpServletRequest(request);
+        mutableRequest.removeHeader(ADMIN_ID_HEADER);
+
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            String token = authorization.substring(7);
+
+            try {
+                JwtPrincipal principal = jwtUtil.verify(token);
+                if (principal != null && principal.hasRole(JwtPrincipal.ROLE_ADMIN)) {
+                    mutableRequest.putHeader(ADMIN_ID_HEADER, String.valueOf(principal.userId()));
+                    mutableRequest.setAttribute(ADMIN_ID_ATTRIBUTE, principal.userId());
+                }
+            } catch (Exception e) {
+                log.warn("JWT验证失败: {}", e.getMessage());
+            }
+        }
+
+        filterChain.doFilter(mutableRequest, response);
+    }
+}
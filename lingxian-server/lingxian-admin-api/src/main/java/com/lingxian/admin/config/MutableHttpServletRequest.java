@@ -0,0 +1,70 @@
+package com.lingxian.admin.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.util.*;
+
+/**
+ * 可修改请求头的HttpServletRequest包装类
+ * 请求头名称不区分大小写；移除的请求头对后续处理不可见，客户端自带的同名请求头也一并屏蔽
+ */
+public class MutableHttpServletRequest extends HttpServletRequestWrapper {
+
+    private final Map<String, String> customHeaders;
+    private final Set<String> removedHeaders;
+
+    public MutableHttpServletRequest(HttpServletRequest request) {
+        super(request);
+        this.customHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.removedHeaders = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    public void putHeader(String name, String value) {
+        this.removedHeaders.remove(name);
+        this.customHeaders.put(name, value);
+    }
+
+    public void removeHeader(String name) {
+        this.customHeaders.remove(name);
+        this.removedHeaders.add(name);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        String headerValue = customHeaders.get(name);
+        if (headerValue != null) {
+            return headerValue;
+        }
+        if (removedHeaders.contains(name)) {
+            return null;
+        }
+        return ((HttpServletRequest) getRequest()).getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        set.addAll(customHeaders.keySet());
+        Enumeration<String> e = ((HttpServletRequest) getRequest()).getHeaderNames();
+        while (e.hasMoreElements()) {
+            String name = e.nextElement();
+            if (!removedHeaders.contains(name)) {
+                set.add(name);
+            }
+        }
+        return Collections.enumeration(set);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        String customValue = customHeaders.get(name);
+        if (customValue != null) {
+            return Collections.enumeration(Collections.singletonList(customValue));
+        }
+        if (removedHeaders.contains(name)) {
+            return Collections.emptyEnumeration();
+        }
+        return ((HttpServletRequest) getRequest()).getHeaders(name);
+    }
+}
@@ -1,17 +1,33 @@
 package com.lingxian.admin.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lingxian.common.result.Result;
+import com.lingxian.common.result.ResultCode;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 @Configuration
 @EnableWebSecurity
+@RequiredArgsConstructor
 public class SecurityConfig {
 
+    private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AdminPermissionAuthorizationManager adminPermissionAuthorizationManager;
+    private final ObjectMapper objectMapper;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -21,16 +37,38 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             // 配置请求授权
             .authorizeHttpRequests(auth -> auth
-                // 放行所有管理后台接口 (开发阶段)
-                .requestMatchers("/admin/**").permitAll()
+                // 放行跨域预检请求
+                .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                // 放行登录接口
+                .requestMatchers("/admin/auth/login").permitAll()
+                // 管理后台接口按角色权限鉴权
+                .requestMatchers("/admin/**").access(adminPermissionAuthorizationManager)
                 // 放行 Swagger 文档
                 .requestMatchers("/doc.html", "/webjars/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-resources/**").permitAll()
                 // 放行健康检查
                 .requestMatchers("/actuator/**").permitAll()
                 // 其他请求需要认证
                 .anyRequest().authenticated()
-            );
+            )
+            // 未登录返回401，已登录但无权限返回403
+            .exceptionHandling(exception -> exception
+                .authenticationEntryPoint((request, response, e) -> {
+                    boolean loggedIn = request.getAttribute(JwtAuthenticationFilter.ADMIN_ID_ATTRIBUTE) != null;
+                    writeFailure(response, loggedIn ? ResultCode.FORBIDDEN : ResultCode.UNAUTHORIZED);
+                })
+                .accessDeniedHandler((request, response, e) -> writeFailure(response, ResultCode.FORBIDDEN))
+            )
+            // 添加 JWT 过滤器
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
+
+    private void writeFailure(HttpServletResponse response, ResultCode resultCode) throws IOException {
+        response.setStatus(resultCode == ResultCode.UNAUTHORIZED
+                ? HttpServletResponse.SC_UNAUTHORIZED : HttpServletResponse.SC_FORBIDDEN);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getWriter(), Result.failed(resultCode));
+    }
 }
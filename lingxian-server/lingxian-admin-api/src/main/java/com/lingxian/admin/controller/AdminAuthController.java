@@ -1,10 +1,21 @@
 package com.lingxian.admin.controller;
 
+import com.lingxian.common.cache.AdminPermissionIndex;
+import com.lingxian.common.entity.AdminUser;
+import com.lingxian.common.exception.BusinessException;
 import com.lingxian.common.result.Result;
+import com.lingxian.common.service.AdminUserService;
+import com.lingxian.common.util.JwtPrincipal;
+import com.lingxian.common.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
@@ -16,27 +27,38 @@ import java.util.*;
 @Tag(name = "管理后台-认证", description = "管理后台认证登录接口")
 public class AdminAuthController {
 
+    private final JwtUtil jwtUtil;
+    private final AdminUserService adminUserService;
+    private final AdminPermissionIndex adminPermissionIndex;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
     @PostMapping("/login")
     @Operation(summary = "管理员登录")
-    public Result<Map<String, Object>> login(@RequestBody Map<String, String> body) {
+    public Result<Map<String, Object>> login(@RequestBody Map<String, String> body, HttpServletRequest request) {
         String username = body.get("username");
         String password = body.get("password");
         log.info("管理员登录: {}", username);
 
-        // TODO: 实际验证逻辑
-        // 模拟登录成功
-        Map<String, Object> data = new HashMap<>();
-        data.put("token", "mock_admin_token_" + System.currentTimeMillis());
+        if (!StringUtils.hasText(username) || !StringUtils.hasText(password)) {
+            throw new BadCredentialsException("用户名或密码为空");
+        }
+        AdminUser admin = adminUserService.getByUsername(username);
+        // 用户不存在与密码错误返回相同结果，避免探测用户名
+        if (admin == null || admin.getPassword() == null || !passwordEncoder.matches(password, admin.getPassword())) {
+            throw new BadCredentialsException("用户名或密码错误: " + username);
+        }
+        if (!Integer.valueOf(1).equals(admin.getStatus())) {
+            throw new DisabledException("管理员已被禁用: " + username);
+        }
 
-        Map<String, Object> adminInfo = new HashMap<>();
-        adminInfo.put("id", 1);
-        adminInfo.put("username", username);
-        adminInfo.put("realName", "超级管理员");
-        adminInfo.put("avatar", "");
-        adminInfo.put("roles", Arrays.asList("admin"));
-        adminInfo.put("permissions", Arrays.asList("*"));
-        data.put("userInfo", adminInfo);
+        adminUserService.updateLoginInfo(admin.getId(), clientIp(request));
+        adminPermissionIndex.onAdminLogin(admin.getId());
 
+        Map<String, Object> data = new HashMap<>();
+        data.put("token", jwtUtil.generateToken(admin.getId(), JwtPrincipal.ROLE_ADMIN,
+                Collections.singletonMap("username", admin.getUsername())));
+        data.put("userInfo", buildAdminInfo(admin));
         return Result.success(data);
     }
 
@@ -49,24 +71,57 @@ public class AdminAuthController {
 
     @GetMapping("/info")
     @Operation(summary = "获取当前管理员信息")
-    public Result<Map<String, Object>> getAdminInfo() {
-        Map<String, Object> adminInfo = new HashMap<>();
-        adminInfo.put("id", 1);
-        adminInfo.put("username", "admin");
-        adminInfo.put("realName", "超级管理员");
-        adminInfo.put("avatar", "");
-        adminInfo.put("roles", Arrays.asList("admin"));
-        adminInfo.put("permissions", Arrays.asList("*"));
-        return Result.success(adminInfo);
+    public Result<Map<String, Object>> getAdminInfo(@RequestHeader("X-Admin-Id") Long adminId) {
+        AdminUser admin = adminUserService.getById(adminId);
+        if (admin == null) {
+            throw new BadCredentialsException("管理员不存在: " + adminId);
+        }
+        return Result.success(buildAdminInfo(admin));
     }
 
     @PutMapping("/password")
     @Operation(summary = "修改密码")
-    public Result<Void> updatePassword(@RequestBody Map<String, String> body) {
+    public Result<Void> updatePassword(@RequestHeader("X-Admin-Id") Long adminId,
+                                       @RequestBody Map<String, String> body) {
         String oldPassword = body.get("oldPassword");
         String newPassword = body.get("newPassword");
-        log.info("管理员修改密码");
-        // TODO: 实际修改密码逻辑
+        if (!StringUtils.hasText(oldPassword) || !StringUtils.hasText(newPassword)) {
+            throw new BusinessException("密码不能为空");
+        }
+        AdminUser admin = adminUserService.getById(adminId);
+        if (admin == null || !passwordEncoder.matches(oldPassword, admin.getPassword())) {
+            throw new BusinessException("原密码错误");
+        }
+
+        AdminUser update = new AdminUser();
+        update.setId(adminId);
+        update.setPassword(passwordEncoder.encode(newPassword));
+        adminUserService.updateById(update);
+        log.info("管理员修改密码: adminId={}", adminId);
         return Result.success();
     }
+
+    private Map<String, Object> buildAdminInfo(AdminUser admin) {
+        Map<String, Object> adminInfo = new HashMap<>();
+        adminInfo.put("id", admin.getId());
+        adminInfo.put("username", admin.getUsername());
+        adminInfo.put("realName", admin.getRealName());
+        adminInfo.put("avatar", admin.getAvatar() != null ? admin.getAvatar() : "");
+        adminInfo.put("roles", roleCodes(admin.getId()));
+        adminInfo.put("permissions", adminPermissionIndex.getPermissionCodes(admin.getId()));
+        return adminInfo;
+    }
+
+    private static String clientIp(HttpServletRequest request) {
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (StringUtils.hasText(forwarded)) {
+            return forwarded.split(",")[0].trim();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private List<String> roleCodes(Long adminId) {
+        String roleCode = adminPermissionIndex.getRoleCode(adminId);
+        return roleCode != null ? Collections.singletonList(roleCode) : Collections.emptyList();
+    }
 }
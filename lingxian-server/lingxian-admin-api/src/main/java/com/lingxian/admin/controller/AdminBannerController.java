@@ -2,6 +2,7 @@ package com.lingxian.admin.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.HomeFeedCache;
 import com.lingxian.common.entity.Banner;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
@@ -23,6 +24,7 @@ import java.util.*;
 public class AdminBannerController {
 
     private final BannerService bannerService;
+    private final HomeFeedCache homeFeedCache;
 
     @GetMapping
     @Operation(summary = "获取轮播图列表")
@@ -80,6 +82,7 @@ public class AdminBannerController {
         }
 
         bannerService.save(banner);
+        homeFeedCache.evictAll();
         return Result.success(banner);
     }
 
@@ -95,6 +98,7 @@ public class AdminBannerController {
 
         banner.setId(id);
         bannerService.updateById(banner);
+        homeFeedCache.evictAll();
         return Result.success();
     }
 
@@ -109,6 +113,7 @@ public class AdminBannerController {
         }
 
         bannerService.removeById(id);
+        homeFeedCache.evictAll();
         return Result.success();
     }
 
@@ -128,6 +133,7 @@ public class AdminBannerController {
             bannerService.updateById(banner);
         }
 
+        homeFeedCache.evictAll();
         return Result.success();
     }
 
@@ -146,6 +152,7 @@ public class AdminBannerController {
             bannerService.updateById(banner);
         }
 
+        homeFeedCache.evictAll();
         return Result.success();
     }
 }
@@ -2,9 +2,12 @@ package com.lingxian.admin.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.CategoryTree;
+import com.lingxian.common.cache.HomeFeedCache;
 import com.lingxian.common.entity.Category;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
+import com.lingxian.common.search.ProductSearchIndex;
 import com.lingxian.common.service.CategoryService;
 import com.lingxian.common.util.ImageUrlUtil;
 import io.swagger.v3.oas.annotations.Operation;
@@ -28,6 +31,9 @@ public class AdminCategoryController {
 
     private final CategoryService categoryService;
     private final ImageUrlUtil imageUrlUtil;
+    private final ProductSearchIndex productSearchIndex;
+    private final CategoryTree categoryTree;
+    private final HomeFeedCache homeFeedCache;
 
     @GetMapping
     @Operation(summary = "获取分类列表")
@@ -75,6 +81,8 @@ public class AdminCategoryController {
         category.setCreateTime(LocalDateTime.now());
         category.setUpdateTime(LocalDateTime.now());
         categoryService.save(category);
+        categoryTree.onCategoryChanged(category.getId());
+        homeFeedCache.evictAll();
 
         return Result.success(category);
     }
@@ -102,6 +110,11 @@ public class AdminCategoryController {
         }
 
         categoryService.updateById(category);
+        categoryTree.onCategoryChanged(id);
+        if (category.getName() != null && !category.getName().equals(existing.getName())) {
+            productSearchIndex.onCategoryChanged(id);
+        }
+        homeFeedCache.evictAll();
         return Result.success();
     }
 
@@ -111,12 +124,14 @@ public class AdminCategoryController {
         log.info("删除分类: id={}", id);
 
         // 检查是否有子分类
-        long childCount = categoryService.count(new LambdaQueryWrapper<Category>().eq(Category::getParentId, id));
-        if (childCount > 0) {
+        if (categoryTree.hasChildren(id)) {
             return Result.failed("该分类下存在子分类，无法删除");
         }
 
         categoryService.removeById(id);
+        categoryTree.onCategoryChanged(id);
+        productSearchIndex.onCategoryChanged(id);
+        homeFeedCache.evictAll();
         return Result.success();
     }
 
@@ -136,6 +151,8 @@ public class AdminCategoryController {
             categoryService.updateById(category);
         }
 
+        categoryTree.onCategoriesChanged();
+        homeFeedCache.evictAll();
         return Result.success();
     }
 
@@ -1,8 +1,12 @@
 package com.lingxian.admin.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.GroupActivityIndex;
 import com.lingxian.common.entity.*;
+import com.lingxian.common.loader.BatchLoader;
+import com.lingxian.common.loader.BatchLoaders;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.*;
@@ -28,10 +32,10 @@ public class AdminGroupController {
 
     private final GroupActivityService groupActivityService;
     private final GroupRecordService groupRecordService;
-    private final GroupMemberService groupMemberService;
     private final ProductService productService;
-    private final MerchantService merchantService;
-    private final UserService userService;
+    private final GroupBuyService groupBuyService;
+    private final GroupActivityIndex groupActivityIndex;
+    private final BatchLoaders batchLoaders;
 
     private static final String[] ACTIVITY_STATUS_NAMES = {"未开始", "进行中", "已结束", "已下架"};
     private static final String[] RECORD_STATUS_NAMES = {"拼团中", "拼团成功", "拼团失败"};
@@ -56,9 +60,12 @@ public class AdminGroupController {
 
         Page<GroupActivity> pageResult = groupActivityService.page(new Page<>(page, size), wrapper);
 
-        // 填充额外信息
+        // 填充额外信息，整页每类数据只查一次
+        BatchLoader loader = batchLoaders.create();
+        loader.products().primeAll(pageResult.getRecords(), GroupActivity::getProductId);
+        loader.merchants().primeAll(pageResult.getRecords(), GroupActivity::getMerchantId);
         for (GroupActivity activity : pageResult.getRecords()) {
-            fillActivityInfo(activity);
+            fillActivityInfo(activity, loader);
         }
 
         return Result.success(PageResult.of(pageResult.getTotal(), pageResult.getCurrent(), pageResult.getSize(), pageResult.getRecords()));
@@ -74,7 +81,7 @@ public class AdminGroupController {
             return Result.failed("拼团活动不存在");
         }
 
-        fillActivityInfo(activity);
+        fillActivityInfo(activity, batchLoaders.create());
 
         // 统计数据
         long successGroupCount = groupRecordService.count(new LambdaQueryWrapper<GroupRecord>()
@@ -155,6 +162,7 @@ public class AdminGroupController {
         activity.setCreateTime(now);
         activity.setUpdateTime(now);
         groupActivityService.save(activity);
+        groupActivityIndex.onActivityChanged(activity.getId());
 
         return Result.success(activity);
     }
@@ -172,9 +180,9 @@ public class AdminGroupController {
         activity.setId(id);
         activity.setUpdateTime(LocalDateTime.now());
 
-        // 保持原有的统计数据
-        activity.setSoldCount(existing.getSoldCount());
-        activity.setGroupCount(existing.getGroupCount());
+        // 已售数量、开团数由参团流程维护，不随编辑写入
+        activity.setSoldCount(null);
+        activity.setGroupCount(null);
 
         // 根据时间更新状态（如果状态不是已下架）
         if (existing.getStatus() != 3) {
@@ -193,6 +201,10 @@ public class AdminGroupController {
         }
 
         groupActivityService.updateById(activity);
+        if (activity.getStock() != null) {
+            groupBuyService.setActivityStock(id, activity.getStock());
+        }
+        groupActivityIndex.onActivityChanged(id);
         return Result.success();
     }
 
@@ -207,9 +219,12 @@ public class AdminGroupController {
             return Result.failed("拼团活动不存在");
         }
 
-        activity.setStatus(status);
-        activity.setUpdateTime(LocalDateTime.now());
-        groupActivityService.updateById(activity);
+        // 只更新状态，库存等计数由参团流程维护
+        groupActivityService.update(new LambdaUpdateWrapper<GroupActivity>()
+                .eq(GroupActivity::getId, id)
+                .set(GroupActivity::getStatus, status)
+                .set(GroupActivity::getUpdateTime, LocalDateTime.now()));
+        groupActivityIndex.onActivityChanged(id);
         return Result.success();
     }
 
@@ -233,30 +248,34 @@ public class AdminGroupController {
 
         Page<GroupRecord> pageResult = groupRecordService.page(new Page<>(page, size), wrapper);
 
-        // 填充额外信息
-        for (GroupRecord record : pageResult.getRecords()) {
-            fillRecordInfo(record);
+        // 填充额外信息：活动、成员取回后再登记其关联的商品和用户，整页每类数据只查一次
+        List<GroupRecord> records = pageResult.getRecords();
+        BatchLoader loader = batchLoaders.create();
+        loader.users().primeAll(records, GroupRecord::getLeaderId);
+        Map<Long, GroupActivity> activities = loader.groupActivities().getAll(
+                records.stream().map(GroupRecord::getActivityId).toList());
+        loader.products().primeAll(activities.values(), activity -> activity != null ? activity.getProductId() : null);
+        loader.groupMembers().getAll(records.stream().map(GroupRecord::getId).toList())
+                .values().forEach(members -> loader.users().primeAll(members, GroupMember::getUserId));
+        for (GroupRecord record : records) {
+            fillRecordInfo(record, loader);
         }
 
         return Result.success(PageResult.of(pageResult.getTotal(), pageResult.getCurrent(), pageResult.getSize(), pageResult.getRecords()));
     }
 
-    private void fillActivityInfo(GroupActivity activity) {
+    private void fillActivityInfo(GroupActivity activity, BatchLoader loader) {
         // 填充商品信息
-        if (activity.getProductId() != null) {
-            Product product = productService.getById(activity.getProductId());
-            if (product != null) {
-                activity.setProductName(product.getName());
-                activity.setProductImage(product.getImage());
-            }
+        Product product = loader.products().get(activity.getProductId());
+        if (product != null) {
+            activity.setProductName(product.getName());
+            activity.setProductImage(product.getImage());
         }
 
         // 填充商户名称
-        if (activity.getMerchantId() != null) {
-            Merchant merchant = merchantService.getById(activity.getMerchantId());
-            if (merchant != null) {
-                activity.setMerchantName(merchant.getName());
-            }
+        Merchant merchant = loader.merchants().get(activity.getMerchantId());
+        if (merchant != null) {
+            activity.setMerchantName(merchant.getName());
         }
 
         // 填充状态名称
@@ -265,31 +284,25 @@ public class AdminGroupController {
         }
     }
 
-    private void fillRecordInfo(GroupRecord record) {
+    private void fillRecordInfo(GroupRecord record, BatchLoader loader) {
         // 填充活动信息
-        if (record.getActivityId() != null) {
-            GroupActivity activity = groupActivityService.getById(record.getActivityId());
-            if (activity != null) {
-                record.setActivityName(activity.getName());
-                record.setProductId(activity.getProductId());
-
-                if (activity.getProductId() != null) {
-                    Product product = productService.getById(activity.getProductId());
-                    if (product != null) {
-                        record.setProductName(product.getName());
-                        record.setProductImage(product.getImage());
-                    }
-                }
+        GroupActivity activity = loader.groupActivities().get(record.getActivityId());
+        if (activity != null) {
+            record.setActivityName(activity.getName());
+            record.setProductId(activity.getProductId());
+
+            Product product = loader.products().get(activity.getProductId());
+            if (product != null) {
+                record.setProductName(product.getName());
+                record.setProductImage(product.getImage());
             }
         }
 
         // 填充团长信息
-        if (record.getLeaderId() != null) {
-            User leader = userService.getById(record.getLeaderId());
-            if (leader != null) {
-                record.setLeaderNickname(leader.getNickname());
-                record.setLeaderAvatar(leader.getAvatar());
-            }
+        User leader = loader.users().get(record.getLeaderId());
+        if (leader != null) {
+            record.setLeaderNickname(leader.getNickname());
+            record.setLeaderAvatar(leader.getAvatar());
         }
 
         // 填充状态名称
@@ -297,21 +310,13 @@ public class AdminGroupController {
             record.setStatusName(RECORD_STATUS_NAMES[record.getStatus()]);
         }
 
-        // 获取成员列表
-        List<GroupMember> members = groupMemberService.list(
-                new LambdaQueryWrapper<GroupMember>()
-                        .eq(GroupMember::getGroupId, record.getId())
-                        .orderByAsc(GroupMember::getJoinTime)
-        );
-
-        // 填充成员用户信息
+        // 获取成员列表并填充成员用户信息
+        List<GroupMember> members = loader.groupMembers().get(record.getId());
         for (GroupMember member : members) {
-            if (member.getUserId() != null) {
-                User user = userService.getById(member.getUserId());
-                if (user != null) {
-                    member.setNickname(user.getNickname());
-                    member.setAvatar(user.getAvatar());
-                }
+            User user = loader.users().get(member.getUserId());
+            if (user != null) {
+                member.setNickname(user.getNickname());
+                member.setAvatar(user.getAvatar());
             }
         }
 
@@ -2,6 +2,10 @@ package com.lingxian.admin.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.MerchantAvailabilityIndex;
+import com.lingxian.common.cache.MerchantTokenVersions;
+import com.lingxian.common.cache.ProductDetailCache;
+import com.lingxian.common.search.ProductSearchIndex;
 import com.lingxian.common.entity.Merchant;
 import com.lingxian.common.entity.MerchantInfoAudit;
 import com.lingxian.common.result.PageResult;
@@ -34,6 +38,10 @@ public class AdminMerchantController {
     private final MerchantService merchantService;
     private final MerchantInfoAuditService merchantInfoAuditService;
     private final ImageUrlUtil imageUrlUtil;
+    private final MerchantAvailabilityIndex merchantAvailabilityIndex;
+    private final ProductDetailCache productDetailCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final MerchantTokenVersions merchantTokenVersions;
 
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
@@ -117,6 +125,7 @@ public class AdminMerchantController {
         merchant.setCreateTime(LocalDateTime.now());
         merchant.setUpdateTime(LocalDateTime.now());
         merchantService.save(merchant);
+        merchantAvailabilityIndex.onMerchantChanged(merchant.getId());
         return Result.success();
     }
 
@@ -133,6 +142,14 @@ public class AdminMerchantController {
         merchant.setId(id);
         merchant.setUpdateTime(LocalDateTime.now());
         merchantService.updateById(merchant);
+        merchantAvailabilityIndex.onMerchantChanged(id);
+        productDetailCache.evictMerchant(id);
+        productSearchIndex.onMerchantChanged(id);
+        // 账户状态或审核状态变化时使已签发的 token 失效
+        if (changed(merchant.getStatus(), existing.getStatus())
+                || changed(merchant.getVerifyStatus(), existing.getVerifyStatus())) {
+            merchantTokenVersions.revokeMerchant(id);
+        }
         return Result.success();
     }
 
@@ -150,6 +167,10 @@ public class AdminMerchantController {
         merchant.setStatus(status);
         merchant.setUpdateTime(LocalDateTime.now());
         merchantService.updateById(merchant);
+        merchantAvailabilityIndex.onMerchantChanged(id);
+        productDetailCache.evictMerchant(id);
+        // 禁用、恢复商户后使已签发的 token 失效
+        merchantTokenVersions.revokeMerchant(id);
         return Result.success();
     }
 
@@ -170,6 +191,9 @@ public class AdminMerchantController {
         merchant.setVerifyTime(LocalDateTime.now());
         merchant.setUpdateTime(LocalDateTime.now());
         merchantService.updateById(merchant);
+        merchantAvailabilityIndex.onMerchantChanged(id);
+        // 商户 token 携带审核状态，审核后使已签发的 token 失效
+        merchantTokenVersions.revokeMerchant(id);
         return Result.success();
     }
 
@@ -281,6 +305,10 @@ public class AdminMerchantController {
                 }
                 merchant.setUpdateTime(now);
                 merchantService.updateById(merchant);
+                productDetailCache.evictMerchant(merchant.getId());
+                if (audit.getNewShopName() != null) {
+                    productSearchIndex.onMerchantChanged(merchant.getId());
+                }
             }
         }
 
@@ -388,4 +416,11 @@ public class AdminMerchantController {
             merchant.setIdCardBack(imageUrlUtil.generateUrl(merchant.getIdCardBack()));
         }
     }
+
+    /**
+     * 请求中携带了该字段且与原值不同
+     */
+    private static boolean changed(Integer value, Integer existing) {
+        return value != null && !value.equals(existing);
+    }
 }
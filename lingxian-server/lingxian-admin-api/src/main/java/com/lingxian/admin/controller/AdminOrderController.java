@@ -4,28 +4,35 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.lingxian.common.entity.Merchant;
 import com.lingxian.common.entity.Order;
-import com.lingxian.common.entity.OrderItem;
+import com.lingxian.common.entity.PlatformStats;
 import com.lingxian.common.entity.User;
+import com.lingxian.common.export.ExportFormat;
+import com.lingxian.common.export.OrderExportQuery;
+import com.lingxian.common.loader.BatchLoader;
+import com.lingxian.common.loader.BatchLoaders;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
-import com.lingxian.common.service.MerchantService;
-import com.lingxian.common.service.OrderItemService;
+import com.lingxian.common.service.OrderExportService;
 import com.lingxian.common.service.OrderService;
-import com.lingxian.common.service.UserService;
+import com.lingxian.common.service.OrderStatusCountService;
+import com.lingxian.common.service.PlatformStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -36,9 +43,10 @@ import java.util.Map;
 public class AdminOrderController {
 
     private final OrderService orderService;
-    private final OrderItemService orderItemService;
-    private final UserService userService;
-    private final MerchantService merchantService;
+    private final OrderStatusCountService orderStatusCountService;
+    private final PlatformStatsService platformStatsService;
+    private final BatchLoaders batchLoaders;
+    private final OrderExportService orderExportService;
 
     private static final String[] STATUS_NAMES = {"待付款", "待发货", "待收货", "已完成", "已取消", "退款中"};
 
@@ -78,9 +86,13 @@ public class AdminOrderController {
 
         Page<Order> pageResult = orderService.page(new Page<>(page, size), wrapper);
 
-        // 填充用户昵称、商户名称、状态名称和订单商品
+        // 填充用户昵称、商户名称、状态名称和订单商品，整页每类数据只查一次
+        BatchLoader loader = batchLoaders.create();
+        loader.users().primeAll(pageResult.getRecords(), Order::getUserId);
+        loader.merchants().primeAll(pageResult.getRecords(), Order::getMerchantId);
+        loader.orderItems().primeAll(pageResult.getRecords(), Order::getId);
         for (Order order : pageResult.getRecords()) {
-            fillOrderInfo(order);
+            fillOrderInfo(order, loader);
         }
 
         return Result.success(PageResult.of(pageResult.getTotal(), pageResult.getCurrent(), pageResult.getSize(), pageResult.getRecords()));
@@ -96,7 +108,7 @@ public class AdminOrderController {
             return Result.failed("订单不存在");
         }
 
-        fillOrderInfo(order);
+        fillOrderInfo(order, batchLoaders.create());
 
         return Result.success(order);
     }
@@ -110,41 +122,28 @@ public class AdminOrderController {
 
         Map<String, Object> stats = new HashMap<>();
 
-        // 总订单统计
-        stats.put("totalCount", orderService.count());
-
-        // 各状态订单数量
-        stats.put("pendingPayCount", orderService.count(new LambdaQueryWrapper<Order>().eq(Order::getStatus, 0)));
-        stats.put("pendingDeliveryCount", orderService.count(new LambdaQueryWrapper<Order>().eq(Order::getStatus, 1)));
-        stats.put("pendingReceiveCount", orderService.count(new LambdaQueryWrapper<Order>().eq(Order::getStatus, 2)));
-        stats.put("completedCount", orderService.count(new LambdaQueryWrapper<Order>().eq(Order::getStatus, 3)));
-        stats.put("cancelledCount", orderService.count(new LambdaQueryWrapper<Order>().eq(Order::getStatus, 4)));
-        stats.put("refundingCount", orderService.count(new LambdaQueryWrapper<Order>().eq(Order::getStatus, 5)));
-
-        // 今日统计
-        LocalDateTime todayStart = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime todayEnd = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-
-        long todayOrderCount = orderService.count(new LambdaQueryWrapper<Order>()
-                .ge(Order::getCreateTime, todayStart)
-                .le(Order::getCreateTime, todayEnd));
-
-        List<Order> todayOrders = orderService.list(new LambdaQueryWrapper<Order>()
-                .ge(Order::getCreateTime, todayStart)
-                .le(Order::getCreateTime, todayEnd)
-                .gt(Order::getStatus, 0)); // 已付款
-
-        BigDecimal todaySalesAmount = todayOrders.stream()
-                .map(Order::getPayAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal avgOrderAmount = todayOrderCount > 0
-                ? todaySalesAmount.divide(BigDecimal.valueOf(todayOrderCount), 2, BigDecimal.ROUND_HALF_UP)
+        // 各状态订单数量：读取状态计数，不再逐个状态 COUNT
+        Map<Integer, Long> counts = orderStatusCountService.getOrderCounts(null);
+        Map<Integer, Long> refundCounts = orderStatusCountService.getRefundCounts(null);
+        stats.put("totalCount", counts.values().stream().mapToLong(Long::longValue).sum());
+        stats.put("pendingPayCount", counts.getOrDefault(1, 0L));
+        stats.put("pendingDeliveryCount", counts.getOrDefault(2, 0L));
+        stats.put("pendingReceiveCount", counts.getOrDefault(3, 0L));
+        stats.put("pendingReviewCount", counts.getOrDefault(4, 0L));
+        stats.put("completedCount", counts.getOrDefault(5, 0L));
+        stats.put("cancelledCount", counts.getOrDefault(6, 0L));
+        stats.put("refundingCount", refundCounts.getOrDefault(0, 0L) + refundCounts.getOrDefault(1, 0L)); // 待审核、退款中
+
+        // 今日统计：读取平台统计
+        PlatformStats today = platformStatsService.sum(LocalDate.now(), LocalDate.now());
+        BigDecimal avgOrderAmount = today.getPaidOrders() > 0
+                ? today.getSalesAmount().divide(BigDecimal.valueOf(today.getPaidOrders()), 2, RoundingMode.HALF_UP)
                 : BigDecimal.ZERO;
 
         Map<String, Object> todayStats = new HashMap<>();
-        todayStats.put("orderCount", todayOrderCount);
-        todayStats.put("salesAmount", todaySalesAmount);
+        todayStats.put("orderCount", today.getCreatedOrders());
+        todayStats.put("paidCount", today.getPaidOrders());
+        todayStats.put("salesAmount", today.getSalesAmount());
         todayStats.put("avgOrderAmount", avgOrderAmount);
         stats.put("todayStats", todayStats);
 
@@ -152,32 +151,67 @@ public class AdminOrderController {
     }
 
     @GetMapping("/export")
-    @Operation(summary = "导出订单")
-    public Result<String> exportOrders(
+    @Operation(summary = "导出订单", description = "边查询边写出，直接下载文件")
+    public void exportOrders(
             @Parameter(description = "订单状态") @RequestParam(required = false) Integer status,
             @Parameter(description = "开始时间") @RequestParam(required = false) String startTime,
-            @Parameter(description = "结束时间") @RequestParam(required = false) String endTime) {
-        log.info("导出订单: status={}, startTime={}, endTime={}", status, startTime, endTime);
-        // TODO: 实现导出功能
-        return Result.success("导出功能待实现");
+            @Parameter(description = "结束时间") @RequestParam(required = false) String endTime,
+            @Parameter(description = "文件格式：csv/xlsx") @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "是否gzip压缩") @RequestParam(defaultValue = "false") Boolean gzip,
+            HttpServletResponse response) throws IOException {
+        OrderExportQuery query = buildExportQuery(status, startTime, endTime);
+        ExportFormat exportFormat = ExportFormat.of(format);
+        String fileName = orderExportService.fileName(exportFormat, gzip);
+        log.info("导出订单: query={}, format={}, gzip={}", query, exportFormat, gzip);
+
+        response.setContentType(orderExportService.contentType(exportFormat, gzip));
+        response.setHeader("Content-Disposition", "attachment; filename*=UTF-8''"
+                + URLEncoder.encode(fileName, StandardCharsets.UTF_8));
+        long count = orderExportService.export(query, exportFormat, gzip, response.getOutputStream(), null);
+        log.info("导出订单完成: count={}", count);
+    }
+
+    @PostMapping("/export/jobs")
+    @Operation(summary = "提交异步导出任务", description = "后台生成文件并上传存储，返回任务ID")
+    public Result<String> submitExportJob(
+            @RequestHeader(value = "X-Admin-Id", required = false) Long adminId,
+            @Parameter(description = "订单状态") @RequestParam(required = false) Integer status,
+            @Parameter(description = "开始时间") @RequestParam(required = false) String startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false) String endTime,
+            @Parameter(description = "文件格式：csv/xlsx") @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "是否gzip压缩") @RequestParam(defaultValue = "false") Boolean gzip) {
+        OrderExportQuery query = buildExportQuery(status, startTime, endTime);
+        return Result.success(orderExportService.submit(query, ExportFormat.of(format), gzip, adminId));
+    }
+
+    @GetMapping("/export/jobs/{jobId}")
+    @Operation(summary = "查询导出任务进度", description = "完成后返回文件下载地址")
+    public Result<Map<String, Object>> getExportJob(@PathVariable String jobId) {
+        Map<String, Object> job = orderExportService.getJob(jobId);
+        if (job == null) {
+            return Result.failed("导出任务不存在或已过期");
+        }
+        return Result.success(job);
+    }
+
+    private OrderExportQuery buildExportQuery(Integer status, String startTime, String endTime) {
+        return new OrderExportQuery(status,
+                StringUtils.hasText(startTime) ? LocalDateTime.parse(startTime.replace(" ", "T")) : null,
+                StringUtils.hasText(endTime) ? LocalDateTime.parse(endTime.replace(" ", "T")) : null);
     }
 
-    private void fillOrderInfo(Order order) {
+    private void fillOrderInfo(Order order, BatchLoader loader) {
         // 填充用户信息
-        if (order.getUserId() != null) {
-            User user = userService.getById(order.getUserId());
-            if (user != null) {
-                order.setUserNickname(user.getNickname());
-                order.setUserPhone(user.getPhone());
-            }
+        User user = loader.users().get(order.getUserId());
+        if (user != null) {
+            order.setUserNickname(user.getNickname());
+            order.setUserPhone(user.getPhone());
         }
 
         // 填充商户名称
-        if (order.getMerchantId() != null) {
-            Merchant merchant = merchantService.getById(order.getMerchantId());
-            if (merchant != null) {
-                order.setMerchantName(merchant.getName());
-            }
+        Merchant merchant = loader.merchants().get(order.getMerchantId());
+        if (merchant != null) {
+            order.setMerchantName(merchant.getName());
         }
 
         // 填充状态名称
@@ -186,10 +220,6 @@ public class AdminOrderController {
         }
 
         // 获取订单商品
-        List<OrderItem> items = orderItemService.list(
-                new LambdaQueryWrapper<OrderItem>()
-                        .eq(OrderItem::getOrderId, order.getId())
-        );
-        order.setItems(items);
+        order.setItems(loader.orderItems().get(order.getId()));
     }
 }
@@ -2,13 +2,14 @@ package com.lingxian.admin.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.lingxian.common.entity.Category;
+import com.lingxian.common.cache.CategoryTree;
+import com.lingxian.common.cache.ProductDetailCache;
+import com.lingxian.common.search.ProductSearchIndex;
 import com.lingxian.common.entity.Merchant;
 import com.lingxian.common.entity.Product;
 import com.lingxian.common.entity.ProductSku;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
-import com.lingxian.common.service.CategoryService;
 import com.lingxian.common.service.MerchantService;
 import com.lingxian.common.service.ProductService;
 import com.lingxian.common.service.ProductSkuService;
@@ -33,8 +34,10 @@ public class AdminProductController {
 
     private final ProductService productService;
     private final ProductSkuService productSkuService;
-    private final CategoryService categoryService;
+    private final CategoryTree categoryTree;
     private final MerchantService merchantService;
+    private final ProductDetailCache productDetailCache;
+    private final ProductSearchIndex productSearchIndex;
 
     @GetMapping
     @Operation(summary = "获取商品列表")
@@ -67,12 +70,7 @@ public class AdminProductController {
 
         // 填充分类名称和商户名称
         for (Product product : pageResult.getRecords()) {
-            if (product.getCategoryId() != null) {
-                Category category = categoryService.getById(product.getCategoryId());
-                if (category != null) {
-                    product.setCategoryName(category.getName());
-                }
-            }
+            product.setCategoryName(categoryTree.getName(product.getCategoryId()));
             if (product.getMerchantId() != null) {
                 Merchant merchant = merchantService.getById(product.getMerchantId());
                 if (merchant != null) {
@@ -95,12 +93,7 @@ public class AdminProductController {
         }
 
         // 填充分类名称
-        if (product.getCategoryId() != null) {
-            Category category = categoryService.getById(product.getCategoryId());
-            if (category != null) {
-                product.setCategoryName(category.getName());
-            }
-        }
+        product.setCategoryName(categoryTree.getName(product.getCategoryId()));
 
         // 填充商户名称
         if (product.getMerchantId() != null) {
@@ -135,6 +128,8 @@ public class AdminProductController {
         product.setStatus(status);
         product.setUpdateTime(LocalDateTime.now());
         productService.updateById(product);
+        productDetailCache.evictProduct(id);
+        productSearchIndex.onProductChanged(id);
         return Result.success();
     }
 
@@ -152,6 +147,8 @@ public class AdminProductController {
         productSkuService.remove(new LambdaQueryWrapper<ProductSku>().eq(ProductSku::getProductId, id));
         // 删除商品
         productService.removeById(id);
+        productDetailCache.evictProduct(id);
+        productSearchIndex.onProductChanged(id);
         return Result.success();
     }
 }
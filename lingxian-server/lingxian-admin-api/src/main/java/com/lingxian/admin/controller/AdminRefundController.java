@@ -1,8 +1,11 @@
 package com.lingxian.admin.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.lingxian.common.entity.*;
+import com.lingxian.common.loader.BatchLoader;
+import com.lingxian.common.loader.BatchLoaders;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.*;
@@ -16,7 +19,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -27,10 +29,10 @@ import java.util.Map;
 public class AdminRefundController {
 
     private final RefundService refundService;
-    private final RefundItemService refundItemService;
     private final OrderService orderService;
-    private final UserService userService;
-    private final MerchantService merchantService;
+    private final MerchantDailyStatsService merchantDailyStatsService;
+    private final PlatformStatsService platformStatsService;
+    private final BatchLoaders batchLoaders;
 
     private static final String[] STATUS_NAMES = {"待审核", "退款中", "已完成", "已拒绝", "已取消"};
     private static final String[] REFUND_TYPE_NAMES = {"仅退款", "退货退款"};
@@ -59,9 +61,13 @@ public class AdminRefundController {
 
         Page<Refund> pageResult = refundService.page(new Page<>(page, size), wrapper);
 
-        // 填充额外信息
+        // 填充额外信息，整页每类数据只查一次
+        BatchLoader loader = batchLoaders.create();
+        loader.users().primeAll(pageResult.getRecords(), Refund::getUserId);
+        loader.merchants().primeAll(pageResult.getRecords(), Refund::getMerchantId);
+        loader.refundItems().primeAll(pageResult.getRecords(), Refund::getId);
         for (Refund refund : pageResult.getRecords()) {
-            fillRefundInfo(refund);
+            fillRefundInfo(refund, loader);
         }
 
         return Result.success(PageResult.of(pageResult.getTotal(), pageResult.getCurrent(), pageResult.getSize(), pageResult.getRecords()));
@@ -77,7 +83,7 @@ public class AdminRefundController {
             return Result.failed("退款单不存在");
         }
 
-        fillRefundInfo(refund);
+        fillRefundInfo(refund, batchLoaders.create());
 
         // 获取订单信息
         Order order = orderService.getById(refund.getOrderId());
@@ -135,11 +141,18 @@ public class AdminRefundController {
             return Result.failed("该退款单已处理");
         }
 
-        refund.setStatus(1); // 退款中
-        refund.setAuditTime(LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        if (!refundService.changeStatus(id, 0, 1, new LambdaUpdateWrapper<Refund>() // 退款中
+                .set(Refund::getAuditTime, now)
+                .set(Refund::getAuditRemark, remark)
+                .set(Refund::getUpdateTime, now))) {
+            return Result.failed("该退款单已处理");
+        }
+        refund.setStatus(1);
+        refund.setAuditTime(now);
         refund.setAuditRemark(remark);
-        refund.setUpdateTime(LocalDateTime.now());
-        refundService.updateById(refund);
+        merchantDailyStatsService.onRefundApproved(refund, orderService.getById(refund.getOrderId()));
+        platformStatsService.onRefundApproved(refund);
 
         // TODO: 实际应调用支付接口进行退款
 
@@ -161,31 +174,29 @@ public class AdminRefundController {
             return Result.failed("该退款单已处理");
         }
 
-        refund.setStatus(3); // 已拒绝
-        refund.setAuditTime(LocalDateTime.now());
-        refund.setAuditRemark(remark);
-        refund.setUpdateTime(LocalDateTime.now());
-        refundService.updateById(refund);
+        LocalDateTime now = LocalDateTime.now();
+        if (!refundService.changeStatus(id, 0, 3, new LambdaUpdateWrapper<Refund>() // 已拒绝
+                .set(Refund::getAuditTime, now)
+                .set(Refund::getAuditRemark, remark)
+                .set(Refund::getUpdateTime, now))) {
+            return Result.failed("该退款单已处理");
+        }
 
         return Result.success();
     }
 
-    private void fillRefundInfo(Refund refund) {
+    private void fillRefundInfo(Refund refund, BatchLoader loader) {
         // 填充用户信息
-        if (refund.getUserId() != null) {
-            User user = userService.getById(refund.getUserId());
-            if (user != null) {
-                refund.setUserNickname(user.getNickname());
-                refund.setUserPhone(user.getPhone());
-            }
+        User user = loader.users().get(refund.getUserId());
+        if (user != null) {
+            refund.setUserNickname(user.getNickname());
+            refund.setUserPhone(user.getPhone());
         }
 
         // 填充商户名称
-        if (refund.getMerchantId() != null) {
-            Merchant merchant = merchantService.getById(refund.getMerchantId());
-            if (merchant != null) {
-                refund.setMerchantName(merchant.getName());
-            }
+        Merchant merchant = loader.merchants().get(refund.getMerchantId());
+        if (merchant != null) {
+            refund.setMerchantName(merchant.getName());
         }
 
         // 填充状态名称
@@ -199,10 +210,6 @@ public class AdminRefundController {
         }
 
         // 获取退款商品
-        List<RefundItem> items = refundItemService.list(
-                new LambdaQueryWrapper<RefundItem>()
-                        .eq(RefundItem::getRefundId, refund.getId())
-        );
-        refund.setItems(items);
+        refund.setItems(loader.refundItems().get(refund.getId()));
     }
 }
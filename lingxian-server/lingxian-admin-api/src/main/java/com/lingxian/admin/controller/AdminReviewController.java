@@ -2,6 +2,7 @@ package com.lingxian.admin.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.ProductDetailCache;
 import com.lingxian.common.entity.*;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
@@ -26,11 +27,14 @@ import java.util.Map;
 public class AdminReviewController {
 
     private final ReviewService reviewService;
+    private final ProductCommentService productCommentService;
+    private final RatingStatsService ratingStatsService;
     private final UserService userService;
     private final ProductService productService;
     private final MerchantService merchantService;
     private final OrderService orderService;
     private final ImageUrlUtil imageUrlUtil;
+    private final ProductDetailCache productDetailCache;
 
     private static final String[] RATING_LABELS = {"", "非常差", "较差", "一般", "较好", "非常好"};
 
@@ -112,8 +116,8 @@ public class AdminReviewController {
             return Result.failed("评价不存在");
         }
 
-        review.setStatus(status);
-        reviewService.updateById(review);
+        productCommentService.updateStatus(id, status);
+        productDetailCache.evictProduct(review.getProductId());
         return Result.success();
     }
 
@@ -127,7 +131,8 @@ public class AdminReviewController {
             return Result.failed("评价不存在");
         }
 
-        reviewService.removeById(id);
+        productCommentService.removeComment(id);
+        productDetailCache.evictProduct(review.getProductId());
         return Result.success();
     }
 
@@ -137,29 +142,15 @@ public class AdminReviewController {
             @Parameter(description = "商户ID") @RequestParam(required = false) Long merchantId) {
         log.info("获取评价统计: merchantId={}", merchantId);
 
-        LambdaQueryWrapper<Review> baseWrapper = new LambdaQueryWrapper<>();
-        if (merchantId != null) {
-            baseWrapper.eq(Review::getMerchantId, merchantId);
-        }
-
-        long totalCount = reviewService.count(baseWrapper);
-
-        // 各评分数量
-        long rating5 = reviewService.count(new LambdaQueryWrapper<Review>()
-                .eq(merchantId != null, Review::getMerchantId, merchantId)
-                .eq(Review::getRating, 5));
-        long rating4 = reviewService.count(new LambdaQueryWrapper<Review>()
-                .eq(merchantId != null, Review::getMerchantId, merchantId)
-                .eq(Review::getRating, 4));
-        long rating3 = reviewService.count(new LambdaQueryWrapper<Review>()
-                .eq(merchantId != null, Review::getMerchantId, merchantId)
-                .eq(Review::getRating, 3));
-        long rating2 = reviewService.count(new LambdaQueryWrapper<Review>()
-                .eq(merchantId != null, Review::getMerchantId, merchantId)
-                .eq(Review::getRating, 2));
-        long rating1 = reviewService.count(new LambdaQueryWrapper<Review>()
-                .eq(merchantId != null, Review::getMerchantId, merchantId)
-                .eq(Review::getRating, 1));
+        RatingStats stats = merchantId != null
+                ? ratingStatsService.getMerchantStats(merchantId)
+                : ratingStatsService.getPlatformStats();
+        long totalCount = stats.getRatingCount();
+        long rating5 = stats.getStar5();
+        long rating4 = stats.getStar4();
+        long rating3 = stats.getStar3();
+        long rating2 = stats.getStar2();
+        long rating1 = stats.getStar1();
 
         // 好评率（4-5星）
         double goodRate = totalCount > 0 ? (double) (rating4 + rating5) / totalCount * 100 : 0;
@@ -175,6 +166,14 @@ public class AdminReviewController {
         ));
     }
 
+    @PostMapping("/stats/rebuild")
+    @Operation(summary = "重建评价统计")
+    public Result<Void> rebuildStats() {
+        log.info("重建评价统计");
+        ratingStatsService.rebuild();
+        return Result.success();
+    }
+
     private void fillReviewInfo(Review review) {
         // 填充用户信息
         if (review.getUserId() != null) {
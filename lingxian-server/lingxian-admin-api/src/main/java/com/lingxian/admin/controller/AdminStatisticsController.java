@@ -1,17 +1,42 @@
 package com.lingxian.admin.controller;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lingxian.admin.task.PlatformStatsBackfillTask;
+import com.lingxian.common.cache.CategoryTree;
+import com.lingxian.common.entity.Merchant;
+import com.lingxian.common.entity.MerchantDailyStats;
+import com.lingxian.common.entity.PlatformDimStats;
+import com.lingxian.common.entity.PlatformStats;
+import com.lingxian.common.entity.Product;
+import com.lingxian.common.entity.User;
+import com.lingxian.common.exception.BusinessException;
 import com.lingxian.common.result.Result;
+import com.lingxian.common.result.ResultCode;
+import com.lingxian.common.service.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * 统计数据
+ * 订单、用户相关数据读取平台小时/日统计及商户日统计，不扫描订单表；
+ * type 为趋势粒度（day/week/month），未指定日期时分别统计近7天、近12周、近12个月
+ */
 @Slf4j
 @RestController
 @RequestMapping("/admin/statistics")
@@ -19,6 +44,17 @@ import java.util.*;
 @Tag(name = "管理后台-统计数据", description = "统计数据相关接口")
 public class AdminStatisticsController {
 
+    private static final int MAX_RANGE_DAYS = 366 * 3;
+
+    private final PlatformStatsService platformStatsService;
+    private final MerchantDailyStatsService merchantDailyStatsService;
+    private final PlatformStatsBackfillTask platformStatsBackfillTask;
+    private final OrderStatusCountService orderStatusCountService;
+    private final UserService userService;
+    private final MerchantService merchantService;
+    private final ProductService productService;
+    private final CategoryTree categoryTree;
+
     @GetMapping("/sales")
     @Operation(summary = "获取销售统计")
     public Result<Map<String, Object>> getSalesStats(
@@ -27,47 +63,56 @@ public class AdminStatisticsController {
             @Parameter(description = "结束日期") @RequestParam(required = false) String endDate) {
         log.info("获取销售统计: type={}, startDate={}, endDate={}", type, startDate, endDate);
 
+        StatRange range = resolveRange(type, startDate, endDate);
+        PlatformStats current = platformStatsService.sum(range.from(), range.to());
+        PlatformStats previous = platformStatsService.sum(range.previous().from(), range.previous().to());
+
         Map<String, Object> stats = new HashMap<>();
 
         // 总览数据
         Map<String, Object> overview = new HashMap<>();
-        overview.put("totalSales", new BigDecimal("5896000.00"));
-        overview.put("totalOrders", 58960);
-        overview.put("avgOrderAmount", new BigDecimal("100.00"));
-        overview.put("refundAmount", new BigDecimal("128000.00"));
-        overview.put("netSales", new BigDecimal("5768000.00"));
+        overview.put("totalSales", money(current.getSalesAmount()));
+        overview.put("totalOrders", current.getPaidOrders());
+        overview.put("avgOrderAmount", avgAmount(current));
+        overview.put("refundAmount", money(current.getRefundAmount()));
+        overview.put("netSales", money(current.getSalesAmount().subtract(current.getRefundAmount())));
         stats.put("overview", overview);
 
-        // 对比数据
+        // 对比数据（与上一个等长区间相比）
         Map<String, Object> comparison = new HashMap<>();
-        comparison.put("salesGrowth", 15.6); // 销售额增长率%
-        comparison.put("ordersGrowth", 12.3);
-        comparison.put("avgAmountGrowth", 2.8);
+        comparison.put("salesGrowth", growth(current.getSalesAmount(), previous.getSalesAmount()));
+        comparison.put("ordersGrowth", growth(BigDecimal.valueOf(current.getPaidOrders()),
+                BigDecimal.valueOf(previous.getPaidOrders())));
+        comparison.put("avgAmountGrowth", growth(avgAmount(current), avgAmount(previous)));
         stats.put("comparison", comparison);
 
         // 趋势数据
         List<Map<String, Object>> trends = new ArrayList<>();
-        int days = "month".equals(type) ? 30 : ("week".equals(type) ? 7 : 7);
-        for (int i = days - 1; i >= 0; i--) {
+        trend(range).forEach((label, bucket) -> {
             Map<String, Object> item = new HashMap<>();
-            item.put("date", LocalDate.now().minusDays(i).toString());
-            item.put("sales", new BigDecimal(10000 + (int)(Math.random() * 10000) + ".00"));
-            item.put("orders", 100 + (int)(Math.random() * 100));
-            item.put("refunds", (int)(Math.random() * 20));
+            item.put("date", label);
+            item.put("sales", money(bucket.getSalesAmount()));
+            item.put("orders", bucket.getPaidOrders());
+            item.put("refunds", bucket.getRefundCount());
             trends.add(item);
-        }
+        });
         stats.put("trends", trends);
 
         // 分类销售
+        List<PlatformDimStats> categories = platformStatsService.sumByDimension(
+                PlatformDimStats.DIM_CATEGORY, range.from(), range.to());
+        Map<Long, String> categoryNames = categoryTree.getNames(
+                categories.stream().map(PlatformDimStats::getDimKey).toList());
+        BigDecimal categoryTotal = categories.stream().map(PlatformDimStats::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
         List<Map<String, Object>> categoryStats = new ArrayList<>();
-        String[] categories = {"生鲜果蔬", "肉禽蛋品", "海鲜水产", "粮油调味", "休闲零食"};
-        for (int i = 0; i < categories.length; i++) {
+        for (PlatformDimStats category : categories) {
             Map<String, Object> item = new HashMap<>();
-            item.put("categoryId", i + 1);
-            item.put("categoryName", categories[i]);
-            item.put("sales", new BigDecimal((5000 - i * 800) + ".00"));
-            item.put("orders", 500 - i * 80);
-            item.put("percentage", 30 - i * 5);
+            item.put("categoryId", category.getDimKey());
+            item.put("categoryName", categoryNames.getOrDefault(category.getDimKey(), "未知分类"));
+            item.put("sales", money(category.getAmount()));
+            item.put("orders", category.getOrderCount());
+            item.put("percentage", percentage(category.getAmount(), categoryTotal));
             categoryStats.add(item);
         }
         stats.put("categoryStats", categoryStats);
@@ -83,64 +128,44 @@ public class AdminStatisticsController {
             @Parameter(description = "结束日期") @RequestParam(required = false) String endDate) {
         log.info("获取订单统计: type={}, startDate={}, endDate={}", type, startDate, endDate);
 
+        StatRange range = resolveRange(type, startDate, endDate);
+        PlatformStats current = platformStatsService.sum(range.from(), range.to());
+
         Map<String, Object> stats = new HashMap<>();
 
-        // 总览数据
+        // 总览数据：区间内的下单、完成、取消、退款数，以及当前各待处理状态的订单数
+        Map<Integer, Long> statusCounts = orderStatusCountService.getOrderCounts(null);
         Map<String, Object> overview = new HashMap<>();
-        overview.put("totalOrders", 58960);
-        overview.put("pendingPayment", 120);
-        overview.put("pendingDelivery", 350);
-        overview.put("pendingReceive", 580);
-        overview.put("completed", 55000);
-        overview.put("cancelled", 2910);
-        overview.put("refunding", 150);
+        overview.put("totalOrders", current.getCreatedOrders());
+        overview.put("paidOrders", current.getPaidOrders());
+        overview.put("pendingPayment", statusCounts.getOrDefault(1, 0L));
+        overview.put("pendingDelivery", statusCounts.getOrDefault(2, 0L));
+        overview.put("pendingReceive", statusCounts.getOrDefault(3, 0L));
+        overview.put("completed", current.getCompletedOrders());
+        overview.put("cancelled", current.getCancelledOrders());
+        overview.put("refunding", current.getRefundCount());
         stats.put("overview", overview);
 
         // 趋势数据
         List<Map<String, Object>> trends = new ArrayList<>();
-        int days = "month".equals(type) ? 30 : ("week".equals(type) ? 7 : 7);
-        for (int i = days - 1; i >= 0; i--) {
+        trend(range).forEach((label, bucket) -> {
             Map<String, Object> item = new HashMap<>();
-            item.put("date", LocalDate.now().minusDays(i).toString());
-            item.put("total", 150 + (int)(Math.random() * 50));
-            item.put("completed", 130 + (int)(Math.random() * 40));
-            item.put("cancelled", (int)(Math.random() * 20));
-            item.put("refunded", (int)(Math.random() * 10));
+            item.put("date", label);
+            item.put("total", bucket.getCreatedOrders());
+            item.put("completed", bucket.getCompletedOrders());
+            item.put("cancelled", bucket.getCancelledOrders());
+            item.put("refunded", bucket.getRefundCount());
             trends.add(item);
-        }
+        });
         stats.put("trends", trends);
 
-        // 订单类型分布
-        List<Map<String, Object>> typeStats = new ArrayList<>();
-        Map<String, Object> normal = new HashMap<>();
-        normal.put("type", "normal");
-        normal.put("typeName", "普通订单");
-        normal.put("count", 48000);
-        normal.put("percentage", 81.4);
-        typeStats.add(normal);
-        Map<String, Object> group = new HashMap<>();
-        group.put("type", "group");
-        group.put("typeName", "拼团订单");
-        group.put("count", 10960);
-        group.put("percentage", 18.6);
-        typeStats.add(group);
-        stats.put("typeStats", typeStats);
-
-        // 支付方式分布
-        List<Map<String, Object>> payStats = new ArrayList<>();
-        Map<String, Object> wechat = new HashMap<>();
-        wechat.put("type", "wechat");
-        wechat.put("typeName", "微信支付");
-        wechat.put("count", 50000);
-        wechat.put("percentage", 84.8);
-        payStats.add(wechat);
-        Map<String, Object> balance = new HashMap<>();
-        balance.put("type", "balance");
-        balance.put("typeName", "余额支付");
-        balance.put("count", 8960);
-        balance.put("percentage", 15.2);
-        payStats.add(balance);
-        stats.put("payStats", payStats);
+        // 订单类型分布（按下单数）
+        stats.put("typeStats", distribution(PlatformDimStats.DIM_ORDER_TYPE, range,
+                Map.of(1L, new String[]{"normal", "普通订单"}, 2L, new String[]{"group", "拼团订单"})));
+
+        // 支付方式分布（按支付订单数）
+        stats.put("payStats", distribution(PlatformDimStats.DIM_PAY_TYPE, range,
+                Map.of(1L, new String[]{"wechat", "微信支付"}, 2L, new String[]{"balance", "余额支付"})));
 
         return Result.success(stats);
     }
@@ -153,58 +178,72 @@ public class AdminStatisticsController {
             @Parameter(description = "结束日期") @RequestParam(required = false) String endDate) {
         log.info("获取用户统计: type={}, startDate={}, endDate={}", type, startDate, endDate);
 
+        StatRange range = resolveRange(type, startDate, endDate);
+        LocalDate today = LocalDate.now();
+        PlatformStats current = platformStatsService.sum(range.from(), range.to());
+        PlatformStats todayStats = platformStatsService.sum(today, today);
+        long totalUsers = userService.count();
+
         Map<String, Object> stats = new HashMap<>();
 
         // 总览数据
+        long orderingUsers = platformStatsService.countUsersByMinOrders(1);
+        long repeatUsers = platformStatsService.countUsersByMinOrders(2);
         Map<String, Object> overview = new HashMap<>();
-        overview.put("totalUsers", 12580);
-        overview.put("newUsersToday", 28);
-        overview.put("activeUsersToday", 3560);
-        overview.put("orderingUsers", 8500); // 下单用户数
-        overview.put("repurchaseRate", 65.8); // 复购率%
+        overview.put("totalUsers", totalUsers);
+        overview.put("newUsersToday", todayStats.getNewUsers());
+        overview.put("activeUsersToday", todayStats.getActiveUsers());
+        overview.put("newUsers", current.getNewUsers());
+        overview.put("orderingUsers", current.getOrderingUsers()); // 区间内下单用户数（按天去重）
+        overview.put("repurchaseRate", percentage(BigDecimal.valueOf(repeatUsers), BigDecimal.valueOf(orderingUsers))); // 复购率%
         stats.put("overview", overview);
 
-        // 用户增长趋势
+        // 用户增长趋势：累计用户数由当前总数倒推
+        long newAfterRange = range.to().isBefore(today)
+                ? platformStatsService.sum(range.to().plusDays(1), today).getNewUsers() : 0;
+        Map<String, PlatformStats> buckets = trend(range);
+        List<String> labels = new ArrayList<>(buckets.keySet());
         List<Map<String, Object>> growthTrends = new ArrayList<>();
-        int days = "month".equals(type) ? 30 : ("week".equals(type) ? 7 : 7);
-        int baseUsers = 12000;
-        for (int i = days - 1; i >= 0; i--) {
+        long runningTotal = totalUsers - newAfterRange;
+        for (int i = labels.size() - 1; i >= 0; i--) {
+            PlatformStats bucket = buckets.get(labels.get(i));
             Map<String, Object> item = new HashMap<>();
-            item.put("date", LocalDate.now().minusDays(i).toString());
-            item.put("newUsers", 20 + (int)(Math.random() * 20));
-            item.put("activeUsers", 3000 + (int)(Math.random() * 1000));
-            item.put("totalUsers", baseUsers + (days - i) * 20);
-            growthTrends.add(item);
+            item.put("date", labels.get(i));
+            item.put("newUsers", bucket.getNewUsers());
+            item.put("activeUsers", bucket.getActiveUsers());
+            item.put("totalUsers", runningTotal);
+            growthTrends.add(0, item);
+            runningTotal -= bucket.getNewUsers();
         }
         stats.put("growthTrends", growthTrends);
 
         // 用户分布
         Map<String, Object> distribution = new HashMap<>();
-        distribution.put("male", 4500);
-        distribution.put("female", 7200);
-        distribution.put("unknown", 880);
+        distribution.put("male", 0L);
+        distribution.put("female", 0L);
+        distribution.put("unknown", 0L);
+        userService.listMaps(new QueryWrapper<User>().select("gender", "COUNT(*) AS cnt").groupBy("gender"))
+                .forEach(row -> {
+                    Object gender = row.get("gender");
+                    String key = gender == null ? "unknown"
+                            : switch (((Number) gender).intValue()) {
+                        case 1 -> "male";
+                        case 2 -> "female";
+                        default -> "unknown";
+                    };
+                    distribution.merge(key, ((Number) row.get("cnt")).longValue(),
+                            (a, b) -> ((Long) a) + ((Long) b));
+                });
         stats.put("genderDistribution", distribution);
 
-        // 用户活跃度分布
+        // 用户活跃度分布：近7天活跃为高活跃，近30天活跃为中活跃，其余为低活跃
+        long high = platformStatsService.countActiveUsersSince(today.minusDays(6));
+        long medium = platformStatsService.countActiveUsersSince(today.minusDays(29)) - high;
+        long low = Math.max(totalUsers - high - medium, 0);
         List<Map<String, Object>> activityStats = new ArrayList<>();
-        Map<String, Object> high = new HashMap<>();
-        high.put("level", "high");
-        high.put("levelName", "高活跃");
-        high.put("count", 3500);
-        high.put("percentage", 27.8);
-        activityStats.add(high);
-        Map<String, Object> medium = new HashMap<>();
-        medium.put("level", "medium");
-        medium.put("levelName", "中活跃");
-        medium.put("count", 5000);
-        medium.put("percentage", 39.7);
-        activityStats.add(medium);
-        Map<String, Object> low = new HashMap<>();
-        low.put("level", "low");
-        low.put("levelName", "低活跃");
-        low.put("count", 4080);
-        low.put("percentage", 32.5);
-        activityStats.add(low);
+        activityStats.add(activityLevel("high", "高活跃", high, totalUsers));
+        activityStats.add(activityLevel("medium", "中活跃", medium, totalUsers));
+        activityStats.add(activityLevel("low", "低活跃", low, totalUsers));
         stats.put("activityStats", activityStats);
 
         return Result.success(stats);
@@ -218,58 +257,281 @@ public class AdminStatisticsController {
             @Parameter(description = "结束日期") @RequestParam(required = false) String endDate) {
         log.info("获取商户统计: type={}, startDate={}, endDate={}", type, startDate, endDate);
 
+        StatRange range = resolveRange(type, startDate, endDate);
+        LocalDate today = LocalDate.now();
+
         Map<String, Object> stats = new HashMap<>();
 
         // 总览数据
+        long totalMerchants = merchantService.count(new LambdaQueryWrapper<Merchant>()
+                .eq(Merchant::getVerifyStatus, 2));
+        long totalProducts = productService.count();
         Map<String, Object> overview = new HashMap<>();
-        overview.put("totalMerchants", 86);
-        overview.put("activeMerchants", 78);
-        overview.put("newMerchantsToday", 3);
-        overview.put("pendingVerify", 5);
-        overview.put("totalProducts", 3560);
-        overview.put("avgProductsPerMerchant", 41);
+        overview.put("totalMerchants", totalMerchants);
+        overview.put("activeMerchants", merchantService.count(new LambdaQueryWrapper<Merchant>()
+                .eq(Merchant::getVerifyStatus, 2)
+                .eq(Merchant::getStatus, 1)));
+        overview.put("newMerchantsToday", merchantService.count(new LambdaQueryWrapper<Merchant>()
+                .ge(Merchant::getCreateTime, today.atStartOfDay())));
+        overview.put("pendingVerify", merchantService.count(new LambdaQueryWrapper<Merchant>()
+                .eq(Merchant::getVerifyStatus, 1)));
+        overview.put("totalProducts", totalProducts);
+        overview.put("avgProductsPerMerchant", totalMerchants > 0 ? totalProducts / totalMerchants : 0);
         stats.put("overview", overview);
 
-        // 商户销售排行
+        // 商户销售排行（按下单日期汇总的商户日统计）
+        List<MerchantDailyStats> ranking = merchantDailyStatsService.rankBySales(range.from(), range.to(), 10);
+        List<Long> rankedIds = ranking.stream().map(MerchantDailyStats::getMerchantId).toList();
+        Map<Long, String> merchantNames = rankedIds.isEmpty() ? Collections.emptyMap()
+                : merchantService.listByIds(rankedIds).stream()
+                .collect(Collectors.toMap(Merchant::getId, Merchant::getName));
+        Map<Long, Long> productCounts = new HashMap<>();
+        if (!rankedIds.isEmpty()) {
+            productService.listMaps(new QueryWrapper<Product>()
+                            .select("merchant_id", "COUNT(*) AS cnt")
+                            .in("merchant_id", rankedIds)
+                            .groupBy("merchant_id"))
+                    .forEach(row -> productCounts.put(((Number) row.get("merchant_id")).longValue(),
+                            ((Number) row.get("cnt")).longValue()));
+        }
         List<Map<String, Object>> salesRanking = new ArrayList<>();
-        for (int i = 1; i <= 10; i++) {
+        for (int i = 0; i < ranking.size(); i++) {
+            MerchantDailyStats merchant = ranking.get(i);
             Map<String, Object> item = new HashMap<>();
-            item.put("rank", i);
-            item.put("merchantId", i);
-            item.put("merchantName", "优鲜商家" + i);
-            item.put("sales", new BigDecimal((100000 - i * 8000) + ".00"));
-            item.put("orders", 1000 - i * 80);
-            item.put("products", 50 - i * 3);
+            item.put("rank", i + 1);
+            item.put("merchantId", merchant.getMerchantId());
+            item.put("merchantName", merchantNames.getOrDefault(merchant.getMerchantId(), ""));
+            item.put("sales", money(merchant.getSalesAmount()));
+            item.put("orders", merchant.getOrderCount());
+            item.put("products", productCounts.getOrDefault(merchant.getMerchantId(), 0L));
             salesRanking.add(item);
         }
         stats.put("salesRanking", salesRanking);
 
-        // 商户分类分布
+        // 商户分类分布（已入驻商户按经营类目）
         List<Map<String, Object>> categoryStats = new ArrayList<>();
-        String[] categories = {"生鲜果蔬", "肉禽蛋品", "海鲜水产", "粮油调味", "休闲零食"};
-        int[] counts = {25, 18, 15, 12, 16};
-        for (int i = 0; i < categories.length; i++) {
-            Map<String, Object> item = new HashMap<>();
-            item.put("categoryId", i + 1);
-            item.put("categoryName", categories[i]);
-            item.put("count", counts[i]);
-            item.put("percentage", counts[i] * 100.0 / 86);
-            categoryStats.add(item);
-        }
+        merchantService.listMaps(new QueryWrapper<Merchant>()
+                        .select("category", "COUNT(*) AS cnt")
+                        .eq("verify_status", 2)
+                        .groupBy("category")
+                        .orderByDesc("COUNT(*)"))
+                .forEach(row -> {
+                    long count = ((Number) row.get("cnt")).longValue();
+                    Map<String, Object> item = new HashMap<>();
+                    item.put("categoryName", row.get("category") != null ? row.get("category") : "未分类");
+                    item.put("count", count);
+                    item.put("percentage", percentage(BigDecimal.valueOf(count), BigDecimal.valueOf(totalMerchants)));
+                    categoryStats.add(item);
+                });
         stats.put("categoryStats", categoryStats);
 
-        // 商户增长趋势
+        // 商户增长趋势：累计商户数由当前总数倒推
+        Map<LocalDate, Long> newByDay = new HashMap<>();
+        merchantService.listMaps(new QueryWrapper<Merchant>()
+                        .select("create_time::date AS day", "COUNT(*) AS cnt")
+                        .ge("create_time", range.from().atStartOfDay())
+                        .lt("create_time", range.to().plusDays(1).atStartOfDay())
+                        .groupBy("create_time::date"))
+                .forEach(row -> newByDay.put(LocalDate.parse(String.valueOf(row.get("day"))),
+                        ((Number) row.get("cnt")).longValue()));
+        Map<String, Long> newByBucket = new LinkedHashMap<>();
+        for (LocalDate date = range.from(); !date.isAfter(range.to()); date = date.plusDays(1)) {
+            newByBucket.merge(range.label(date), newByDay.getOrDefault(date, 0L), Long::sum);
+        }
+        long runningTotal = merchantService.count(new LambdaQueryWrapper<Merchant>()
+                .lt(Merchant::getCreateTime, range.to().plusDays(1).atStartOfDay()));
+        List<String> labels = new ArrayList<>(newByBucket.keySet());
         List<Map<String, Object>> growthTrends = new ArrayList<>();
-        int days = "month".equals(type) ? 30 : ("week".equals(type) ? 7 : 7);
-        for (int i = days - 1; i >= 0; i--) {
+        for (int i = labels.size() - 1; i >= 0; i--) {
+            long newMerchants = newByBucket.get(labels.get(i));
             Map<String, Object> item = new HashMap<>();
-            item.put("date", LocalDate.now().minusDays(i).toString());
-            item.put("newMerchants", (int)(Math.random() * 3));
-            item.put("totalMerchants", 80 + (days - i));
-            growthTrends.add(item);
+            item.put("date", labels.get(i));
+            item.put("newMerchants", newMerchants);
+            item.put("totalMerchants", runningTotal);
+            growthTrends.add(0, item);
+            runningTotal -= newMerchants;
         }
         stats.put("growthTrends", growthTrends);
 
         return Result.success(stats);
     }
+
+    @PostMapping("/backfill/jobs")
+    @Operation(summary = "提交统计回填任务", description = "后台逐天回填，返回任务ID")
+    public Result<String> submitBackfillJob(
+            @RequestHeader(value = "X-Admin-Id", required = false) Long adminId,
+            @Parameter(description = "开始日期") @RequestParam String startDate,
+            @Parameter(description = "结束日期") @RequestParam String endDate) {
+        log.info("提交统计回填任务: startDate={}, endDate={}", startDate, endDate);
+
+        StatRange range = resolveRange("day", startDate, endDate);
+        return Result.success(platformStatsBackfillTask.submit(range.from(), range.to(), adminId));
+    }
+
+    @GetMapping("/backfill/jobs/{jobId}")
+    @Operation(summary = "查询统计回填任务进度")
+    public Result<Map<String, Object>> getBackfillJob(@PathVariable String jobId) {
+        Map<String, Object> job = platformStatsBackfillTask.getJob(jobId);
+        if (job == null) {
+            return Result.failed("回填任务不存在或已过期");
+        }
+        return Result.success(job);
+    }
+
+    @PostMapping("/merchants/backfill")
+    @Operation(summary = "重建商户统计", description = "不指定日期时全量重建")
+    public Result<Map<String, Object>> backfillMerchantStats(
+            @Parameter(description = "开始日期") @RequestParam(required = false) String startDate,
+            @Parameter(description = "结束日期") @RequestParam(required = false) String endDate) {
+        log.info("重建商户统计: startDate={}, endDate={}", startDate, endDate);
+
+        long start = System.currentTimeMillis();
+        Map<String, Object> result = new HashMap<>();
+        if (!StringUtils.hasText(startDate) && !StringUtils.hasText(endDate)) {
+            merchantDailyStatsService.rebuild();
+        } else {
+            StatRange range = resolveRange("day", startDate, endDate);
+            merchantDailyStatsService.rebuildDays(range.from(), range.to());
+            result.put("days", range.days());
+        }
+        result.put("costMs", System.currentTimeMillis() - start);
+        return Result.success(result);
+    }
+
+    @GetMapping("/merchants/check")
+    @Operation(summary = "核对商户统计", description = "返回统计与订单不一致的日期")
+    public Result<List<LocalDate>> checkMerchantStats(
+            @Parameter(description = "开始日期") @RequestParam(required = false) String startDate,
+            @Parameter(description = "结束日期") @RequestParam(required = false) String endDate) {
+        StatRange range = resolveRange("day", startDate, endDate);
+        return Result.success(merchantDailyStatsService.findMismatchedDays(range.from(), range.to()));
+    }
+
+    /**
+     * 统计区间（含首尾）及趋势粒度
+     */
+    private record StatRange(LocalDate from, LocalDate to, String type) {
+
+        long days() {
+            return ChronoUnit.DAYS.between(from, to) + 1;
+        }
+
+        /**
+         * 上一个等长区间
+         */
+        StatRange previous() {
+            return new StatRange(from.minusDays(days()), from.minusDays(1), type);
+        }
+
+        /**
+         * 日期所在趋势分组的标签
+         */
+        String label(LocalDate date) {
+            return switch (type) {
+                case "week" -> date.with(DayOfWeek.MONDAY).toString();
+                case "month" -> date.withDayOfMonth(1).toString().substring(0, 7);
+                default -> date.toString();
+            };
+        }
+    }
+
+    private StatRange resolveRange(String type, String startDate, String endDate) {
+        String granularity = "week".equals(type) || "month".equals(type) ? type : "day";
+        try {
+            LocalDate to = StringUtils.hasText(endDate) ? LocalDate.parse(endDate) : LocalDate.now();
+            LocalDate from;
+            if (StringUtils.hasText(startDate)) {
+                from = LocalDate.parse(startDate);
+            } else {
+                from = switch (granularity) {
+                    case "week" -> to.with(DayOfWeek.MONDAY).minusWeeks(11);
+                    case "month" -> to.withDayOfMonth(1).minusMonths(11);
+                    default -> to.minusDays(6);
+                };
+            }
+            if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+                throw new BusinessException(ResultCode.VALIDATE_FAILED, "统计日期范围不正确");
+            }
+            return new StatRange(from, to, granularity);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException(ResultCode.VALIDATE_FAILED, "日期格式不正确");
+        }
+    }
+
+    /**
+     * 趋势数据：单日按小时，否则按粒度汇总日统计
+     */
+    private Map<String, PlatformStats> trend(StatRange range) {
+        Map<String, PlatformStats> buckets = new LinkedHashMap<>();
+        if (range.days() == 1) {
+            platformStatsService.getHours(range.from()).forEach(hour -> buckets.put(
+                    String.format("%02d:00", hour.getPeriodStart().getHour()), hour));
+            return buckets;
+        }
+        for (PlatformStats day : platformStatsService.getDays(range.from(), range.to())) {
+            String label = range.label(day.getPeriodStart().toLocalDate());
+            buckets.computeIfAbsent(label, key -> PlatformStats.empty(PlatformStats.PERIOD_DAY, day.getPeriodStart()))
+                    .add(day);
+        }
+        return buckets;
+    }
+
+    private List<Map<String, Object>> distribution(int dimension, StatRange range, Map<Long, String[]> names) {
+        List<PlatformDimStats> rows = platformStatsService.sumByDimension(dimension, range.from(), range.to());
+        long total = rows.stream().mapToLong(PlatformDimStats::getOrderCount).sum();
+        Map<Long, PlatformDimStats> byKey = rows.stream()
+                .collect(Collectors.toMap(PlatformDimStats::getDimKey, Function.identity()));
+        List<Map<String, Object>> result = new ArrayList<>();
+        names.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            PlatformDimStats row = byKey.get(entry.getKey());
+            long count = row != null ? row.getOrderCount() : 0;
+            Map<String, Object> item = new HashMap<>();
+            item.put("type", entry.getValue()[0]);
+            item.put("typeName", entry.getValue()[1]);
+            item.put("count", count);
+            item.put("percentage", percentage(BigDecimal.valueOf(count), BigDecimal.valueOf(total)));
+            result.add(item);
+        });
+        return result;
+    }
+
+    private Map<String, Object> activityLevel(String level, String levelName, long count, long total) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("level", level);
+        item.put("levelName", levelName);
+        item.put("count", count);
+        item.put("percentage", percentage(BigDecimal.valueOf(count), BigDecimal.valueOf(total)));
+        return item;
+    }
+
+    private static BigDecimal avgAmount(PlatformStats stats) {
+        return stats.getPaidOrders() > 0
+                ? stats.getSalesAmount().divide(BigDecimal.valueOf(stats.getPaidOrders()), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO.setScale(2);
+    }
+
+    /**
+     * 增长率%，上期为0时返回0
+     */
+    private static double growth(BigDecimal current, BigDecimal previous) {
+        if (previous.signum() == 0) {
+            return 0;
+        }
+        return current.subtract(previous).multiply(BigDecimal.valueOf(100))
+                .divide(previous, 1, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    /**
+     * 占比%，保留一位小数
+     */
+    private static double percentage(BigDecimal part, BigDecimal total) {
+        if (total.signum() == 0) {
+            return 0;
+        }
+        return part.multiply(BigDecimal.valueOf(100)).divide(total, 1, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
 }
@@ -2,6 +2,9 @@ package com.lingxian.admin.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.AdminPermissionIndex;
+import com.lingxian.common.delay.DelayTaskEngine;
+import com.lingxian.common.delay.OrderTimeoutTasks;
 import com.lingxian.common.entity.AdminUser;
 import com.lingxian.common.entity.Permission;
 import com.lingxian.common.entity.Role;
@@ -10,7 +13,9 @@ import com.lingxian.common.result.Result;
 import com.lingxian.common.service.AdminUserService;
 import com.lingxian.common.service.PermissionService;
 import com.lingxian.common.service.RoleService;
+import com.lingxian.common.service.SystemConfigService;
 import com.lingxian.common.storage.StorageServiceFactory;
+import com.lingxian.common.util.ImageUrlUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,6 +38,11 @@ public class AdminSystemController {
     private final AdminUserService adminUserService;
     private final RoleService roleService;
     private final PermissionService permissionService;
+    private final AdminPermissionIndex adminPermissionIndex;
+    private final SystemConfigService systemConfigService;
+    private final ImageUrlUtil imageUrlUtil;
+    private final DelayTaskEngine delayTaskEngine;
+    private final OrderTimeoutTasks orderTimeoutTasks;
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     // ============ 管理员管理 ============
@@ -129,6 +139,7 @@ public class AdminSystemController {
         adminUser.setUsername(null);
 
         adminUserService.updateById(adminUser);
+        adminPermissionIndex.onAdminChanged(id);
         return Result.success();
     }
 
@@ -148,6 +159,7 @@ public class AdminSystemController {
         }
 
         adminUserService.removeById(id);
+        adminPermissionIndex.onAdminChanged(id);
         return Result.success();
     }
 
@@ -209,6 +221,7 @@ public class AdminSystemController {
         }
 
         roleService.save(role);
+        adminPermissionIndex.onRolesChanged();
         return Result.success(role);
     }
 
@@ -230,9 +243,11 @@ public class AdminSystemController {
         role.setId(id);
         roleService.updateById(role);
 
-        // 更新权限关联
+        // 更新权限关联，提交后会重建授权快照；只改角色信息时直接重建
         if (role.getPermissionIds() != null) {
             roleService.updateRolePermissions(id, role.getPermissionIds());
+        } else {
+            adminPermissionIndex.onRolesChanged();
         }
 
         return Result.success();
@@ -260,6 +275,7 @@ public class AdminSystemController {
         }
 
         roleService.removeById(id);
+        adminPermissionIndex.onRolesChanged();
         return Result.success();
     }
 
@@ -279,57 +295,14 @@ public class AdminSystemController {
     @Operation(summary = "获取系统配置")
     public Result<Map<String, Object>> getConfigs() {
         log.info("获取系统配置");
-
-        Map<String, Object> configs = new HashMap<>();
-
-        // 基础设置
-        Map<String, Object> basic = new HashMap<>();
-        basic.put("siteName", "铃鲜好物");
-        basic.put("siteLogo", "https://placeholder.com/logo.png");
-        basic.put("siteDescription", "新鲜好物，送货到家");
-        basic.put("contactPhone", "400-123-4567");
-        basic.put("contactEmail", "service@lingxian.com");
-        basic.put("icp", "粤ICP备12345678号");
-        configs.put("basic", basic);
-
-        // 订单设置
-        Map<String, Object> order = new HashMap<>();
-        order.put("autoCancelMinutes", 30);
-        order.put("autoReceiveDays", 7);
-        order.put("autoCompleteHours", 24);
-        order.put("refundDeadlineDays", 7);
-        configs.put("order", order);
-
-        // 配送设置
-        Map<String, Object> delivery = new HashMap<>();
-        delivery.put("freeShippingAmount", 49);
-        delivery.put("defaultFreight", 5);
-        delivery.put("deliveryTimeStart", "08:00");
-        delivery.put("deliveryTimeEnd", "22:00");
-        configs.put("delivery", delivery);
-
-        // 积分设置
-        Map<String, Object> points = new HashMap<>();
-        points.put("orderPointsRate", 1);
-        points.put("pointsToMoneyRate", 100);
-        points.put("signInPoints", 5);
-        points.put("maxPointsDeduction", 50);
-        configs.put("points", points);
-
-        // 佣金设置
-        Map<String, Object> commission = new HashMap<>();
-        commission.put("defaultRate", 5);
-        commission.put("settlementCycle", 7);
-        commission.put("minWithdrawAmount", 100);
-        configs.put("commission", commission);
-
-        return Result.success(configs);
+        return Result.success(systemConfigService.current().toGroupedMap());
     }
 
     @PutMapping("/configs")
     @Operation(summary = "更新系统配置")
     public Result<Void> updateConfigs(@RequestBody Map<String, Object> body) {
         log.info("更新系统配置: body={}", body);
+        systemConfigService.updateConfigs(body);
         return Result.success();
     }
 
@@ -361,4 +334,22 @@ public class AdminSystemController {
             return Result.failed("存储连接测试异常: " + e.getMessage());
         }
     }
+
+    @GetMapping("/storage/url-cache")
+    @Operation(summary = "获取图片URL缓存统计")
+    public Result<Map<String, Object>> getUrlCacheStats() {
+        return Result.success(imageUrlUtil.getCacheStats());
+    }
+
+    @GetMapping("/delay-tasks")
+    @Operation(summary = "获取延时任务运行指标")
+    public Result<Map<String, Object>> getDelayTaskMetrics() {
+        return Result.success(delayTaskEngine.getMetrics());
+    }
+
+    @PostMapping("/delay-tasks/seed")
+    @Operation(summary = "为存量订单登记超时任务")
+    public Result<Integer> seedOrderTimeoutTasks() {
+        return Result.success(orderTimeoutTasks.seedExistingOrders());
+    }
 }
@@ -0,0 +1,43 @@
+package com.lingxian.admin.task;
+
+import com.lingxian.common.service.MerchantDailyStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 商户日统计核对任务
+ * 商户日统计、月汇总及商品日销量随订单事件增量维护，每天凌晨与订单表、订单项表核对近 {@link #CHECK_DAYS} 天，
+ * 不一致的日期按订单表重建，修正手工改库等造成的偏差
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MerchantDailyStatsRebuildTask {
+
+    private static final int CHECK_DAYS = 35;
+
+    private final MerchantDailyStatsService merchantDailyStatsService;
+
+    @Scheduled(cron = "0 45 3 * * ?")
+    public void checkAndRepair() {
+        try {
+            LocalDate today = LocalDate.now();
+            List<LocalDate> mismatched = merchantDailyStatsService.findMismatchedDays(
+                    today.minusDays(CHECK_DAYS - 1), today.minusDays(1));
+            if (mismatched.isEmpty()) {
+                return;
+            }
+            log.warn("商户日统计与订单不一致，按订单表重建: {}", mismatched);
+            for (LocalDate date : mismatched) {
+                merchantDailyStatsService.rebuildDays(date, date);
+            }
+        } catch (Exception e) {
+            log.error("商户日统计核对失败", e);
+        }
+    }
+}
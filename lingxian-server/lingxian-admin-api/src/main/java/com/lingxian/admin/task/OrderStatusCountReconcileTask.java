@@ -0,0 +1,29 @@
+package com.lingxian.admin.task;
+
+import com.lingxian.common.service.OrderStatusCountService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单状态计数核对任务
+ * 状态计数随状态变更在同一事务内增减，每小时与订单表、退款表的 GROUP BY 结果核对一次，
+ * 修正绕过服务直接改库等造成的偏差
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatusCountReconcileTask {
+
+    private final OrderStatusCountService orderStatusCountService;
+
+    @Scheduled(cron = "0 20 * * * ?")
+    public void reconcile() {
+        try {
+            orderStatusCountService.reconcile();
+        } catch (Exception e) {
+            log.error("订单状态计数核对失败", e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.lingxian.admin.task;
+
+import com.lingxian.common.constant.RedisConstant;
+import com.lingxian.common.exception.BusinessException;
+import com.lingxian.common.service.PlatformStatsService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 平台统计回填任务
+ * 平台统计由订单、退款、用户事件增量维护，每天凌晨按业务表回填前一天，修正手工改库等造成的偏差；
+ * 上线或修复数据时可通过管理后台提交异步任务按日期区间回填历史数据，任务逐个串行执行，进度记录在 Redis
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PlatformStatsBackfillTask {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 排队中的区间回填任务上限，同一时间只执行一个
+     */
+    private static final int JOB_QUEUE = 4;
+
+    /**
+     * 任务进度保留时间（小时）
+     */
+    private static final long JOB_EXPIRE_HOURS = 24;
+
+    private final PlatformStatsService platformStatsService;
+    private final StringRedisTemplate redisTemplate;
+    private final ThreadPoolExecutor jobExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(JOB_QUEUE), r -> new Thread(r, "stats-backfill"));
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    @Scheduled(cron = "0 15 4 * * ?")
+    public void backfillYesterday() {
+        try {
+            platformStatsService.backfillDay(LocalDate.now().minusDays(1));
+        } catch (Exception e) {
+            log.error("平台统计回填失败", e);
+        }
+    }
+
+    /**
+     * 提交区间回填任务（含首尾）
+     *
+     * @return 任务ID
+     */
+    public String submit(LocalDate from, LocalDate to, Long adminId) {
+        String jobId = UUID.randomUUID().toString().replace("-", "");
+        String key = RedisConstant.STATS_BACKFILL_JOB_PREFIX + jobId;
+
+        Map<String, String> job = new HashMap<>();
+        job.put("status", "pending");
+        job.put("from", from.toString());
+        job.put("to", to.toString());
+        job.put("days", String.valueOf(ChronoUnit.DAYS.between(from, to) + 1));
+        job.put("doneDays", "0");
+        job.put("orders", "0");
+        job.put("createTime", LocalDateTime.now().format(TIME_FORMAT));
+        if (adminId != null) {
+            job.put("adminId", adminId.toString());
+        }
+        redisTemplate.opsForHash().putAll(key, job);
+        redisTemplate.expire(key, JOB_EXPIRE_HOURS, TimeUnit.HOURS);
+
+        try {
+            jobExecutor.execute(() -> runJob(key, from, to));
+        } catch (RejectedExecutionException e) {
+            redisTemplate.delete(key);
+            throw new BusinessException("回填任务较多，请稍后再试");
+        }
+        log.info("提交平台统计回填任务: jobId={}, from={}, to={}, adminId={}", jobId, from, to, adminId);
+        return jobId;
+    }
+
+    /**
+     * 查询回填任务：状态、总天数、已完成天数、读取的订单数
+     *
+     * @return 任务不存在或已过期时返回 null
+     */
+    public Map<String, Object> getJob(String jobId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(RedisConstant.STATS_BACKFILL_JOB_PREFIX + jobId);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> job = new HashMap<>();
+        entries.forEach((field, value) -> job.put(field.toString(), value));
+        job.put("jobId", jobId);
+        job.put("days", Long.parseLong(job.get("days").toString()));
+        job.put("doneDays", Long.parseLong(job.get("doneDays").toString()));
+        job.put("orders", Long.parseLong(job.get("orders").toString()));
+        return job;
+    }
+
+    /**
+     * 逐天回填日期区间，每天一个事务，每天完成后更新进度；全部完成后刷新用户下单情况
+     */
+    private void runJob(String key, LocalDate from, LocalDate to) {
+        long start = System.currentTimeMillis();
+        try {
+            redisTemplate.opsForHash().put(key, "status", "running");
+            long orders = 0;
+            long doneDays = 0;
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                orders += platformStatsService.backfillDay(date);
+                doneDays++;
+                Map<String, String> progress = new HashMap<>();
+                progress.put("doneDays", String.valueOf(doneDays));
+                progress.put("orders", String.valueOf(orders));
+                redisTemplate.opsForHash().putAll(key, progress);
+            }
+            platformStatsService.rebuildUserActivity();
+
+            Map<String, String> result = new HashMap<>();
+            result.put("status", "success");
+            result.put("costMs", String.valueOf(System.currentTimeMillis() - start));
+            result.put("finishTime", LocalDateTime.now().format(TIME_FORMAT));
+            redisTemplate.opsForHash().putAll(key, result);
+            log.info("平台统计区间回填完成: from={}, to={}, 订单={}", from, to, orders);
+        } catch (Exception e) {
+            log.error("平台统计区间回填失败: key={}", key, e);
+            redisTemplate.opsForHash().put(key, "status", "failed");
+            redisTemplate.opsForHash().put(key, "error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+}
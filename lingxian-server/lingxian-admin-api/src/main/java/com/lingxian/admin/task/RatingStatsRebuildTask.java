@@ -0,0 +1,28 @@
+package com.lingxian.admin.task;
+
+import com.lingxian.common.service.RatingStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 评分统计重建任务
+ * 评分统计由评价增删改增量维护，每天凌晨按评价表全量重建一次，修正手工改库等造成的偏差
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RatingStatsRebuildTask {
+
+    private final RatingStatsService ratingStatsService;
+
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void rebuild() {
+        try {
+            ratingStatsService.rebuild();
+        } catch (Exception e) {
+            log.error("评分统计重建失败", e);
+        }
+    }
+}
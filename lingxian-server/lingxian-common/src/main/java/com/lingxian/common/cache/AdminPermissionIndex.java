@@ -0,0 +1,376 @@
+package com.lingxian.common.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.entity.AdminUser;
+import com.lingxian.common.entity.Permission;
+import com.lingxian.common.entity.Role;
+import com.lingxian.common.entity.RolePermission;
+import com.lingxian.common.mapper.AdminUserMapper;
+import com.lingxian.common.mapper.PermissionMapper;
+import com.lingxian.common.mapper.RoleMapper;
+import com.lingxian.common.mapper.RolePermissionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * 管理后台授权快照
+ * 全部未删除的权限按排序值、ID编为连续的序号，每个角色编译为 long[] 位掩码，权限树一次分组构建；
+ * 管理员登录后缓存其角色，接口鉴权只是一次序号查找加一次位运算，不访问数据库。
+ * <p>
+ * 角色或角色权限变更后调用 {@link #onRolesChanged()} 全量重建（权限、角色数量都很少），管理员变更后调用
+ * {@link #onAdminChanged(Long)} 丢弃其缓存，两者都会广播到其他实例。
+ */
+@Slf4j
+@Component
+public class AdminPermissionIndex {
+
+    public static final String CACHE_NAME = "admin-permission";
+
+    /**
+     * 拥有全部权限的角色编码
+     */
+    private static final Set<String> SUPER_ROLE_CODES = Set.of("SUPER_ADMIN", "ROLE_ADMIN");
+
+    private static final String ADMIN_KEY_PREFIX = "admin:";
+
+    private final PermissionMapper permissionMapper;
+    private final RoleMapper roleMapper;
+    private final RolePermissionMapper rolePermissionMapper;
+    private final AdminUserMapper adminUserMapper;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Map<Long, AdminGrant> admins = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot;
+
+    public AdminPermissionIndex(PermissionMapper permissionMapper, RoleMapper roleMapper,
+                                RolePermissionMapper rolePermissionMapper, AdminUserMapper adminUserMapper,
+                                CacheInvalidationBus invalidationBus) {
+        this.permissionMapper = permissionMapper;
+        this.roleMapper = roleMapper;
+        this.rolePermissionMapper = rolePermissionMapper;
+        this.adminUserMapper = adminUserMapper;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(CACHE_NAME, key -> {
+            if (CacheInvalidationBus.ALL.equals(key)) {
+                rebuild();
+            } else if (key.startsWith(ADMIN_KEY_PREFIX)) {
+                admins.remove(Long.valueOf(key.substring(ADMIN_KEY_PREFIX.length())));
+            }
+        });
+    }
+
+    /**
+     * 管理员是否拥有指定权限：管理员及其角色须为启用状态，超级管理员角色拥有全部权限
+     */
+    public boolean hasPermission(Long adminId, String code) {
+        AdminGrant admin = getAdmin(adminId);
+        if (admin == null) {
+            return false;
+        }
+        Snapshot current = getSnapshot();
+        RoleGrant role = current.roles.get(admin.roleId());
+        if (role == null || !role.enabled()) {
+            return false;
+        }
+        if (role.superAdmin()) {
+            return true;
+        }
+        Integer ordinal = current.ordinalByCode.get(code);
+        return ordinal != null && (role.effective()[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * 管理员是否存在且为启用状态，角色须存在且启用
+     */
+    public boolean isActive(Long adminId) {
+        AdminGrant admin = getAdmin(adminId);
+        if (admin == null) {
+            return false;
+        }
+        RoleGrant role = getSnapshot().roles.get(admin.roleId());
+        return role != null && role.enabled();
+    }
+
+    /**
+     * 管理员拥有的权限编码，超级管理员返回 ["*"]
+     */
+    public List<String> getPermissionCodes(Long adminId) {
+        AdminGrant admin = getAdmin(adminId);
+        Snapshot current = getSnapshot();
+        RoleGrant role = admin != null ? current.roles.get(admin.roleId()) : null;
+        if (role == null || !role.enabled()) {
+            return new ArrayList<>();
+        }
+        if (role.superAdmin()) {
+            return new ArrayList<>(List.of("*"));
+        }
+        List<String> codes = new ArrayList<>();
+        forEachBit(role.effective(), ordinal -> {
+            String code = current.permissions.get(ordinal).getCode();
+            if (code != null && !code.isEmpty()) {
+                codes.add(code);
+            }
+        });
+        return codes;
+    }
+
+    /**
+     * 管理员的角色编码，管理员或角色不存在时返回null
+     */
+    public String getRoleCode(Long adminId) {
+        AdminGrant admin = getAdmin(adminId);
+        RoleGrant role = admin != null ? getSnapshot().roles.get(admin.roleId()) : null;
+        return role != null ? role.code() : null;
+    }
+
+    /**
+     * 启用状态的权限树，按排序值、ID升序；返回的均为副本
+     */
+    public List<Permission> getPermissionTree() {
+        return copyTree(getSnapshot().roots);
+    }
+
+    /**
+     * 角色绑定的权限（含已禁用的），按排序值、ID升序；返回的均为副本
+     */
+    public List<Permission> getPermissions(Long roleId) {
+        Snapshot current = getSnapshot();
+        RoleGrant role = current.roles.get(roleId);
+        List<Permission> result = new ArrayList<>();
+        if (role != null) {
+            forEachBit(role.bound(), ordinal -> result.add(copy(current.permissions.get(ordinal))));
+        }
+        return result;
+    }
+
+    /**
+     * 角色绑定的权限ID（含已禁用的）
+     */
+    public List<Long> getPermissionIds(Long roleId) {
+        Snapshot current = getSnapshot();
+        RoleGrant role = current.roles.get(roleId);
+        List<Long> result = new ArrayList<>();
+        if (role != null) {
+            forEachBit(role.bound(), ordinal -> result.add(current.permissions.get(ordinal).getId()));
+        }
+        return result;
+    }
+
+    /**
+     * 管理员登录后调用，重新加载其角色信息
+     */
+    public void onAdminLogin(Long adminId) {
+        if (adminId != null) {
+            admins.remove(adminId);
+            getAdmin(adminId);
+        }
+    }
+
+    /**
+     * 管理员编辑、删除后调用，丢弃本地缓存并通知其他实例
+     */
+    public void onAdminChanged(Long adminId) {
+        if (adminId != null) {
+            invalidationBus.publish(CACHE_NAME, ADMIN_KEY_PREFIX + adminId);
+        }
+    }
+
+    /**
+     * 角色新增、编辑、删除或角色权限变更后调用，全量重建并通知其他实例
+     */
+    public void onRolesChanged() {
+        invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.ALL);
+    }
+
+    /**
+     * 定时全量重建，兜底处理丢失的失效广播和直接改库的情况
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void scheduledRebuild() {
+        if (snapshot != null) {
+            rebuild();
+        }
+        admins.clear();
+    }
+
+    /**
+     * 管理员不存在、已删除或已禁用时返回null，结果同样缓存，避免无效令牌反复查库
+     */
+    private AdminGrant getAdmin(Long adminId) {
+        if (adminId == null) {
+            return null;
+        }
+        AdminGrant admin = admins.computeIfAbsent(adminId, id -> {
+            AdminUser user = adminUserMapper.selectById(id);
+            boolean enabled = user != null && Integer.valueOf(1).equals(user.getStatus());
+            return new AdminGrant(enabled ? user.getRoleId() : null);
+        });
+        return admin.roleId() != null ? admin : null;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = loadAll();
+                    snapshot = current;
+                    log.info("管理后台授权快照已构建: 权限数={}, 角色数={}", current.permissions.size(), current.roles.size());
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized void rebuild() {
+        snapshot = loadAll();
+    }
+
+    private Snapshot loadAll() {
+        List<Permission> permissions = permissionMapper.selectList(new LambdaQueryWrapper<Permission>()
+                .orderByAsc(Permission::getSort)
+                .orderByAsc(Permission::getId));
+        List<Role> roles = roleMapper.selectList(null);
+        List<RolePermission> bindings = rolePermissionMapper.selectList(null);
+        return build(permissions, roles, bindings);
+    }
+
+    /**
+     * 由已排序的权限列表构建快照：序号即列表下标，角色按绑定关系置位，启用的权限再求一次交集
+     */
+    private static Snapshot build(List<Permission> permissions, List<Role> roles, List<RolePermission> bindings) {
+        int words = (permissions.size() + 63) >>> 6;
+        Map<Long, Integer> ordinalById = new HashMap<>();
+        Map<String, Integer> ordinalByCode = new HashMap<>();
+        long[] enabledMask = new long[words];
+        Map<Long, List<Permission>> childrenByParent = new HashMap<>();
+        for (int i = 0; i < permissions.size(); i++) {
+            Permission permission = permissions.get(i);
+            ordinalById.put(permission.getId(), i);
+            if (permission.getCode() != null && !permission.getCode().isEmpty()) {
+                ordinalByCode.putIfAbsent(permission.getCode(), i);
+            }
+            if (isEnabled(permission)) {
+                enabledMask[i >>> 6] |= 1L << i;
+                Long parentId = permission.getParentId() != null ? permission.getParentId() : 0L;
+                childrenByParent.computeIfAbsent(parentId, k -> new ArrayList<>()).add(permission);
+            }
+        }
+
+        Map<Long, long[]> boundByRole = new HashMap<>();
+        for (RolePermission binding : bindings) {
+            Integer ordinal = ordinalById.get(binding.getPermissionId());
+            if (ordinal != null) {
+                boundByRole.computeIfAbsent(binding.getRoleId(), k -> new long[words])[ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+
+        Map<Long, RoleGrant> roleGrants = new HashMap<>();
+        for (Role role : roles) {
+            long[] bound = boundByRole.getOrDefault(role.getId(), new long[words]);
+            long[] effective = new long[words];
+            for (int w = 0; w < words; w++) {
+                effective[w] = bound[w] & enabledMask[w];
+            }
+            roleGrants.put(role.getId(), new RoleGrant(role.getCode(), Integer.valueOf(1).equals(role.getStatus()),
+                    SUPER_ROLE_CODES.contains(role.getCode()), bound, effective));
+        }
+
+        List<Node> roots = buildNodes(childrenByParent.getOrDefault(0L, List.of()), childrenByParent);
+        return new Snapshot(Collections.unmodifiableList(new ArrayList<>(permissions)),
+                Collections.unmodifiableMap(ordinalByCode), Collections.unmodifiableMap(roleGrants), roots);
+    }
+
+    private static List<Node> buildNodes(List<Permission> level, Map<Long, List<Permission>> childrenByParent) {
+        List<Node> nodes = new ArrayList<>(level.size());
+        for (Permission permission : level) {
+            List<Permission> children = childrenByParent.getOrDefault(permission.getId(), List.of());
+            nodes.add(new Node(permission, buildNodes(children, childrenByParent)));
+        }
+        return Collections.unmodifiableList(nodes);
+    }
+
+    private static List<Permission> copyTree(List<Node> nodes) {
+        List<Permission> result = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            Permission permission = copy(node.permission());
+            if (!node.children().isEmpty()) {
+                permission.setChildren(copyTree(node.children()));
+            }
+            result.add(permission);
+        }
+        return result;
+    }
+
+    private static Permission copy(Permission source) {
+        Permission permission = new Permission();
+        permission.setId(source.getId());
+        permission.setParentId(source.getParentId());
+        permission.setName(source.getName());
+        permission.setCode(source.getCode());
+        permission.setType(source.getType());
+        permission.setIcon(source.getIcon());
+        permission.setPath(source.getPath());
+        permission.setComponent(source.getComponent());
+        permission.setSort(source.getSort());
+        permission.setStatus(source.getStatus());
+        permission.setCreateTime(source.getCreateTime());
+        permission.setUpdateTime(source.getUpdateTime());
+        permission.setDeleted(source.getDeleted());
+        return permission;
+    }
+
+    private static boolean isEnabled(Permission permission) {
+        return Integer.valueOf(1).equals(permission.getStatus());
+    }
+
+    private static void forEachBit(long[] mask, IntConsumer action) {
+        for (int w = 0; w < mask.length; w++) {
+            long word = mask[w];
+            while (word != 0) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * 管理员缓存项，roleId 为null表示管理员不可用
+     */
+    private record AdminGrant(Long roleId) {
+    }
+
+    /**
+     * 角色位掩码，下标为权限序号
+     *
+     * @param bound     角色绑定的全部权限
+     * @param effective 绑定且启用的权限，用于鉴权
+     */
+    private record RoleGrant(String code, boolean enabled, boolean superAdmin, long[] bound, long[] effective) {
+    }
+
+    /**
+     * 权限树节点，permission 为快照内部对象，不对外暴露
+     */
+    private record Node(Permission permission, List<Node> children) {
+    }
+
+    /**
+     * 不可变快照，读线程无锁访问；permissions 按序号排列
+     */
+    private record Snapshot(List<Permission> permissions, Map<String, Integer> ordinalByCode,
+                            Map<Long, RoleGrant> roles, List<Node> roots) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.lingxian.common.cache;
+
+import com.lingxian.common.constant.RedisConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 本地缓存失效总线
+ * 用户端、商户端、管理端三个JVM各自持有本地缓存，任一实例修改数据后通过 Redis 发布订阅通知其余实例失效。
+ * 发布方本地同步失效，不依赖 Redis 回环。
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+    /**
+     * 失效整个缓存而不是单个key
+     */
+    public static final String ALL = "*";
+
+    private static final String SEPARATOR = "|";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, List<Consumer<String>>> handlers = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisConstant.CACHE_INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 订阅某个缓存的失效事件
+     *
+     * @param cacheName 缓存名称
+     * @param handler   失效处理，参数为失效的key，{@link #ALL} 表示全部
+     */
+    public void subscribe(String cacheName, Consumer<String> handler) {
+        handlers.computeIfAbsent(cacheName, k -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * 失效本地缓存并广播到其他实例
+     */
+    public void publish(String cacheName, String key) {
+        dispatch(cacheName, key);
+        try {
+            redisTemplate.convertAndSend(RedisConstant.CACHE_INVALIDATE_CHANNEL,
+                    instanceId + SEPARATOR + cacheName + SEPARATOR + key);
+        } catch (Exception e) {
+            log.warn("广播缓存失效失败: cache={}, key={}, error={}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        dispatch(parts[1], parts[2]);
+    }
+
+    private void dispatch(String cacheName, String key) {
+        List<Consumer<String>> cacheHandlers = handlers.get(cacheName);
+        if (cacheHandlers == null) {
+            return;
+        }
+        for (Consumer<String> handler : cacheHandlers) {
+            try {
+                handler.accept(key);
+            } catch (Exception e) {
+                log.error("处理缓存失效失败: cache={}, key={}", cacheName, key, e);
+            }
+        }
+    }
+}
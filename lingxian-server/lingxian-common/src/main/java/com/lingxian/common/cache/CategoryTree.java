@@ -0,0 +1,324 @@
+package com.lingxian.common.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.entity.Category;
+import com.lingxian.common.mapper.CategoryMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品分类树快照
+ * 内存中维护全部未删除的分类：按父分类分组后一次遍历构建树、ID索引和每个分类的祖先路径，整体为不可变快照，
+ * 请求路径上的分类读取（树、扁平列表、ID查名称）都不访问数据库。返回给调用方的 {@link Category} 均为副本，可自由修改。
+ * <p>
+ * 分类新增、编辑、删除后调用 {@link #onCategoryChanged(Long)}，只重新加载该分类并以写时复制方式替换快照，同时广播到其他实例；
+ * 批量调整排序后调用 {@link #onCategoriesChanged()} 全量重建。
+ */
+@Slf4j
+@Component
+public class CategoryTree {
+
+    public static final String CACHE_NAME = "category-tree";
+
+    /**
+     * 与数据库查询 ORDER BY sort, id 一致，sort 为空的排在最后
+     */
+    private static final Comparator<Category> ORDER = Comparator
+            .comparing(Category::getSort, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Category::getId);
+
+    private final CategoryMapper categoryMapper;
+    private final CacheInvalidationBus invalidationBus;
+
+    private volatile Snapshot snapshot;
+
+    public CategoryTree(CategoryMapper categoryMapper, CacheInvalidationBus invalidationBus) {
+        this.categoryMapper = categoryMapper;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(CACHE_NAME, key -> {
+            if (CacheInvalidationBus.ALL.equals(key)) {
+                rebuild();
+            } else {
+                refreshCategory(Long.valueOf(key));
+            }
+        });
+    }
+
+    /**
+     * 获取分类节点，不存在时返回null
+     */
+    public Node get(Long categoryId) {
+        return categoryId == null ? null : getSnapshot().byId.get(categoryId);
+    }
+
+    /**
+     * 获取分类名称，不存在时返回null
+     */
+    public String getName(Long categoryId) {
+        Node node = get(categoryId);
+        return node != null ? node.name() : null;
+    }
+
+    /**
+     * 批量获取分类名称，不存在的分类不在结果中
+     */
+    public Map<Long, String> getNames(Collection<Long> categoryIds) {
+        Map<Long, Node> byId = getSnapshot().byId;
+        Map<Long, String> result = new HashMap<>();
+        for (Long id : categoryIds) {
+            Node node = id != null ? byId.get(id) : null;
+            if (node != null && node.name() != null) {
+                result.put(id, node.name());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 是否存在子分类（含已禁用的）
+     */
+    public boolean hasChildren(Long categoryId) {
+        Node node = get(categoryId);
+        return node != null && !node.children().isEmpty();
+    }
+
+    /**
+     * 分类树，按排序值、ID升序
+     *
+     * @param enabledOnly 只包含启用的分类，禁用分类的子分类一并排除
+     */
+    public List<Category> getTree(boolean enabledOnly) {
+        return copyTree(getSnapshot().roots, enabledOnly);
+    }
+
+    /**
+     * 一级分类，按排序值、ID升序
+     *
+     * @param enabledOnly 只包含启用的分类
+     * @param limit       返回的最大条数
+     */
+    public List<Category> getRoots(boolean enabledOnly, int limit) {
+        List<Category> result = new ArrayList<>();
+        for (Node node : getSnapshot().roots) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (!enabledOnly || node.isEnabled()) {
+                result.add(node.toCategory());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 全部分类的扁平列表，按排序值、ID升序
+     *
+     * @param enabledOnly 只包含启用的分类
+     */
+    public List<Category> list(boolean enabledOnly) {
+        List<Category> result = new ArrayList<>();
+        for (Node node : getSnapshot().byId.values()) {
+            if (!enabledOnly || node.isEnabled()) {
+                result.add(node.toCategory());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 分类新增、编辑、删除后调用，刷新本地快照并通知其他实例
+     */
+    public void onCategoryChanged(Long categoryId) {
+        if (categoryId != null) {
+            invalidationBus.publish(CACHE_NAME, String.valueOf(categoryId));
+        }
+    }
+
+    /**
+     * 批量变更（如调整排序）后调用，全量重建并通知其他实例
+     */
+    public void onCategoriesChanged() {
+        invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.ALL);
+    }
+
+    /**
+     * 定时全量重建，兜底处理丢失的失效广播
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void scheduledRebuild() {
+        if (snapshot != null) {
+            rebuild();
+        }
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = loadAll();
+                    snapshot = current;
+                    log.info("分类树已构建: 分类数={}", current.byId.size());
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized void rebuild() {
+        snapshot = loadAll();
+    }
+
+    /**
+     * 只重新加载单个分类，其余分类沿用旧快照中的数据重新组装
+     */
+    private synchronized void refreshCategory(Long categoryId) {
+        Snapshot old = snapshot;
+        if (old == null) {
+            return;
+        }
+        List<Category> categories = new ArrayList<>(old.byId.size() + 1);
+        for (Node node : old.byId.values()) {
+            if (!node.id().equals(categoryId)) {
+                categories.add(node.toCategory());
+            }
+        }
+        Category category = categoryMapper.selectById(categoryId);
+        if (category != null) {
+            categories.add(category);
+        }
+        categories.sort(ORDER);
+        snapshot = build(categories);
+        log.debug("分类树已更新: categoryId={}, exists={}", categoryId, category != null);
+    }
+
+    private Snapshot loadAll() {
+        return build(categoryMapper.selectList(new LambdaQueryWrapper<Category>()
+                .orderByAsc(Category::getSort)
+                .orderByAsc(Category::getId)));
+    }
+
+    /**
+     * 由已排序的分类列表构建快照：一次分组、一次自顶向下遍历，每个分类只访问一次
+     */
+    private static Snapshot build(List<Category> categories) {
+        Map<Long, Category> rows = new HashMap<>();
+        Map<Long, List<Category>> childrenByParent = new HashMap<>();
+        for (Category category : categories) {
+            rows.put(category.getId(), category);
+            if (!isRoot(category)) {
+                childrenByParent.computeIfAbsent(category.getParentId(), k -> new ArrayList<>()).add(category);
+            }
+        }
+
+        Map<Long, Node> built = new HashMap<>();
+        List<Node> roots = new ArrayList<>();
+        for (Category category : categories) {
+            if (isRoot(category)) {
+                roots.add(buildNode(category, List.of(), childrenByParent, built));
+            } else if (!rows.containsKey(category.getParentId())) {
+                // 父分类已删除的分类不出现在树中，但仍可按ID查询
+                buildNode(category, List.of(), childrenByParent, built);
+            }
+        }
+
+        // 按原顺序输出，保证扁平列表与数据库排序一致
+        Map<Long, Node> byId = new LinkedHashMap<>();
+        for (Category category : categories) {
+            Node node = built.get(category.getId());
+            if (node != null) {
+                byId.put(node.id(), node);
+            }
+        }
+        return new Snapshot(Collections.unmodifiableList(roots), Collections.unmodifiableMap(byId));
+    }
+
+    private static Node buildNode(Category category, List<Long> ancestors,
+                                  Map<Long, List<Category>> childrenByParent, Map<Long, Node> built) {
+        List<Long> path = new ArrayList<>(ancestors.size() + 1);
+        path.addAll(ancestors);
+        path.add(category.getId());
+        path = Collections.unmodifiableList(path);
+
+        List<Node> children = new ArrayList<>();
+        for (Category child : childrenByParent.getOrDefault(category.getId(), List.of())) {
+            if (!built.containsKey(child.getId())) {
+                children.add(buildNode(child, path, childrenByParent, built));
+            }
+        }
+
+        Node node = new Node(category.getId(), category.getParentId(), category.getName(), category.getIcon(),
+                category.getImage(), category.getLevel(), category.getSort(), category.getStatus(),
+                category.getCreateTime(), category.getUpdateTime(), Collections.unmodifiableList(children), path);
+        built.put(node.id(), node);
+        return node;
+    }
+
+    private static boolean isRoot(Category category) {
+        return category.getParentId() == null || category.getParentId() == 0;
+    }
+
+    private static List<Category> copyTree(List<Node> nodes, boolean enabledOnly) {
+        List<Category> result = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            if (enabledOnly && !node.isEnabled()) {
+                continue;
+            }
+            Category category = node.toCategory();
+            category.setChildren(copyTree(node.children(), enabledOnly));
+            result.add(category);
+        }
+        return result;
+    }
+
+    /**
+     * 分类节点，不可变
+     *
+     * @param children 子分类，按排序值、ID升序
+     * @param path     从一级分类到当前分类的ID路径（含自身）
+     */
+    public record Node(Long id, Long parentId, String name, String icon, String image, Integer level,
+                       Integer sort, Integer status, LocalDateTime createTime, LocalDateTime updateTime,
+                       List<Node> children, List<Long> path) {
+
+        public boolean isEnabled() {
+            return Integer.valueOf(1).equals(status);
+        }
+
+        /**
+         * 转为分类实体副本（不含子分类）
+         */
+        public Category toCategory() {
+            Category category = new Category();
+            category.setId(id);
+            category.setParentId(parentId);
+            category.setName(name);
+            category.setIcon(icon);
+            category.setImage(image);
+            category.setLevel(level);
+            category.setSort(sort);
+            category.setStatus(status);
+            category.setCreateTime(createTime);
+            category.setUpdateTime(updateTime);
+            return category;
+        }
+    }
+
+    /**
+     * 不可变快照，读线程无锁访问；roots 为一级分类，byId 含全部分类
+     */
+    private record Snapshot(List<Node> roots, Map<Long, Node> byId) {
+    }
+}
@@ -0,0 +1,319 @@
+package com.lingxian.common.cache;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.lingxian.common.entity.GroupActivity;
+import com.lingxian.common.mapper.GroupActivityMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进行中拼团活动索引
+ * 内存中维护未开始、进行中的拼团活动（已带商品名称、图片和所属商户），按创建时间倒序；
+ * 活动在 [开始时间, 结束时间) 内视为进行中。索引按所有活动的开始、结束时刻安排边界事件，
+ * 到点切换进行中列表并把活动状态同步到数据库，读请求只访问当前快照，不做时间比较、不访问数据库。
+ * <p>
+ * 活动新增、编辑、上下架后调用 {@link #onActivityChanged(Long)}，只重新加载该活动并广播到其他实例。
+ */
+@Slf4j
+@Component
+public class GroupActivityIndex {
+
+    public static final String CACHE_NAME = "group-activity-index";
+
+    private static final Comparator<GroupActivity> ORDER = Comparator
+            .comparing(GroupActivity::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(GroupActivity::getId, Comparator.reverseOrder());
+
+    private final GroupActivityMapper groupActivityMapper;
+    private final MerchantAvailabilityIndex merchantAvailabilityIndex;
+    private final CacheInvalidationBus invalidationBus;
+    private final ScheduledExecutorService boundaryScheduler;
+
+    private volatile Snapshot snapshot;
+    private ScheduledFuture<?> nextBoundary;
+
+    public GroupActivityIndex(GroupActivityMapper groupActivityMapper,
+                              MerchantAvailabilityIndex merchantAvailabilityIndex,
+                              CacheInvalidationBus invalidationBus) {
+        this.groupActivityMapper = groupActivityMapper;
+        this.merchantAvailabilityIndex = merchantAvailabilityIndex;
+        this.invalidationBus = invalidationBus;
+        this.boundaryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "group-activity-boundary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        invalidationBus.subscribe(CACHE_NAME, key -> {
+            if (CacheInvalidationBus.ALL.equals(key)) {
+                rebuild();
+            } else {
+                refreshActivity(Long.valueOf(key));
+            }
+        });
+    }
+
+    /**
+     * 分页获取进行中的活动，只包含营业中且可配送到指定小区的商户的活动
+     *
+     * @param communityId 小区ID，为null时只要求商户营业中
+     * @param offset      跳过的条数
+     * @param limit       返回的最大条数
+     */
+    public ActivityPage page(Long communityId, int offset, int limit) {
+        List<GroupActivity> records = new ArrayList<>(Math.max(0, Math.min(limit, 100)));
+        int total = 0;
+        for (GroupActivity activity : getSnapshot().active) {
+            if (!merchantAvailabilityIndex.isAvailable(activity.getMerchantId(), communityId)) {
+                continue;
+            }
+            if (total >= offset && records.size() < limit) {
+                records.add(copy(activity));
+            }
+            total++;
+        }
+        return new ActivityPage(total, records);
+    }
+
+    /**
+     * 获取最新的若干个进行中活动，过滤规则同 {@link #page}
+     */
+    public List<GroupActivity> top(Long communityId, int limit) {
+        List<GroupActivity> records = new ArrayList<>(limit);
+        for (GroupActivity activity : getSnapshot().active) {
+            if (records.size() >= limit) {
+                break;
+            }
+            if (merchantAvailabilityIndex.isAvailable(activity.getMerchantId(), communityId)) {
+                records.add(copy(activity));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 活动新增、编辑、上下架后调用，刷新本地索引并通知其他实例
+     */
+    public void onActivityChanged(Long activityId) {
+        if (activityId == null) {
+            return;
+        }
+        invalidationBus.publish(CACHE_NAME, String.valueOf(activityId));
+    }
+
+    /**
+     * 定时全量重建，兜底处理丢失的失效广播和商品信息变更
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void scheduledRebuild() {
+        if (snapshot != null) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        boundaryScheduler.shutdownNow();
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = install(groupActivityMapper.selectIndexCandidates(LocalDateTime.now(), null), null);
+                    log.info("拼团活动索引已构建: 候选={}, 进行中={}", current.candidates.size(), current.active.length);
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized void rebuild() {
+        Snapshot current = install(groupActivityMapper.selectIndexCandidates(LocalDateTime.now(), null), snapshot);
+        log.info("拼团活动索引已重建: 候选={}, 进行中={}", current.candidates.size(), current.active.length);
+    }
+
+    /**
+     * 只重新加载单个活动，其余部分沿用旧快照
+     */
+    private synchronized void refreshActivity(Long activityId) {
+        Snapshot old = snapshot;
+        if (old == null) {
+            return;
+        }
+        List<GroupActivity> candidates = new ArrayList<>(old.candidates.size() + 1);
+        for (GroupActivity activity : old.candidates) {
+            if (!activity.getId().equals(activityId)) {
+                candidates.add(activity);
+            }
+        }
+        candidates.addAll(groupActivityMapper.selectIndexCandidates(LocalDateTime.now(), activityId));
+        install(candidates, old);
+        log.debug("拼团活动索引已更新: activityId={}", activityId);
+    }
+
+    /**
+     * 边界事件：到达某个活动的开始或结束时刻，按当前时间重新划分进行中列表
+     */
+    private synchronized void advance() {
+        Snapshot old = snapshot;
+        if (old == null) {
+            return;
+        }
+        install(old.candidates, old);
+    }
+
+    private void safeAdvance() {
+        try {
+            advance();
+        } catch (Exception e) {
+            log.error("拼团活动索引边界切换失败", e);
+            // 失败时稍后重试，避免活动停留在错误状态
+            boundaryScheduler.schedule(this::safeAdvance, 5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 按当前时间构建快照、同步状态变化到数据库，并安排下一个边界事件；调用方须持有锁
+     */
+    private Snapshot install(List<GroupActivity> loaded, Snapshot old) {
+        LocalDateTime now = LocalDateTime.now();
+        List<GroupActivity> candidates = new ArrayList<>(loaded.size());
+        List<GroupActivity> active = new ArrayList<>();
+        List<Long> started = new ArrayList<>();
+        LocalDateTime next = null;
+        for (GroupActivity activity : loaded) {
+            if (!now.isBefore(activity.getEndTime())) {
+                continue;
+            }
+            candidates.add(activity);
+            if (now.isBefore(activity.getStartTime())) {
+                next = earlier(next, activity.getStartTime());
+            } else {
+                active.add(activity);
+                next = earlier(next, activity.getEndTime());
+                if (activity.getStatus() != null && activity.getStatus() == 0) {
+                    activity.setStatus(1);
+                    started.add(activity.getId());
+                }
+            }
+        }
+        candidates.sort(ORDER);
+        active.sort(ORDER);
+
+        List<Long> ended = new ArrayList<>();
+        if (old != null) {
+            Set<Long> remaining = new HashSet<>();
+            candidates.forEach(activity -> remaining.add(activity.getId()));
+            for (GroupActivity activity : old.candidates) {
+                if (!remaining.contains(activity.getId()) && !now.isBefore(activity.getEndTime())) {
+                    ended.add(activity.getId());
+                }
+            }
+        }
+        syncStatus(started, ended);
+
+        Snapshot current = new Snapshot(candidates, active.toArray(new GroupActivity[0]));
+        snapshot = current;
+        scheduleBoundary(next);
+        return current;
+    }
+
+    /**
+     * 把边界时刻发生的状态变化写回数据库；各实例都会执行，条件更新保证幂等
+     */
+    private void syncStatus(List<Long> started, List<Long> ended) {
+        if (!started.isEmpty()) {
+            groupActivityMapper.update(null, new LambdaUpdateWrapper<GroupActivity>()
+                    .in(GroupActivity::getId, started)
+                    .eq(GroupActivity::getStatus, 0)
+                    .set(GroupActivity::getStatus, 1)
+                    .set(GroupActivity::getUpdateTime, LocalDateTime.now()));
+        }
+        if (!ended.isEmpty()) {
+            groupActivityMapper.update(null, new LambdaUpdateWrapper<GroupActivity>()
+                    .in(GroupActivity::getId, ended)
+                    .in(GroupActivity::getStatus, 0, 1)
+                    .set(GroupActivity::getStatus, 2)
+                    .set(GroupActivity::getUpdateTime, LocalDateTime.now()));
+        }
+        if (!started.isEmpty() || !ended.isEmpty()) {
+            log.info("拼团活动状态切换: 开始={}, 结束={}", started, ended);
+        }
+    }
+
+    private void scheduleBoundary(LocalDateTime next) {
+        if (nextBoundary != null) {
+            nextBoundary.cancel(false);
+            nextBoundary = null;
+        }
+        if (next == null) {
+            return;
+        }
+        long delay = next.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() - System.currentTimeMillis();
+        nextBoundary = boundaryScheduler.schedule(this::safeAdvance, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
+    private static LocalDateTime earlier(LocalDateTime a, LocalDateTime b) {
+        return a == null || b.isBefore(a) ? b : a;
+    }
+
+    /**
+     * 返回副本，调用方可自由修改（如生成图片URL）
+     */
+    private static GroupActivity copy(GroupActivity source) {
+        GroupActivity target = new GroupActivity();
+        target.setId(source.getId());
+        target.setName(source.getName());
+        target.setProductId(source.getProductId());
+        target.setMerchantId(source.getMerchantId());
+        target.setOriginalPrice(source.getOriginalPrice());
+        target.setGroupPrice(source.getGroupPrice());
+        target.setGroupSize(source.getGroupSize());
+        target.setLimitPerUser(source.getLimitPerUser());
+        target.setStock(source.getStock());
+        target.setSoldCount(source.getSoldCount());
+        target.setGroupCount(source.getGroupCount());
+        target.setExpireHours(source.getExpireHours());
+        target.setAutoCancel(source.getAutoCancel());
+        target.setStatus(source.getStatus());
+        target.setStartTime(source.getStartTime());
+        target.setEndTime(source.getEndTime());
+        target.setDescription(source.getDescription());
+        target.setCreateTime(source.getCreateTime());
+        target.setUpdateTime(source.getUpdateTime());
+        target.setProductName(source.getProductName());
+        target.setProductImage(source.getProductImage());
+        return target;
+    }
+
+    /**
+     * 分页结果
+     *
+     * @param total   满足条件的活动总数
+     * @param records 当前页活动，productImage 为存储路径
+     */
+    public record ActivityPage(int total, List<GroupActivity> records) {
+    }
+
+    /**
+     * 不可变快照，读线程无锁访问；candidates 含未开始的活动，active 为当前进行中的活动
+     */
+    private record Snapshot(List<GroupActivity> candidates, GroupActivity[] active) {
+    }
+}
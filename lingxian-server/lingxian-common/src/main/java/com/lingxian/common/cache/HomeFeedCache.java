@@ -0,0 +1,209 @@
+package com.lingxian.common.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.lingxian.common.storage.PresignedUrlCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 首页数据缓存
+ * 按小区缓存首页接口组装好的完整数据（轮播图、分类、拼团活动，图片URL已签名），同一小区的用户共用一份。
+ * <p>
+ * 条目超过 {@link #REFRESH_AFTER} 或收到失效通知后变为过期：读请求仍直接返回旧数据，
+ * 同时由后台线程重新组装，每个小区同一时间只有一个刷新任务；只有条目不存在或超过 {@link #EXPIRE_AFTER} 时才同步加载，
+ * 同一小区并发未命中时也只有一个线程查库。高峰期的请求量不会放大为数据库查询量。
+ * <p>
+ * 轮播图、分类变更后调用 {@link #evictAll()}；商户营业状态、配送小区和拼团活动变更
+ * 通过订阅 {@link MerchantAvailabilityIndex}、{@link GroupActivityIndex} 的失效广播自动感知。
+ */
+@Slf4j
+@Component
+public class HomeFeedCache {
+
+    public static final String CACHE_NAME = "home-feed";
+
+    /**
+     * 超过该时间的条目在下次读取时后台刷新，同时覆盖拼团活动到点开始、结束带来的变化
+     */
+    private static final Duration REFRESH_AFTER = Duration.ofMinutes(1);
+
+    /**
+     * 数据中含签名图片URL，条目最长保留时间计入签名URL缓存的安全余量
+     */
+    private static final Duration EXPIRE_AFTER = PresignedUrlCache.DERIVED_CACHE_TTL;
+
+    private static final long MAXIMUM_SIZE = 2000;
+
+    /**
+     * 不区分小区（communityId 为null）时使用的缓存key
+     */
+    private static final long GLOBAL_KEY = 0L;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Cache<Long, Entry> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER)
+            .build();
+
+    /**
+     * 正在后台刷新的key
+     */
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(
+            1, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(256), r -> {
+                Thread thread = new Thread(r, "home-feed-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * 失效版本号，条目版本小于当前版本即视为过期
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong staleHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+
+    public HomeFeedCache(CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(CACHE_NAME, key -> markStale());
+        invalidationBus.subscribe(MerchantAvailabilityIndex.CACHE_NAME, key -> markStale());
+        invalidationBus.subscribe(GroupActivityIndex.CACHE_NAME, key -> markStale());
+    }
+
+    /**
+     * 获取首页数据
+     *
+     * @param communityId 小区ID，可为null
+     * @param loader      组装首页数据，参数为小区ID；返回的数据会被多个请求共享，不可再修改
+     */
+    public Map<String, Object> get(Long communityId, Function<Long, Map<String, Object>> loader) {
+        Long key = communityId == null ? GLOBAL_KEY : communityId;
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (isFresh(entry)) {
+                hitCount.incrementAndGet();
+            } else {
+                staleHitCount.incrementAndGet();
+                scheduleRefresh(key, communityId, loader);
+            }
+            return entry.payload();
+        }
+
+        missCount.incrementAndGet();
+        try {
+            return cache.get(key, () -> load(communityId, loader)).payload();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("加载首页数据失败: communityId=" + communityId, cause);
+        }
+    }
+
+    /**
+     * 轮播图、分类等全局数据变更后调用，所有小区的首页数据在下次访问时后台刷新
+     */
+    public void evictAll() {
+        invalidationBus.publish(CACHE_NAME, CacheInvalidationBus.ALL);
+    }
+
+    /**
+     * 命中统计，staleHit 为返回旧数据并触发后台刷新的次数，计入命中率
+     */
+    public Map<String, Object> stats() {
+        long hits = hitCount.get();
+        long staleHits = staleHitCount.get();
+        long misses = missCount.get();
+        long requests = hits + staleHits + misses;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.size());
+        result.put("hitCount", hits);
+        result.put("staleHitCount", staleHits);
+        result.put("missCount", misses);
+        result.put("hitRate", requests == 0 ? 0 : Math.round((hits + staleHits) * 10000.0 / requests) / 100.0);
+        result.put("refreshCount", refreshCount.get());
+        result.put("refreshFailureCount", refreshFailureCount.get());
+        return result;
+    }
+
+    /**
+     * 定时输出缓存命中情况
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void logStats() {
+        if (hitCount.get() + staleHitCount.get() + missCount.get() > 0) {
+            log.info("首页数据缓存统计: {}", stats());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private boolean isFresh(Entry entry) {
+        return entry.version() == version.get()
+                && System.currentTimeMillis() - entry.loadedAt() < REFRESH_AFTER.toMillis();
+    }
+
+    private void markStale() {
+        version.incrementAndGet();
+    }
+
+    private Entry load(Long communityId, Function<Long, Map<String, Object>> loader) {
+        // 先取版本号再查库，组装期间发生的失效会让该条目仍视为过期
+        long loadVersion = version.get();
+        Map<String, Object> payload = Collections.unmodifiableMap(loader.apply(communityId));
+        return new Entry(payload, loadVersion, System.currentTimeMillis());
+    }
+
+    private void scheduleRefresh(Long key, Long communityId, Function<Long, Map<String, Object>> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    cache.put(key, load(communityId, loader));
+                    refreshCount.incrementAndGet();
+                } catch (Exception e) {
+                    // 刷新失败时继续返回旧数据，下次访问再重试
+                    refreshFailureCount.incrementAndGet();
+                    log.warn("刷新首页数据失败: communityId={}, error={}", communityId, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private record Entry(Map<String, Object> payload, long version, long loadedAt) {
+    }
+}
@@ -0,0 +1,245 @@
+package com.lingxian.common.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.entity.Merchant;
+import com.lingxian.common.entity.MerchantCommunity;
+import com.lingxian.common.service.MerchantCommunityService;
+import com.lingxian.common.service.MerchantService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商户可配送索引
+ * 内存中维护"营业中的商户"以及"每个小区可配送的营业中商户"，均为有序 long 数组，
+ * 查询通过二分查找完成，不访问数据库。
+ * <p>
+ * 商户营业状态或配送小区开关变化时调用 {@link #onMerchantChanged(Long)}，
+ * 只重新加载该商户的数据并以写时复制方式替换快照，同时广播到其他实例。
+ */
+@Slf4j
+@Component
+public class MerchantAvailabilityIndex {
+
+    public static final String CACHE_NAME = "merchant-availability";
+
+    private static final long[] EMPTY = new long[0];
+
+    private final MerchantService merchantService;
+    private final MerchantCommunityService merchantCommunityService;
+    private final CacheInvalidationBus invalidationBus;
+
+    private volatile Snapshot snapshot;
+
+    public MerchantAvailabilityIndex(MerchantService merchantService,
+                                     MerchantCommunityService merchantCommunityService,
+                                     CacheInvalidationBus invalidationBus) {
+        this.merchantService = merchantService;
+        this.merchantCommunityService = merchantCommunityService;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(CACHE_NAME, key -> {
+            if (CacheInvalidationBus.ALL.equals(key)) {
+                rebuild();
+            } else {
+                refreshMerchant(Long.valueOf(key));
+            }
+        });
+    }
+
+    /**
+     * 获取可配送到指定小区的营业中商户ID
+     *
+     * @param communityId 小区ID，为null时返回所有营业中的商户
+     */
+    public List<Long> getAvailableMerchantIds(Long communityId) {
+        Snapshot current = getSnapshot();
+        long[] ids = communityId == null ? current.openMerchantIds
+                : current.communityMerchants.getOrDefault(communityId, EMPTY);
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * 商户是否营业中
+     */
+    public boolean isOpen(Long merchantId) {
+        return merchantId != null && Arrays.binarySearch(getSnapshot().openMerchantIds, merchantId) >= 0;
+    }
+
+    /**
+     * 商户是否营业中且可配送到指定小区，communityId 为null时只判断营业状态
+     */
+    public boolean isAvailable(Long merchantId, Long communityId) {
+        if (communityId == null) {
+            return isOpen(merchantId);
+        }
+        long[] ids = getSnapshot().communityMerchants.getOrDefault(communityId, EMPTY);
+        return merchantId != null && Arrays.binarySearch(ids, merchantId) >= 0;
+    }
+
+    /**
+     * 商户营业状态或配送小区变更后调用，刷新本地索引并通知其他实例
+     */
+    public void onMerchantChanged(Long merchantId) {
+        if (merchantId == null) {
+            return;
+        }
+        invalidationBus.publish(CACHE_NAME, String.valueOf(merchantId));
+    }
+
+    /**
+     * 定时全量重建，兜底处理丢失的失效广播
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void scheduledRebuild() {
+        if (snapshot != null) {
+            rebuild();
+        }
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = loadAll();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized void rebuild() {
+        snapshot = loadAll();
+    }
+
+    /**
+     * 只重新加载单个商户，其余部分沿用旧快照
+     */
+    private synchronized void refreshMerchant(Long merchantId) {
+        Snapshot old = snapshot;
+        if (old == null) {
+            return;
+        }
+
+        Merchant merchant = merchantService.getOne(new LambdaQueryWrapper<Merchant>()
+                .eq(Merchant::getId, merchantId)
+                .select(Merchant::getId, Merchant::getStatus));
+        boolean open = merchant != null && Integer.valueOf(1).equals(merchant.getStatus());
+        long[] communities = merchant == null ? EMPTY : toSortedArray(merchantCommunityService.list(
+                new LambdaQueryWrapper<MerchantCommunity>()
+                        .eq(MerchantCommunity::getMerchantId, merchantId)
+                        .eq(MerchantCommunity::getEnabled, 1)
+                        .select(MerchantCommunity::getCommunityId))
+                .stream().mapToLong(MerchantCommunity::getCommunityId).toArray());
+
+        long[] openMerchantIds = open ? insert(old.openMerchantIds, merchantId)
+                : remove(old.openMerchantIds, merchantId);
+
+        Map<Long, long[]> merchantCommunities = new HashMap<>(old.merchantCommunities);
+        long[] oldCommunities = merchantCommunities.getOrDefault(merchantId, EMPTY);
+        if (communities.length == 0) {
+            merchantCommunities.remove(merchantId);
+        } else {
+            merchantCommunities.put(merchantId, communities);
+        }
+
+        Map<Long, long[]> communityMerchants = new HashMap<>(old.communityMerchants);
+        for (long communityId : oldCommunities) {
+            long[] updated = remove(communityMerchants.getOrDefault(communityId, EMPTY), merchantId);
+            if (updated.length == 0) {
+                communityMerchants.remove(communityId);
+            } else {
+                communityMerchants.put(communityId, updated);
+            }
+        }
+        if (open) {
+            for (long communityId : communities) {
+                communityMerchants.put(communityId,
+                        insert(communityMerchants.getOrDefault(communityId, EMPTY), merchantId));
+            }
+        }
+
+        snapshot = new Snapshot(openMerchantIds, merchantCommunities, communityMerchants);
+        log.debug("商户可配送索引已更新: merchantId={}, open={}, communities={}", merchantId, open, communities.length);
+    }
+
+    private Snapshot loadAll() {
+        long[] openMerchantIds = toSortedArray(merchantService.list(new LambdaQueryWrapper<Merchant>()
+                        .eq(Merchant::getStatus, 1)
+                        .select(Merchant::getId))
+                .stream().mapToLong(Merchant::getId).toArray());
+
+        List<MerchantCommunity> coverage = merchantCommunityService.list(new LambdaQueryWrapper<MerchantCommunity>()
+                .eq(MerchantCommunity::getEnabled, 1)
+                .select(MerchantCommunity::getMerchantId, MerchantCommunity::getCommunityId));
+
+        Map<Long, List<Long>> byMerchant = new HashMap<>();
+        Map<Long, List<Long>> byCommunity = new HashMap<>();
+        for (MerchantCommunity mc : coverage) {
+            byMerchant.computeIfAbsent(mc.getMerchantId(), k -> new ArrayList<>()).add(mc.getCommunityId());
+            if (Arrays.binarySearch(openMerchantIds, mc.getMerchantId()) >= 0) {
+                byCommunity.computeIfAbsent(mc.getCommunityId(), k -> new ArrayList<>()).add(mc.getMerchantId());
+            }
+        }
+
+        Map<Long, long[]> merchantCommunities = new HashMap<>();
+        byMerchant.forEach((id, list) -> merchantCommunities.put(id, toSortedArray(list)));
+        Map<Long, long[]> communityMerchants = new HashMap<>();
+        byCommunity.forEach((id, list) -> communityMerchants.put(id, toSortedArray(list)));
+
+        log.info("商户可配送索引已重建: 营业商户={}, 配送小区={}", openMerchantIds.length, communityMerchants.size());
+        return new Snapshot(openMerchantIds, merchantCommunities, communityMerchants);
+    }
+
+    private static long[] toSortedArray(List<Long> values) {
+        return toSortedArray(values.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private static long[] toSortedArray(long[] values) {
+        return Arrays.stream(values).sorted().distinct().toArray();
+    }
+
+    private static long[] insert(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index >= 0) {
+            return sorted;
+        }
+        int position = -index - 1;
+        long[] result = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(sorted, position, result, position + 1, sorted.length - position);
+        return result;
+    }
+
+    private static long[] remove(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return sorted;
+        }
+        long[] result = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, index);
+        System.arraycopy(sorted, index + 1, result, index, sorted.length - index - 1);
+        return result;
+    }
+
+    /**
+     * 不可变快照，读线程无锁访问
+     */
+    private record Snapshot(long[] openMerchantIds,
+                            Map<Long, long[]> merchantCommunities,
+                            Map<Long, long[]> communityMerchants) {
+    }
+}
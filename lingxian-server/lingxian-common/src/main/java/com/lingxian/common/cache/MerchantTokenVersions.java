@@ -0,0 +1,109 @@
+package com.lingxian.common.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.constant.RedisConstant;
+import com.lingxian.common.entity.MerchantUser;
+import com.lingxian.common.service.MerchantUserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 商户端 token 版本
+ * 商户 token 中携带商户ID与审核状态，签发时写入当前版本号；商户用户换绑商户、商户审核状态或账户状态变化时版本号加一，
+ * 旧 token 随即失效，需通过 refresh 重新签发。版本号读取失败时 token 一律视为失效。
+ * <p>
+ * 版本号存于 Redis Hash，各实例本地缓存，变更时经 {@link CacheInvalidationBus} 广播失效，
+ * 过滤器校验版本只需一次本地查找。
+ */
+@Slf4j
+@Component
+public class MerchantTokenVersions {
+
+    public static final String CACHE_NAME = "merchant-token-version";
+
+    private static final String VERSION_KEY = RedisConstant.MERCHANT_TOKEN_PREFIX + "version";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MerchantUserService merchantUserService;
+    private final CacheInvalidationBus invalidationBus;
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    public MerchantTokenVersions(StringRedisTemplate redisTemplate,
+                                 MerchantUserService merchantUserService,
+                                 CacheInvalidationBus invalidationBus) {
+        this.redisTemplate = redisTemplate;
+        this.merchantUserService = merchantUserService;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(CACHE_NAME, key -> {
+            if (CacheInvalidationBus.ALL.equals(key)) {
+                versions.clear();
+            } else {
+                versions.remove(Long.valueOf(key));
+            }
+        });
+    }
+
+    /**
+     * 商户用户当前的 token 版本，Redis 不可用时返回 null
+     */
+    public Long current(Long merchantUserId) {
+        Long version = versions.get(merchantUserId);
+        if (version != null) {
+            return version;
+        }
+        try {
+            return versions.computeIfAbsent(merchantUserId, this::load);
+        } catch (Exception e) {
+            log.warn("读取商户token版本失败: merchantUserId={}, error={}", merchantUserId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * token 是否仍为当前版本；版本读取失败时拒绝（不放行无法确认的 token），未携带版本号的 token 视为版本0，永不匹配
+     */
+    public boolean isCurrent(Long merchantUserId, long tokenVersion) {
+        Long version = current(merchantUserId);
+        return version != null && version == tokenVersion;
+    }
+
+    /**
+     * 使商户用户已签发的 token 失效
+     *
+     * @return 新版本号
+     */
+    public long revoke(Long merchantUserId) {
+        load(merchantUserId);
+        Long version = redisTemplate.opsForHash().increment(VERSION_KEY, String.valueOf(merchantUserId), 1);
+        invalidationBus.publish(CACHE_NAME, String.valueOf(merchantUserId));
+        log.info("商户token已失效: merchantUserId={}, version={}", merchantUserId, version);
+        return version;
+    }
+
+    /**
+     * 使商户下所有用户已签发的 token 失效
+     */
+    public void revokeMerchant(Long merchantId) {
+        merchantUserService.list(new LambdaQueryWrapper<MerchantUser>()
+                        .select(MerchantUser::getId)
+                        .eq(MerchantUser::getMerchantId, merchantId))
+                .forEach(user -> revoke(user.getId()));
+    }
+
+    /**
+     * 从 Redis 读取版本号，不存在时以当前时间初始化：初始版本不为0，Redis 数据丢失后重新初始化的版本也不会与旧 token 相同
+     */
+    private Long load(Long merchantUserId) {
+        String field = String.valueOf(merchantUserId);
+        redisTemplate.opsForHash().putIfAbsent(VERSION_KEY, field, String.valueOf(System.currentTimeMillis()));
+        Object value = redisTemplate.opsForHash().get(VERSION_KEY, field);
+        if (value == null) {
+            throw new IllegalStateException("token版本不存在: " + merchantUserId);
+        }
+        return Long.parseLong(value.toString());
+    }
+}
@@ -0,0 +1,108 @@
+package com.lingxian.common.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.lingxian.common.storage.PresignedUrlCache;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * 商品详情缓存
+ * 缓存用户端商品详情接口组装好的完整数据，同一商品并发未命中时只有一个线程查库组装，其余线程等待结果。
+ * <p>
+ * 商品、商户或评价变更后调用 {@link #evictProduct(Long)} / {@link #evictMerchant(Long)}，
+ * 通过 {@link CacheInvalidationBus} 同时失效用户端实例中的缓存。
+ */
+@Component
+public class ProductDetailCache {
+
+    public static final String CACHE_NAME = "product-detail";
+
+    /**
+     * 数据中含签名图片URL，缓存时间计入签名URL缓存的安全余量
+     */
+    private static final Duration TTL = PresignedUrlCache.DERIVED_CACHE_TTL;
+
+    private static final long MAXIMUM_SIZE = 5000;
+
+    private static final String PRODUCT_KEY_PREFIX = "p:";
+    private static final String MERCHANT_KEY_PREFIX = "m:";
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Cache<Long, Entry> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(TTL)
+            .build();
+
+    public ProductDetailCache(CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(CACHE_NAME, this::onInvalidate);
+    }
+
+    /**
+     * 获取商品详情，未命中时调用 loader 组装
+     *
+     * @param productId 商品ID
+     * @param loader    组装详情，商品不存在或已下架时返回 {@link Entry#absent()}
+     */
+    public Entry get(Long productId, Function<Long, Entry> loader) {
+        try {
+            return cache.get(productId, () -> loader.apply(productId));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("加载商品详情失败: " + productId, cause);
+        }
+    }
+
+    /**
+     * 商品信息或评价变更后调用
+     */
+    public void evictProduct(Long productId) {
+        if (productId != null) {
+            invalidationBus.publish(CACHE_NAME, PRODUCT_KEY_PREFIX + productId);
+        }
+    }
+
+    /**
+     * 商户信息变更后调用，失效该商户的所有商品
+     */
+    public void evictMerchant(Long merchantId) {
+        if (merchantId != null) {
+            invalidationBus.publish(CACHE_NAME, MERCHANT_KEY_PREFIX + merchantId);
+        }
+    }
+
+    private void onInvalidate(String key) {
+        if (CacheInvalidationBus.ALL.equals(key)) {
+            cache.invalidateAll();
+        } else if (key.startsWith(PRODUCT_KEY_PREFIX)) {
+            cache.invalidate(Long.valueOf(key.substring(PRODUCT_KEY_PREFIX.length())));
+        } else if (key.startsWith(MERCHANT_KEY_PREFIX)) {
+            Long merchantId = Long.valueOf(key.substring(MERCHANT_KEY_PREFIX.length()));
+            cache.asMap().values().removeIf(entry -> merchantId.equals(entry.merchantId()));
+        }
+    }
+
+    /**
+     * 缓存条目，payload 为null表示商品不存在或已下架
+     */
+    public record Entry(Long merchantId, Map<String, Object> payload) {
+
+        public static Entry absent() {
+            return new Entry(null, null);
+        }
+
+        public boolean isPresent() {
+            return payload != null;
+        }
+    }
+}
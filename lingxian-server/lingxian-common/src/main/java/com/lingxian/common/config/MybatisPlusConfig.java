@@ -0,0 +1,34 @@
+package com.lingxian.common.config;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MyBatis Plus 配置
+ * 三个API应用都扫描 com.lingxian.common，因此分页插件在此统一注册
+ */
+@Configuration
+public class MybatisPlusConfig {
+
+    /**
+     * 单页最大条数，防止客户端传入超大 pageSize 拉取整表
+     */
+    public static final long MAX_PAGE_SIZE = 500L;
+
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+
+        // 分页插件：将 page() 改写为 LIMIT/OFFSET 下推到 PostgreSQL
+        PaginationInnerInterceptor pagination = new PaginationInnerInterceptor(DbType.POSTGRE_SQL);
+        pagination.setMaxLimit(MAX_PAGE_SIZE);
+        // COUNT 查询去掉 ORDER BY 以及不影响行数的 LEFT JOIN
+        pagination.setOptimizeJoin(true);
+        interceptor.addInnerInterceptor(pagination);
+
+        return interceptor;
+    }
+}
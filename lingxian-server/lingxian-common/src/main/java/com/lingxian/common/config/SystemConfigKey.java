@@ -0,0 +1,162 @@
+package com.lingxian.common.config;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * 系统配置项定义
+ * 按管理后台的分组（basic、order、delivery、points、commission）组织，库中的键为 "分组.字段"；
+ * 库中没有的配置项取默认值，默认值与原先代码中写死的取值一致。
+ */
+@Getter
+public enum SystemConfigKey {
+
+    SITE_NAME("basic", "siteName", ValueType.STRING, "铃鲜好物", "平台名称"),
+    SITE_LOGO("basic", "siteLogo", ValueType.STRING, "", "平台Logo"),
+    SITE_DESCRIPTION("basic", "siteDescription", ValueType.STRING, "新鲜好物，送货到家", "平台简介"),
+    CONTACT_PHONE("basic", "contactPhone", ValueType.STRING, "400-123-4567", "客服电话"),
+    CONTACT_EMAIL("basic", "contactEmail", ValueType.STRING, "service@lingxian.com", "客服邮箱"),
+    ICP("basic", "icp", ValueType.STRING, "粤ICP备12345678号", "ICP备案号"),
+
+    ORDER_AUTO_CANCEL_MINUTES("order", "autoCancelMinutes", ValueType.INTEGER, "30", "未支付自动取消(分钟)"),
+    ORDER_AUTO_RECEIVE_DAYS("order", "autoReceiveDays", ValueType.INTEGER, "7", "发货后自动确认收货(天)"),
+    ORDER_AUTO_COMPLETE_HOURS("order", "autoCompleteHours", ValueType.INTEGER, "24", "收货后自动完成(小时)"),
+    ORDER_REFUND_DEADLINE_DAYS("order", "refundDeadlineDays", ValueType.INTEGER, "7", "可申请售后期限(天)"),
+
+    DELIVERY_FREE_SHIPPING_AMOUNT("delivery", "freeShippingAmount", ValueType.DECIMAL, "49", "免运费金额"),
+    DELIVERY_DEFAULT_FREIGHT("delivery", "defaultFreight", ValueType.DECIMAL, "5", "默认运费"),
+    DELIVERY_TIME_START("delivery", "deliveryTimeStart", ValueType.STRING, "08:00", "配送开始时间"),
+    DELIVERY_TIME_END("delivery", "deliveryTimeEnd", ValueType.STRING, "22:00", "配送结束时间"),
+
+    POINTS_ORDER_RATE("points", "orderPointsRate", ValueType.INTEGER, "1", "订单金额积分比例(1元=N积分)"),
+    POINTS_TO_MONEY_RATE("points", "pointsToMoneyRate", ValueType.INTEGER, "100", "积分兑换比例(N积分=1元)"),
+    POINTS_SIGN_IN("points", "signInPoints", ValueType.INTEGER, "10", "每日签到积分"),
+    POINTS_MAX_DEDUCTION("points", "maxPointsDeduction", ValueType.INTEGER, "50", "积分最高抵扣比例(%)"),
+    POINTS_STREAK_BONUS("points", "streakBonus", ValueType.STREAK_BONUS, "", "连续签到奖励(天数:积分，逗号分隔)"),
+
+    COMMISSION_DEFAULT_RATE("commission", "defaultRate", ValueType.DECIMAL, "5", "默认佣金比例(%)"),
+    COMMISSION_SETTLEMENT_CYCLE("commission", "settlementCycle", ValueType.INTEGER, "7", "结算周期(天)"),
+    COMMISSION_MIN_WITHDRAW_AMOUNT("commission", "minWithdrawAmount", ValueType.DECIMAL, "10", "最低提现金额"),
+    COMMISSION_WITHDRAW_FEE_RATE("commission", "withdrawFeeRate", ValueType.DECIMAL, "0.006", "提现手续费率");
+
+    /**
+     * 分组
+     */
+    private final String group;
+
+    /**
+     * 分组内的字段名，与管理后台接口一致
+     */
+    private final String field;
+
+    private final ValueType type;
+
+    private final String defaultValue;
+
+    private final String description;
+
+    SystemConfigKey(String group, String field, ValueType type, String defaultValue, String description) {
+        this.group = group;
+        this.field = field;
+        this.type = type;
+        this.defaultValue = defaultValue;
+        this.description = description;
+    }
+
+    /**
+     * 库中的配置键
+     */
+    public String getKey() {
+        return group + "." + field;
+    }
+
+    /**
+     * 按分组、字段查找配置项，未定义时返回null
+     */
+    public static SystemConfigKey of(String group, String field) {
+        for (SystemConfigKey key : values()) {
+            if (key.group.equals(group) && key.field.equals(field)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析配置值，数值不能为负；连续签到奖励规范化为按天数升序的 "天数:积分" 列表
+     *
+     * @throws IllegalArgumentException 取值格式不正确
+     */
+    public Object parse(String raw) {
+        String value = raw == null ? "" : raw.trim();
+        switch (type) {
+            case INTEGER -> {
+                int parsed = Integer.parseInt(value);
+                if (parsed < 0) {
+                    throw new IllegalArgumentException(description + "不能为负数");
+                }
+                return parsed;
+            }
+            case DECIMAL -> {
+                BigDecimal parsed = new BigDecimal(value);
+                if (parsed.signum() < 0) {
+                    throw new IllegalArgumentException(description + "不能为负数");
+                }
+                return parsed;
+            }
+            case STREAK_BONUS -> {
+                return formatStreakBonus(parseStreakBonus(value));
+            }
+            default -> {
+                return raw == null ? "" : raw;
+            }
+        }
+    }
+
+    /**
+     * 解析连续签到奖励，如 "7:20,30:100" 表示连续签到第7天额外奖励20积分、第30天额外奖励100积分
+     *
+     * @return 天数 -> 奖励积分，按天数升序
+     * @throws IllegalArgumentException 格式不正确
+     */
+    public static TreeMap<Integer, Integer> parseStreakBonus(String value) {
+        TreeMap<Integer, Integer> bonuses = new TreeMap<>();
+        if (value == null || value.isBlank()) {
+            return bonuses;
+        }
+        for (String rule : value.split("[,，]")) {
+            if (rule.isBlank()) {
+                continue;
+            }
+            String[] parts = rule.trim().split("[:：]");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("连续签到奖励格式应为 天数:积分");
+            }
+            int days = Integer.parseInt(parts[0].trim());
+            int points = Integer.parseInt(parts[1].trim());
+            if (days < 1 || points < 0) {
+                throw new IllegalArgumentException("连续签到奖励的天数须大于0，积分不能为负数");
+            }
+            bonuses.put(days, points);
+        }
+        return bonuses;
+    }
+
+    private static String formatStreakBonus(Map<Integer, Integer> bonuses) {
+        StringJoiner joiner = new StringJoiner(",");
+        bonuses.forEach((days, points) -> joiner.add(days + ":" + points));
+        return joiner.toString();
+    }
+
+    public enum ValueType {
+        STRING, INTEGER, DECIMAL,
+        /**
+         * 连续签到奖励规则，取值仍为字符串
+         */
+        STREAK_BONUS
+    }
+}
@@ -0,0 +1,135 @@
+package com.lingxian.common.config;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * 系统配置快照
+ * 加载时一次性解析为类型化的值，创建后不可修改；配置保存后整体替换为新快照，读取方拿到的快照内各项取值始终一致。
+ */
+public final class SystemSettings {
+
+    private final long version;
+    private final Map<SystemConfigKey, Object> values;
+    private final NavigableMap<Integer, Integer> streakBonuses;
+
+    /**
+     * @param version 快照对应的配置版本号
+     * @param values  已解析的取值，缺少的配置项取默认值
+     */
+    public SystemSettings(long version, Map<SystemConfigKey, Object> values) {
+        EnumMap<SystemConfigKey, Object> copy = new EnumMap<>(SystemConfigKey.class);
+        for (SystemConfigKey key : SystemConfigKey.values()) {
+            Object value = values.get(key);
+            copy.put(key, value != null ? value : key.parse(key.getDefaultValue()));
+        }
+        this.version = version;
+        this.values = Collections.unmodifiableMap(copy);
+        this.streakBonuses = Collections.unmodifiableNavigableMap(
+                SystemConfigKey.parseStreakBonus(getString(SystemConfigKey.POINTS_STREAK_BONUS)));
+    }
+
+    /**
+     * 全部取默认值的快照
+     */
+    public static SystemSettings defaults() {
+        return new SystemSettings(0, Map.of());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getString(SystemConfigKey key) {
+        return (String) values.get(key);
+    }
+
+    public int getInt(SystemConfigKey key) {
+        return (Integer) values.get(key);
+    }
+
+    public BigDecimal getDecimal(SystemConfigKey key) {
+        return (BigDecimal) values.get(key);
+    }
+
+    /**
+     * 默认运费
+     */
+    public BigDecimal getDefaultFreight() {
+        return getDecimal(SystemConfigKey.DELIVERY_DEFAULT_FREIGHT);
+    }
+
+    /**
+     * 每日签到积分
+     */
+    public int getSignInPoints() {
+        return getInt(SystemConfigKey.POINTS_SIGN_IN);
+    }
+
+    /**
+     * 连续签到奖励：天数 -> 额外奖励积分，按天数升序
+     */
+    public NavigableMap<Integer, Integer> getStreakBonuses() {
+        return streakBonuses;
+    }
+
+    /**
+     * 连续签到第 continuousDays 天的额外奖励积分，未配置时为0
+     */
+    public int getStreakBonus(int continuousDays) {
+        return streakBonuses.getOrDefault(continuousDays, 0);
+    }
+
+    /**
+     * 提现手续费率
+     */
+    public BigDecimal getWithdrawFeeRate() {
+        return getDecimal(SystemConfigKey.COMMISSION_WITHDRAW_FEE_RATE);
+    }
+
+    /**
+     * 最低提现金额
+     */
+    public BigDecimal getMinWithdrawAmount() {
+        return getDecimal(SystemConfigKey.COMMISSION_MIN_WITHDRAW_AMOUNT);
+    }
+
+    /**
+     * 未支付自动取消时间
+     */
+    public Duration getAutoCancel() {
+        return Duration.ofMinutes(getInt(SystemConfigKey.ORDER_AUTO_CANCEL_MINUTES));
+    }
+
+    /**
+     * 发货后自动确认收货时间
+     */
+    public Duration getAutoReceive() {
+        return Duration.ofDays(getInt(SystemConfigKey.ORDER_AUTO_RECEIVE_DAYS));
+    }
+
+    /**
+     * 收货后自动完成时间
+     */
+    public Duration getAutoComplete() {
+        return Duration.ofHours(getInt(SystemConfigKey.ORDER_AUTO_COMPLETE_HOURS));
+    }
+
+    /**
+     * 按分组输出，供管理后台展示
+     */
+    public Map<String, Object> toGroupedMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> group = (Map<String, Object>) result.computeIfAbsent(key.getGroup(), g -> new LinkedHashMap<>());
+            group.put(key.getField(), value);
+        });
+        return result;
+    }
+}
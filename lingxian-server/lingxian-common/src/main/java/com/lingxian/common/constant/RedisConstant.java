@@ -45,6 +45,11 @@ public interface RedisConstant {
      */
     String PRODUCT_STOCK_PREFIX = "product:stock:";
 
+    /**
+     * 库存待回写商品ID集合
+     */
+    String PRODUCT_STOCK_DIRTY = "product:stock:dirty";
+
     /**
      * 购物车前缀
      */
@@ -60,11 +65,36 @@ public interface RedisConstant {
      */
     String GROUP_PARTICIPANTS_PREFIX = "group:participants:";
 
+    /**
+     * 拼团活动计数前缀（Hash：库存、已售、开团数）
+     */
+    String GROUP_ACTIVITY_PREFIX = "group:activity:";
+
+    /**
+     * 参团待落库队列
+     */
+    String GROUP_JOIN_QUEUE = "group:join:queue";
+
+    /**
+     * 待回写拼团ID集合
+     */
+    String GROUP_RECORD_DIRTY = "group:dirty:record";
+
+    /**
+     * 待回写拼团活动ID集合
+     */
+    String GROUP_ACTIVITY_DIRTY = "group:dirty:activity";
+
     /**
      * 订单超时队列
      */
     String ORDER_TIMEOUT_QUEUE = "order:timeout:queue";
 
+    /**
+     * 订单超时任务处理中集合（已认领未完成）
+     */
+    String ORDER_TIMEOUT_PROCESSING = "order:timeout:processing";
+
     /**
      * 分布式锁前缀
      */
@@ -76,10 +106,15 @@ public interface RedisConstant {
     String STOCK_LOCK_PREFIX = "lock:stock:";
 
     /**
-     * 用户签到记录前缀
+     * 用户签到位图前缀，每人每月一个键：user:sign:{userId}:{yyyyMM}，第N天对应偏移 N-1
      */
     String USER_SIGN_PREFIX = "user:sign:";
 
+    /**
+     * 签到位图已从积分记录回填的标记
+     */
+    String USER_SIGN_BACKFILLED = "user:sign:backfilled";
+
     /**
      * 热门商品排行
      */
@@ -90,6 +125,26 @@ public interface RedisConstant {
      */
     String MERCHANT_SALES_RANK = "rank:merchant:sales";
 
+    /**
+     * 本地缓存失效广播频道
+     */
+    String CACHE_INVALIDATE_CHANNEL = "cache:invalidate";
+
+    /**
+     * 订单导出任务进度（Hash）
+     */
+    String ORDER_EXPORT_JOB_PREFIX = "export:order:";
+
+    /**
+     * 平台统计回填任务进度（Hash）
+     */
+    String STATS_BACKFILL_JOB_PREFIX = "stats:backfill:";
+
+    /**
+     * 系统配置版本号，配置每次保存后加一
+     */
+    String SYSTEM_CONFIG_VERSION = "system:config:version";
+
     /**
      * Token过期时间(秒) - 7天
      */
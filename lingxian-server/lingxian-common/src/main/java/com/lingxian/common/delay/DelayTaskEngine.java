@@ -0,0 +1,366 @@
+package com.lingxian.common.delay;
+
+import com.lingxian.common.constant.RedisConstant;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 延时任务引擎
+ * 任务持久化在 Redis 有序集合（score 为到期时间），各实例每秒用 Lua 脚本原子认领即将到期的一批任务，
+ * 移入处理中集合（score 为租约截止时间）后放入本地分层时间轮，到期按类型批量交给处理器。
+ * 处理成功后从处理中集合删除；实例宕机或处理失败的任务在租约过期后被放回队列重试。
+ * <p>
+ * 处理器须幂等（按状态条件更新），同一任务在租约过期重试时可能执行多次。
+ */
+@Slf4j
+@Component
+public class DelayTaskEngine {
+
+    private static final String QUEUE_KEY = RedisConstant.ORDER_TIMEOUT_QUEUE;
+    private static final String PROCESSING_KEY = RedisConstant.ORDER_TIMEOUT_PROCESSING;
+
+    private static final long TICK_MS = 100;
+    private static final int WHEEL_SIZE = 64;
+
+    /**
+     * 每次认领未来多长时间内到期的任务
+     */
+    private static final long CLAIM_HORIZON_MS = 30_000;
+    private static final long CLAIM_INTERVAL_MS = 1000;
+    private static final int CLAIM_BATCH = 1000;
+    private static final int MAX_CLAIM_ROUNDS = 20;
+
+    /**
+     * 租约：到期后这么久仍未处理完成则放回队列
+     */
+    private static final long LEASE_MS = 60_000;
+    private static final long REAP_INTERVAL_MS = 30_000;
+
+    private static final int LAG_SAMPLES = 1024;
+
+    /**
+     * 认领：KEYS[1] 队列，KEYS[2] 处理中；ARGV[1] 最大到期时间，ARGV[2] 数量，ARGV[3] 租约
+     */
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local items = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'WITHSCORES', 'LIMIT', 0, ARGV[2])\n" +
+            "for i = 1, #items, 2 do\n" +
+            "  redis.call('ZREM', KEYS[1], items[i])\n" +
+            "  redis.call('ZADD', KEYS[2], tonumber(items[i + 1]) + tonumber(ARGV[3]), items[i])\n" +
+            "end\n" +
+            "return items", List.class);
+
+    /**
+     * 回收租约过期任务：KEYS[1] 处理中，KEYS[2] 队列；ARGV[1] 当前时间，ARGV[2] 数量
+     */
+    private static final RedisScript<Long> REAP_SCRIPT = new DefaultRedisScript<>(
+            "local items = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])\n" +
+            "for i = 1, #items do\n" +
+            "  redis.call('ZREM', KEYS[1], items[i])\n" +
+            "  redis.call('ZADD', KEYS[2], ARGV[1], items[i])\n" +
+            "end\n" +
+            "return #items", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+
+    private final Map<DelayTaskType, Consumer<List<Long>>> handlers = new EnumMap<>(DelayTaskType.class);
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService worker;
+    private volatile boolean running;
+    private long wheelSize;
+
+    private final AtomicLong claimedCount = new AtomicLong();
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong reapedCount = new AtomicLong();
+    private final AtomicLong lagSumMs = new AtomicLong();
+    private final AtomicLong lagMaxMs = new AtomicLong();
+    private final long[] recentLags = new long[LAG_SAMPLES];
+    private long recentLagIndex;
+
+    public DelayTaskEngine(StringRedisTemplate redisTemplate,
+                           @Value("${delay-task.enabled:true}") boolean enabled) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 注册任务处理器，参数为到期的业务ID
+     */
+    public synchronized void register(DelayTaskType type, Consumer<List<Long>> handler) {
+        handlers.put(type, handler);
+    }
+
+    /**
+     * 添加延时任务，已存在时更新到期时间
+     *
+     * @param dueAt 到期时间（毫秒时间戳）
+     */
+    public void schedule(DelayTaskType type, Long id, long dueAt) {
+        redisTemplate.opsForZSet().add(QUEUE_KEY, type.member(id), dueAt);
+    }
+
+    /**
+     * 批量添加延时任务
+     */
+    public void schedule(DelayTaskType type, Map<Long, Long> dueAtById) {
+        if (dueAtById.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = dueAtById.entrySet().stream()
+                .map(e -> (ZSetOperations.TypedTuple<String>) new DefaultTypedTuple<>(type.member(e.getKey()), e.getValue().doubleValue()))
+                .collect(Collectors.toSet());
+        redisTemplate.opsForZSet().add(QUEUE_KEY, tuples);
+    }
+
+    /**
+     * 取消延时任务。已被认领到本地时间轮的任务仍会触发，由处理器的状态条件过滤
+     */
+    public void cancel(DelayTaskType type, Long id) {
+        String member = type.member(id);
+        redisTemplate.opsForZSet().remove(QUEUE_KEY, member);
+        redisTemplate.opsForZSet().remove(PROCESSING_KEY, member);
+    }
+
+    /**
+     * 运行指标：队列积压、处理中数量、触发延迟
+     */
+    public Map<String, Object> getMetrics() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("pending", redisTemplate.opsForZSet().zCard(QUEUE_KEY));
+        metrics.put("overdue", redisTemplate.opsForZSet().count(QUEUE_KEY, Double.NEGATIVE_INFINITY, now));
+        Set<ZSetOperations.TypedTuple<String>> oldest = redisTemplate.opsForZSet().rangeWithScores(QUEUE_KEY, 0, 0);
+        long oldestOverdueMs = 0;
+        if (oldest != null && !oldest.isEmpty()) {
+            Double score = oldest.iterator().next().getScore();
+            oldestOverdueMs = score != null ? Math.max(0, now - score.longValue()) : 0;
+        }
+        metrics.put("oldestOverdueMs", oldestOverdueMs);
+        metrics.put("processing", redisTemplate.opsForZSet().zCard(PROCESSING_KEY));
+
+        synchronized (wheel) {
+            metrics.put("localWheel", wheelSize);
+        }
+
+        long fired = firedCount.get();
+        long[] lags;
+        synchronized (recentLags) {
+            lags = Arrays.copyOf(recentLags, (int) Math.min(recentLagIndex, LAG_SAMPLES));
+        }
+        Arrays.sort(lags);
+        metrics.put("claimed", claimedCount.get());
+        metrics.put("fired", fired);
+        metrics.put("failed", failedCount.get());
+        metrics.put("reaped", reapedCount.get());
+        metrics.put("lagAvgMs", fired == 0 ? 0 : lagSumMs.get() / fired);
+        metrics.put("lagMaxMs", lagMaxMs.get());
+        metrics.put("lagP50Ms", percentile(lags, 0.5));
+        metrics.put("lagP99Ms", percentile(lags, 0.99));
+        return metrics;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "delay-task-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "delay-task-worker"));
+        ticker.scheduleAtFixedRate(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::claim, 0, CLAIM_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::reap, REAP_INTERVAL_MS, REAP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        log.info("延时任务引擎已启动");
+    }
+
+    /**
+     * 停机时把本地未触发的任务放回队列，避免等待租约过期
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        ticker.shutdownNow();
+        worker.shutdown();
+        try {
+            worker.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<TimingWheel.Entry<String>> remaining;
+        synchronized (wheel) {
+            remaining = wheel.drainAll();
+            wheelSize = 0;
+        }
+        if (remaining.isEmpty()) {
+            return;
+        }
+        try {
+            Set<ZSetOperations.TypedTuple<String>> tuples = remaining.stream()
+                    .map(e -> (ZSetOperations.TypedTuple<String>) new DefaultTypedTuple<>(e.task(), (double) e.expireAt()))
+                    .collect(Collectors.toSet());
+            redisTemplate.opsForZSet().add(QUEUE_KEY, tuples);
+            redisTemplate.opsForZSet().remove(PROCESSING_KEY, remaining.stream().map(TimingWheel.Entry::task).toArray());
+            log.info("延时任务引擎已停止，归还未触发任务: {}", remaining.size());
+        } catch (Exception e) {
+            log.warn("归还未触发任务失败，将在租约过期后重试: {}", e.getMessage());
+        }
+    }
+
+    // ============ 内部 ============
+
+    private void claim() {
+        try {
+            for (int round = 0; round < MAX_CLAIM_ROUNDS && running; round++) {
+                long now = System.currentTimeMillis();
+                @SuppressWarnings("unchecked")
+                List<String> items = redisTemplate.execute(CLAIM_SCRIPT, List.of(QUEUE_KEY, PROCESSING_KEY),
+                        String.valueOf(now + CLAIM_HORIZON_MS), String.valueOf(CLAIM_BATCH), String.valueOf(LEASE_MS));
+                if (items == null || items.isEmpty()) {
+                    return;
+                }
+                List<TimingWheel.Entry<String>> due = new ArrayList<>();
+                synchronized (wheel) {
+                    for (int i = 0; i + 1 < items.size(); i += 2) {
+                        String member = items.get(i);
+                        long dueAt = (long) Double.parseDouble(items.get(i + 1));
+                        if (wheel.add(member, dueAt)) {
+                            wheelSize++;
+                        } else {
+                            due.add(new TimingWheel.Entry<>(member, dueAt));
+                        }
+                    }
+                }
+                claimedCount.addAndGet(items.size() / 2);
+                dispatch(due);
+                if (items.size() / 2 < CLAIM_BATCH) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("认领延时任务失败", e);
+        }
+    }
+
+    private void tick() {
+        try {
+            List<TimingWheel.Entry<String>> due;
+            synchronized (wheel) {
+                due = wheel.poll(System.currentTimeMillis());
+                wheelSize -= due.size();
+            }
+            dispatch(due);
+        } catch (Exception e) {
+            log.error("推进时间轮失败", e);
+        }
+    }
+
+    private void reap() {
+        try {
+            Long reaped = redisTemplate.execute(REAP_SCRIPT, List.of(PROCESSING_KEY, QUEUE_KEY),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(CLAIM_BATCH));
+            if (reaped != null && reaped > 0) {
+                reapedCount.addAndGet(reaped);
+                log.warn("回收租约过期的延时任务: {}", reaped);
+            }
+        } catch (Exception e) {
+            log.error("回收延时任务失败", e);
+        }
+    }
+
+    private void dispatch(List<TimingWheel.Entry<String>> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+        Map<DelayTaskType, List<TimingWheel.Entry<String>>> byType = new EnumMap<>(DelayTaskType.class);
+        for (TimingWheel.Entry<String> entry : due) {
+            int sep = entry.task().indexOf(':');
+            DelayTaskType type = sep > 0 ? DelayTaskType.ofCode(entry.task().substring(0, sep)) : null;
+            if (type == null) {
+                log.warn("未知的延时任务: {}", entry.task());
+                redisTemplate.opsForZSet().remove(PROCESSING_KEY, entry.task());
+                continue;
+            }
+            byType.computeIfAbsent(type, k -> new ArrayList<>()).add(entry);
+        }
+        byType.forEach((type, entries) -> worker.execute(() -> fire(type, entries)));
+    }
+
+    private void fire(DelayTaskType type, List<TimingWheel.Entry<String>> entries) {
+        Consumer<List<Long>> handler;
+        synchronized (this) {
+            handler = handlers.get(type);
+        }
+        if (handler == null) {
+            // 本实例未注册该类型，等待租约过期后由其他实例处理
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (TimingWheel.Entry<String> entry : entries) {
+            ids.add(Long.valueOf(entry.task().substring(type.getCode().length() + 1)));
+        }
+        try {
+            handler.accept(ids);
+        } catch (Exception e) {
+            failedCount.addAndGet(entries.size());
+            log.error("延时任务处理失败，租约过期后重试: type={}, count={}", type, ids.size(), e);
+            return;
+        }
+        redisTemplate.opsForZSet().remove(PROCESSING_KEY,
+                entries.stream().map(TimingWheel.Entry::task).toArray());
+
+        long now = System.currentTimeMillis();
+        firedCount.addAndGet(entries.size());
+        synchronized (recentLags) {
+            for (TimingWheel.Entry<String> entry : entries) {
+                long lag = Math.max(0, now - entry.expireAt());
+                lagSumMs.addAndGet(lag);
+                lagMaxMs.accumulateAndGet(lag, Math::max);
+                recentLags[(int) (recentLagIndex++ % LAG_SAMPLES)] = lag;
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,47 @@
+package com.lingxian.common.delay;
+
+import lombok.Getter;
+
+/**
+ * 延时任务类型
+ */
+@Getter
+public enum DelayTaskType {
+
+    /**
+     * 待付款超时自动取消
+     */
+    ORDER_AUTO_CANCEL("C"),
+
+    /**
+     * 配送后超时自动确认收货
+     */
+    ORDER_AUTO_RECEIVE("R"),
+
+    /**
+     * 收货后超时自动完成
+     */
+    ORDER_AUTO_COMPLETE("F");
+
+    /**
+     * 队列成员前缀，成员格式为 code:业务ID
+     */
+    private final String code;
+
+    DelayTaskType(String code) {
+        this.code = code;
+    }
+
+    public String member(Long id) {
+        return code + ":" + id;
+    }
+
+    public static DelayTaskType ofCode(String code) {
+        for (DelayTaskType type : values()) {
+            if (type.code.equals(code)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
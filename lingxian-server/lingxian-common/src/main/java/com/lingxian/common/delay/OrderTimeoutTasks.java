@@ -0,0 +1,171 @@
+package com.lingxian.common.delay;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.config.SystemSettings;
+import com.lingxian.common.entity.Order;
+import com.lingxian.common.service.OrderService;
+import com.lingxian.common.service.SystemConfigService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单超时任务
+ * 订单状态变化时登记/取消对应的延时任务，到期后批量自动取消、确认收货、完成。
+ * 超时时长取登记任务时的系统配置，修改配置只影响之后登记的任务。
+ */
+@Slf4j
+@Component
+public class OrderTimeoutTasks {
+
+    private static final int SEED_BATCH = 1000;
+
+    private final DelayTaskEngine engine;
+    private final OrderService orderService;
+    private final SystemConfigService systemConfigService;
+
+    public OrderTimeoutTasks(DelayTaskEngine engine,
+                             OrderService orderService,
+                             SystemConfigService systemConfigService) {
+        this.engine = engine;
+        this.orderService = orderService;
+        this.systemConfigService = systemConfigService;
+
+        engine.register(DelayTaskType.ORDER_AUTO_CANCEL, this::handleAutoCancel);
+        engine.register(DelayTaskType.ORDER_AUTO_RECEIVE, this::handleAutoReceive);
+        engine.register(DelayTaskType.ORDER_AUTO_COMPLETE, this::handleAutoComplete);
+    }
+
+    /**
+     * 下单后调用：超时未支付自动取消
+     */
+    public void onOrderCreated(Long orderId) {
+        engine.schedule(DelayTaskType.ORDER_AUTO_CANCEL, orderId, dueAt(systemConfigService.current().getAutoCancel()));
+    }
+
+    /**
+     * 批量下单后调用
+     */
+    public void onOrdersCreated(Collection<Long> orderIds) {
+        long due = dueAt(systemConfigService.current().getAutoCancel());
+        Map<Long, Long> dueAtById = new HashMap<>();
+        orderIds.forEach(id -> dueAtById.put(id, due));
+        engine.schedule(DelayTaskType.ORDER_AUTO_CANCEL, dueAtById);
+    }
+
+    /**
+     * 支付或取消后调用
+     */
+    public void onOrderPaidOrCancelled(Long orderId) {
+        engine.cancel(DelayTaskType.ORDER_AUTO_CANCEL, orderId);
+    }
+
+    /**
+     * 开始配送后调用：超时自动确认收货
+     */
+    public void onOrderDelivered(Long orderId) {
+        engine.schedule(DelayTaskType.ORDER_AUTO_RECEIVE, orderId, dueAt(systemConfigService.current().getAutoReceive()));
+    }
+
+    /**
+     * 确认收货后调用：超时未评价自动完成
+     */
+    public void onOrderReceived(Long orderId) {
+        engine.cancel(DelayTaskType.ORDER_AUTO_RECEIVE, orderId);
+        engine.schedule(DelayTaskType.ORDER_AUTO_COMPLETE, orderId, dueAt(systemConfigService.current().getAutoComplete()));
+    }
+
+    /**
+     * 评价完成后调用
+     */
+    public void onOrderCompleted(Long orderId) {
+        engine.cancel(DelayTaskType.ORDER_AUTO_COMPLETE, orderId);
+    }
+
+    /**
+     * 为存量的待付款、待收货、待评价订单登记任务（上线时执行一次，按ID游标分批读取）
+     *
+     * @return 登记的任务数
+     */
+    public int seedExistingOrders() {
+        int seeded = 0;
+        long lastId = 0;
+        while (true) {
+            List<Order> orders = orderService.list(new LambdaQueryWrapper<Order>()
+                    .select(Order::getId, Order::getStatus, Order::getCreateTime,
+                            Order::getDeliveryTime, Order::getReceiveTime)
+                    .in(Order::getStatus, 1, 3, 4)
+                    .gt(Order::getId, lastId)
+                    .orderByAsc(Order::getId)
+                    .last("LIMIT " + SEED_BATCH));
+            if (orders.isEmpty()) {
+                break;
+            }
+
+            SystemSettings settings = systemConfigService.current();
+            Map<Long, Long> cancel = new HashMap<>();
+            Map<Long, Long> receive = new HashMap<>();
+            Map<Long, Long> complete = new HashMap<>();
+            for (Order order : orders) {
+                switch (order.getStatus()) {
+                    case 1 -> cancel.put(order.getId(), dueAt(order.getCreateTime(), settings.getAutoCancel()));
+                    case 3 -> receive.put(order.getId(), dueAt(order.getDeliveryTime(), settings.getAutoReceive()));
+                    case 4 -> complete.put(order.getId(), dueAt(order.getReceiveTime(), settings.getAutoComplete()));
+                    default -> {
+                    }
+                }
+            }
+            engine.schedule(DelayTaskType.ORDER_AUTO_CANCEL, cancel);
+            engine.schedule(DelayTaskType.ORDER_AUTO_RECEIVE, receive);
+            engine.schedule(DelayTaskType.ORDER_AUTO_COMPLETE, complete);
+            seeded += orders.size();
+            lastId = orders.get(orders.size() - 1).getId();
+        }
+        log.info("存量订单超时任务登记完成: {}", seeded);
+        return seeded;
+    }
+
+    private void handleAutoCancel(List<Long> orderIds) {
+        List<Long> cancelled = orderService.cancelTimeoutOrders(orderIds);
+        if (!cancelled.isEmpty()) {
+            log.info("超时未支付自动取消: count={}", cancelled.size());
+        }
+    }
+
+    private void handleAutoReceive(List<Long> orderIds) {
+        List<Long> received = orderService.autoReceive(orderIds);
+        if (received.isEmpty()) {
+            return;
+        }
+        long due = dueAt(systemConfigService.current().getAutoComplete());
+        Map<Long, Long> complete = new HashMap<>();
+        received.forEach(id -> complete.put(id, due));
+        engine.schedule(DelayTaskType.ORDER_AUTO_COMPLETE, complete);
+        log.info("超时自动确认收货: count={}", received.size());
+    }
+
+    private void handleAutoComplete(List<Long> orderIds) {
+        List<Long> completed = orderService.autoComplete(orderIds);
+        if (!completed.isEmpty()) {
+            log.info("超时自动完成订单: count={}", completed.size());
+        }
+    }
+
+    private long dueAt(Duration delay) {
+        return System.currentTimeMillis() + delay.toMillis();
+    }
+
+    private long dueAt(LocalDateTime from, Duration delay) {
+        if (from == null) {
+            return dueAt(delay);
+        }
+        return from.plus(delay).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,125 @@
+package com.lingxian.common.delay;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 分层时间轮
+ * 每层 wheelSize 个槽，槽宽 tickMs；超出本层跨度的任务放入上层（上层槽宽为本层总跨度），
+ * 上层槽到期时其中的任务重新插入下层，逐级降到底层后到期。只有非空槽进入到期队列，空闲时不空转。
+ * <p>
+ * 非线程安全，由调用方加锁。
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final List<Bucket<T>> buckets;
+    private final PriorityQueue<Bucket<T>> expiryQueue;
+    private long currentTime;
+    private TimingWheel<T> overflowWheel;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this(tickMs, wheelSize, startMs, new PriorityQueue<>(Comparator.comparingLong(b -> b.expiration)));
+    }
+
+    private TimingWheel(long tickMs, int wheelSize, long startMs, PriorityQueue<Bucket<T>> expiryQueue) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.expiryQueue = expiryQueue;
+        this.currentTime = startMs - startMs % tickMs;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new Bucket<>());
+        }
+    }
+
+    /**
+     * 加入任务
+     *
+     * @return false 表示已到期，需立即执行
+     */
+    boolean add(T task, long expireAt) {
+        return add(new Entry<>(task, expireAt));
+    }
+
+    /**
+     * 推进时钟到 now，返回到期的任务
+     */
+    List<Entry<T>> poll(long now) {
+        List<Entry<T>> expired = new ArrayList<>();
+        Bucket<T> bucket;
+        while ((bucket = expiryQueue.peek()) != null && bucket.expiration <= now) {
+            expiryQueue.poll();
+            advanceClock(bucket.expiration);
+            for (Entry<T> entry : bucket.drain()) {
+                if (!add(entry)) {
+                    expired.add(entry);
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 取出全部未到期任务（停机时归还队列）
+     */
+    List<Entry<T>> drainAll() {
+        List<Entry<T>> remaining = new ArrayList<>();
+        Bucket<T> bucket;
+        while ((bucket = expiryQueue.poll()) != null) {
+            remaining.addAll(bucket.drain());
+        }
+        return remaining;
+    }
+
+    private boolean add(Entry<T> entry) {
+        if (entry.expireAt() < currentTime + tickMs) {
+            return false;
+        }
+        if (entry.expireAt() < currentTime + interval) {
+            long virtualId = entry.expireAt() / tickMs;
+            Bucket<T> bucket = buckets.get((int) (virtualId % wheelSize));
+            bucket.entries.add(entry);
+            long expiration = virtualId * tickMs;
+            if (bucket.expiration != expiration) {
+                bucket.expiration = expiration;
+                expiryQueue.offer(bucket);
+            }
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new TimingWheel<>(interval, wheelSize, currentTime, expiryQueue);
+        }
+        return overflowWheel.add(entry);
+    }
+
+    private void advanceClock(long timeMs) {
+        if (timeMs >= currentTime + tickMs) {
+            currentTime = timeMs - timeMs % tickMs;
+            if (overflowWheel != null) {
+                overflowWheel.advanceClock(currentTime);
+            }
+        }
+    }
+
+    record Entry<T>(T task, long expireAt) {
+    }
+
+    private static final class Bucket<T> {
+
+        private final List<Entry<T>> entries = new ArrayList<>();
+        private long expiration = -1;
+
+        private List<Entry<T>> drain() {
+            List<Entry<T>> drained = new ArrayList<>(entries);
+            entries.clear();
+            expiration = -1;
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.lingxian.common.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 商户客户实体
+ * 每个（商户, 用户）一行，记录首单与最近下单日期，用于判定新老客户
+ */
+@Data
+@TableName("t_merchant_customer")
+public class MerchantCustomer implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long merchantId;
+
+    private Long userId;
+
+    /**
+     * 首单ID
+     */
+    private Long firstOrderId;
+
+    /**
+     * 首单下单日期
+     */
+    private LocalDate firstOrderDate;
+
+    /**
+     * 最近下单日期
+     */
+    private LocalDate lastOrderDate;
+
+    /**
+     * 已支付订单数
+     */
+    private Long orderCount;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,129 @@
+package com.lingxian.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 商户日统计实体
+ * 按商户、下单日期汇总已支付订单、销售额、配送、退款及新老客户数，订单支付、发货、收货、完成、退款时增量更新；
+ * 同一实体也用于月汇总（t_merchant_monthly_stats），此时 statDate 为月初
+ */
+@Data
+@TableName("t_merchant_daily_stats")
+public class MerchantDailyStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long merchantId;
+
+    /**
+     * 统计日期（订单下单日期）
+     */
+    private LocalDate statDate;
+
+    /**
+     * 已支付订单数
+     */
+    private Long orderCount;
+
+    /**
+     * 销售额（实付金额合计）
+     */
+    private BigDecimal salesAmount;
+
+    /**
+     * 已发货订单数
+     */
+    private Long deliveredCount;
+
+    /**
+     * 已支付待发货订单数
+     */
+    private Long pendingCount;
+
+    /**
+     * 已收货订单数
+     */
+    private Long receivedCount;
+
+    /**
+     * 已完成订单数
+     */
+    private Long completedCount;
+
+    /**
+     * 已支付后被取消（商家拒单）的订单数
+     */
+    private Long cancelledCount;
+
+    /**
+     * 退款订单数（商家拒单及同意退款）
+     */
+    private Long refundCount;
+
+    /**
+     * 退款金额
+     */
+    private BigDecimal refundAmount;
+
+    /**
+     * 新客户数（当天首次在该商户下单）
+     */
+    private Long newCustomers;
+
+    /**
+     * 老客户数（当天下单且此前下过单）
+     */
+    private Long returningCustomers;
+
+    private LocalDateTime updateTime;
+
+    /**
+     * 空统计
+     */
+    public static MerchantDailyStats empty(Long merchantId, LocalDate statDate) {
+        MerchantDailyStats stats = new MerchantDailyStats();
+        stats.setMerchantId(merchantId);
+        stats.setStatDate(statDate);
+        stats.setOrderCount(0L);
+        stats.setSalesAmount(BigDecimal.ZERO);
+        stats.setDeliveredCount(0L);
+        stats.setPendingCount(0L);
+        stats.setReceivedCount(0L);
+        stats.setCompletedCount(0L);
+        stats.setCancelledCount(0L);
+        stats.setRefundCount(0L);
+        stats.setRefundAmount(BigDecimal.ZERO);
+        stats.setNewCustomers(0L);
+        stats.setReturningCustomers(0L);
+        return stats;
+    }
+
+    /**
+     * 累加另一份统计（商户、日期不变）
+     */
+    public MerchantDailyStats add(MerchantDailyStats other) {
+        orderCount += other.orderCount;
+        salesAmount = salesAmount.add(other.salesAmount);
+        deliveredCount += other.deliveredCount;
+        pendingCount += other.pendingCount;
+        receivedCount += other.receivedCount;
+        completedCount += other.completedCount;
+        cancelledCount += other.cancelledCount;
+        refundCount += other.refundCount;
+        refundAmount = refundAmount.add(other.refundAmount);
+        newCustomers += other.newCustomers;
+        returningCustomers += other.returningCustomers;
+        return this;
+    }
+}
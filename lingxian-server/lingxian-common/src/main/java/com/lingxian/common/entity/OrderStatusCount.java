@@ -0,0 +1,53 @@
+package com.lingxian.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 订单/退款状态计数实体
+ * 每个商户、每种状态一行，merchantId 为 0 的行是全平台合计；商户行随状态变更在同一事务内增减，全平台合计在事务提交后增减
+ */
+@Data
+@TableName("t_order_status_count")
+public class OrderStatusCount implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 全平台合计行的商户ID
+     */
+    public static final long PLATFORM = 0L;
+
+    /**
+     * 计数类型：1-订单状态 2-退款状态
+     */
+    public static final int KIND_ORDER = 1;
+    public static final int KIND_REFUND = 2;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long merchantId;
+
+    /**
+     * 计数类型
+     */
+    private Integer kind;
+
+    /**
+     * 订单状态或退款状态
+     */
+    private Integer status;
+
+    /**
+     * 处于该状态的数量
+     */
+    private Long total;
+
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,56 @@
+package com.lingxian.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 平台分维度日统计实体
+ * 按天汇总各订单类型的下单数、各支付方式与各商品分类的支付订单数和金额
+ */
+@Data
+@TableName("t_platform_dim_stats")
+public class PlatformDimStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 统计维度：1-订单类型 2-支付方式 3-商品分类
+     */
+    public static final int DIM_ORDER_TYPE = 1;
+    public static final int DIM_PAY_TYPE = 2;
+    public static final int DIM_CATEGORY = 3;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private LocalDate statDate;
+
+    /**
+     * 统计维度
+     */
+    private Integer dimension;
+
+    /**
+     * 维度取值（订单类型、支付方式或分类ID）
+     */
+    private Long dimKey;
+
+    /**
+     * 订单数
+     */
+    private Long orderCount;
+
+    /**
+     * 金额（下单维度为订单实付金额，分类维度为该分类商品小计）
+     */
+    private BigDecimal amount;
+
+    private LocalDateTime updateTime;
+}
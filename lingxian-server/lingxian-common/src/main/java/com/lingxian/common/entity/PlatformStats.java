@@ -0,0 +1,129 @@
+package com.lingxian.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 平台统计实体
+ * 按小时、按天汇总下单、支付、完成、取消、退款及新增/活跃用户，按事件发生时间归档，订单与用户事件发生时增量更新
+ */
+@Data
+@TableName("t_platform_stats")
+public class PlatformStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 统计周期：0-小时 1-天
+     */
+    public static final int PERIOD_HOUR = 0;
+    public static final int PERIOD_DAY = 1;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 统计周期
+     */
+    private Integer periodType;
+
+    /**
+     * 周期开始时间（整点或零点）
+     */
+    private LocalDateTime periodStart;
+
+    /**
+     * 下单数
+     */
+    private Long createdOrders;
+
+    /**
+     * 支付订单数
+     */
+    private Long paidOrders;
+
+    /**
+     * 销售额（实付金额合计）
+     */
+    private BigDecimal salesAmount;
+
+    /**
+     * 完成订单数
+     */
+    private Long completedOrders;
+
+    /**
+     * 取消订单数
+     */
+    private Long cancelledOrders;
+
+    /**
+     * 退款数（已支付订单被拒单及退款审核通过）
+     */
+    private Long refundCount;
+
+    /**
+     * 退款金额
+     */
+    private BigDecimal refundAmount;
+
+    /**
+     * 新增用户数
+     */
+    private Long newUsers;
+
+    /**
+     * 活跃用户数（按天去重，计入当天首次活跃的小时）
+     */
+    private Long activeUsers;
+
+    /**
+     * 下单用户数（按天去重，计入当天首次支付的小时）
+     */
+    private Long orderingUsers;
+
+    private LocalDateTime updateTime;
+
+    /**
+     * 空统计
+     */
+    public static PlatformStats empty(int periodType, LocalDateTime periodStart) {
+        PlatformStats stats = new PlatformStats();
+        stats.setPeriodType(periodType);
+        stats.setPeriodStart(periodStart);
+        stats.setCreatedOrders(0L);
+        stats.setPaidOrders(0L);
+        stats.setSalesAmount(BigDecimal.ZERO);
+        stats.setCompletedOrders(0L);
+        stats.setCancelledOrders(0L);
+        stats.setRefundCount(0L);
+        stats.setRefundAmount(BigDecimal.ZERO);
+        stats.setNewUsers(0L);
+        stats.setActiveUsers(0L);
+        stats.setOrderingUsers(0L);
+        return stats;
+    }
+
+    /**
+     * 累加另一份统计（周期字段不变）
+     */
+    public PlatformStats add(PlatformStats other) {
+        createdOrders += other.createdOrders;
+        paidOrders += other.paidOrders;
+        salesAmount = salesAmount.add(other.salesAmount);
+        completedOrders += other.completedOrders;
+        cancelledOrders += other.cancelledOrders;
+        refundCount += other.refundCount;
+        refundAmount = refundAmount.add(other.refundAmount);
+        newUsers += other.newUsers;
+        activeUsers += other.activeUsers;
+        orderingUsers += other.orderingUsers;
+        return this;
+    }
+}
@@ -1,5 +1,6 @@
 package com.lingxian.common.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
@@ -25,6 +26,10 @@ public class Product extends BaseEntity {
     private BigDecimal price;
     private BigDecimal originalPrice;
     private BigDecimal costPrice;
+    /**
+     * 库存由 StockService 维护，updateById 不更新此字段
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
     private Integer stock;
     private Integer salesCount;
     private String unit;
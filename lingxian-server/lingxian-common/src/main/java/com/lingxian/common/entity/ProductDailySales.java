@@ -0,0 +1,56 @@
+package com.lingxian.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 商品日销量实体
+ * 按商品、订单下单日期汇总已支付订单的销量和金额，订单支付时增加、商家拒单时扣减
+ */
+@Data
+@TableName("t_product_daily_sales")
+public class ProductDailySales implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long productId;
+
+    /**
+     * 统计日期（订单下单日期）
+     */
+    private LocalDate statDate;
+
+    private Long merchantId;
+
+    /**
+     * 商品分类ID（写入时的分类）
+     */
+    private Long categoryId;
+
+    /**
+     * 销量
+     */
+    private Long quantity;
+
+    /**
+     * 销售金额（订单项小计合计）
+     */
+    private BigDecimal amount;
+
+    /**
+     * 订单数
+     */
+    private Long orderCount;
+
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,109 @@
+package com.lingxian.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * 评分聚合实体
+ * 按商品、商户、平台维护评价数、评分合计和星级分布，评价增删改时增量更新
+ */
+@Data
+@TableName("t_rating_stats")
+public class RatingStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 统计对象类型：0-平台 1-商品 2-商户
+     */
+    public static final int TYPE_PLATFORM = 0;
+    public static final int TYPE_PRODUCT = 1;
+    public static final int TYPE_MERCHANT = 2;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 统计对象类型
+     */
+    private Integer targetType;
+
+    /**
+     * 统计对象ID（平台为0）
+     */
+    private Long targetId;
+
+    /**
+     * 评价数
+     */
+    private Long ratingCount;
+
+    /**
+     * 评分合计
+     */
+    private Long ratingSum;
+
+    /**
+     * 1-5星评价数
+     */
+    @TableField("star_1")
+    private Long star1;
+    @TableField("star_2")
+    private Long star2;
+    @TableField("star_3")
+    private Long star3;
+    @TableField("star_4")
+    private Long star4;
+    @TableField("star_5")
+    private Long star5;
+
+    /**
+     * 待回复评价数（仅商户、平台）
+     */
+    private Long unrepliedCount;
+
+    private LocalDateTime updateTime;
+
+    /**
+     * 空统计
+     */
+    public static RatingStats empty(int targetType, Long targetId) {
+        RatingStats stats = new RatingStats();
+        stats.setTargetType(targetType);
+        stats.setTargetId(targetId);
+        stats.setRatingCount(0L);
+        stats.setRatingSum(0L);
+        stats.setStar1(0L);
+        stats.setStar2(0L);
+        stats.setStar3(0L);
+        stats.setStar4(0L);
+        stats.setStar5(0L);
+        stats.setUnrepliedCount(0L);
+        return stats;
+    }
+
+    /**
+     * 好评数（4-5星）
+     */
+    public long getGoodCount() {
+        return star4 + star5;
+    }
+
+    /**
+     * 平均评分，保留一位小数，无评价时为5.0
+     */
+    public BigDecimal getAvgRating() {
+        if (ratingCount == null || ratingCount == 0) {
+            return BigDecimal.valueOf(5.0);
+        }
+        return BigDecimal.valueOf(ratingSum).divide(BigDecimal.valueOf(ratingCount), 1, RoundingMode.HALF_UP);
+    }
+}
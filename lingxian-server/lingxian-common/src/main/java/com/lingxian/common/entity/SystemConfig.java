@@ -0,0 +1,46 @@
+package com.lingxian.common.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 系统配置实体
+ * 每个配置项一行，config_key 形如 "delivery.defaultFreight"，取值见 {@link com.lingxian.common.config.SystemConfigKey}
+ */
+@Data
+@TableName("t_system_config")
+public class SystemConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 配置键
+     */
+    private String configKey;
+
+    /**
+     * 配置值
+     */
+    private String configValue;
+
+    /**
+     * 描述
+     */
+    private String description;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,41 @@
+package com.lingxian.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 用户活跃实体
+ * 每个用户一行，记录最近活跃日期和下单情况，用于按天去重活跃/下单用户及统计复购
+ */
+@Data
+@TableName("t_user_activity")
+public class UserActivity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.INPUT)
+    private Long userId;
+
+    /**
+     * 最近活跃日期
+     */
+    private LocalDate lastActiveDate;
+
+    /**
+     * 最近支付日期
+     */
+    private LocalDate lastOrderDate;
+
+    /**
+     * 已支付订单数
+     */
+    private Long orderCount;
+
+    private LocalDateTime updateTime;
+}
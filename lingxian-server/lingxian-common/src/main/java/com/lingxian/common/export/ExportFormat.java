@@ -0,0 +1,43 @@
+package com.lingxian.common.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 导出文件格式
+ */
+public enum ExportFormat {
+
+    CSV("csv", "text/csv;charset=UTF-8"),
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 按名称解析，不区分大小写，无法识别时返回 CSV
+     */
+    public static ExportFormat of(String name) {
+        return "xlsx".equalsIgnoreCase(name) ? XLSX : CSV;
+    }
+
+    /**
+     * 打开逐行写出的写入器，关闭写入器时不关闭 out
+     */
+    public RowWriter open(OutputStream out) throws IOException {
+        return this == XLSX ? new XlsxRowWriter(out) : new CsvRowWriter(out);
+    }
+}
@@ -0,0 +1,13 @@
+package com.lingxian.common.export;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单导出筛选条件，各项为空表示不限
+ *
+ * @param status    订单状态
+ * @param startTime 下单时间起（含）
+ * @param endTime   下单时间止（含）
+ */
+public record OrderExportQuery(Integer status, LocalDateTime startTime, LocalDateTime endTime) {
+}
@@ -0,0 +1,22 @@
+package com.lingxian.common.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 逐行写出表格数据，内存占用与总行数无关
+ */
+public interface RowWriter extends Closeable {
+
+    /**
+     * 写出一行，数值类型按数字写出，null 写为空单元格，其余按字符串写出
+     */
+    void writeRow(List<?> values) throws IOException;
+
+    /**
+     * 写完剩余内容（如文件尾），不关闭底层输出流
+     */
+    @Override
+    void close() throws IOException;
+}
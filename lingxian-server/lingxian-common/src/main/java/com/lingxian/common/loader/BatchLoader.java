@@ -0,0 +1,158 @@
+package com.lingxian.common.loader;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.entity.GroupActivity;
+import com.lingxian.common.entity.GroupMember;
+import com.lingxian.common.entity.Merchant;
+import com.lingxian.common.entity.OrderItem;
+import com.lingxian.common.entity.Product;
+import com.lingxian.common.entity.RefundItem;
+import com.lingxian.common.entity.User;
+import com.lingxian.common.mapper.GroupActivityMapper;
+import com.lingxian.common.mapper.GroupMemberMapper;
+import com.lingxian.common.mapper.MerchantMapper;
+import com.lingxian.common.mapper.OrderItemMapper;
+import com.lingxian.common.mapper.ProductMapper;
+import com.lingxian.common.mapper.RefundItemMapper;
+import com.lingxian.common.mapper.UserMapper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 一次请求内的关联数据批量加载器
+ * 组装列表响应前先登记整页要用到的用户、商户、商品、订单项等键，每类数据只发一次 IN 查询，
+ * 之后逐行取值直接命中加载器内的缓存，一页数据的查询次数与行数无关。
+ * <p>
+ * 通过 {@link BatchLoaders#create()} 创建，只在当前请求内使用。
+ *
+ * <pre>
+ * BatchLoader loader = batchLoaders.create();
+ * loader.users().primeAll(orders, Order::getUserId);
+ * loader.merchants().primeAll(orders, Order::getMerchantId);
+ * for (Order order : orders) {
+ *     User user = loader.users().get(order.getUserId());
+ *     ...
+ * }
+ * </pre>
+ */
+public class BatchLoader {
+
+    private final UserMapper userMapper;
+    private final MerchantMapper merchantMapper;
+    private final ProductMapper productMapper;
+    private final OrderItemMapper orderItemMapper;
+    private final RefundItemMapper refundItemMapper;
+    private final GroupActivityMapper groupActivityMapper;
+    private final GroupMemberMapper groupMemberMapper;
+
+    private KeyedLoader<Long, User> users;
+    private KeyedLoader<Long, Merchant> merchants;
+    private KeyedLoader<Long, Product> products;
+    private KeyedLoader<Long, List<OrderItem>> orderItems;
+    private KeyedLoader<Long, List<RefundItem>> refundItems;
+    private KeyedLoader<Long, GroupActivity> groupActivities;
+    private KeyedLoader<Long, List<GroupMember>> groupMembers;
+
+    BatchLoader(UserMapper userMapper, MerchantMapper merchantMapper, ProductMapper productMapper,
+                OrderItemMapper orderItemMapper, RefundItemMapper refundItemMapper,
+                GroupActivityMapper groupActivityMapper, GroupMemberMapper groupMemberMapper) {
+        this.userMapper = userMapper;
+        this.merchantMapper = merchantMapper;
+        this.productMapper = productMapper;
+        this.orderItemMapper = orderItemMapper;
+        this.refundItemMapper = refundItemMapper;
+        this.groupActivityMapper = groupActivityMapper;
+        this.groupMemberMapper = groupMemberMapper;
+    }
+
+    /**
+     * 用户ID -> 用户
+     */
+    public KeyedLoader<Long, User> users() {
+        if (users == null) {
+            users = byId(ids -> userMapper.selectBatchIds(ids), User::getId);
+        }
+        return users;
+    }
+
+    /**
+     * 商户ID -> 商户
+     */
+    public KeyedLoader<Long, Merchant> merchants() {
+        if (merchants == null) {
+            merchants = byId(ids -> merchantMapper.selectBatchIds(ids), Merchant::getId);
+        }
+        return merchants;
+    }
+
+    /**
+     * 商品ID -> 商品
+     */
+    public KeyedLoader<Long, Product> products() {
+        if (products == null) {
+            products = byId(ids -> productMapper.selectBatchIds(ids), Product::getId);
+        }
+        return products;
+    }
+
+    /**
+     * 拼团活动ID -> 拼团活动
+     */
+    public KeyedLoader<Long, GroupActivity> groupActivities() {
+        if (groupActivities == null) {
+            groupActivities = byId(ids -> groupActivityMapper.selectBatchIds(ids), GroupActivity::getId);
+        }
+        return groupActivities;
+    }
+
+    /**
+     * 订单ID -> 订单项，按订单项ID升序
+     */
+    public KeyedLoader<Long, List<OrderItem>> orderItems() {
+        if (orderItems == null) {
+            orderItems = grouped(ids -> orderItemMapper.selectList(new LambdaQueryWrapper<OrderItem>()
+                    .in(OrderItem::getOrderId, ids)
+                    .orderByAsc(OrderItem::getId)), OrderItem::getOrderId);
+        }
+        return orderItems;
+    }
+
+    /**
+     * 退款单ID -> 退款商品，按ID升序
+     */
+    public KeyedLoader<Long, List<RefundItem>> refundItems() {
+        if (refundItems == null) {
+            refundItems = grouped(ids -> refundItemMapper.selectList(new LambdaQueryWrapper<RefundItem>()
+                    .in(RefundItem::getRefundId, ids)
+                    .orderByAsc(RefundItem::getId)), RefundItem::getRefundId);
+        }
+        return refundItems;
+    }
+
+    /**
+     * 拼团ID -> 成员，按参团时间升序
+     */
+    public KeyedLoader<Long, List<GroupMember>> groupMembers() {
+        if (groupMembers == null) {
+            groupMembers = grouped(ids -> groupMemberMapper.selectList(new LambdaQueryWrapper<GroupMember>()
+                    .in(GroupMember::getGroupId, ids)
+                    .orderByAsc(GroupMember::getJoinTime)), GroupMember::getGroupId);
+        }
+        return groupMembers;
+    }
+
+    private static <V> KeyedLoader<Long, V> byId(Function<Collection<Long>, List<V>> query,
+                                                 Function<V, Long> idGetter) {
+        return new KeyedLoader<>(ids -> query.apply(ids).stream()
+                .collect(Collectors.toMap(idGetter, v -> v, (a, b) -> a)), null);
+    }
+
+    private static <V> KeyedLoader<Long, List<V>> grouped(Function<Collection<Long>, List<V>> query,
+                                                         Function<V, Long> keyGetter) {
+        return new KeyedLoader<>(ids -> query.apply(ids).stream()
+                .collect(Collectors.groupingBy(keyGetter)), List.of());
+    }
+}
@@ -0,0 +1,32 @@
+package com.lingxian.common.loader;
+
+import com.lingxian.common.mapper.GroupActivityMapper;
+import com.lingxian.common.mapper.GroupMemberMapper;
+import com.lingxian.common.mapper.MerchantMapper;
+import com.lingxian.common.mapper.OrderItemMapper;
+import com.lingxian.common.mapper.ProductMapper;
+import com.lingxian.common.mapper.RefundItemMapper;
+import com.lingxian.common.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批量加载器工厂，每次组装响应时创建一个新的 {@link BatchLoader}
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchLoaders {
+
+    private final UserMapper userMapper;
+    private final MerchantMapper merchantMapper;
+    private final ProductMapper productMapper;
+    private final OrderItemMapper orderItemMapper;
+    private final RefundItemMapper refundItemMapper;
+    private final GroupActivityMapper groupActivityMapper;
+    private final GroupMemberMapper groupMemberMapper;
+
+    public BatchLoader create() {
+        return new BatchLoader(userMapper, merchantMapper, productMapper, orderItemMapper,
+                refundItemMapper, groupActivityMapper, groupMemberMapper);
+    }
+}
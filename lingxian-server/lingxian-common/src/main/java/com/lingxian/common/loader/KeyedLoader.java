@@ -0,0 +1,108 @@
+package com.lingxian.common.loader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 按键批量加载器
+ * 先用 {@link #prime} 登记一页数据要用到的键，首次 {@link #get} 时把所有未加载的键合并成一次批量查询，
+ * 结果（包括查不到的键）缓存在加载器内，同一键不会重复查询。
+ * <p>
+ * 非线程安全，随请求创建、随请求丢弃，不做跨请求缓存。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class KeyedLoader<K, V> {
+
+    /**
+     * 单次 IN 查询的最大键数量
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final V missingValue;
+    private final Map<K, V> loaded = new HashMap<>();
+    private final Set<K> pending = new LinkedHashSet<>();
+
+    /**
+     * @param batchFunction 按一批键查询，返回键 -> 值，查不到的键可以不在结果中
+     * @param missingValue  查不到时返回的值，一对多加载时传空列表
+     */
+    public KeyedLoader(Function<Collection<K>, Map<K, V>> batchFunction, V missingValue) {
+        this.batchFunction = batchFunction;
+        this.missingValue = missingValue;
+    }
+
+    /**
+     * 登记键，等到下一次取值时一起查询；空键忽略
+     */
+    public KeyedLoader<K, V> prime(K key) {
+        if (key != null && !loaded.containsKey(key)) {
+            pending.add(key);
+        }
+        return this;
+    }
+
+    /**
+     * 批量登记键
+     */
+    public <T> KeyedLoader<K, V> primeAll(Collection<T> sources, Function<T, K> keyExtractor) {
+        for (T source : sources) {
+            prime(keyExtractor.apply(source));
+        }
+        return this;
+    }
+
+    /**
+     * 取值，键未加载时连同所有已登记的键一起查询
+     */
+    public V get(K key) {
+        if (key == null) {
+            return missingValue;
+        }
+        if (!loaded.containsKey(key)) {
+            pending.add(key);
+            dispatch();
+        }
+        return loaded.get(key);
+    }
+
+    /**
+     * 批量取值，返回的 Map 按传入顺序，查不到的键对应 missingValue
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        keys.forEach(this::prime);
+        dispatch();
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (key != null) {
+                result.put(key, loaded.get(key));
+            }
+        }
+        return result;
+    }
+
+    private void dispatch() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(pending);
+        pending.clear();
+        for (int from = 0; from < keys.size(); from += MAX_BATCH_SIZE) {
+            List<K> batch = keys.subList(from, Math.min(from + MAX_BATCH_SIZE, keys.size()));
+            Map<K, V> values = batchFunction.apply(batch);
+            for (K key : batch) {
+                V value = values.get(key);
+                loaded.put(key, value != null ? value : missingValue);
+            }
+        }
+    }
+}
@@ -3,7 +3,44 @@ package com.lingxian.common.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lingxian.common.entity.GroupActivity;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface GroupActivityMapper extends BaseMapper<GroupActivity> {
+
+    /**
+     * 批量回写活动库存、已售数量、开团数，不更新 update_time
+     */
+    @Update("<script>" +
+            "UPDATE t_group_activity AS a SET stock = v.stock, sold_count = v.sold_count, " +
+            "group_count = v.group_count FROM (VALUES " +
+            "<foreach collection='activities' item='a' separator=','>" +
+            "(#{a.id}::bigint, #{a.stock}::int, #{a.soldCount}::int, #{a.groupCount}::int)" +
+            "</foreach>" +
+            ") AS v(id, stock, sold_count, group_count) WHERE a.id = v.id" +
+            "</script>")
+    int batchUpdateCounters(@Param("activities") List<GroupActivity> activities);
+
+    /**
+     * 拼团活动索引的候选活动：未开始或进行中、尚未结束，连同商品卡片信息；
+     * merchantId 取商品所属商户，商品已删除的活动不返回
+     *
+     * @param activityId 为空时返回全部候选活动
+     */
+    @Select("<script>" +
+            "SELECT a.id, a.name, a.product_id, p.merchant_id, a.original_price, a.group_price, a.group_size, " +
+            "a.limit_per_user, a.stock, a.sold_count, a.group_count, a.expire_hours, a.auto_cancel, a.status, " +
+            "a.start_time, a.end_time, a.description, a.create_time, a.update_time, " +
+            "p.name AS product_name, p.image AS product_image " +
+            "FROM t_group_activity a " +
+            "JOIN t_product p ON p.id = a.product_id AND p.deleted = 0 " +
+            "WHERE a.deleted = 0 AND a.status IN (0, 1) AND a.end_time &gt; #{now}" +
+            "<if test='activityId != null'> AND a.id = #{activityId}</if>" +
+            "</script>")
+    List<GroupActivity> selectIndexCandidates(@Param("now") LocalDateTime now, @Param("activityId") Long activityId);
 }
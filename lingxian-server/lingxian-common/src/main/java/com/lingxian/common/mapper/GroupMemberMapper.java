@@ -2,8 +2,24 @@ package com.lingxian.common.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lingxian.common.entity.GroupMember;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface GroupMemberMapper extends BaseMapper<GroupMember> {
+
+    /**
+     * 批量写入成员，已存在的（同一拼团同一用户）跳过，可重复执行
+     */
+    @Insert("<script>" +
+            "INSERT INTO t_group_member (group_id, user_id, is_leader, join_time) VALUES " +
+            "<foreach collection='members' item='m' separator=','>" +
+            "(#{m.groupId}, #{m.userId}, #{m.isLeader}, #{m.joinTime})" +
+            "</foreach>" +
+            " ON CONFLICT (group_id, user_id) DO NOTHING" +
+            "</script>")
+    int insertIgnoreBatch(@Param("members") List<GroupMember> members);
 }
@@ -3,7 +3,25 @@ package com.lingxian.common.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lingxian.common.entity.GroupRecord;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 @Mapper
 public interface GroupRecordMapper extends BaseMapper<GroupRecord> {
+
+    /**
+     * 批量回写拼团进度，人数只增不减，避免旧数据覆盖新数据
+     */
+    @Update("<script>" +
+            "UPDATE t_group_record AS r SET current_size = v.current_size, status = v.status, " +
+            "complete_time = v.complete_time, update_time = NOW() FROM (VALUES " +
+            "<foreach collection='records' item='r' separator=','>" +
+            "(#{r.id}::bigint, #{r.currentSize}::int, #{r.status}::int, #{r.completeTime}::timestamp)" +
+            "</foreach>" +
+            ") AS v(id, current_size, status, complete_time) " +
+            "WHERE r.id = v.id AND r.current_size &lt;= v.current_size" +
+            "</script>")
+    int batchUpdateProgress(@Param("records") List<GroupRecord> records);
 }
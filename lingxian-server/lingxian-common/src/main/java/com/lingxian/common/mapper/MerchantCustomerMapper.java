@@ -0,0 +1,78 @@
+package com.lingxian.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lingxian.common.entity.MerchantCustomer;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+
+/**
+ * 商户客户Mapper
+ */
+@Mapper
+public interface MerchantCustomerMapper extends BaseMapper<MerchantCustomer> {
+
+    /**
+     * 新客户
+     */
+    int NEW_CUSTOMER = 0;
+
+    /**
+     * 老客户当天首次下单
+     */
+    int RETURNING_CUSTOMER = 1;
+
+    /**
+     * 当天已下过单
+     */
+    int REPEAT_SAME_DAY = 2;
+
+    /**
+     * 记录一笔已支付订单，返回写入前该客户的状态
+     *
+     * @return {@link #NEW_CUSTOMER}、{@link #RETURNING_CUSTOMER} 或 {@link #REPEAT_SAME_DAY}
+     */
+    @Select("WITH prev AS (" +
+            "SELECT last_order_date FROM t_merchant_customer " +
+            "WHERE merchant_id = #{merchantId} AND user_id = #{userId}), " +
+            "upsert AS (" +
+            "INSERT INTO t_merchant_customer (merchant_id, user_id, first_order_id, first_order_date, " +
+            "last_order_date, order_count, create_time, update_time) " +
+            "VALUES (#{merchantId}, #{userId}, #{orderId}, #{orderDate}, #{orderDate}, 1, " +
+            "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (merchant_id, user_id) DO UPDATE SET " +
+            "last_order_date = GREATEST(t_merchant_customer.last_order_date, EXCLUDED.last_order_date), " +
+            "order_count = t_merchant_customer.order_count + 1, " +
+            "update_time = CURRENT_TIMESTAMP " +
+            "RETURNING 1) " +
+            "SELECT CASE WHEN NOT EXISTS (SELECT 1 FROM prev) THEN 0 " +
+            "WHEN (SELECT last_order_date FROM prev) >= #{orderDate} THEN 2 ELSE 1 END " +
+            "FROM upsert")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    int recordOrder(@Param("merchantId") Long merchantId,
+                    @Param("userId") Long userId,
+                    @Param("orderId") Long orderId,
+                    @Param("orderDate") LocalDate orderDate);
+
+    /**
+     * 清空（重建前）
+     */
+    @Delete("DELETE FROM t_merchant_customer")
+    int deleteAll();
+
+    /**
+     * 根据已支付订单重建
+     */
+    @Insert("INSERT INTO t_merchant_customer (merchant_id, user_id, first_order_id, first_order_date, " +
+            "last_order_date, order_count, create_time, update_time) " +
+            "SELECT merchant_id, user_id, (ARRAY_AGG(id ORDER BY create_time, id))[1], " +
+            "MIN(create_time)::date, MAX(create_time)::date, COUNT(*), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP " +
+            "FROM t_order WHERE pay_time IS NOT NULL AND merchant_id IS NOT NULL AND user_id IS NOT NULL " +
+            "GROUP BY merchant_id, user_id")
+    int rebuild();
+}
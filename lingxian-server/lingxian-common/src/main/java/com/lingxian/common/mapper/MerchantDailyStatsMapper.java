@@ -0,0 +1,209 @@
+package com.lingxian.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lingxian.common.entity.MerchantDailyStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 商户日统计Mapper
+ * 日统计写入 t_merchant_daily_stats，月汇总写入 t_merchant_monthly_stats，两表字段一致
+ */
+@Mapper
+public interface MerchantDailyStatsMapper extends BaseMapper<MerchantDailyStats> {
+
+    /**
+     * 增量更新日统计，不存在时插入
+     *
+     * @param delta 变化量，merchantId、statDate 指定写入的商户与日期
+     */
+    @Insert("INSERT INTO t_merchant_daily_stats (merchant_id, stat_date, order_count, sales_amount, " +
+            "delivered_count, pending_count, received_count, completed_count, cancelled_count, " +
+            "refund_count, refund_amount, new_customers, returning_customers, update_time) " +
+            "VALUES (#{d.merchantId}, #{d.statDate}, #{d.orderCount}, #{d.salesAmount}, #{d.deliveredCount}, " +
+            "#{d.pendingCount}, #{d.receivedCount}, #{d.completedCount}, #{d.cancelledCount}, " +
+            "#{d.refundCount}, #{d.refundAmount}, #{d.newCustomers}, #{d.returningCustomers}, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (merchant_id, stat_date) DO UPDATE SET " +
+            "order_count = t_merchant_daily_stats.order_count + EXCLUDED.order_count, " +
+            "sales_amount = t_merchant_daily_stats.sales_amount + EXCLUDED.sales_amount, " +
+            "delivered_count = t_merchant_daily_stats.delivered_count + EXCLUDED.delivered_count, " +
+            "pending_count = t_merchant_daily_stats.pending_count + EXCLUDED.pending_count, " +
+            "received_count = t_merchant_daily_stats.received_count + EXCLUDED.received_count, " +
+            "completed_count = t_merchant_daily_stats.completed_count + EXCLUDED.completed_count, " +
+            "cancelled_count = t_merchant_daily_stats.cancelled_count + EXCLUDED.cancelled_count, " +
+            "refund_count = t_merchant_daily_stats.refund_count + EXCLUDED.refund_count, " +
+            "refund_amount = t_merchant_daily_stats.refund_amount + EXCLUDED.refund_amount, " +
+            "new_customers = t_merchant_daily_stats.new_customers + EXCLUDED.new_customers, " +
+            "returning_customers = t_merchant_daily_stats.returning_customers + EXCLUDED.returning_customers, " +
+            "update_time = CURRENT_TIMESTAMP")
+    int applyDelta(@Param("d") MerchantDailyStats delta);
+
+    /**
+     * 增量更新月汇总，不存在时插入
+     *
+     * @param delta    变化量
+     * @param statMonth 月初日期
+     */
+    @Insert("INSERT INTO t_merchant_monthly_stats (merchant_id, stat_month, order_count, sales_amount, " +
+            "delivered_count, pending_count, received_count, completed_count, cancelled_count, " +
+            "refund_count, refund_amount, new_customers, returning_customers, update_time) " +
+            "VALUES (#{d.merchantId}, #{statMonth}, #{d.orderCount}, #{d.salesAmount}, #{d.deliveredCount}, " +
+            "#{d.pendingCount}, #{d.receivedCount}, #{d.completedCount}, #{d.cancelledCount}, " +
+            "#{d.refundCount}, #{d.refundAmount}, #{d.newCustomers}, #{d.returningCustomers}, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (merchant_id, stat_month) DO UPDATE SET " +
+            "order_count = t_merchant_monthly_stats.order_count + EXCLUDED.order_count, " +
+            "sales_amount = t_merchant_monthly_stats.sales_amount + EXCLUDED.sales_amount, " +
+            "delivered_count = t_merchant_monthly_stats.delivered_count + EXCLUDED.delivered_count, " +
+            "pending_count = t_merchant_monthly_stats.pending_count + EXCLUDED.pending_count, " +
+            "received_count = t_merchant_monthly_stats.received_count + EXCLUDED.received_count, " +
+            "completed_count = t_merchant_monthly_stats.completed_count + EXCLUDED.completed_count, " +
+            "cancelled_count = t_merchant_monthly_stats.cancelled_count + EXCLUDED.cancelled_count, " +
+            "refund_count = t_merchant_monthly_stats.refund_count + EXCLUDED.refund_count, " +
+            "refund_amount = t_merchant_monthly_stats.refund_amount + EXCLUDED.refund_amount, " +
+            "new_customers = t_merchant_monthly_stats.new_customers + EXCLUDED.new_customers, " +
+            "returning_customers = t_merchant_monthly_stats.returning_customers + EXCLUDED.returning_customers, " +
+            "update_time = CURRENT_TIMESTAMP")
+    int applyMonthlyDelta(@Param("d") MerchantDailyStats delta, @Param("statMonth") LocalDate statMonth);
+
+    /**
+     * 汇总商户区间内（含首尾）的日统计，无数据时各项为0
+     */
+    @Select("SELECT #{merchantId} AS merchant_id, #{from} AS stat_date, " +
+            "COALESCE(SUM(order_count), 0) AS order_count, COALESCE(SUM(sales_amount), 0) AS sales_amount, " +
+            "COALESCE(SUM(delivered_count), 0) AS delivered_count, COALESCE(SUM(pending_count), 0) AS pending_count, " +
+            "COALESCE(SUM(received_count), 0) AS received_count, COALESCE(SUM(completed_count), 0) AS completed_count, " +
+            "COALESCE(SUM(cancelled_count), 0) AS cancelled_count, COALESCE(SUM(refund_count), 0) AS refund_count, " +
+            "COALESCE(SUM(refund_amount), 0) AS refund_amount, COALESCE(SUM(new_customers), 0) AS new_customers, " +
+            "COALESCE(SUM(returning_customers), 0) AS returning_customers " +
+            "FROM t_merchant_daily_stats WHERE merchant_id = #{merchantId} " +
+            "AND stat_date >= #{from} AND stat_date <= #{to}")
+    MerchantDailyStats sumDays(@Param("merchantId") Long merchantId,
+                               @Param("from") LocalDate from,
+                               @Param("to") LocalDate to);
+
+    /**
+     * 商户区间内（含首尾）的月汇总，statDate 为月初
+     */
+    @Select("SELECT merchant_id, stat_month AS stat_date, order_count, sales_amount, delivered_count, " +
+            "pending_count, received_count, completed_count, cancelled_count, refund_count, refund_amount, " +
+            "new_customers, returning_customers, update_time " +
+            "FROM t_merchant_monthly_stats WHERE merchant_id = #{merchantId} " +
+            "AND stat_month >= #{fromMonth} AND stat_month <= #{toMonth} ORDER BY stat_month")
+    List<MerchantDailyStats> selectMonths(@Param("merchantId") Long merchantId,
+                                          @Param("fromMonth") LocalDate fromMonth,
+                                          @Param("toMonth") LocalDate toMonth);
+
+    /**
+     * 按销售额汇总区间内（含首尾）各商户的统计，取前 limit 名
+     */
+    @Select("SELECT merchant_id, SUM(order_count) AS order_count, SUM(sales_amount) AS sales_amount, " +
+            "SUM(refund_count) AS refund_count, SUM(refund_amount) AS refund_amount " +
+            "FROM t_merchant_daily_stats WHERE stat_date >= #{from} AND stat_date <= #{to} " +
+            "GROUP BY merchant_id ORDER BY SUM(sales_amount) DESC, SUM(order_count) DESC LIMIT #{limit}")
+    List<MerchantDailyStats> rankBySales(@Param("from") LocalDate from,
+                                         @Param("to") LocalDate to,
+                                         @Param("limit") int limit);
+
+    /**
+     * 删除区间内（含首尾）的日统计（重建前）
+     */
+    @Delete("DELETE FROM t_merchant_daily_stats WHERE stat_date >= #{from} AND stat_date <= #{to}")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 重建区间内（含首尾）的订单相关统计：按下单日期汇总已支付订单，商家拒单计为退款
+     */
+    @Insert("INSERT INTO t_merchant_daily_stats (merchant_id, stat_date, order_count, sales_amount, " +
+            "delivered_count, pending_count, received_count, completed_count, cancelled_count, " +
+            "refund_count, refund_amount, new_customers, returning_customers, update_time) " +
+            "SELECT merchant_id, create_time::date, COUNT(*), COALESCE(SUM(pay_amount), 0), " +
+            "COUNT(*) FILTER (WHERE delivery_time IS NOT NULL), COUNT(*) FILTER (WHERE status = 2), " +
+            "COUNT(*) FILTER (WHERE receive_time IS NOT NULL), COUNT(*) FILTER (WHERE status = 5), " +
+            "COUNT(*) FILTER (WHERE status = 6), " +
+            "COUNT(*) FILTER (WHERE status = 6), COALESCE(SUM(pay_amount) FILTER (WHERE status = 6), 0), " +
+            "0, 0, CURRENT_TIMESTAMP " +
+            "FROM t_order WHERE pay_time IS NOT NULL AND merchant_id IS NOT NULL " +
+            "AND create_time >= #{from} AND create_time < CAST(#{to} AS DATE) + 1 " +
+            "GROUP BY merchant_id, create_time::date")
+    int rebuildOrderStats(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 重建区间内（含首尾）的退款统计：已同意的退款计入原订单下单日期
+     */
+    @Update("UPDATE t_merchant_daily_stats s SET refund_count = s.refund_count + r.cnt, " +
+            "refund_amount = s.refund_amount + r.amount " +
+            "FROM (SELECT o.merchant_id, o.create_time::date AS stat_date, COUNT(*) AS cnt, " +
+            "COALESCE(SUM(f.refund_amount), 0) AS amount " +
+            "FROM t_refund f JOIN t_order o ON o.id = f.order_id " +
+            "WHERE f.status IN (1, 2) AND f.deleted = 0 AND o.pay_time IS NOT NULL " +
+            "AND o.create_time >= #{from} AND o.create_time < CAST(#{to} AS DATE) + 1 " +
+            "GROUP BY o.merchant_id, o.create_time::date) r " +
+            "WHERE s.merchant_id = r.merchant_id AND s.stat_date = r.stat_date")
+    int rebuildRefundStats(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 重建区间内（含首尾）的新老客户数，需 t_merchant_customer 已正确
+     */
+    @Update("UPDATE t_merchant_daily_stats s SET new_customers = c.new_customers, " +
+            "returning_customers = c.returning_customers " +
+            "FROM (SELECT d.merchant_id, d.stat_date, " +
+            "COUNT(*) FILTER (WHERE d.stat_date = mc.first_order_date) AS new_customers, " +
+            "COUNT(*) FILTER (WHERE d.stat_date > mc.first_order_date) AS returning_customers " +
+            "FROM (SELECT DISTINCT merchant_id, user_id, create_time::date AS stat_date FROM t_order " +
+            "WHERE pay_time IS NOT NULL AND merchant_id IS NOT NULL AND user_id IS NOT NULL " +
+            "AND create_time >= #{from} AND create_time < CAST(#{to} AS DATE) + 1) d " +
+            "JOIN t_merchant_customer mc ON mc.merchant_id = d.merchant_id AND mc.user_id = d.user_id " +
+            "GROUP BY d.merchant_id, d.stat_date) c " +
+            "WHERE s.merchant_id = c.merchant_id AND s.stat_date = c.stat_date")
+    int rebuildCustomerStats(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 删除区间内（含首尾）各月的月汇总
+     */
+    @Delete("DELETE FROM t_merchant_monthly_stats WHERE stat_month >= #{fromMonth} AND stat_month <= #{toMonth}")
+    int deleteMonths(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
+
+    /**
+     * 由日统计重建区间内（含首尾）各月的月汇总，需先删除
+     */
+    @Insert("INSERT INTO t_merchant_monthly_stats (merchant_id, stat_month, order_count, sales_amount, " +
+            "delivered_count, pending_count, received_count, completed_count, cancelled_count, " +
+            "refund_count, refund_amount, new_customers, returning_customers, update_time) " +
+            "SELECT merchant_id, date_trunc('month', stat_date)::date, SUM(order_count), SUM(sales_amount), " +
+            "SUM(delivered_count), SUM(pending_count), SUM(received_count), SUM(completed_count), " +
+            "SUM(cancelled_count), SUM(refund_count), SUM(refund_amount), SUM(new_customers), " +
+            "SUM(returning_customers), CURRENT_TIMESTAMP " +
+            "FROM t_merchant_daily_stats " +
+            "WHERE stat_date >= #{fromMonth} AND stat_date < CAST(#{toMonth} AS DATE) + INTERVAL '1 month' " +
+            "GROUP BY merchant_id, date_trunc('month', stat_date)")
+    int rebuildMonths(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
+
+    /**
+     * 与订单表核对区间内（含首尾）的日统计：订单数、销售额、发货、完成、取消数任一不一致的日期
+     */
+    @Select("SELECT COALESCE(o.stat_date, s.stat_date) FROM " +
+            "(SELECT merchant_id, create_time::date AS stat_date, COUNT(*) AS order_count, " +
+            "COALESCE(SUM(pay_amount), 0) AS sales_amount, " +
+            "COUNT(*) FILTER (WHERE delivery_time IS NOT NULL) AS delivered_count, " +
+            "COUNT(*) FILTER (WHERE status = 5) AS completed_count, " +
+            "COUNT(*) FILTER (WHERE status = 6) AS cancelled_count " +
+            "FROM t_order WHERE pay_time IS NOT NULL AND merchant_id IS NOT NULL " +
+            "AND create_time >= #{from} AND create_time < CAST(#{to} AS DATE) + 1 " +
+            "GROUP BY merchant_id, create_time::date) o " +
+            "FULL JOIN (SELECT * FROM t_merchant_daily_stats WHERE stat_date >= #{from} AND stat_date <= #{to}) s " +
+            "ON s.merchant_id = o.merchant_id AND s.stat_date = o.stat_date " +
+            "WHERE o.merchant_id IS NULL AND (s.order_count <> 0 OR s.sales_amount <> 0) " +
+            "OR s.merchant_id IS NULL " +
+            "OR o.order_count <> s.order_count OR o.sales_amount <> s.sales_amount " +
+            "OR o.delivered_count <> s.delivered_count OR o.completed_count <> s.completed_count " +
+            "OR o.cancelled_count <> s.cancelled_count " +
+            "GROUP BY COALESCE(o.stat_date, s.stat_date) ORDER BY 1")
+    List<LocalDate> findMismatchedDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
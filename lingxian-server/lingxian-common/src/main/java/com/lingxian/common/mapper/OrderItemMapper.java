@@ -3,7 +3,28 @@ package com.lingxian.common.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lingxian.common.entity.OrderItem;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
 
 @Mapper
 public interface OrderItemMapper extends BaseMapper<OrderItem> {
+
+    /**
+     * 按订单ID、订单项ID升序流式读取待导出订单的订单项，与 {@link OrderMapper#streamExportOrders} 顺序一致，
+     * 可与订单游标归并
+     */
+    @Select("<script>" +
+            "SELECT oi.* FROM t_order_item oi JOIN t_order o ON o.id = oi.order_id " +
+            OrderMapper.EXPORT_FILTER +
+            "ORDER BY oi.order_id, oi.id" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<OrderItem> streamExportItems(@Param("status") Integer status,
+                                        @Param("startTime") LocalDateTime startTime,
+                                        @Param("endTime") LocalDateTime endTime);
 }
@@ -3,7 +3,82 @@ package com.lingxian.common.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lingxian.common.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
+
+    /**
+     * 导出筛选条件（表别名 o），与 {@link OrderItemMapper#streamExportItems} 共用
+     */
+    String EXPORT_FILTER = "WHERE o.deleted = 0 " +
+            "<if test='status != null'>AND o.status = #{status} </if>" +
+            "<if test='startTime != null'>AND o.create_time &gt;= #{startTime} </if>" +
+            "<if test='endTime != null'>AND o.create_time &lt;= #{endTime} </if>";
+
+    /**
+     * 按ID升序流式读取待导出的订单（服务端游标，须在事务内遍历），附带用户昵称、商户名称
+     */
+    @Select("<script>" +
+            "SELECT o.*, u.nickname AS user_nickname, u.phone AS user_phone, m.name AS merchant_name " +
+            "FROM t_order o LEFT JOIN t_user u ON u.id = o.user_id LEFT JOIN t_merchant m ON m.id = o.merchant_id " +
+            EXPORT_FILTER +
+            "ORDER BY o.id" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<Order> streamExportOrders(@Param("status") Integer status,
+                                     @Param("startTime") LocalDateTime startTime,
+                                     @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 批量取消仍为待付款的订单
+     *
+     * @return 实际取消的订单ID
+     */
+    @Select("<script>" +
+            "UPDATE t_order SET status = 6, cancel_time = #{now}, cancel_reason = #{reason}, update_time = #{now} " +
+            "WHERE status = 1 AND deleted = 0 AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "RETURNING id" +
+            "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<Long> cancelUnpaid(@Param("ids") Collection<Long> ids,
+                            @Param("reason") String reason,
+                            @Param("now") LocalDateTime now);
+
+    /**
+     * 批量确认收货：待收货 -> 待评价
+     *
+     * @return 实际更新的订单ID
+     */
+    @Select("<script>" +
+            "UPDATE t_order SET status = 4, receive_time = #{now}, update_time = #{now} " +
+            "WHERE status = 3 AND deleted = 0 AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "RETURNING id" +
+            "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<Long> receiveDelivered(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * 批量完成订单：待评价 -> 已完成
+     *
+     * @return 实际更新的订单ID
+     */
+    @Select("<script>" +
+            "UPDATE t_order SET status = 5, complete_time = #{now}, update_time = #{now} " +
+            "WHERE status = 4 AND deleted = 0 AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "RETURNING id" +
+            "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<Long> completeReceived(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
 }
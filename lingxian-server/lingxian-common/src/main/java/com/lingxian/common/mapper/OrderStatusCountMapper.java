@@ -0,0 +1,145 @@
+package com.lingxian.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lingxian.common.entity.OrderStatusCount;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+
+/**
+ * 订单/退款状态计数Mapper
+ * 按商户、状态分组时用 GROUPING SETS 同时得到全平台合计（商户ID记为0）
+ */
+@Mapper
+public interface OrderStatusCountMapper extends BaseMapper<OrderStatusCount> {
+
+    /**
+     * 订单表按商户、状态的实际数量
+     */
+    String ORDER_ACTUAL = "SELECT CASE WHEN GROUPING(merchant_id) = 1 THEN 0 ELSE merchant_id END AS merchant_id, " +
+            "status, COUNT(*) AS total FROM t_order WHERE deleted = 0 " +
+            "GROUP BY GROUPING SETS ((merchant_id, status), (status)) " +
+            "HAVING GROUPING(merchant_id) = 1 OR merchant_id IS NOT NULL";
+
+    /**
+     * 退款表按商户、状态的实际数量
+     */
+    String REFUND_ACTUAL = "SELECT CASE WHEN GROUPING(merchant_id) = 1 THEN 0 ELSE merchant_id END AS merchant_id, " +
+            "status, COUNT(*) AS total FROM t_refund WHERE deleted = 0 " +
+            "GROUP BY GROUPING SETS ((merchant_id, status), (status)) " +
+            "HAVING GROUPING(merchant_id) = 1 OR merchant_id IS NOT NULL";
+
+    /**
+     * 订单从 fromStatus 变为 toStatus 后调整所属商户的计数，fromStatus 为空表示新建订单；
+     * 按商户ID、状态顺序加锁，避免并发变更之间死锁。全平台合计见 {@link #applyPlatformChange}
+     */
+    @Insert("<script>" +
+            "INSERT INTO t_order_status_count (merchant_id, kind, status, total, update_time) " +
+            "SELECT t.merchant_id, 1, s.status, SUM(s.delta), CURRENT_TIMESTAMP " +
+            "FROM t_order t CROSS JOIN (VALUES " +
+            "<if test='from != null'>(CAST(#{from} AS INT), -1), </if>" +
+            "(CAST(#{to} AS INT), 1)) AS s(status, delta) " +
+            "WHERE t.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND t.merchant_id IS NOT NULL " +
+            "GROUP BY t.merchant_id, s.status " +
+            "ORDER BY 1, 3 " +
+            "ON CONFLICT (merchant_id, kind, status) DO UPDATE SET " +
+            "total = t_order_status_count.total + EXCLUDED.total, update_time = CURRENT_TIMESTAMP" +
+            "</script>")
+    int applyOrderChange(@Param("ids") Collection<Long> orderIds,
+                         @Param("from") Integer fromStatus,
+                         @Param("to") int toStatus);
+
+    /**
+     * 退款单从 fromStatus 变为 toStatus 后调整所属商户的计数，fromStatus 为空表示新建退款单
+     */
+    @Insert("<script>" +
+            "INSERT INTO t_order_status_count (merchant_id, kind, status, total, update_time) " +
+            "SELECT t.merchant_id, 2, s.status, SUM(s.delta), CURRENT_TIMESTAMP " +
+            "FROM t_refund t CROSS JOIN (VALUES " +
+            "<if test='from != null'>(CAST(#{from} AS INT), -1), </if>" +
+            "(CAST(#{to} AS INT), 1)) AS s(status, delta) " +
+            "WHERE t.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND t.merchant_id IS NOT NULL " +
+            "GROUP BY t.merchant_id, s.status " +
+            "ORDER BY 1, 3 " +
+            "ON CONFLICT (merchant_id, kind, status) DO UPDATE SET " +
+            "total = t_order_status_count.total + EXCLUDED.total, update_time = CURRENT_TIMESTAMP" +
+            "</script>")
+    int applyRefundChange(@Param("ids") Collection<Long> refundIds,
+                          @Param("from") Integer fromStatus,
+                          @Param("to") int toStatus);
+
+    /**
+     * 调整全平台合计（商户ID为0）：count 个订单或退款单从 fromStatus 变为 toStatus，fromStatus 为空表示新建；
+     * 按状态顺序加锁
+     */
+    @Insert("<script>" +
+            "INSERT INTO t_order_status_count (merchant_id, kind, status, total, update_time) " +
+            "SELECT 0, #{kind}, s.status, s.delta * #{count}, CURRENT_TIMESTAMP FROM (VALUES " +
+            "<if test='from != null'>(CAST(#{from} AS INT), -1), </if>" +
+            "(CAST(#{to} AS INT), 1)) AS s(status, delta) " +
+            "ORDER BY 3 " +
+            "ON CONFLICT (merchant_id, kind, status) DO UPDATE SET " +
+            "total = t_order_status_count.total + EXCLUDED.total, update_time = CURRENT_TIMESTAMP" +
+            "</script>")
+    int applyPlatformChange(@Param("kind") int kind,
+                            @Param("from") Integer fromStatus,
+                            @Param("to") int toStatus,
+                            @Param("count") int count);
+
+    /**
+     * 与订单表核对：计数与实际数量不一致的行数
+     */
+    @Select("SELECT COUNT(*) FROM (" + ORDER_ACTUAL + ") a " +
+            "FULL JOIN (SELECT merchant_id, status, total FROM t_order_status_count WHERE kind = 1) c " +
+            "ON c.merchant_id = a.merchant_id AND c.status = a.status " +
+            "WHERE COALESCE(a.total, 0) <> COALESCE(c.total, 0)")
+    long countOrderMismatches();
+
+    /**
+     * 与退款表核对：计数与实际数量不一致的行数
+     */
+    @Select("SELECT COUNT(*) FROM (" + REFUND_ACTUAL + ") a " +
+            "FULL JOIN (SELECT merchant_id, status, total FROM t_order_status_count WHERE kind = 2) c " +
+            "ON c.merchant_id = a.merchant_id AND c.status = a.status " +
+            "WHERE COALESCE(a.total, 0) <> COALESCE(c.total, 0)")
+    long countRefundMismatches();
+
+    /**
+     * 锁定计数表，阻塞并发的状态变更直到事务结束，重建期间计数不会被覆盖或遗漏
+     */
+    @Update("LOCK TABLE t_order_status_count IN SHARE ROW EXCLUSIVE MODE")
+    void lockTable();
+
+    /**
+     * 清零某类计数（重建前）
+     */
+    @Update("UPDATE t_order_status_count SET total = 0, update_time = CURRENT_TIMESTAMP " +
+            "WHERE kind = #{kind} AND total <> 0")
+    int resetKind(@Param("kind") int kind);
+
+    /**
+     * 根据订单表重建订单状态计数
+     */
+    @Insert("INSERT INTO t_order_status_count (merchant_id, kind, status, total, update_time) " +
+            "SELECT merchant_id, 1, status, total, CURRENT_TIMESTAMP FROM (" + ORDER_ACTUAL + ") a " +
+            "ON CONFLICT (merchant_id, kind, status) DO UPDATE SET " +
+            "total = EXCLUDED.total, update_time = CURRENT_TIMESTAMP")
+    int rebuildOrders();
+
+    /**
+     * 根据退款表重建退款状态计数
+     */
+    @Insert("INSERT INTO t_order_status_count (merchant_id, kind, status, total, update_time) " +
+            "SELECT merchant_id, 2, status, total, CURRENT_TIMESTAMP FROM (" + REFUND_ACTUAL + ") a " +
+            "ON CONFLICT (merchant_id, kind, status) DO UPDATE SET " +
+            "total = EXCLUDED.total, update_time = CURRENT_TIMESTAMP")
+    int rebuildRefunds();
+}
@@ -0,0 +1,79 @@
+package com.lingxian.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lingxian.common.entity.PlatformDimStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 平台分维度日统计Mapper
+ */
+@Mapper
+public interface PlatformDimStatsMapper extends BaseMapper<PlatformDimStats> {
+
+    /**
+     * 增量更新统计，不存在时插入
+     */
+    @Insert("INSERT INTO t_platform_dim_stats (stat_date, dimension, dim_key, order_count, amount, update_time) " +
+            "VALUES (#{statDate}, #{dimension}, #{dimKey}, #{countDelta}, #{amountDelta}, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (stat_date, dimension, dim_key) DO UPDATE SET " +
+            "order_count = t_platform_dim_stats.order_count + EXCLUDED.order_count, " +
+            "amount = t_platform_dim_stats.amount + EXCLUDED.amount, " +
+            "update_time = CURRENT_TIMESTAMP")
+    int applyDelta(@Param("statDate") LocalDate statDate,
+                   @Param("dimension") int dimension,
+                   @Param("dimKey") Long dimKey,
+                   @Param("countDelta") long countDelta,
+                   @Param("amountDelta") BigDecimal amountDelta);
+
+    /**
+     * 按订单项所属商品分类累加一笔已支付订单：每个分类订单数+1，金额为该分类商品小计
+     */
+    @Insert("INSERT INTO t_platform_dim_stats (stat_date, dimension, dim_key, order_count, amount, update_time) " +
+            "SELECT #{statDate}, 3, p.category_id, 1, COALESCE(SUM(oi.total_amount), 0), CURRENT_TIMESTAMP " +
+            "FROM t_order_item oi JOIN t_product p ON p.id = oi.product_id " +
+            "WHERE oi.order_id = #{orderId} AND p.category_id IS NOT NULL " +
+            "GROUP BY p.category_id " +
+            "ON CONFLICT (stat_date, dimension, dim_key) DO UPDATE SET " +
+            "order_count = t_platform_dim_stats.order_count + EXCLUDED.order_count, " +
+            "amount = t_platform_dim_stats.amount + EXCLUDED.amount, " +
+            "update_time = CURRENT_TIMESTAMP")
+    int applyCategoryDelta(@Param("statDate") LocalDate statDate, @Param("orderId") Long orderId);
+
+    /**
+     * 按分类汇总一批订单的商品小计（回填用）
+     */
+    @Select("<script>" +
+            "SELECT 3 AS dimension, p.category_id AS dim_key, COUNT(DISTINCT oi.order_id) AS order_count, " +
+            "COALESCE(SUM(oi.total_amount), 0) AS amount " +
+            "FROM t_order_item oi JOIN t_product p ON p.id = oi.product_id " +
+            "WHERE p.category_id IS NOT NULL AND oi.order_id IN " +
+            "<foreach collection='orderIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "GROUP BY p.category_id" +
+            "</script>")
+    List<PlatformDimStats> sumCategoryByOrders(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * 汇总区间内（含首尾）某一维度各取值的统计，按金额、订单数降序
+     */
+    @Select("SELECT #{dimension} AS dimension, dim_key, SUM(order_count) AS order_count, SUM(amount) AS amount " +
+            "FROM t_platform_dim_stats WHERE dimension = #{dimension} AND stat_date >= #{from} AND stat_date <= #{to} " +
+            "GROUP BY dim_key ORDER BY SUM(amount) DESC, SUM(order_count) DESC")
+    List<PlatformDimStats> sumByDimension(@Param("dimension") int dimension,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to);
+
+    /**
+     * 删除某天的统计（回填前）
+     */
+    @Delete("DELETE FROM t_platform_dim_stats WHERE stat_date = #{statDate}")
+    int deleteDate(@Param("statDate") LocalDate statDate);
+}
@@ -0,0 +1,61 @@
+package com.lingxian.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lingxian.common.entity.PlatformStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+
+/**
+ * 平台统计Mapper
+ */
+@Mapper
+public interface PlatformStatsMapper extends BaseMapper<PlatformStats> {
+
+    /**
+     * 增量更新统计，不存在时插入
+     *
+     * @param delta 变化量，periodType、periodStart 指定写入的周期
+     */
+    @Insert("INSERT INTO t_platform_stats (period_type, period_start, created_orders, paid_orders, sales_amount, " +
+            "completed_orders, cancelled_orders, refund_count, refund_amount, new_users, active_users, " +
+            "ordering_users, update_time) " +
+            "VALUES (#{d.periodType}, #{d.periodStart}, #{d.createdOrders}, #{d.paidOrders}, #{d.salesAmount}, " +
+            "#{d.completedOrders}, #{d.cancelledOrders}, #{d.refundCount}, #{d.refundAmount}, #{d.newUsers}, " +
+            "#{d.activeUsers}, #{d.orderingUsers}, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (period_type, period_start) DO UPDATE SET " +
+            "created_orders = t_platform_stats.created_orders + EXCLUDED.created_orders, " +
+            "paid_orders = t_platform_stats.paid_orders + EXCLUDED.paid_orders, " +
+            "sales_amount = t_platform_stats.sales_amount + EXCLUDED.sales_amount, " +
+            "completed_orders = t_platform_stats.completed_orders + EXCLUDED.completed_orders, " +
+            "cancelled_orders = t_platform_stats.cancelled_orders + EXCLUDED.cancelled_orders, " +
+            "refund_count = t_platform_stats.refund_count + EXCLUDED.refund_count, " +
+            "refund_amount = t_platform_stats.refund_amount + EXCLUDED.refund_amount, " +
+            "new_users = t_platform_stats.new_users + EXCLUDED.new_users, " +
+            "active_users = t_platform_stats.active_users + EXCLUDED.active_users, " +
+            "ordering_users = t_platform_stats.ordering_users + EXCLUDED.ordering_users, " +
+            "update_time = CURRENT_TIMESTAMP")
+    int applyDelta(@Param("d") PlatformStats delta);
+
+    /**
+     * 汇总区间内的日统计（含首尾），无数据时各项为0
+     */
+    @Select("SELECT 1 AS period_type, #{from} AS period_start, " +
+            "COALESCE(SUM(created_orders), 0) AS created_orders, COALESCE(SUM(paid_orders), 0) AS paid_orders, " +
+            "COALESCE(SUM(sales_amount), 0) AS sales_amount, COALESCE(SUM(completed_orders), 0) AS completed_orders, " +
+            "COALESCE(SUM(cancelled_orders), 0) AS cancelled_orders, COALESCE(SUM(refund_count), 0) AS refund_count, " +
+            "COALESCE(SUM(refund_amount), 0) AS refund_amount, COALESCE(SUM(new_users), 0) AS new_users, " +
+            "COALESCE(SUM(active_users), 0) AS active_users, COALESCE(SUM(ordering_users), 0) AS ordering_users " +
+            "FROM t_platform_stats WHERE period_type = 1 AND period_start >= #{from} AND period_start <= #{to}")
+    PlatformStats sumDays(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * 删除周期开始时间落在 [from, to) 内的小时与日统计（回填前）
+     */
+    @Delete("DELETE FROM t_platform_stats WHERE period_start >= #{from} AND period_start < #{to}")
+    int deleteBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,101 @@
+package com.lingxian.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lingxian.common.entity.ProductDailySales;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 商品日销量Mapper
+ */
+@Mapper
+public interface ProductDailySalesMapper extends BaseMapper<ProductDailySales> {
+
+    /**
+     * 按订单项累加（sign=1）或扣减（sign=-1）一笔订单的商品销量
+     */
+    @Insert("INSERT INTO t_product_daily_sales (product_id, stat_date, merchant_id, category_id, quantity, " +
+            "amount, order_count, update_time) " +
+            "SELECT oi.product_id, #{statDate}, o.merchant_id, p.category_id, #{sign} * SUM(oi.quantity), " +
+            "#{sign} * COALESCE(SUM(oi.total_amount), 0), #{sign}, CURRENT_TIMESTAMP " +
+            "FROM t_order_item oi JOIN t_order o ON o.id = oi.order_id " +
+            "LEFT JOIN t_product p ON p.id = oi.product_id " +
+            "WHERE oi.order_id = #{orderId} AND o.merchant_id IS NOT NULL " +
+            "GROUP BY oi.product_id, o.merchant_id, p.category_id " +
+            "ON CONFLICT (product_id, stat_date) DO UPDATE SET " +
+            "quantity = t_product_daily_sales.quantity + EXCLUDED.quantity, " +
+            "amount = t_product_daily_sales.amount + EXCLUDED.amount, " +
+            "order_count = t_product_daily_sales.order_count + EXCLUDED.order_count, " +
+            "update_time = CURRENT_TIMESTAMP")
+    int applyOrder(@Param("orderId") Long orderId, @Param("statDate") LocalDate statDate, @Param("sign") int sign);
+
+    /**
+     * 商户区间内（含首尾）销售额最高的商品
+     */
+    @Select("SELECT product_id, merchant_id, SUM(quantity) AS quantity, SUM(amount) AS amount, " +
+            "SUM(order_count) AS order_count " +
+            "FROM t_product_daily_sales WHERE merchant_id = #{merchantId} " +
+            "AND stat_date >= #{from} AND stat_date <= #{to} " +
+            "GROUP BY product_id, merchant_id HAVING SUM(quantity) > 0 " +
+            "ORDER BY SUM(amount) DESC, SUM(quantity) DESC LIMIT #{limit}")
+    List<ProductDailySales> selectTopProducts(@Param("merchantId") Long merchantId,
+                                              @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to,
+                                              @Param("limit") int limit);
+
+    /**
+     * 商户区间内（含首尾）按分类汇总的销量，按金额降序
+     */
+    @Select("SELECT category_id, merchant_id, SUM(quantity) AS quantity, SUM(amount) AS amount, " +
+            "SUM(order_count) AS order_count " +
+            "FROM t_product_daily_sales WHERE merchant_id = #{merchantId} " +
+            "AND stat_date >= #{from} AND stat_date <= #{to} " +
+            "GROUP BY category_id, merchant_id HAVING SUM(amount) > 0 ORDER BY SUM(amount) DESC")
+    List<ProductDailySales> selectCategorySales(@Param("merchantId") Long merchantId,
+                                                @Param("from") LocalDate from,
+                                                @Param("to") LocalDate to);
+
+    /**
+     * 删除区间内（含首尾）的销量（重建前）
+     */
+    @Delete("DELETE FROM t_product_daily_sales WHERE stat_date >= #{from} AND stat_date <= #{to}")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 重建区间内（含首尾）的销量：已支付且未被取消的订单
+     */
+    @Insert("INSERT INTO t_product_daily_sales (product_id, stat_date, merchant_id, category_id, quantity, " +
+            "amount, order_count, update_time) " +
+            "SELECT oi.product_id, o.create_time::date, MIN(o.merchant_id), MIN(p.category_id), SUM(oi.quantity), " +
+            "COALESCE(SUM(oi.total_amount), 0), COUNT(DISTINCT o.id), CURRENT_TIMESTAMP " +
+            "FROM t_order_item oi JOIN t_order o ON o.id = oi.order_id " +
+            "LEFT JOIN t_product p ON p.id = oi.product_id " +
+            "WHERE o.pay_time IS NOT NULL AND o.status <> 6 AND o.merchant_id IS NOT NULL " +
+            "AND o.create_time >= #{from} AND o.create_time < CAST(#{to} AS DATE) + 1 " +
+            "GROUP BY oi.product_id, o.create_time::date")
+    int rebuild(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 与订单项核对区间内（含首尾）的销量：销量或金额不一致的日期
+     */
+    @Select("SELECT COALESCE(o.stat_date, s.stat_date) FROM " +
+            "(SELECT oi.product_id, o.create_time::date AS stat_date, SUM(oi.quantity) AS quantity, " +
+            "COALESCE(SUM(oi.total_amount), 0) AS amount " +
+            "FROM t_order_item oi JOIN t_order o ON o.id = oi.order_id " +
+            "WHERE o.pay_time IS NOT NULL AND o.status <> 6 AND o.merchant_id IS NOT NULL " +
+            "AND o.create_time >= #{from} AND o.create_time < CAST(#{to} AS DATE) + 1 " +
+            "GROUP BY oi.product_id, o.create_time::date) o " +
+            "FULL JOIN (SELECT * FROM t_product_daily_sales WHERE stat_date >= #{from} AND stat_date <= #{to}) s " +
+            "ON s.product_id = o.product_id AND s.stat_date = o.stat_date " +
+            "WHERE o.product_id IS NULL AND (s.quantity <> 0 OR s.amount <> 0) " +
+            "OR s.product_id IS NULL " +
+            "OR o.quantity <> s.quantity OR o.amount <> s.amount " +
+            "GROUP BY COALESCE(o.stat_date, s.stat_date) ORDER BY 1")
+    List<LocalDate> findMismatchedDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -3,7 +3,25 @@ package com.lingxian.common.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lingxian.common.entity.Product;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 @Mapper
 public interface ProductMapper extends BaseMapper<Product> {
+
+    /**
+     * 批量回写库存，不更新 update_time
+     *
+     * @param stocks 商品ID -> 库存
+     */
+    @Update("<script>" +
+            "UPDATE t_product AS p SET stock = v.stock FROM (VALUES " +
+            "<foreach collection='stocks' index='id' item='stock' separator=','>" +
+            "(#{id}::bigint, #{stock}::int)" +
+            "</foreach>" +
+            ") AS v(id, stock) WHERE p.id = v.id" +
+            "</script>")
+    int batchUpdateStock(@Param("stocks") Map<Long, Integer> stocks);
 }
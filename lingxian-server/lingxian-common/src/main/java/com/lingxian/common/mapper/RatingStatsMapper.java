@@ -0,0 +1,113 @@
+package com.lingxian.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lingxian.common.entity.RatingStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 评分聚合Mapper
+ */
+@Mapper
+public interface RatingStatsMapper extends BaseMapper<RatingStats> {
+
+    /**
+     * 商户默认评分，与 t_merchant.rating 的默认值一致
+     */
+    String DEFAULT_RATING = "5.0";
+
+    /**
+     * 重建时的评分、评分和与各星级数量，评分与增量更新一样规整到1-5（为空按5分）
+     */
+    String CLAMPED_RATING = "LEAST(5, GREATEST(1, COALESCE(rating, 5)))";
+    String RATING_AGGREGATES = "COALESCE(SUM(" + CLAMPED_RATING + "), 0), " +
+            "COUNT(*) FILTER (WHERE " + CLAMPED_RATING + " = 1), COUNT(*) FILTER (WHERE " + CLAMPED_RATING + " = 2), " +
+            "COUNT(*) FILTER (WHERE " + CLAMPED_RATING + " = 3), COUNT(*) FILTER (WHERE " + CLAMPED_RATING + " = 4), " +
+            "COUNT(*) FILTER (WHERE " + CLAMPED_RATING + " = 5), ";
+
+    /**
+     * 增量更新统计，不存在时插入
+     *
+     * @param rating         变化的评分（1-5），为0时只更新待回复数
+     * @param countDelta     评价数变化（+1/-1/0）
+     * @param unrepliedDelta 待回复数变化
+     */
+    @Insert("INSERT INTO t_rating_stats (target_type, target_id, rating_count, rating_sum, " +
+            "star_1, star_2, star_3, star_4, star_5, unreplied_count, update_time) " +
+            "VALUES (#{targetType}, #{targetId}, #{countDelta}, #{rating} * #{countDelta}, " +
+            "CASE WHEN #{rating} = 1 THEN #{countDelta} ELSE 0 END, " +
+            "CASE WHEN #{rating} = 2 THEN #{countDelta} ELSE 0 END, " +
+            "CASE WHEN #{rating} = 3 THEN #{countDelta} ELSE 0 END, " +
+            "CASE WHEN #{rating} = 4 THEN #{countDelta} ELSE 0 END, " +
+            "CASE WHEN #{rating} = 5 THEN #{countDelta} ELSE 0 END, " +
+            "#{unrepliedDelta}, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (target_type, target_id) DO UPDATE SET " +
+            "rating_count = t_rating_stats.rating_count + EXCLUDED.rating_count, " +
+            "rating_sum = t_rating_stats.rating_sum + EXCLUDED.rating_sum, " +
+            "star_1 = t_rating_stats.star_1 + EXCLUDED.star_1, " +
+            "star_2 = t_rating_stats.star_2 + EXCLUDED.star_2, " +
+            "star_3 = t_rating_stats.star_3 + EXCLUDED.star_3, " +
+            "star_4 = t_rating_stats.star_4 + EXCLUDED.star_4, " +
+            "star_5 = t_rating_stats.star_5 + EXCLUDED.star_5, " +
+            "unreplied_count = t_rating_stats.unreplied_count + EXCLUDED.unreplied_count, " +
+            "update_time = CURRENT_TIMESTAMP")
+    int applyDelta(@Param("targetType") int targetType,
+                   @Param("targetId") Long targetId,
+                   @Param("rating") int rating,
+                   @Param("countDelta") int countDelta,
+                   @Param("unrepliedDelta") int unrepliedDelta);
+
+    /**
+     * 根据聚合结果刷新商户评分，没有评价时恢复默认评分
+     */
+    @Update("UPDATE t_merchant m SET rating = COALESCE((SELECT ROUND(s.rating_sum::numeric / s.rating_count, 1) " +
+            "FROM t_rating_stats s WHERE s.target_type = 2 AND s.target_id = m.id AND s.rating_count > 0), " +
+            DEFAULT_RATING + ") WHERE m.id = #{merchantId}")
+    int refreshMerchantRating(@Param("merchantId") Long merchantId);
+
+    /**
+     * 清空统计（重建前）
+     */
+    @Delete("DELETE FROM t_rating_stats")
+    int deleteAll();
+
+    /**
+     * 重建商品统计：只统计显示中的评价
+     */
+    @Insert("INSERT INTO t_rating_stats (target_type, target_id, rating_count, rating_sum, " +
+            "star_1, star_2, star_3, star_4, star_5, unreplied_count, update_time) " +
+            "SELECT 1, product_id, COUNT(*), " + RATING_AGGREGATES + "0, CURRENT_TIMESTAMP " +
+            "FROM t_product_comment WHERE deleted = 0 AND status = 1 AND product_id IS NOT NULL " +
+            "GROUP BY product_id")
+    int rebuildProductStats();
+
+    /**
+     * 重建商户统计：统计全部未删除的评价
+     */
+    @Insert("INSERT INTO t_rating_stats (target_type, target_id, rating_count, rating_sum, " +
+            "star_1, star_2, star_3, star_4, star_5, unreplied_count, update_time) " +
+            "SELECT 2, merchant_id, COUNT(*), " + RATING_AGGREGATES + "COUNT(*) FILTER (WHERE reply_content IS NULL), CURRENT_TIMESTAMP " +
+            "FROM t_product_comment WHERE deleted = 0 AND merchant_id IS NOT NULL " +
+            "GROUP BY merchant_id")
+    int rebuildMerchantStats();
+
+    /**
+     * 重建平台统计：统计全部未删除的评价
+     */
+    @Insert("INSERT INTO t_rating_stats (target_type, target_id, rating_count, rating_sum, " +
+            "star_1, star_2, star_3, star_4, star_5, unreplied_count, update_time) " +
+            "SELECT 0, 0, COUNT(*), " + RATING_AGGREGATES + "COUNT(*) FILTER (WHERE reply_content IS NULL), CURRENT_TIMESTAMP " +
+            "FROM t_product_comment WHERE deleted = 0")
+    int rebuildPlatformStats();
+
+    /**
+     * 根据聚合结果刷新全部商户评分，没有评价的商户恢复默认评分
+     */
+    @Update("UPDATE t_merchant m SET rating = COALESCE((SELECT ROUND(s.rating_sum::numeric / s.rating_count, 1) " +
+            "FROM t_rating_stats s WHERE s.target_type = 2 AND s.target_id = m.id AND s.rating_count > 0), " +
+            DEFAULT_RATING + ")")
+    int refreshAllMerchantRatings();
+}
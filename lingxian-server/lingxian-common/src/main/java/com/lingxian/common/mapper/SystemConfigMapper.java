@@ -0,0 +1,28 @@
+package com.lingxian.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lingxian.common.entity.SystemConfig;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 系统配置Mapper
+ */
+@Mapper
+public interface SystemConfigMapper extends BaseMapper<SystemConfig> {
+
+    /**
+     * 批量写入配置项，已存在的键覆盖取值
+     */
+    @Insert("<script>" +
+            "INSERT INTO t_system_config (config_key, config_value, description, create_time, update_time) VALUES " +
+            "<foreach collection='list' item='c' separator=','>" +
+            "(#{c.configKey}, #{c.configValue}, #{c.description}, NOW(), NOW())" +
+            "</foreach> " +
+            "ON CONFLICT (config_key) DO UPDATE SET config_value = EXCLUDED.config_value, update_time = NOW()" +
+            "</script>")
+    int upsertBatch(@Param("list") List<SystemConfig> list);
+}
@@ -0,0 +1,73 @@
+package com.lingxian.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lingxian.common.entity.UserActivity;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+
+/**
+ * 用户活跃Mapper
+ */
+@Mapper
+public interface UserActivityMapper extends BaseMapper<UserActivity> {
+
+    /**
+     * 记录用户活跃
+     *
+     * @return 1-当天首次活跃，0-当天已记录过
+     */
+    @Insert("INSERT INTO t_user_activity (user_id, last_active_date, order_count, update_time) " +
+            "VALUES (#{userId}, #{date}, 0, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (user_id) DO UPDATE SET last_active_date = EXCLUDED.last_active_date, " +
+            "update_time = CURRENT_TIMESTAMP " +
+            "WHERE t_user_activity.last_active_date IS NULL OR t_user_activity.last_active_date < EXCLUDED.last_active_date")
+    int markActive(@Param("userId") Long userId, @Param("date") LocalDate date);
+
+    /**
+     * 记录一笔已支付订单
+     *
+     * @return 1-当天首次支付，0-当天已支付过
+     */
+    @Insert("INSERT INTO t_user_activity (user_id, last_active_date, last_order_date, order_count, update_time) " +
+            "VALUES (#{userId}, #{date}, #{date}, 1, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (user_id) DO UPDATE SET last_order_date = EXCLUDED.last_order_date, " +
+            "order_count = t_user_activity.order_count + 1, update_time = CURRENT_TIMESTAMP " +
+            "WHERE t_user_activity.last_order_date IS NULL OR t_user_activity.last_order_date < EXCLUDED.last_order_date")
+    int markOrdered(@Param("userId") Long userId, @Param("date") LocalDate date);
+
+    /**
+     * 当天再次支付：只累加订单数
+     */
+    @Update("UPDATE t_user_activity SET order_count = order_count + 1, update_time = CURRENT_TIMESTAMP " +
+            "WHERE user_id = #{userId}")
+    int incrementOrderCount(@Param("userId") Long userId);
+
+    /**
+     * 某日期（含）以来活跃过的用户数
+     */
+    @Select("SELECT COUNT(*) FROM t_user_activity WHERE last_active_date >= #{since}")
+    long countActiveSince(@Param("since") LocalDate since);
+
+    /**
+     * 已支付订单数不少于 minOrders 的用户数
+     */
+    @Select("SELECT COUNT(*) FROM t_user_activity WHERE order_count >= #{minOrders}")
+    long countByMinOrders(@Param("minOrders") int minOrders);
+
+    /**
+     * 根据已支付订单刷新各用户的下单情况，保留活跃日期
+     */
+    @Insert("INSERT INTO t_user_activity (user_id, last_active_date, last_order_date, order_count, update_time) " +
+            "SELECT user_id, MAX(pay_time)::date, MAX(pay_time)::date, COUNT(*), CURRENT_TIMESTAMP " +
+            "FROM t_order WHERE pay_time IS NOT NULL AND user_id IS NOT NULL GROUP BY user_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET last_order_date = EXCLUDED.last_order_date, " +
+            "order_count = EXCLUDED.order_count, " +
+            "last_active_date = GREATEST(t_user_activity.last_active_date, EXCLUDED.last_active_date), " +
+            "update_time = CURRENT_TIMESTAMP")
+    int rebuildOrders();
+}
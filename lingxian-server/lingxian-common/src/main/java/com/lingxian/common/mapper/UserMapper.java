@@ -3,7 +3,23 @@ package com.lingxian.common.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lingxian.common.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
+
+    /**
+     * 原子增减用户积分
+     *
+     * @return 变更后的积分余额，用户不存在时为null
+     */
+    @Select("UPDATE t_user SET points = COALESCE(points, 0) + #{delta}, update_time = #{now} " +
+            "WHERE id = #{userId} AND deleted = 0 " +
+            "RETURNING points")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    Integer addPoints(@Param("userId") Long userId, @Param("delta") int delta, @Param("now") LocalDateTime now);
 }
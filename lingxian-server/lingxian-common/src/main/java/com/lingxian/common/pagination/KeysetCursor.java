@@ -0,0 +1,98 @@
+package com.lingxian.common.pagination;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.lingxian.common.entity.BaseEntity;
+import com.lingxian.common.exception.BusinessException;
+import com.lingxian.common.result.PageResult;
+import com.lingxian.common.result.ResultCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页（Keyset Pagination）
+ * 适用于按 create_time DESC, id DESC 排序的只追加流水类列表（订单、钱包流水、积分记录、评价）。
+ * 游标对客户端不透明，内容为上一页最后一条记录的 (create_time, id)，
+ * 下一页通过行值比较 (create_time, id) &lt; (?, ?) 走索引范围扫描，翻到多深都与第一页同样开销。
+ * <p>
+ * 调用方的查询条件需按 create_time DESC, id DESC 排序。
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime createTime;
+    private final Long id;
+
+    private KeysetCursor(LocalDateTime createTime, Long id) {
+        this.createTime = createTime;
+        this.id = id;
+    }
+
+    /**
+     * 解析客户端传入的游标，空串表示第一页
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, index)),
+                    Long.parseLong(raw.substring(index + 1)));
+        } catch (Exception e) {
+            throw new BusinessException(ResultCode.VALIDATE_FAILED, "无效的分页游标");
+        }
+    }
+
+    /**
+     * 根据最后一条记录的 (create_time, id) 生成游标，保留 create_time 的完整精度以免漏掉同一毫秒内的记录
+     */
+    public static String encode(LocalDateTime createTime, Long id) {
+        String raw = createTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按游标查询一页，不执行 COUNT
+     *
+     * @param service  实体服务
+     * @param wrapper  查询条件（需已按 create_time DESC, id DESC 排序）
+     * @param cursor   客户端游标，null 或空串表示第一页
+     * @param pageSize 每页条数
+     * @return 携带 nextCursor 的分页结果
+     */
+    public static <T extends BaseEntity> PageResult<T> page(IService<T> service, LambdaQueryWrapper<T> wrapper,
+                                                           String cursor, long pageSize) {
+        return page(service, wrapper, cursor, pageSize, BaseEntity::getCreateTime, BaseEntity::getId);
+    }
+
+    /**
+     * 按游标查询一页，用于未继承 BaseEntity 的实体
+     *
+     * @param createTimeGetter 取记录创建时间
+     * @param idGetter         取记录主键
+     */
+    public static <T> PageResult<T> page(IService<T> service, LambdaQueryWrapper<T> wrapper, String cursor,
+                                         long pageSize, Function<T, LocalDateTime> createTimeGetter,
+                                         Function<T, Long> idGetter) {
+        KeysetCursor keyset = decode(cursor);
+        if (keyset != null) {
+            wrapper.apply("(create_time, id) < ({0}, {1})", keyset.createTime, keyset.id);
+        }
+
+        SlicePage<T> slice = service.page(new SlicePage<>(1, pageSize), wrapper);
+        List<T> records = slice.getRecords();
+        String nextCursor = null;
+        if (slice.hasMore()) {
+            T last = records.get(records.size() - 1);
+            nextCursor = encode(createTimeGetter.apply(last), idGetter.apply(last));
+        }
+        return PageResult.ofCursor(pageSize, records, nextCursor);
+    }
+}
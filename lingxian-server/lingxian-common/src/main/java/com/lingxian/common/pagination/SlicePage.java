@@ -0,0 +1,71 @@
+package com.lingxian.common.pagination;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.config.MybatisPlusConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 不查总数的分页参数
+ * 适用于只需要"是否还有更多"的列表（小程序上拉加载），
+ * 跳过 COUNT 查询，多取一条记录来判断 hasMore
+ */
+public class SlicePage<T> extends Page<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 客户端请求的每页条数
+     */
+    private final long pageSize;
+
+    private boolean hasMore;
+
+    public SlicePage(long current, long size) {
+        // 实际 LIMIT 为 size + 1，且不执行 COUNT；每页条数同样不超过单页上限
+        super(current, Math.min(size, MybatisPlusConfig.MAX_PAGE_SIZE) + 1, false);
+        this.pageSize = Math.min(size, MybatisPlusConfig.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 多取的一条不受分页插件单页上限截断，否则每页取满上限时 hasMore 永远为 false
+     */
+    @Override
+    public Long maxLimit() {
+        return pageSize + 1;
+    }
+
+    /**
+     * 偏移量按客户端每页条数计算，而不是按多取一条后的 LIMIT
+     */
+    @Override
+    public long offset() {
+        long current = getCurrent();
+        if (current <= 1L) {
+            return 0L;
+        }
+        return Math.max((current - 1) * pageSize, 0L);
+    }
+
+    /**
+     * 查询结果回填时截掉多取的一条，并据此得出 hasMore
+     */
+    @Override
+    public Page<T> setRecords(List<T> records) {
+        if (records != null && records.size() > pageSize) {
+            this.hasMore = true;
+            return super.setRecords(new ArrayList<>(records.subList(0, (int) pageSize)));
+        }
+        this.hasMore = false;
+        return super.setRecords(records);
+    }
+
+    public long getPageSize() {
+        return pageSize;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
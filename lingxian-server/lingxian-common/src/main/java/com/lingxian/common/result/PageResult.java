@@ -1,6 +1,7 @@
 package com.lingxian.common.result;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.lingxian.common.pagination.SlicePage;
 import lombok.Data;
 import java.io.Serializable;
 import java.util.List;
@@ -18,16 +19,28 @@ public class PageResult<T> implements Serializable {
     private Long current;
     private Long size;
     private List<T> records;
+    private Boolean hasMore;
+    /**
+     * 游标分页的下一页游标，为空表示没有更多
+     */
+    private String nextCursor;
 
     public PageResult() {
     }
 
     public PageResult(IPage<T> page) {
-        this.total = page.getTotal();
-        this.pages = page.getPages();
         this.current = page.getCurrent();
-        this.size = page.getSize();
         this.records = page.getRecords();
+        if (page instanceof SlicePage<T> slice) {
+            // 未查询总数，total/pages 置空
+            this.size = slice.getPageSize();
+            this.hasMore = slice.hasMore();
+        } else {
+            this.total = page.getTotal();
+            this.pages = page.getPages();
+            this.size = page.getSize();
+            this.hasMore = this.current < this.pages;
+        }
     }
 
     public static <T> PageResult<T> of(IPage<T> page) {
@@ -41,6 +54,19 @@ public class PageResult<T> implements Serializable {
         result.setSize(size);
         result.setRecords(records);
         result.setPages((total + size - 1) / size);
+        result.setHasMore(current < result.getPages());
+        return result;
+    }
+
+    /**
+     * 游标分页结果
+     */
+    public static <T> PageResult<T> ofCursor(Long size, List<T> records, String nextCursor) {
+        PageResult<T> result = new PageResult<>();
+        result.setSize(size);
+        result.setRecords(records);
+        result.setHasMore(nextCursor != null);
+        result.setNextCursor(nextCursor);
         return result;
     }
 }
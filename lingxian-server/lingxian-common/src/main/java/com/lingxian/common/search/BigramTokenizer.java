@@ -0,0 +1,94 @@
+package com.lingxian.common.search;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 中文二元分词
+ * 汉字连续片段切分为单字和相邻二字，英文、数字连续片段作为整词，其余字符作为分隔符。
+ * 全角字符转半角，英文转小写。
+ * <p>
+ * 索引时同时输出单字和二字，查询时长度大于1的汉字片段只输出二字，保证"西红柿"能命中"西红柿炒蛋"而不被单字噪声干扰。
+ */
+public final class BigramTokenizer {
+
+    private BigramTokenizer() {
+    }
+
+    /**
+     * 索引分词
+     */
+    public static Set<String> indexTokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(text, tokens, true);
+        return tokens;
+    }
+
+    /**
+     * 查询分词
+     */
+    public static Set<String> queryTokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(text, tokens, false);
+        return tokens;
+    }
+
+    private static void tokenize(String text, Set<String> tokens, boolean forIndex) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        int length = text.length();
+        StringBuilder run = new StringBuilder();
+        boolean hanRun = false;
+        for (int i = 0; i < length; i++) {
+            char c = normalize(text.charAt(i));
+            boolean han = isHan(c);
+            boolean word = !han && Character.isLetterOrDigit(c);
+            if (run.length() > 0 && (han != hanRun || (!han && !word))) {
+                emit(run, hanRun, tokens, forIndex);
+                run.setLength(0);
+            }
+            if (han || word) {
+                run.append(c);
+                hanRun = han;
+            }
+        }
+        if (run.length() > 0) {
+            emit(run, hanRun, tokens, forIndex);
+        }
+    }
+
+    private static void emit(CharSequence run, boolean han, Set<String> tokens, boolean forIndex) {
+        if (!han) {
+            tokens.add(run.toString());
+            return;
+        }
+        int length = run.length();
+        if (length == 1) {
+            tokens.add(run.toString());
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            if (forIndex) {
+                tokens.add(String.valueOf(run.charAt(i)));
+            }
+            if (i + 1 < length) {
+                tokens.add(run.subSequence(i, i + 2).toString());
+            }
+        }
+    }
+
+    private static char normalize(char c) {
+        if (c == '　') {
+            return ' ';
+        }
+        if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
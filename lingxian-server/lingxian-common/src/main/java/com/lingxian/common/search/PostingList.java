@@ -0,0 +1,95 @@
+package com.lingxian.common.search;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * 压缩倒排表
+ * 升序的商品ID做差分后按变长整数编码，常见的小差值只占1-2字节。
+ */
+public final class PostingList {
+
+    public static final byte[] EMPTY = new byte[0];
+
+    private PostingList() {
+    }
+
+    /**
+     * 编码升序ID数组
+     */
+    public static byte[] encode(long[] sortedIds) {
+        if (sortedIds.length == 0) {
+            return EMPTY;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sortedIds.length * 2);
+        long previous = 0;
+        for (long id : sortedIds) {
+            long delta = id - previous;
+            while ((delta & ~0x7FL) != 0) {
+                out.write((int) ((delta & 0x7F) | 0x80));
+                delta >>>= 7;
+            }
+            out.write((int) delta);
+            previous = id;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码为升序ID数组
+     */
+    public static long[] decode(byte[] encoded) {
+        if (encoded == null || encoded.length == 0) {
+            return new long[0];
+        }
+        long[] ids = new long[encoded.length];
+        int count = 0;
+        long previous = 0;
+        long value = 0;
+        int shift = 0;
+        for (byte b : encoded) {
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                previous += value;
+                ids[count++] = previous;
+                value = 0;
+                shift = 0;
+            } else {
+                shift += 7;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * 插入一个ID，已存在时原样返回
+     */
+    public static byte[] add(byte[] encoded, long id) {
+        long[] ids = decode(encoded);
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return encoded;
+        }
+        int position = -index - 1;
+        long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(ids, position, result, position + 1, ids.length - position);
+        return encode(result);
+    }
+
+    /**
+     * 删除一个ID，不存在时原样返回
+     */
+    public static byte[] remove(byte[] encoded, long id) {
+        long[] ids = decode(encoded);
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return encoded;
+        }
+        long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return encode(result);
+    }
+}
@@ -0,0 +1,631 @@
+package com.lingxian.common.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.lingxian.common.cache.CacheInvalidationBus;
+import com.lingxian.common.cache.MerchantAvailabilityIndex;
+import com.lingxian.common.entity.Category;
+import com.lingxian.common.entity.Merchant;
+import com.lingxian.common.entity.Product;
+import com.lingxian.common.service.CategoryService;
+import com.lingxian.common.service.MerchantService;
+import com.lingxian.common.service.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 商品搜索索引
+ * 对营业中商品的名称、描述、分类名、商户名做二元分词，建立内存倒排索引（差分变长编码压缩），
+ * 按文本相关度与销量综合排序，查询时按商户营业状态和配送小区过滤。
+ * <p>
+ * 首次查询时加载：优先读取本地快照，再与数据库对齐增量变化；没有快照时从数据库全量构建。
+ * 商品、商户名称、分类名称变更后调用 onXxxChanged，通过 {@link CacheInvalidationBus} 通知各实例增量更新。
+ * 商品、词项和水位线作为一个不可变整体发布：全量构建与增量更新都在副本上完成后一次性替换，查询不加锁也总是看到一致的索引。
+ * 商户端、管理端不查询，索引不会加载，收到通知直接忽略。
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    public static final String CACHE_NAME = "product-search";
+
+    private static final int SNAPSHOT_MAGIC = 0x4C585349;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final String FIELD_NAME = "n|";
+    private static final String FIELD_CATEGORY = "c|";
+    private static final String FIELD_MERCHANT = "m|";
+    private static final String FIELD_DESCRIPTION = "d|";
+    private static final String[] FIELDS = {FIELD_NAME, FIELD_CATEGORY, FIELD_MERCHANT, FIELD_DESCRIPTION};
+    private static final float[] FIELD_WEIGHTS = {4.0f, 2.0f, 1.5f, 1.0f};
+
+    /**
+     * 销量加权系数，score = 文本相关度(0-4) + SALES_WEIGHT * ln(1 + 销量)
+     */
+    private static final double SALES_WEIGHT = 0.3;
+
+    private static final String PRODUCT_KEY_PREFIX = "p:";
+    private static final String MERCHANT_KEY_PREFIX = "m:";
+    private static final String CATEGORY_KEY_PREFIX = "c:";
+
+    private final ProductService productService;
+    private final CategoryService categoryService;
+    private final MerchantService merchantService;
+    private final MerchantAvailabilityIndex merchantAvailabilityIndex;
+    private final CacheInvalidationBus invalidationBus;
+    private final Path snapshotPath;
+
+    /**
+     * 当前索引，未加载时为null；只整体替换，不原地修改
+     */
+    private volatile IndexData index;
+
+    public ProductSearchIndex(ProductService productService,
+                              CategoryService categoryService,
+                              MerchantService merchantService,
+                              MerchantAvailabilityIndex merchantAvailabilityIndex,
+                              CacheInvalidationBus invalidationBus,
+                              @Value("${search.snapshot-path:./data/product-search.idx}") String snapshotPath) {
+        this.productService = productService;
+        this.categoryService = categoryService;
+        this.merchantService = merchantService;
+        this.merchantAvailabilityIndex = merchantAvailabilityIndex;
+        this.invalidationBus = invalidationBus;
+        this.snapshotPath = Paths.get(snapshotPath);
+        invalidationBus.subscribe(CACHE_NAME, this::onInvalidate);
+    }
+
+    /**
+     * 搜索可配送到指定小区的营业中商品
+     *
+     * @param communityId 小区ID，为null时只过滤商户营业状态
+     */
+    public SearchResult search(String keyword, Long communityId, int page, int pageSize) {
+        List<SearchDoc> hits = rank(keyword, doc -> merchantAvailabilityIndex.isAvailable(doc.merchantId(), communityId));
+        int from = Math.max(0, (page - 1) * pageSize);
+        List<SearchDoc> records = from >= hits.size() ? Collections.emptyList()
+                : hits.subList(from, Math.min(hits.size(), from + pageSize));
+        return new SearchResult(hits.size(), new ArrayList<>(records));
+    }
+
+    /**
+     * 按相关度返回匹配关键词且可配送到指定小区的营业中商品ID，用于替代 name LIKE '%kw%'
+     *
+     * @param communityId 小区ID，为null时只过滤商户营业状态
+     * @param merchantId  商户ID，可为null
+     * @param categoryId  分类ID，可为null
+     * @param limit       最多返回的商品数，超出时结果标记为已截断
+     */
+    public KeywordMatch matchProductIds(String keyword, Long communityId, Long merchantId, Long categoryId, int limit) {
+        List<SearchDoc> hits = rank(keyword, doc -> (merchantId == null || merchantId.equals(doc.merchantId()))
+                && (categoryId == null || categoryId.equals(doc.categoryId()))
+                && merchantAvailabilityIndex.isAvailable(doc.merchantId(), communityId));
+        List<Long> productIds = hits.stream()
+                .limit(limit)
+                .map(SearchDoc::productId)
+                .collect(Collectors.toList());
+        return new KeywordMatch(productIds, hits.size() > limit);
+    }
+
+    /**
+     * 商品新增、修改、上下架、删除后调用
+     */
+    public void onProductChanged(Long productId) {
+        if (productId != null) {
+            invalidationBus.publish(CACHE_NAME, PRODUCT_KEY_PREFIX + productId);
+        }
+    }
+
+    /**
+     * 商户名称变更后调用
+     */
+    public void onMerchantChanged(Long merchantId) {
+        if (merchantId != null) {
+            invalidationBus.publish(CACHE_NAME, MERCHANT_KEY_PREFIX + merchantId);
+        }
+    }
+
+    /**
+     * 分类名称变更后调用
+     */
+    public void onCategoryChanged(Long categoryId) {
+        if (categoryId != null) {
+            invalidationBus.publish(CACHE_NAME, CATEGORY_KEY_PREFIX + categoryId);
+        }
+    }
+
+    /**
+     * 定时与数据库对齐（补漏通知、同步销量）并写快照
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void scheduledSync() {
+        if (index == null) {
+            return;
+        }
+        try {
+            IndexData synced;
+            synchronized (this) {
+                synced = catchUp(index);
+                index = synced;
+            }
+            writeSnapshot(synced);
+        } catch (Exception e) {
+            log.error("商品搜索索引同步失败", e);
+        }
+    }
+
+    // ============ 查询 ============
+
+    private List<SearchDoc> rank(String keyword, Predicate<SearchDoc> filter) {
+        IndexData current = ensureLoaded();
+        Set<String> tokens = BigramTokenizer.queryTokens(keyword);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 每个词取命中字段的最高权重，累加为文本分，并记录命中词数
+        Map<Long, float[]> scores = new HashMap<>();
+        for (String token : tokens) {
+            Map<Long, Float> tokenScores = new HashMap<>();
+            for (int i = 0; i < FIELDS.length; i++) {
+                float weight = FIELD_WEIGHTS[i];
+                for (long id : PostingList.decode(current.postings().get(FIELDS[i] + token))) {
+                    tokenScores.merge(id, weight, Math::max);
+                }
+            }
+            tokenScores.forEach((id, weight) -> {
+                float[] score = scores.computeIfAbsent(id, k -> new float[2]);
+                score[0] += weight;
+                score[1] += 1;
+            });
+        }
+        if (scores.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 优先要求命中全部词，没有结果时放宽到命中最多词且不少于一半
+        int required = tokens.size();
+        int best = (int) scores.values().stream().mapToDouble(s -> s[1]).max().orElse(0);
+        if (best < required && best * 2 >= required) {
+            required = best;
+        }
+
+        List<ScoredDoc> matched = new ArrayList<>();
+        int tokenCount = tokens.size();
+        for (Map.Entry<Long, float[]> entry : scores.entrySet()) {
+            float[] score = entry.getValue();
+            if (score[1] < required) {
+                continue;
+            }
+            SearchDoc doc = current.docs().get(entry.getKey());
+            if (doc == null || !filter.test(doc)) {
+                continue;
+            }
+            double finalScore = score[0] / tokenCount + SALES_WEIGHT * Math.log1p(Math.max(0, doc.salesCount()));
+            matched.add(new ScoredDoc(doc, finalScore));
+        }
+        matched.sort(Comparator.comparingDouble(ScoredDoc::score).reversed()
+                .thenComparing(s -> s.doc().productId(), Comparator.reverseOrder()));
+        return matched.stream().map(ScoredDoc::doc).collect(Collectors.toList());
+    }
+
+    // ============ 加载与更新 ============
+
+    private IndexData ensureLoaded() {
+        IndexData current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (index != null) {
+                return index;
+            }
+            long start = System.currentTimeMillis();
+            IndexData loaded = readSnapshot();
+            if (loaded != null) {
+                loaded = catchUp(loaded);
+                log.info("商品搜索索引已从快照加载: 商品={}, 词项={}, 耗时={}ms",
+                        loaded.docs().size(), loaded.postings().size(), System.currentTimeMillis() - start);
+            } else {
+                loaded = build();
+                log.info("商品搜索索引已全量构建: 商品={}, 词项={}, 耗时={}ms",
+                        loaded.docs().size(), loaded.postings().size(), System.currentTimeMillis() - start);
+            }
+            writeSnapshot(loaded);
+            index = loaded;
+            return loaded;
+        }
+    }
+
+    /**
+     * 从数据库全量构建新索引
+     */
+    private IndexData build() {
+        Map<Long, String> categoryNames = loadCategoryNames();
+        Map<Long, String> merchantNames = loadMerchantNames();
+        List<Product> products = productService.list(productQuery().eq(Product::getStatus, 1));
+
+        Map<Long, SearchDoc> docs = new HashMap<>();
+        Map<String, List<Long>> termIds = new HashMap<>();
+        LocalDateTime latest = null;
+        for (Product product : products) {
+            SearchDoc doc = toDoc(product, categoryNames.get(product.getCategoryId()),
+                    merchantNames.get(product.getMerchantId()));
+            docs.put(doc.productId(), doc);
+            for (String term : doc.terms()) {
+                termIds.computeIfAbsent(term, k -> new ArrayList<>()).add(doc.productId());
+            }
+            latest = max(latest, product.getUpdateTime());
+        }
+
+        Map<String, byte[]> postings = new HashMap<>();
+        termIds.forEach((term, ids) ->
+                postings.put(term, PostingList.encode(ids.stream().mapToLong(Long::longValue).sorted().toArray())));
+        return new IndexData(Collections.unmodifiableMap(docs), Collections.unmodifiableMap(postings), latest);
+    }
+
+    /**
+     * 与数据库对齐：删除已下架/删除的商品，重建更新时间晚于水位线或缺失的商品，同步销量
+     *
+     * @return 对齐后的新索引，base 不变
+     */
+    private IndexData catchUp(IndexData base) {
+        List<Product> live = productService.list(new LambdaQueryWrapper<Product>()
+                .eq(Product::getStatus, 1)
+                .select(Product::getId, Product::getSalesCount, Product::getUpdateTime));
+
+        IndexBuilder builder = new IndexBuilder(base);
+        Set<Long> liveIds = new HashSet<>();
+        List<Long> stale = new ArrayList<>();
+        LocalDateTime watermark = base.watermark();
+        LocalDateTime latest = watermark;
+        for (Product product : live) {
+            liveIds.add(product.getId());
+            SearchDoc doc = base.docs().get(product.getId());
+            boolean changed = watermark == null || product.getUpdateTime() == null
+                    || product.getUpdateTime().isAfter(watermark);
+            if (doc == null || changed) {
+                stale.add(product.getId());
+            } else if (product.getSalesCount() != null && product.getSalesCount() != doc.salesCount()) {
+                builder.docs.put(doc.productId(), doc.withSalesCount(product.getSalesCount()));
+            }
+            latest = max(latest, product.getUpdateTime());
+        }
+
+        for (Long id : base.docs().keySet()) {
+            if (!liveIds.contains(id)) {
+                builder.remove(id);
+            }
+        }
+        for (Long id : stale) {
+            reindexProduct(builder, id);
+        }
+        if (!stale.isEmpty()) {
+            log.info("商品搜索索引增量同步: 更新={}", stale.size());
+        }
+        return builder.build(latest);
+    }
+
+    private void onInvalidate(String key) {
+        if (index == null) {
+            return;
+        }
+        if (CacheInvalidationBus.ALL.equals(key)) {
+            rebuild();
+        } else if (key.startsWith(PRODUCT_KEY_PREFIX)) {
+            Long productId = Long.valueOf(key.substring(PRODUCT_KEY_PREFIX.length()));
+            update(builder -> reindexProduct(builder, productId));
+        } else if (key.startsWith(MERCHANT_KEY_PREFIX)) {
+            Long merchantId = Long.valueOf(key.substring(MERCHANT_KEY_PREFIX.length()));
+            update(builder -> reindexProducts(builder, Product::getMerchantId, merchantId,
+                    doc -> merchantId.equals(doc.merchantId())));
+        } else if (key.startsWith(CATEGORY_KEY_PREFIX)) {
+            Long categoryId = Long.valueOf(key.substring(CATEGORY_KEY_PREFIX.length()));
+            update(builder -> reindexProducts(builder, Product::getCategoryId, categoryId,
+                    doc -> categoryId.equals(doc.categoryId())));
+        }
+    }
+
+    private synchronized void rebuild() {
+        index = build();
+    }
+
+    /**
+     * 在当前索引的副本上修改后整体替换，水位线不变
+     */
+    private synchronized void update(Consumer<IndexBuilder> change) {
+        IndexData current = index;
+        IndexBuilder builder = new IndexBuilder(current);
+        change.accept(builder);
+        index = builder.build(current.watermark());
+    }
+
+    private void reindexProducts(IndexBuilder builder, SFunction<Product, Long> column, Long value,
+                                 Predicate<SearchDoc> belongs) {
+        Set<Long> ids = builder.docs.values().stream().filter(belongs).map(SearchDoc::productId)
+                .collect(Collectors.toSet());
+        productService.list(new LambdaQueryWrapper<Product>()
+                        .eq(column, value)
+                        .eq(Product::getStatus, 1)
+                        .select(Product::getId))
+                .forEach(product -> ids.add(product.getId()));
+        ids.forEach(id -> reindexProduct(builder, id));
+    }
+
+    private void reindexProduct(IndexBuilder builder, Long productId) {
+        Product product = productService.getOne(productQuery().eq(Product::getId, productId));
+        if (product == null || !Integer.valueOf(1).equals(product.getStatus())) {
+            builder.remove(productId);
+            return;
+        }
+        String categoryName = null;
+        if (product.getCategoryId() != null) {
+            Category category = categoryService.getById(product.getCategoryId());
+            categoryName = category != null ? category.getName() : null;
+        }
+        String merchantName = null;
+        if (product.getMerchantId() != null) {
+            Merchant merchant = merchantService.getById(product.getMerchantId());
+            merchantName = merchant != null ? merchant.getName() : null;
+        }
+        builder.upsert(toDoc(product, categoryName, merchantName));
+    }
+
+    private LambdaQueryWrapper<Product> productQuery() {
+        return new LambdaQueryWrapper<Product>()
+                .select(Product::getId, Product::getMerchantId, Product::getCategoryId, Product::getName,
+                        Product::getDescription, Product::getImage, Product::getPrice, Product::getOriginalPrice,
+                        Product::getSalesCount, Product::getStatus, Product::getUpdateTime);
+    }
+
+    private Map<Long, String> loadCategoryNames() {
+        return categoryService.list(new LambdaQueryWrapper<Category>().select(Category::getId, Category::getName))
+                .stream()
+                .filter(c -> c.getName() != null)
+                .collect(Collectors.toMap(Category::getId, Category::getName, (a, b) -> a));
+    }
+
+    private Map<Long, String> loadMerchantNames() {
+        return merchantService.list(new LambdaQueryWrapper<Merchant>().select(Merchant::getId, Merchant::getName))
+                .stream()
+                .filter(m -> m.getName() != null)
+                .collect(Collectors.toMap(Merchant::getId, Merchant::getName, (a, b) -> a));
+    }
+
+    private SearchDoc toDoc(Product product, String categoryName, String merchantName) {
+        Set<String> terms = new HashSet<>();
+        addTerms(terms, FIELD_NAME, product.getName());
+        addTerms(terms, FIELD_CATEGORY, categoryName);
+        addTerms(terms, FIELD_MERCHANT, merchantName);
+        addTerms(terms, FIELD_DESCRIPTION, product.getDescription());
+        return new SearchDoc(product.getId(), product.getMerchantId(), product.getCategoryId(), product.getName(),
+                product.getImage(), product.getPrice(), product.getOriginalPrice(),
+                product.getSalesCount() != null ? product.getSalesCount() : 0, terms.toArray(new String[0]));
+    }
+
+    private void addTerms(Set<String> terms, String field, String text) {
+        for (String token : BigramTokenizer.indexTokens(text)) {
+            terms.add(field + token);
+        }
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    // ============ 快照 ============
+
+    private synchronized void writeSnapshot(IndexData data) {
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            if (snapshotPath.getParent() != null) {
+                Files.createDirectories(snapshotPath.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                writeNullableString(out, data.watermark() != null ? data.watermark().toString() : null);
+                out.writeInt(data.docs().size());
+                for (SearchDoc doc : data.docs().values()) {
+                    out.writeLong(doc.productId());
+                    out.writeLong(doc.merchantId() != null ? doc.merchantId() : -1);
+                    out.writeLong(doc.categoryId() != null ? doc.categoryId() : -1);
+                    writeNullableString(out, doc.name());
+                    writeNullableString(out, doc.image());
+                    writeNullableString(out, doc.price() != null ? doc.price().toPlainString() : null);
+                    writeNullableString(out, doc.originalPrice() != null ? doc.originalPrice().toPlainString() : null);
+                    out.writeInt(doc.salesCount());
+                    out.writeInt(doc.terms().length);
+                    for (String term : doc.terms()) {
+                        out.writeUTF(term);
+                    }
+                }
+                out.writeInt(data.postings().size());
+                for (Map.Entry<String, byte[]> entry : data.postings().entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入商品搜索索引快照失败: path={}, error={}", snapshotPath, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取本地快照，没有快照或无法读取时返回null
+     */
+    private IndexData readSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("商品搜索索引快照版本不匹配，重新构建: {}", snapshotPath);
+                return null;
+            }
+            String mark = readNullableString(in);
+            Map<Long, SearchDoc> loadedDocs = new HashMap<>();
+            int docCount = in.readInt();
+            for (int i = 0; i < docCount; i++) {
+                long productId = in.readLong();
+                long merchantId = in.readLong();
+                long categoryId = in.readLong();
+                String name = readNullableString(in);
+                String image = readNullableString(in);
+                String price = readNullableString(in);
+                String originalPrice = readNullableString(in);
+                int salesCount = in.readInt();
+                String[] terms = new String[in.readInt()];
+                for (int j = 0; j < terms.length; j++) {
+                    terms[j] = in.readUTF();
+                }
+                loadedDocs.put(productId, new SearchDoc(productId, merchantId >= 0 ? merchantId : null,
+                        categoryId >= 0 ? categoryId : null, name, image,
+                        price != null ? new BigDecimal(price) : null,
+                        originalPrice != null ? new BigDecimal(originalPrice) : null, salesCount, terms));
+            }
+            Map<String, byte[]> loadedPostings = new HashMap<>();
+            int termCount = in.readInt();
+            for (int i = 0; i < termCount; i++) {
+                String term = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                loadedPostings.put(term, bytes);
+            }
+            return new IndexData(Collections.unmodifiableMap(loadedDocs), Collections.unmodifiableMap(loadedPostings),
+                    mark != null ? LocalDateTime.parse(mark) : null);
+        } catch (Exception e) {
+            log.warn("读取商品搜索索引快照失败，重新构建: path={}, error={}", snapshotPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // ============ 数据结构 ============
+
+    /**
+     * 索引中的商品，保存列表展示所需字段，搜索结果无需回表
+     */
+    public record SearchDoc(long productId, Long merchantId, Long categoryId, String name, String image,
+                            BigDecimal price, BigDecimal originalPrice, int salesCount, String[] terms) {
+
+        SearchDoc withSalesCount(int salesCount) {
+            return new SearchDoc(productId, merchantId, categoryId, name, image, price, originalPrice, salesCount, terms);
+        }
+    }
+
+    /**
+     * 搜索结果
+     */
+    public record SearchResult(long total, List<SearchDoc> records) {
+    }
+
+    /**
+     * 关键词匹配结果，truncated 为true表示匹配数超过上限，只返回了相关度最高的部分
+     */
+    public record KeywordMatch(List<Long> productIds, boolean truncated) {
+    }
+
+    private record ScoredDoc(SearchDoc doc, double score) {
+    }
+
+    /**
+     * 某一时刻的完整索引：商品、词项 -> 倒排列表、已同步到的商品更新时间，发布后不再修改
+     */
+    private record IndexData(Map<Long, SearchDoc> docs, Map<String, byte[]> postings, LocalDateTime watermark) {
+    }
+
+    /**
+     * 在已发布索引的副本上增删商品，build 后发布为新索引，之后不再使用
+     */
+    private static final class IndexBuilder {
+
+        private final Map<Long, SearchDoc> docs;
+        private final Map<String, byte[]> postings;
+
+        IndexBuilder(IndexData base) {
+            this.docs = new HashMap<>(base.docs());
+            this.postings = new HashMap<>(base.postings());
+        }
+
+        void upsert(SearchDoc doc) {
+            SearchDoc old = docs.get(doc.productId());
+            Set<String> oldTerms = old != null ? new HashSet<>(Arrays.asList(old.terms())) : Collections.emptySet();
+            Set<String> newTerms = new HashSet<>(Arrays.asList(doc.terms()));
+            docs.put(doc.productId(), doc);
+            for (String term : oldTerms) {
+                if (!newTerms.contains(term)) {
+                    removePosting(term, doc.productId());
+                }
+            }
+            for (String term : newTerms) {
+                if (!oldTerms.contains(term)) {
+                    postings.put(term, PostingList.add(postings.getOrDefault(term, PostingList.EMPTY), doc.productId()));
+                }
+            }
+        }
+
+        void remove(Long productId) {
+            SearchDoc old = docs.remove(productId);
+            if (old != null) {
+                for (String term : old.terms()) {
+                    removePosting(term, productId);
+                }
+            }
+        }
+
+        private void removePosting(String term, long productId) {
+            byte[] updated = PostingList.remove(postings.getOrDefault(term, PostingList.EMPTY), productId);
+            if (updated.length == 0) {
+                postings.remove(term);
+            } else {
+                postings.put(term, updated);
+            }
+        }
+
+        IndexData build(LocalDateTime watermark) {
+            return new IndexData(Collections.unmodifiableMap(docs), Collections.unmodifiableMap(postings), watermark);
+        }
+    }
+}
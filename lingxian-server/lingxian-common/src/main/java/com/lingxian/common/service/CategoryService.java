@@ -8,7 +8,7 @@ import java.util.List;
 public interface CategoryService extends IService<Category> {
 
     /**
-     * 获取分类树形结构
+     * 获取分类树形结构（含已禁用的分类），数据来自 {@link com.lingxian.common.cache.CategoryTree}，返回副本
      */
     List<Category> getTreeList();
 }
@@ -0,0 +1,47 @@
+package com.lingxian.common.service;
+
+import com.lingxian.common.entity.Order;
+
+import java.util.List;
+
+/**
+ * 下单服务
+ * 批量加载商品、商户、地址、小区与配送范围后在内存中校验，校验通过的商户订单在同一事务中批量写入，
+ * 库存一次原子预占；未通过校验的商户单独报告原因，不影响其他商户下单。
+ */
+public interface CheckoutService {
+
+    /**
+     * 创建多商户订单
+     *
+     * @param userId        用户ID
+     * @param merchantOrders 按商户拆分的订单
+     * @return 已创建的订单及失败的商户
+     */
+    CheckoutResult checkout(Long userId, List<MerchantOrder> merchantOrders);
+
+    /**
+     * 订单商品行
+     */
+    record Line(Long productId, Integer quantity) {
+    }
+
+    /**
+     * 单个商户的订单请求
+     */
+    record MerchantOrder(Long merchantId, Long addressId, Long communityId, String deliveryTime,
+                         String remark, List<Line> lines) {
+    }
+
+    /**
+     * 商户订单失败原因
+     */
+    record Failure(Long merchantId, String merchantName, String reason) {
+    }
+
+    /**
+     * 下单结果
+     */
+    record CheckoutResult(List<Order> orders, List<Failure> failures) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.lingxian.common.service;
+
+import com.lingxian.common.entity.GroupRecord;
+
+import java.util.Collection;
+
+/**
+ * 拼团参团服务
+ * 拼团人数、成员以 Redis 为准，占位、查重、成团判断与活动库存扣减在一个 Lua 脚本内原子完成，
+ * 成员与进度异步批量回写 t_group_member、t_group_record、t_group_activity，参团不争抢数据库行锁。
+ */
+public interface GroupBuyService {
+
+    /**
+     * 发起拼团，团长即第一位成员
+     *
+     * @return 新建的拼团记录
+     * @throws com.lingxian.common.exception.BusinessException 活动不可参与或已有进行中的拼团
+     */
+    GroupRecord startGroup(Long activityId, Long userId);
+
+    /**
+     * 参与拼团
+     *
+     * @return 参团后的拼团状态（id、currentSize、groupSize、status）
+     * @throws com.lingxian.common.exception.BusinessException 拼团不存在、已结束、已过期、已满、已参与或库存不足
+     */
+    GroupRecord joinGroup(Long groupId, Long userId);
+
+    /**
+     * 用 Redis 中的最新人数、状态覆盖拼团记录（数据库回写有延迟），未加载的记录不变
+     */
+    void applyLiveState(Collection<GroupRecord> records);
+
+    /**
+     * 设置活动库存（后台编辑），已加载到 Redis 时同步覆盖
+     */
+    void setActivityStock(Long activityId, int stock);
+
+    /**
+     * 将待落库的成员、拼团进度和活动计数批量写入数据库
+     *
+     * @return 写入的成员数
+     */
+    int flush();
+
+    /**
+     * 将 Redis 中所有拼团与活动标记为待回写并回写，用于停机后补写
+     */
+    void reconcile();
+}
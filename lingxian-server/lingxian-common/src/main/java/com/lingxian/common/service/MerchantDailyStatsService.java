@@ -0,0 +1,100 @@
+package com.lingxian.common.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.lingxian.common.entity.MerchantDailyStats;
+import com.lingxian.common.entity.Order;
+import com.lingxian.common.entity.ProductDailySales;
+import com.lingxian.common.entity.Refund;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 商户日统计服务
+ * 统计按订单下单日期归档，与工作台原有按下单时间统计的口径一致；同时维护月汇总与商品日销量
+ */
+public interface MerchantDailyStatsService extends IService<MerchantDailyStats> {
+
+    /**
+     * 获取某天的统计，无数据时返回空统计
+     */
+    MerchantDailyStats getDay(Long merchantId, LocalDate date);
+
+    /**
+     * 获取日期区间内每天的统计（含首尾），按日期升序，缺失的日期补空统计
+     */
+    List<MerchantDailyStats> getRange(Long merchantId, LocalDate from, LocalDate to);
+
+    /**
+     * 获取月份区间内每月的汇总（含首尾，参数取月初），按月份升序，缺失的月份补空统计
+     */
+    List<MerchantDailyStats> getMonths(Long merchantId, LocalDate fromMonth, LocalDate toMonth);
+
+    /**
+     * 汇总日期区间（含首尾）的统计
+     */
+    MerchantDailyStats sum(Long merchantId, LocalDate from, LocalDate to);
+
+    /**
+     * 区间内（含首尾）销售额排名前 limit 的商户，statDate 为空，各项为区间合计
+     */
+    List<MerchantDailyStats> rankBySales(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * 商户区间内（含首尾）销售额排名前 limit 的商品，各项为区间合计
+     */
+    List<ProductDailySales> getTopProducts(Long merchantId, LocalDate from, LocalDate to, int limit);
+
+    /**
+     * 商户区间内（含首尾）按商品分类汇总的销量，按金额降序
+     */
+    List<ProductDailySales> getCategorySales(Long merchantId, LocalDate from, LocalDate to);
+
+    /**
+     * 订单支付成功后调用
+     */
+    void onOrderPaid(Order order);
+
+    /**
+     * 订单发货（待发货 -> 待收货）后调用
+     */
+    void onOrderDelivered(Order order);
+
+    /**
+     * 订单确认收货（待收货 -> 待评价）后调用
+     */
+    void onOrdersReceived(Collection<Long> orderIds);
+
+    /**
+     * 订单完成（待评价 -> 已完成）后调用
+     */
+    void onOrdersCompleted(Collection<Long> orderIds);
+
+    /**
+     * 已支付订单被商家拒单后调用
+     */
+    void onPaidOrderCancelled(Order order);
+
+    /**
+     * 退款审核通过后调用
+     */
+    void onRefundApproved(Refund refund, Order order);
+
+    /**
+     * 根据订单表、退款表全量重建统计
+     */
+    void rebuild();
+
+    /**
+     * 根据订单表、退款表重建日期区间（含首尾）的日统计、商品日销量及所在月份的月汇总
+     */
+    void rebuildDays(LocalDate from, LocalDate to);
+
+    /**
+     * 与订单表、订单项表核对日期区间（含首尾）的统计
+     *
+     * @return 不一致的日期，按日期升序
+     */
+    List<LocalDate> findMismatchedDays(LocalDate from, LocalDate to);
+}
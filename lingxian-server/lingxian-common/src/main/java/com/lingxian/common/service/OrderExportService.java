@@ -0,0 +1,49 @@
+package com.lingxian.common.service;
+
+import com.lingxian.common.export.ExportFormat;
+import com.lingxian.common.export.OrderExportQuery;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * 订单导出服务
+ * 订单与订单项用服务端游标按订单ID顺序流式读取并归并，逐行写出，内存占用与导出行数无关
+ */
+public interface OrderExportService {
+
+    /**
+     * 导出文件名
+     */
+    String fileName(ExportFormat format, boolean gzip);
+
+    /**
+     * 导出文件的内容类型
+     */
+    String contentType(ExportFormat format, boolean gzip);
+
+    /**
+     * 把符合条件的订单（每个订单一行）写到输出流，不关闭输出流
+     *
+     * @param progress 每写出一批后回调已写出的订单数，可为空
+     * @return 导出的订单数
+     */
+    long export(OrderExportQuery query, ExportFormat format, boolean gzip, OutputStream out,
+                LongConsumer progress) throws IOException;
+
+    /**
+     * 提交异步导出任务，导出完成后上传到存储服务
+     *
+     * @return 任务ID
+     */
+    String submit(OrderExportQuery query, ExportFormat format, boolean gzip, Long adminId);
+
+    /**
+     * 查询异步导出任务：状态、总数、已导出数及完成后的下载地址
+     *
+     * @return 任务不存在或已过期时返回 null
+     */
+    Map<String, Object> getJob(String jobId);
+}
@@ -1,7 +1,53 @@
 package com.lingxian.common.service;
 
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.lingxian.common.entity.Order;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface OrderService extends IService<Order> {
+
+    /**
+     * 变更订单状态，仅当订单仍处于 fromStatus 时生效，同一事务内调整订单状态计数
+     *
+     * @param orderId    订单ID
+     * @param fromStatus 变更前应处的状态
+     * @param toStatus   变更后的状态
+     * @param update     需要同时更新的其他字段，可为空
+     * @return 是否变更成功
+     */
+    boolean changeStatus(Long orderId, int fromStatus, int toStatus, LambdaUpdateWrapper<Order> update);
+
+    /**
+     * 取消订单并归还库存，仅当订单仍处于 fromStatus 时生效
+     *
+     * @param orderId    订单ID
+     * @param fromStatus 取消前应处的状态
+     * @param reason     取消原因
+     * @return 是否取消成功
+     */
+    boolean cancelOrder(Long orderId, Integer fromStatus, String reason);
+
+    /**
+     * 批量取消超时未支付的订单并归还库存
+     *
+     * @return 实际取消的订单ID
+     */
+    List<Long> cancelTimeoutOrders(Collection<Long> orderIds);
+
+    /**
+     * 批量自动确认收货
+     *
+     * @return 实际更新的订单ID
+     */
+    List<Long> autoReceive(Collection<Long> orderIds);
+
+    /**
+     * 批量自动完成
+     *
+     * @return 实际更新的订单ID
+     */
+    List<Long> autoComplete(Collection<Long> orderIds);
 }
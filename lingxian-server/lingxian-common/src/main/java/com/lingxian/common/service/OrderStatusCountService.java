@@ -0,0 +1,51 @@
+package com.lingxian.common.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.lingxian.common.entity.OrderStatusCount;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 订单/退款状态计数服务
+ * 商户计数在状态变更的同一事务内调整；全平台合计是所有订单共用的热点行，在事务提交后单独调整。定时与订单表、退款表核对修复
+ */
+public interface OrderStatusCountService extends IService<OrderStatusCount> {
+
+    /**
+     * 各订单状态的数量
+     *
+     * @param merchantId 商户ID，为空时返回全平台合计
+     * @return 状态 -> 数量，没有订单的状态不含在内
+     */
+    Map<Integer, Long> getOrderCounts(Long merchantId);
+
+    /**
+     * 各退款状态的数量
+     *
+     * @param merchantId 商户ID，为空时返回全平台合计
+     * @return 状态 -> 数量，没有退款单的状态不含在内
+     */
+    Map<Integer, Long> getRefundCounts(Long merchantId);
+
+    /**
+     * 订单状态变更后调用，须与变更处于同一事务；全平台合计在事务提交后调整
+     *
+     * @param fromStatus 变更前状态，新建订单时为空
+     */
+    void onOrdersChanged(Collection<Long> orderIds, Integer fromStatus, int toStatus);
+
+    /**
+     * 退款状态变更后调用，须与变更处于同一事务；全平台合计在事务提交后调整
+     *
+     * @param fromStatus 变更前状态，新建退款单时为空
+     */
+    void onRefundsChanged(Collection<Long> refundIds, Integer fromStatus, int toStatus);
+
+    /**
+     * 与订单表、退款表核对，不一致时锁表重建
+     *
+     * @return 核对时不一致的计数行数
+     */
+    long reconcile();
+}
@@ -0,0 +1,102 @@
+package com.lingxian.common.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.lingxian.common.entity.Order;
+import com.lingxian.common.entity.PlatformDimStats;
+import com.lingxian.common.entity.PlatformStats;
+import com.lingxian.common.entity.Refund;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 平台统计服务
+ * 订单、退款、用户事件发生时按事件时间增量写入小时与日统计，管理后台按区间直接汇总，不再扫描订单表；
+ * 统计行被所有订单共用，事件发生在事务中时于事务提交后写入，不在订单事务内持有行锁
+ */
+public interface PlatformStatsService extends IService<PlatformStats> {
+
+    /**
+     * 获取日期区间内每天的统计（含首尾），按日期升序，缺失的日期补空统计
+     */
+    List<PlatformStats> getDays(LocalDate from, LocalDate to);
+
+    /**
+     * 获取某天每小时的统计，共24条，缺失的小时补空统计
+     */
+    List<PlatformStats> getHours(LocalDate date);
+
+    /**
+     * 汇总日期区间（含首尾）的统计
+     */
+    PlatformStats sum(LocalDate from, LocalDate to);
+
+    /**
+     * 汇总日期区间（含首尾）内某一维度各取值的统计，按金额、订单数降序
+     *
+     * @param dimension {@link PlatformDimStats#DIM_ORDER_TYPE} 等
+     */
+    List<PlatformDimStats> sumByDimension(int dimension, LocalDate from, LocalDate to);
+
+    /**
+     * 某日期（含）以来活跃过的用户数
+     */
+    long countActiveUsersSince(LocalDate since);
+
+    /**
+     * 已支付订单数不少于 minOrders 的用户数
+     */
+    long countUsersByMinOrders(int minOrders);
+
+    /**
+     * 下单后调用
+     */
+    void onOrdersCreated(List<Order> orders);
+
+    /**
+     * 订单支付成功后调用，需已设置支付时间、支付方式
+     */
+    void onOrderPaid(Order order);
+
+    /**
+     * 单个订单取消后调用，已支付订单同时计为退款
+     */
+    void onOrderCancelled(Order order);
+
+    /**
+     * 批量超时取消未支付订单后调用
+     */
+    void onUnpaidOrdersCancelled(int count);
+
+    /**
+     * 订单完成后调用
+     */
+    void onOrdersCompleted(int count);
+
+    /**
+     * 退款审核通过后调用
+     */
+    void onRefundApproved(Refund refund);
+
+    /**
+     * 新用户注册后调用
+     */
+    void onUserRegistered(Long userId);
+
+    /**
+     * 用户访问时调用，每个用户每天只计一次；统计失败不影响请求
+     */
+    void onUserActive(Long userId);
+
+    /**
+     * 根据订单表、退款表、用户表回填某天的统计，订单表按下单、支付、取消、完成时间分别以 (时间, ID) 游标分批读取
+     *
+     * @return 读取的订单数（同一订单的多个事件落在当天时分别计数）
+     */
+    int backfillDay(LocalDate date);
+
+    /**
+     * 根据已支付订单刷新各用户的下单次数
+     */
+    void rebuildUserActivity();
+}
@@ -3,5 +3,35 @@ package com.lingxian.common.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.lingxian.common.entity.ProductComment;
 
+import java.util.List;
+
+/**
+ * 商品评价服务
+ * 评价的新增、回复、显示隐藏、删除需通过以下方法完成，以便同步更新评分统计
+ */
 public interface ProductCommentService extends IService<ProductComment> {
+
+    /**
+     * 批量新增评价
+     */
+    void addComments(List<ProductComment> comments);
+
+    /**
+     * 商家回复评价，已回复的评价不能重复回复
+     *
+     * @return 是否回复成功
+     */
+    boolean reply(Long commentId, String content);
+
+    /**
+     * 更新评价显示状态
+     *
+     * @param status 0-隐藏 1-显示
+     */
+    boolean updateStatus(Long commentId, Integer status);
+
+    /**
+     * 删除评价
+     */
+    boolean removeComment(Long commentId);
 }
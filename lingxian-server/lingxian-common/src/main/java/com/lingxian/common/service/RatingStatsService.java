@@ -0,0 +1,52 @@
+package com.lingxian.common.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.lingxian.common.entity.ProductComment;
+import com.lingxian.common.entity.RatingStats;
+
+/**
+ * 评分聚合服务
+ * 商品统计只计显示中的评价；商户、平台统计计全部未删除的评价，并维护待回复数
+ */
+public interface RatingStatsService extends IService<RatingStats> {
+
+    /**
+     * 获取商品评分统计，无评价时返回空统计
+     */
+    RatingStats getProductStats(Long productId);
+
+    /**
+     * 获取商户评分统计，无评价时返回空统计
+     */
+    RatingStats getMerchantStats(Long merchantId);
+
+    /**
+     * 获取平台评分统计
+     */
+    RatingStats getPlatformStats();
+
+    /**
+     * 评价新增后调用
+     */
+    void onCommentAdded(ProductComment comment);
+
+    /**
+     * 评价删除后调用，comment 为删除前的数据
+     */
+    void onCommentRemoved(ProductComment comment);
+
+    /**
+     * 评价显示/隐藏后调用
+     */
+    void onCommentVisibilityChanged(ProductComment comment, boolean visible);
+
+    /**
+     * 评价首次回复后调用
+     */
+    void onCommentReplied(ProductComment comment);
+
+    /**
+     * 根据评价表全量重建统计
+     */
+    void rebuild();
+}
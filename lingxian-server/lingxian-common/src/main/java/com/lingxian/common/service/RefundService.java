@@ -1,7 +1,19 @@
 package com.lingxian.common.service;
 
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.lingxian.common.entity.Refund;
 
 public interface RefundService extends IService<Refund> {
+
+    /**
+     * 变更退款状态，仅当退款单仍处于 fromStatus 时生效，同一事务内调整退款状态计数
+     *
+     * @param refundId   退款单ID
+     * @param fromStatus 变更前应处的状态
+     * @param toStatus   变更后的状态
+     * @param update     需要同时更新的其他字段，可为空
+     * @return 是否变更成功
+     */
+    boolean changeStatus(Long refundId, int fromStatus, int toStatus, LambdaUpdateWrapper<Refund> update);
 }
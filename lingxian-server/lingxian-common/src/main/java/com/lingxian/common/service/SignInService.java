@@ -0,0 +1,45 @@
+package com.lingxian.common.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 用户签到服务
+ * 签到记录为 Redis 位图，每人每月一个键，第N天对应第 N-1 位；签到是一次原子的 SETBIT 置位，
+ * 当月日历、签到天数和连续签到天数都由 BITFIELD 一次读出后在本地计算，查询签到状态不访问数据库。
+ */
+public interface SignInService {
+
+    /**
+     * 今日签到，发放每日签到积分，连续签到天数命中奖励规则时额外发放奖励积分
+     *
+     * @throws com.lingxian.common.exception.BusinessException 用户不存在或今日已签到
+     */
+    SignInResult signIn(Long userId);
+
+    /**
+     * 本月签到状态
+     */
+    SignInStatus getStatus(Long userId);
+
+    /**
+     * 签到结果
+     *
+     * @param points         本次获得的积分（含奖励）
+     * @param bonusPoints    其中连续签到奖励的积分
+     * @param totalPoints    签到后的积分余额
+     * @param continuousDays 连续签到天数（含今日）
+     */
+    record SignInResult(int points, int bonusPoints, int totalPoints, int continuousDays) {
+    }
+
+    /**
+     * 签到状态
+     *
+     * @param signDays       本月签到天数
+     * @param continuousDays 连续签到天数，今日未签到时截至昨日
+     * @param signedDates    本月已签到的日期，升序
+     */
+    record SignInStatus(boolean signedToday, int signDays, int continuousDays, List<LocalDate> signedDates) {
+    }
+}
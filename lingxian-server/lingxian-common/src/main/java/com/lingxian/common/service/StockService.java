@@ -0,0 +1,63 @@
+package com.lingxian.common.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 商品库存服务
+ * 可售库存以 Redis 计数器为准，下单预占、取消释放通过 Lua 脚本原子完成，变更异步批量回写 t_product.stock。
+ */
+public interface StockService {
+
+    /**
+     * 原子预占多个商品的库存，任一商品不足时全部不扣减
+     *
+     * @param quantities 商品ID -> 数量，同一商品多行需先合并
+     * @throws com.lingxian.common.exception.BusinessException 商品不存在或库存不足
+     */
+    void reserve(Map<Long, Integer> quantities);
+
+    /**
+     * 原子预占多个商品的库存，任一商品不足时全部不扣减
+     *
+     * @param quantities 商品ID -> 数量，同一商品多行需先合并
+     * @return 库存不足的商品ID，为空表示预占成功
+     * @throws com.lingxian.common.exception.BusinessException 商品不存在
+     */
+    Set<Long> tryReserve(Map<Long, Integer> quantities);
+
+    /**
+     * 释放已预占的库存（取消订单、下单失败回滚）
+     *
+     * @param quantities 商品ID -> 数量
+     */
+    void release(Map<Long, Integer> quantities);
+
+    /**
+     * 设置商品库存（商户编辑），同步写库
+     */
+    void setStock(Long productId, int stock);
+
+    /**
+     * 获取当前可售库存，未加载到 Redis 时读库
+     */
+    int getStock(Long productId);
+
+    /**
+     * 批量获取当前可售库存
+     */
+    Map<Long, Integer> getStocks(Collection<Long> productIds);
+
+    /**
+     * 将待回写的库存批量写入数据库
+     *
+     * @return 回写的商品数
+     */
+    int flush();
+
+    /**
+     * 对账：回写待回写库存，修正 Redis 与数据库不一致的商品，清理已删除商品的计数器
+     */
+    void reconcile();
+}
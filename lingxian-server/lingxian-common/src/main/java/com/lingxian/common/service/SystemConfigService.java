@@ -0,0 +1,32 @@
+package com.lingxian.common.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.lingxian.common.config.SystemSettings;
+import com.lingxian.common.entity.SystemConfig;
+
+import java.util.Map;
+
+/**
+ * 系统配置服务
+ * 配置存于 t_system_config，各实例在内存中持有一份不可变快照，读取只是一次 volatile 读，不访问数据库。
+ * 保存配置后 Redis 中的版本号加一并广播，用户端、商户端、管理端随即重新加载快照并整体替换。
+ */
+public interface SystemConfigService extends IService<SystemConfig> {
+
+    /**
+     * 当前配置快照
+     */
+    SystemSettings current();
+
+    /**
+     * 保存配置，参数按分组组织，如 {"delivery": {"defaultFreight": 5}}；未定义的配置项忽略
+     *
+     * @throws com.lingxian.common.exception.BusinessException 取值格式不正确
+     */
+    void updateConfigs(Map<String, Object> body);
+
+    /**
+     * 从数据库重新加载快照
+     */
+    void reload();
+}
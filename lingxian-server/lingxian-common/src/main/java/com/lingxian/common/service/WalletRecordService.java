@@ -3,6 +3,7 @@ package com.lingxian.common.service;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.lingxian.common.entity.WalletRecord;
+import com.lingxian.common.result.PageResult;
 
 public interface WalletRecordService extends IService<WalletRecord> {
 
@@ -10,4 +11,9 @@ public interface WalletRecordService extends IService<WalletRecord> {
      * 分页获取商户的钱包流水
      */
     Page<WalletRecord> getByMerchantId(Long merchantId, Integer type, int page, int pageSize);
+
+    /**
+     * 按游标获取商户的钱包流水
+     */
+    PageResult<WalletRecord> getByMerchantId(Long merchantId, Integer type, String cursor, int pageSize);
 }
@@ -0,0 +1,54 @@
+package com.lingxian.common.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 全平台汇总行的写入
+ * 全平台合计行（订单状态计数的平台行、平台小时/日统计）被所有订单共用，在订单事务内更新时行锁一直持有到订单事务提交，
+ * 并发下单都排在这几行上；改为订单事务提交后以独立的短事务写入，行锁只持有一条语句的时间，订单回滚时也不会写入。
+ * 提交后写入失败只记录日志，由定时核对、回填修正。
+ */
+@Slf4j
+@Component
+class AfterCommitWriter {
+
+    private final TransactionTemplate transaction;
+
+    AfterCommitWriter(PlatformTransactionManager transactionManager) {
+        // 提交回调中原事务的连接仍绑定在线程上，须开启新事务才能真正提交
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 当前事务提交后执行写入，不在事务中时立即执行
+     *
+     * @param name 写入内容，用于失败日志
+     */
+    void execute(String name, Runnable write) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            run(name, write);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                run(name, write);
+            }
+        });
+    }
+
+    private void run(String name, Runnable write) {
+        try {
+            transaction.executeWithoutResult(status -> write.run());
+        } catch (Exception e) {
+            log.error("提交后写入失败: {}", name, e);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.lingxian.common.delay.OrderTimeoutTasks;
+import com.lingxian.common.entity.Cart;
+import com.lingxian.common.entity.Community;
+import com.lingxian.common.entity.Merchant;
+import com.lingxian.common.entity.MerchantCommunity;
+import com.lingxian.common.entity.Order;
+import com.lingxian.common.entity.OrderItem;
+import com.lingxian.common.entity.Product;
+import com.lingxian.common.entity.UserAddress;
+import com.lingxian.common.service.CartService;
+import com.lingxian.common.service.CheckoutService;
+import com.lingxian.common.service.CommunityService;
+import com.lingxian.common.service.MerchantCommunityService;
+import com.lingxian.common.service.MerchantService;
+import com.lingxian.common.service.OrderItemService;
+import com.lingxian.common.service.OrderService;
+import com.lingxian.common.service.OrderStatusCountService;
+import com.lingxian.common.service.PlatformStatsService;
+import com.lingxian.common.service.ProductService;
+import com.lingxian.common.service.StockService;
+import com.lingxian.common.service.SystemConfigService;
+import com.lingxian.common.service.UserAddressService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckoutServiceImpl implements CheckoutService {
+
+    private final OrderService orderService;
+    private final OrderItemService orderItemService;
+    private final ProductService productService;
+    private final MerchantService merchantService;
+    private final MerchantCommunityService merchantCommunityService;
+    private final CommunityService communityService;
+    private final UserAddressService userAddressService;
+    private final CartService cartService;
+    private final StockService stockService;
+    private final OrderTimeoutTasks orderTimeoutTasks;
+    private final PlatformStatsService platformStatsService;
+    private final OrderStatusCountService orderStatusCountService;
+    private final SystemConfigService systemConfigService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public CheckoutResult checkout(Long userId, List<MerchantOrder> merchantOrders) {
+        // 1. 批量加载
+        Map<Long, UserAddress> addresses = loadById(userAddressService::listByIds,
+                ids(merchantOrders, MerchantOrder::addressId), UserAddress::getId);
+        Map<Long, Community> communities = loadById(communityService::listByIds,
+                ids(merchantOrders, MerchantOrder::communityId), Community::getId);
+        Set<Long> merchantIds = ids(merchantOrders, MerchantOrder::merchantId);
+        Map<Long, Merchant> merchants = loadById(merchantService::listByIds, merchantIds, Merchant::getId);
+        Set<Long> productIds = merchantOrders.stream()
+                .filter(o -> o.lines() != null)
+                .flatMap(o -> o.lines().stream())
+                .map(Line::productId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productIds.isEmpty() ? new HashMap<>()
+                : productService.list(new LambdaQueryWrapper<Product>()
+                        .select(Product::getId, Product::getMerchantId, Product::getName, Product::getImage,
+                                Product::getPrice, Product::getStatus)
+                        .in(Product::getId, productIds))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Set<String> coverage = loadCoverage(merchantIds, ids(merchantOrders, MerchantOrder::communityId));
+
+        // 2. 内存校验，每个商户订单独立判定
+        List<Failure> failures = new ArrayList<>();
+        List<MerchantOrder> valid = new ArrayList<>();
+        for (MerchantOrder merchantOrder : merchantOrders) {
+            String reason = validate(userId, merchantOrder, addresses, communities, merchants, products, coverage);
+            if (reason != null) {
+                failures.add(failure(merchantOrder, merchants, reason));
+            } else {
+                valid.add(merchantOrder);
+            }
+        }
+
+        // 3. 原子预占库存，库存不足的商户剔除后重试
+        Map<Long, Integer> reserved = reserve(valid, products, merchants, failures);
+        if (valid.isEmpty()) {
+            return new CheckoutResult(new ArrayList<>(), failures);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    stockService.release(reserved);
+                }
+            }
+        });
+
+        // 4. 批量写入订单、订单项，清理购物车
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(valid.size());
+        List<List<OrderItem>> itemsByOrder = new ArrayList<>(valid.size());
+        for (MerchantOrder merchantOrder : valid) {
+            List<OrderItem> items = buildItems(merchantOrder, products, now);
+            orders.add(buildOrder(userId, merchantOrder, addresses.get(merchantOrder.addressId()), items, now));
+            itemsByOrder.add(items);
+        }
+        orderService.saveBatch(orders);
+        orderStatusCountService.onOrdersChanged(orders.stream().map(Order::getId).toList(), null, 1);
+
+        List<OrderItem> allItems = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            for (OrderItem item : itemsByOrder.get(i)) {
+                item.setOrderId(order.getId());
+                item.setOrderNo(order.getOrderNo());
+                allItems.add(item);
+            }
+            order.setItems(itemsByOrder.get(i));
+        }
+        orderItemService.saveBatch(allItems);
+        platformStatsService.onOrdersCreated(orders);
+
+        cartService.update(new LambdaUpdateWrapper<Cart>()
+                .eq(Cart::getUserId, userId)
+                .in(Cart::getProductId, reserved.keySet())
+                .eq(Cart::getDeleted, 0)
+                .set(Cart::getDeleted, 1)
+                .set(Cart::getUpdateTime, now));
+
+        List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderTimeoutTasks.onOrdersCreated(orderIds);
+            }
+        });
+
+        log.info("下单成功: userId={}, orderIds={}, failures={}", userId, orderIds, failures.size());
+        return new CheckoutResult(orders, failures);
+    }
+
+    private String validate(Long userId, MerchantOrder merchantOrder,
+                            Map<Long, UserAddress> addresses, Map<Long, Community> communities,
+                            Map<Long, Merchant> merchants, Map<Long, Product> products, Set<String> coverage) {
+        if (merchantOrder.addressId() == null) {
+            return "收货地址不能为空";
+        }
+        if (merchantOrder.communityId() == null) {
+            return "请先选择配送小区";
+        }
+        if (merchantOrder.lines() == null || merchantOrder.lines().isEmpty()) {
+            return "商品不能为空";
+        }
+
+        UserAddress address = addresses.get(merchantOrder.addressId());
+        if (address == null || !address.getUserId().equals(userId)) {
+            return "收货地址不存在";
+        }
+        Community community = communities.get(merchantOrder.communityId());
+        if (community == null || community.getStatus() != 1) {
+            return "所选小区不可配送";
+        }
+
+        Long merchantId = merchantOrder.merchantId();
+        if (merchantId != null) {
+            Merchant merchant = merchants.get(merchantId);
+            if (merchant == null) {
+                return "商户不存在";
+            }
+            if (merchant.getStatus() == null || merchant.getStatus() != 1) {
+                return merchant.getName() + "暂停营业，暂时无法下单";
+            }
+            if (!coverage.contains(coverageKey(merchantId, merchantOrder.communityId()))) {
+                return merchant.getName() + "暂不支持配送到" + community.getName();
+            }
+        }
+
+        for (Line line : merchantOrder.lines()) {
+            if (line.productId() == null || line.quantity() == null || line.quantity() <= 0) {
+                return "商品数量不正确";
+            }
+            Product product = products.get(line.productId());
+            if (product == null) {
+                return "商品不存在: " + line.productId();
+            }
+            if (product.getStatus() != 1) {
+                return "商品已下架: " + product.getName();
+            }
+            if (merchantId != null && !merchantId.equals(product.getMerchantId())) {
+                return "商品不属于该商户: " + product.getName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 预占所有有效商户订单的库存；库存不足时把相关商户移入失败列表，其余商户重新预占
+     *
+     * @return 已预占的商品数量
+     */
+    private Map<Long, Integer> reserve(List<MerchantOrder> valid, Map<Long, Product> products,
+                                       Map<Long, Merchant> merchants, List<Failure> failures) {
+        while (!valid.isEmpty()) {
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            for (MerchantOrder merchantOrder : valid) {
+                for (Line line : merchantOrder.lines()) {
+                    quantities.merge(line.productId(), line.quantity(), Integer::sum);
+                }
+            }
+            Set<Long> insufficient = stockService.tryReserve(quantities);
+            if (insufficient.isEmpty()) {
+                return quantities;
+            }
+            valid.removeIf(merchantOrder -> {
+                for (Line line : merchantOrder.lines()) {
+                    if (insufficient.contains(line.productId())) {
+                        failures.add(failure(merchantOrder, merchants,
+                                "商品库存不足: " + products.get(line.productId()).getName()));
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+        return new HashMap<>();
+    }
+
+    private List<OrderItem> buildItems(MerchantOrder merchantOrder, Map<Long, Product> products, LocalDateTime now) {
+        List<OrderItem> items = new ArrayList<>(merchantOrder.lines().size());
+        for (Line line : merchantOrder.lines()) {
+            Product product = products.get(line.productId());
+            OrderItem item = new OrderItem();
+            item.setProductId(product.getId());
+            item.setProductName(product.getName());
+            item.setProductImage(product.getImage());
+            item.setPrice(product.getPrice());
+            item.setQuantity(line.quantity());
+            item.setTotalAmount(product.getPrice().multiply(BigDecimal.valueOf(line.quantity())));
+            item.setCreateTime(now);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private Order buildOrder(Long userId, MerchantOrder merchantOrder, UserAddress address,
+                             List<OrderItem> items, LocalDateTime now) {
+        BigDecimal totalAmount = items.stream()
+                .map(OrderItem::getTotalAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // 配送费按单收取，取值见系统配置
+        BigDecimal freightAmount = systemConfigService.current().getDefaultFreight();
+
+        Order order = new Order();
+        order.setOrderNo(generateOrderNo());
+        order.setUserId(userId);
+        order.setMerchantId(merchantOrder.merchantId());
+        order.setOrderType(1); // 普通订单
+        order.setStatus(1); // 待付款
+        order.setTotalAmount(totalAmount);
+        order.setFreightAmount(freightAmount);
+        order.setDiscountAmount(BigDecimal.ZERO);
+        order.setPayAmount(totalAmount.add(freightAmount));
+        order.setRemark(merchantOrder.remark());
+
+        // 收货信息
+        order.setReceiverName(address.getName());
+        order.setReceiverPhone(address.getPhone());
+        order.setReceiverProvince(address.getProvince());
+        order.setReceiverCity(address.getCity());
+        order.setReceiverDistrict(address.getDistrict());
+        order.setReceiverAddress(address.getDetail());
+
+        order.setCreateTime(now);
+        order.setUpdateTime(now);
+        order.setDeleted(0);
+        return order;
+    }
+
+    /**
+     * 已开通且启用的商户-小区配送关系
+     */
+    private Set<String> loadCoverage(Set<Long> merchantIds, Set<Long> communityIds) {
+        if (merchantIds.isEmpty() || communityIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return merchantCommunityService.list(new LambdaQueryWrapper<MerchantCommunity>()
+                        .select(MerchantCommunity::getMerchantId, MerchantCommunity::getCommunityId)
+                        .in(MerchantCommunity::getMerchantId, merchantIds)
+                        .in(MerchantCommunity::getCommunityId, communityIds)
+                        .eq(MerchantCommunity::getEnabled, 1))
+                .stream()
+                .map(mc -> coverageKey(mc.getMerchantId(), mc.getCommunityId()))
+                .collect(Collectors.toSet());
+    }
+
+    private static String coverageKey(Long merchantId, Long communityId) {
+        return merchantId + ":" + communityId;
+    }
+
+    private static Failure failure(MerchantOrder merchantOrder, Map<Long, Merchant> merchants, String reason) {
+        Merchant merchant = merchantOrder.merchantId() != null ? merchants.get(merchantOrder.merchantId()) : null;
+        return new Failure(merchantOrder.merchantId(), merchant != null ? merchant.getName() : null, reason);
+    }
+
+    private static Set<Long> ids(List<MerchantOrder> merchantOrders, Function<MerchantOrder, Long> getter) {
+        return merchantOrders.stream().map(getter).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Long, T> loadById(Function<Collection<Long>, List<T>> loader, Set<Long> ids,
+                                             Function<T, Long> idGetter) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return loader.apply(ids).stream().collect(Collectors.toMap(idGetter, Function.identity(), (a, b) -> a));
+    }
+
+    /**
+     * 生成订单号
+     */
+    private static String generateOrderNo() {
+        return "LX" + System.currentTimeMillis() + String.format("%04d", ThreadLocalRandom.current().nextInt(10000));
+    }
+}
@@ -0,0 +1,533 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.constant.RedisConstant;
+import com.lingxian.common.entity.GroupActivity;
+import com.lingxian.common.entity.GroupMember;
+import com.lingxian.common.entity.GroupRecord;
+import com.lingxian.common.exception.BusinessException;
+import com.lingxian.common.mapper.GroupActivityMapper;
+import com.lingxian.common.mapper.GroupMemberMapper;
+import com.lingxian.common.mapper.GroupRecordMapper;
+import com.lingxian.common.service.GroupBuyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GroupBuyServiceImpl implements GroupBuyService {
+
+    /**
+     * 参团：KEYS[1] 拼团信息，KEYS[2] 成员集合，KEYS[3] 活动计数，KEYS[4] 参团队列，
+     * KEYS[5] 待回写拼团集合，KEYS[6] 待回写活动集合；ARGV[1] 用户ID，ARGV[2] 当前毫秒，ARGV[3] 拼团ID，ARGV[4] 活动ID。
+     * 返回 {0, 当前人数, 成团人数, 状态} 表示成功，{-1} 拼团未加载，{-2} 活动未加载，{1..5} 见 JOIN_ERRORS。
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List<Long>> JOIN_SCRIPT = (RedisScript) new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {-1} end\n" +
+            "if redis.call('EXISTS', KEYS[3]) == 0 then return {-2} end\n" +
+            "local state = redis.call('HMGET', KEYS[1], 'status', 'expireAt', 'groupSize', 'currentSize')\n" +
+            "local size = tonumber(state[3])\n" +
+            "if tonumber(state[1]) ~= 0 then return {1} end\n" +
+            "if tonumber(state[2]) <= tonumber(ARGV[2]) then return {2} end\n" +
+            "if redis.call('SISMEMBER', KEYS[2], ARGV[1]) == 1 then return {3} end\n" +
+            "if tonumber(state[4]) >= size then return {4} end\n" +
+            "if tonumber(redis.call('HGET', KEYS[3], 'stock')) < size then return {5} end\n" +
+            "redis.call('SADD', KEYS[2], ARGV[1])\n" +
+            "local current = redis.call('HINCRBY', KEYS[1], 'currentSize', 1)\n" +
+            "local status = 0\n" +
+            "if current >= size then\n" +
+            "  status = 1\n" +
+            "  redis.call('HSET', KEYS[1], 'status', 1, 'completeAt', ARGV[2])\n" +
+            "  redis.call('HINCRBY', KEYS[3], 'stock', -size)\n" +
+            "  redis.call('HINCRBY', KEYS[3], 'soldCount', size)\n" +
+            "  redis.call('SADD', KEYS[6], ARGV[4])\n" +
+            "end\n" +
+            "redis.call('RPUSH', KEYS[4], ARGV[3] .. ':' .. ARGV[1] .. ':' .. ARGV[2])\n" +
+            "redis.call('SADD', KEYS[5], ARGV[3])\n" +
+            "return {0, current, size, status}", List.class);
+
+    private static final String[] JOIN_ERRORS = {
+            "", "该拼团已结束", "该拼团已过期", "您已参与该拼团", "该拼团人数已满", "库存不足"
+    };
+
+    /**
+     * 加载拼团（已加载的不覆盖）：KEYS[1] 拼团信息，KEYS[2] 成员集合；
+     * ARGV[1..6] 活动ID、成团人数、当前人数、状态、过期毫秒、成团毫秒（可为空），ARGV[7] 键过期毫秒，ARGV[8..] 成员用户ID
+     */
+    private static final RedisScript<Long> LOAD_GROUP_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end\n" +
+            "redis.call('DEL', KEYS[2])\n" +
+            "redis.call('HSET', KEYS[1], 'activityId', ARGV[1], 'groupSize', ARGV[2], 'currentSize', ARGV[3], " +
+            "'status', ARGV[4], 'expireAt', ARGV[5])\n" +
+            "if ARGV[6] ~= '' then redis.call('HSET', KEYS[1], 'completeAt', ARGV[6]) end\n" +
+            "for i = 8, #ARGV do redis.call('SADD', KEYS[2], ARGV[i]) end\n" +
+            "redis.call('PEXPIREAT', KEYS[1], ARGV[7])\n" +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then redis.call('PEXPIREAT', KEYS[2], ARGV[7]) end\n" +
+            "return 1", Long.class);
+
+    /**
+     * 加载活动计数（已加载的不覆盖）：ARGV 库存、已售数量、开团数
+     */
+    private static final RedisScript<Long> LOAD_ACTIVITY_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end\n" +
+            "redis.call('HSET', KEYS[1], 'stock', ARGV[1], 'soldCount', ARGV[2], 'groupCount', ARGV[3])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 已加载时调整活动计数并标记待回写：KEYS[1] 活动计数，KEYS[2] 待回写活动集合；ARGV[1] 字段，ARGV[2] 增量，ARGV[3] 活动ID。
+     * 返回 0 表示活动未加载
+     */
+    private static final RedisScript<Long> INCR_ACTIVITY_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "redis.call('SADD', KEYS[2], ARGV[3])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 已加载时覆盖活动库存
+     */
+    private static final RedisScript<Long> SET_STOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "redis.call('HSET', KEYS[1], 'stock', ARGV[1])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 持有者匹配时释放锁
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end\n" +
+            "return 0", Long.class);
+
+    private static final String FLUSH_LOCK = RedisConstant.LOCK_PREFIX + "group:flush";
+    private static final long LOCK_TIMEOUT_SECONDS = 60;
+
+    /**
+     * 拼团过期后 Redis 数据再保留的时间（毫秒），足够完成回写
+     */
+    private static final long KEEP_AFTER_EXPIRE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final StringRedisTemplate redisTemplate;
+    private final GroupRecordMapper groupRecordMapper;
+    private final GroupMemberMapper groupMemberMapper;
+    private final GroupActivityMapper groupActivityMapper;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public GroupRecord startGroup(Long activityId, Long userId) {
+        GroupActivity activity = groupActivityMapper.selectById(activityId);
+        if (activity == null) {
+            throw new BusinessException("拼团活动不存在");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (activity.getStatus() == null || activity.getStatus() != 1) {
+            throw new BusinessException("活动未在进行中");
+        }
+        if (now.isBefore(activity.getStartTime()) || now.isAfter(activity.getEndTime())) {
+            throw new BusinessException("活动不在有效期内");
+        }
+        if (getActivityStock(activityId) < activity.getGroupSize()) {
+            throw new BusinessException("库存不足");
+        }
+
+        // 检查用户是否已有进行中的拼团（同一活动）
+        Long existing = groupRecordMapper.selectCount(new LambdaQueryWrapper<GroupRecord>()
+                .eq(GroupRecord::getActivityId, activityId)
+                .eq(GroupRecord::getLeaderId, userId)
+                .eq(GroupRecord::getStatus, 0));
+        if (existing > 0) {
+            throw new BusinessException("您已有进行中的拼团");
+        }
+
+        GroupRecord record = new GroupRecord();
+        record.setGroupNo(generateGroupNo());
+        record.setActivityId(activityId);
+        record.setLeaderId(userId);
+        record.setGroupSize(activity.getGroupSize());
+        record.setCurrentSize(1);
+        record.setGroupPrice(activity.getGroupPrice());
+        record.setStatus(0); // 拼团中
+        record.setExpireTime(now.plusHours(activity.getExpireHours() != null ? activity.getExpireHours() : 24));
+        record.setCreateTime(now);
+        groupRecordMapper.insert(record);
+
+        GroupMember leader = new GroupMember();
+        leader.setGroupId(record.getId());
+        leader.setUserId(userId);
+        leader.setIsLeader(1);
+        leader.setJoinTime(now);
+        groupMemberMapper.insert(leader);
+
+        // 提交后再放入 Redis，回滚时不留下不存在的拼团
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                loadGroup(record, List.of(userId));
+                incrementActivity(activityId, "groupCount", 1);
+            }
+        });
+        return record;
+    }
+
+    @Override
+    public GroupRecord joinGroup(Long groupId, Long userId) {
+        String infoKey = RedisConstant.GROUP_INFO_PREFIX + groupId;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Object activityId = redisTemplate.opsForHash().get(infoKey, "activityId");
+            if (activityId == null) {
+                loadGroup(groupId);
+                continue;
+            }
+            List<String> keys = List.of(
+                    infoKey,
+                    RedisConstant.GROUP_PARTICIPANTS_PREFIX + groupId,
+                    RedisConstant.GROUP_ACTIVITY_PREFIX + activityId,
+                    RedisConstant.GROUP_JOIN_QUEUE,
+                    RedisConstant.GROUP_RECORD_DIRTY,
+                    RedisConstant.GROUP_ACTIVITY_DIRTY);
+            List<Long> result = redisTemplate.execute(JOIN_SCRIPT, keys,
+                    String.valueOf(userId), String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(groupId), activityId.toString());
+            long code = result != null && !result.isEmpty() ? result.get(0) : -1;
+            if (code == -1) {
+                loadGroup(groupId);
+            } else if (code == -2) {
+                loadActivity(Long.valueOf(activityId.toString()));
+            } else if (code > 0) {
+                throw new BusinessException(JOIN_ERRORS[(int) code]);
+            } else {
+                GroupRecord record = new GroupRecord();
+                record.setId(groupId);
+                record.setActivityId(Long.valueOf(activityId.toString()));
+                record.setCurrentSize(result.get(1).intValue());
+                record.setGroupSize(result.get(2).intValue());
+                record.setStatus(result.get(3).intValue());
+                return record;
+            }
+        }
+        throw new BusinessException("拼团繁忙，请稍后重试");
+    }
+
+    @Override
+    public void applyLiveState(Collection<GroupRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+        List<GroupRecord> list = new ArrayList<>(records);
+        List<Object> states = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (GroupRecord record : list) {
+                conn.hMGet(RedisConstant.GROUP_INFO_PREFIX + record.getId(), "currentSize", "status", "completeAt");
+            }
+            return null;
+        });
+        for (int i = 0; i < list.size(); i++) {
+            List<?> state = (List<?>) states.get(i);
+            if (state == null || state.get(0) == null) {
+                continue;
+            }
+            GroupRecord record = list.get(i);
+            record.setCurrentSize(Integer.parseInt(state.get(0).toString()));
+            record.setStatus(Integer.parseInt(state.get(1).toString()));
+            if (state.get(2) != null) {
+                record.setCompleteTime(toTime(Long.parseLong(state.get(2).toString())));
+            }
+        }
+    }
+
+    @Override
+    public void setActivityStock(Long activityId, int stock) {
+        if (stock < 0) {
+            throw new BusinessException("库存不能为负数");
+        }
+        redisTemplate.execute(SET_STOCK_SCRIPT, List.of(RedisConstant.GROUP_ACTIVITY_PREFIX + activityId),
+                String.valueOf(stock));
+    }
+
+    @Override
+    public int flush() {
+        String token = tryLock(FLUSH_LOCK);
+        if (token == null) {
+            return 0;
+        }
+        try {
+            int members = flushMembers();
+            flushRecords();
+            flushActivities();
+            return members;
+        } finally {
+            unlock(FLUSH_LOCK, token);
+        }
+    }
+
+    @Override
+    public void reconcile() {
+        int groups = markDirty(RedisConstant.GROUP_INFO_PREFIX, RedisConstant.GROUP_RECORD_DIRTY);
+        int activities = markDirty(RedisConstant.GROUP_ACTIVITY_PREFIX, RedisConstant.GROUP_ACTIVITY_DIRTY);
+        int members = flush();
+        log.info("拼团对账完成: 拼团={}, 活动={}, 成员={}", groups, activities, members);
+    }
+
+    /**
+     * 定时批量回写参团数据
+     */
+    @Scheduled(fixedDelay = 1000, initialDelay = 5000)
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("拼团回写失败", e);
+        }
+    }
+
+    /**
+     * 启动时对账，补写上次停机前未回写的拼团数据
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("启动拼团对账失败", e);
+        }
+    }
+
+    /**
+     * 成员队列按顺序读取、写库成功后再截断，中途失败下次重读，写入本身可重复执行
+     */
+    private int flushMembers() {
+        int flushed = 0;
+        while (true) {
+            List<String> events = redisTemplate.opsForList().range(RedisConstant.GROUP_JOIN_QUEUE, 0, BATCH_SIZE - 1);
+            if (events == null || events.isEmpty()) {
+                break;
+            }
+            List<GroupMember> members = new ArrayList<>(events.size());
+            for (String event : events) {
+                String[] parts = event.split(":");
+                GroupMember member = new GroupMember();
+                member.setGroupId(Long.valueOf(parts[0]));
+                member.setUserId(Long.valueOf(parts[1]));
+                member.setIsLeader(0);
+                member.setJoinTime(toTime(Long.parseLong(parts[2])));
+                members.add(member);
+            }
+            groupMemberMapper.insertIgnoreBatch(members);
+            redisTemplate.opsForList().trim(RedisConstant.GROUP_JOIN_QUEUE, events.size(), -1);
+            flushed += events.size();
+        }
+        return flushed;
+    }
+
+    private void flushRecords() {
+        while (true) {
+            List<String> ids = redisTemplate.opsForSet().pop(RedisConstant.GROUP_RECORD_DIRTY, BATCH_SIZE);
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            try {
+                List<List<String>> states = multiGet(RedisConstant.GROUP_INFO_PREFIX, ids,
+                        "currentSize", "status", "completeAt");
+                List<GroupRecord> records = new ArrayList<>();
+                for (int i = 0; i < ids.size(); i++) {
+                    List<String> state = states.get(i);
+                    if (state == null || state.get(0) == null) {
+                        continue;
+                    }
+                    GroupRecord record = new GroupRecord();
+                    record.setId(Long.valueOf(ids.get(i)));
+                    record.setCurrentSize(Integer.parseInt(state.get(0)));
+                    record.setStatus(Integer.parseInt(state.get(1)));
+                    record.setCompleteTime(state.get(2) != null ? toTime(Long.parseLong(state.get(2))) : null);
+                    records.add(record);
+                }
+                if (!records.isEmpty()) {
+                    groupRecordMapper.batchUpdateProgress(records);
+                }
+            } catch (RuntimeException e) {
+                redisTemplate.opsForSet().add(RedisConstant.GROUP_RECORD_DIRTY, ids.toArray(new String[0]));
+                throw e;
+            }
+        }
+    }
+
+    private void flushActivities() {
+        while (true) {
+            List<String> ids = redisTemplate.opsForSet().pop(RedisConstant.GROUP_ACTIVITY_DIRTY, BATCH_SIZE);
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            try {
+                List<List<String>> counters = multiGet(RedisConstant.GROUP_ACTIVITY_PREFIX, ids,
+                        "stock", "soldCount", "groupCount");
+                List<GroupActivity> activities = new ArrayList<>();
+                for (int i = 0; i < ids.size(); i++) {
+                    List<String> counter = counters.get(i);
+                    if (counter == null || counter.get(0) == null) {
+                        continue;
+                    }
+                    GroupActivity activity = new GroupActivity();
+                    activity.setId(Long.valueOf(ids.get(i)));
+                    activity.setStock(Integer.parseInt(counter.get(0)));
+                    activity.setSoldCount(Integer.parseInt(counter.get(1)));
+                    activity.setGroupCount(Integer.parseInt(counter.get(2)));
+                    activities.add(activity);
+                }
+                if (!activities.isEmpty()) {
+                    groupActivityMapper.batchUpdateCounters(activities);
+                }
+            } catch (RuntimeException e) {
+                redisTemplate.opsForSet().add(RedisConstant.GROUP_ACTIVITY_DIRTY, ids.toArray(new String[0]));
+                throw e;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<String>> multiGet(String prefix, List<String> ids, String... fields) {
+        List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (String id : ids) {
+                conn.hMGet(prefix + id, fields);
+            }
+            return null;
+        });
+        return values.stream().map(value -> (List<String>) value).collect(Collectors.toList());
+    }
+
+    private int markDirty(String prefix, String dirtyKey) {
+        List<String> ids = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(BATCH_SIZE).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String suffix = cursor.next().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    ids.add(suffix);
+                }
+            }
+        }
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            redisTemplate.opsForSet().add(dirtyKey, batch.toArray(new String[0]));
+        }
+        return ids.size();
+    }
+
+    private void loadGroup(Long groupId) {
+        GroupRecord record = groupRecordMapper.selectById(groupId);
+        if (record == null) {
+            throw new BusinessException("拼团不存在");
+        }
+        List<Long> userIds = groupMemberMapper.selectList(new LambdaQueryWrapper<GroupMember>()
+                        .select(GroupMember::getUserId)
+                        .eq(GroupMember::getGroupId, groupId))
+                .stream()
+                .map(GroupMember::getUserId)
+                .collect(Collectors.toList());
+        loadGroup(record, userIds);
+    }
+
+    private void loadGroup(GroupRecord record, List<Long> userIds) {
+        long expireAt = toMillis(record.getExpireTime());
+        List<String> args = new ArrayList<>(userIds.size() + 7);
+        args.add(String.valueOf(record.getActivityId()));
+        args.add(String.valueOf(record.getGroupSize()));
+        args.add(String.valueOf(Math.max(record.getCurrentSize() != null ? record.getCurrentSize() : 0, userIds.size())));
+        args.add(String.valueOf(record.getStatus() != null ? record.getStatus() : 0));
+        args.add(String.valueOf(expireAt));
+        args.add(record.getCompleteTime() != null ? String.valueOf(toMillis(record.getCompleteTime())) : "");
+        args.add(String.valueOf(Math.max(expireAt, System.currentTimeMillis()) + KEEP_AFTER_EXPIRE_MILLIS));
+        userIds.forEach(userId -> args.add(String.valueOf(userId)));
+        redisTemplate.execute(LOAD_GROUP_SCRIPT,
+                List.of(RedisConstant.GROUP_INFO_PREFIX + record.getId(),
+                        RedisConstant.GROUP_PARTICIPANTS_PREFIX + record.getId()),
+                args.toArray());
+    }
+
+    private void loadActivity(Long activityId) {
+        GroupActivity activity = groupActivityMapper.selectById(activityId);
+        if (activity == null) {
+            throw new BusinessException("拼团活动不存在");
+        }
+        redisTemplate.execute(LOAD_ACTIVITY_SCRIPT, List.of(RedisConstant.GROUP_ACTIVITY_PREFIX + activityId),
+                String.valueOf(activity.getStock() != null ? activity.getStock() : 0),
+                String.valueOf(activity.getSoldCount() != null ? activity.getSoldCount() : 0),
+                String.valueOf(activity.getGroupCount() != null ? activity.getGroupCount() : 0));
+    }
+
+    private int getActivityStock(Long activityId) {
+        String key = RedisConstant.GROUP_ACTIVITY_PREFIX + activityId;
+        Object stock = redisTemplate.opsForHash().get(key, "stock");
+        if (stock == null) {
+            loadActivity(activityId);
+            stock = redisTemplate.opsForHash().get(key, "stock");
+        }
+        return stock != null ? Integer.parseInt(stock.toString()) : 0;
+    }
+
+    private void incrementActivity(Long activityId, String field, int delta) {
+        List<String> keys = List.of(RedisConstant.GROUP_ACTIVITY_PREFIX + activityId, RedisConstant.GROUP_ACTIVITY_DIRTY);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Long done = redisTemplate.execute(INCR_ACTIVITY_SCRIPT, keys, field, String.valueOf(delta),
+                    String.valueOf(activityId));
+            if (done != null && done == 1) {
+                return;
+            }
+            loadActivity(activityId);
+        }
+        log.error("调整拼团活动计数失败: activityId={}, field={}, delta={}", activityId, field, delta);
+    }
+
+    /**
+     * 生成团号
+     */
+    private String generateGroupNo() {
+        return "PT" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private String tryLock(String key) {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(key, token, LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return Boolean.TRUE.equals(locked) ? token : null;
+    }
+
+    private void unlock(String key, String token) {
+        redisTemplate.execute(UNLOCK_SCRIPT, List.of(key), token);
+    }
+}
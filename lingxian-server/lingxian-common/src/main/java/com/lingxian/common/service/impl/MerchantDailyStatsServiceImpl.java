@@ -0,0 +1,251 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lingxian.common.entity.MerchantDailyStats;
+import com.lingxian.common.entity.Order;
+import com.lingxian.common.entity.ProductDailySales;
+import com.lingxian.common.entity.Refund;
+import com.lingxian.common.mapper.MerchantCustomerMapper;
+import com.lingxian.common.mapper.MerchantDailyStatsMapper;
+import com.lingxian.common.mapper.OrderMapper;
+import com.lingxian.common.mapper.ProductDailySalesMapper;
+import com.lingxian.common.service.MerchantDailyStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MerchantDailyStatsServiceImpl extends ServiceImpl<MerchantDailyStatsMapper, MerchantDailyStats>
+        implements MerchantDailyStatsService {
+
+    /**
+     * 全量重建的起始日期
+     */
+    private static final LocalDate REBUILD_FROM = LocalDate.of(2000, 1, 1);
+
+    private final MerchantCustomerMapper merchantCustomerMapper;
+    private final ProductDailySalesMapper productDailySalesMapper;
+    private final OrderMapper orderMapper;
+
+    @Override
+    public MerchantDailyStats getDay(Long merchantId, LocalDate date) {
+        MerchantDailyStats stats = getOne(new LambdaQueryWrapper<MerchantDailyStats>()
+                .eq(MerchantDailyStats::getMerchantId, merchantId)
+                .eq(MerchantDailyStats::getStatDate, date));
+        return stats != null ? stats : MerchantDailyStats.empty(merchantId, date);
+    }
+
+    @Override
+    public List<MerchantDailyStats> getRange(Long merchantId, LocalDate from, LocalDate to) {
+        Map<LocalDate, MerchantDailyStats> byDate = list(new LambdaQueryWrapper<MerchantDailyStats>()
+                .eq(MerchantDailyStats::getMerchantId, merchantId)
+                .ge(MerchantDailyStats::getStatDate, from)
+                .le(MerchantDailyStats::getStatDate, to))
+                .stream()
+                .collect(Collectors.toMap(MerchantDailyStats::getStatDate, Function.identity()));
+        List<MerchantDailyStats> result = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            MerchantDailyStats stats = byDate.get(date);
+            result.add(stats != null ? stats : MerchantDailyStats.empty(merchantId, date));
+        }
+        return result;
+    }
+
+    @Override
+    public List<MerchantDailyStats> getMonths(Long merchantId, LocalDate fromMonth, LocalDate toMonth) {
+        Map<LocalDate, MerchantDailyStats> byMonth = baseMapper.selectMonths(merchantId, fromMonth, toMonth)
+                .stream()
+                .collect(Collectors.toMap(MerchantDailyStats::getStatDate, Function.identity()));
+        List<MerchantDailyStats> result = new ArrayList<>();
+        for (LocalDate month = fromMonth; !month.isAfter(toMonth); month = month.plusMonths(1)) {
+            MerchantDailyStats stats = byMonth.get(month);
+            result.add(stats != null ? stats : MerchantDailyStats.empty(merchantId, month));
+        }
+        return result;
+    }
+
+    @Override
+    public MerchantDailyStats sum(Long merchantId, LocalDate from, LocalDate to) {
+        return baseMapper.sumDays(merchantId, from, to);
+    }
+
+    @Override
+    public List<MerchantDailyStats> rankBySales(LocalDate from, LocalDate to, int limit) {
+        return baseMapper.rankBySales(from, to, limit);
+    }
+
+    @Override
+    public List<ProductDailySales> getTopProducts(Long merchantId, LocalDate from, LocalDate to, int limit) {
+        return productDailySalesMapper.selectTopProducts(merchantId, from, to, limit);
+    }
+
+    @Override
+    public List<ProductDailySales> getCategorySales(Long merchantId, LocalDate from, LocalDate to) {
+        return productDailySalesMapper.selectCategorySales(merchantId, from, to);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onOrderPaid(Order order) {
+        if (order.getMerchantId() == null) {
+            return;
+        }
+        LocalDate date = statDate(order);
+        int newCustomer = 0;
+        int returningCustomer = 0;
+        if (order.getUserId() != null) {
+            int customer = merchantCustomerMapper.recordOrder(order.getMerchantId(), order.getUserId(),
+                    order.getId(), date);
+            newCustomer = customer == MerchantCustomerMapper.NEW_CUSTOMER ? 1 : 0;
+            returningCustomer = customer == MerchantCustomerMapper.RETURNING_CUSTOMER ? 1 : 0;
+        }
+        long newDelta = newCustomer;
+        long returningDelta = returningCustomer;
+        apply(order.getMerchantId(), date, delta -> {
+            delta.setOrderCount(1L);
+            delta.setSalesAmount(amount(order.getPayAmount()));
+            delta.setPendingCount(1L);
+            delta.setNewCustomers(newDelta);
+            delta.setReturningCustomers(returningDelta);
+        });
+        productDailySalesMapper.applyOrder(order.getId(), date, 1);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onOrderDelivered(Order order) {
+        if (order.getMerchantId() == null) {
+            return;
+        }
+        apply(order.getMerchantId(), statDate(order), delta -> {
+            delta.setDeliveredCount(1L);
+            delta.setPendingCount(-1L);
+        });
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onOrdersReceived(Collection<Long> orderIds) {
+        countByMerchantDay(orderIds).forEach((key, count) ->
+                apply(key.merchantId(), key.date(), delta -> delta.setReceivedCount(count)));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onOrdersCompleted(Collection<Long> orderIds) {
+        countByMerchantDay(orderIds).forEach((key, count) ->
+                apply(key.merchantId(), key.date(), delta -> delta.setCompletedCount(count)));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onPaidOrderCancelled(Order order) {
+        if (order.getMerchantId() == null) {
+            return;
+        }
+        LocalDate date = statDate(order);
+        apply(order.getMerchantId(), date, delta -> {
+            delta.setPendingCount(-1L);
+            delta.setCancelledCount(1L);
+            delta.setRefundCount(1L);
+            delta.setRefundAmount(amount(order.getPayAmount()));
+        });
+        productDailySalesMapper.applyOrder(order.getId(), date, -1);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onRefundApproved(Refund refund, Order order) {
+        if (order == null || order.getMerchantId() == null) {
+            return;
+        }
+        apply(order.getMerchantId(), statDate(order), delta -> {
+            delta.setRefundCount(1L);
+            delta.setRefundAmount(amount(refund.getRefundAmount()));
+        });
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        merchantCustomerMapper.deleteAll();
+        int customers = merchantCustomerMapper.rebuild();
+        rebuildDays(REBUILD_FROM, LocalDate.now());
+        log.info("商户日统计全量重建完成: 客户={}, 耗时={}ms", customers, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuildDays(LocalDate from, LocalDate to) {
+        baseMapper.deleteDays(from, to);
+        int days = baseMapper.rebuildOrderStats(from, to);
+        baseMapper.rebuildRefundStats(from, to);
+        baseMapper.rebuildCustomerStats(from, to);
+
+        productDailySalesMapper.deleteDays(from, to);
+        int products = productDailySalesMapper.rebuild(from, to);
+
+        LocalDate fromMonth = from.withDayOfMonth(1);
+        LocalDate toMonth = to.withDayOfMonth(1);
+        baseMapper.deleteMonths(fromMonth, toMonth);
+        baseMapper.rebuildMonths(fromMonth, toMonth);
+        log.info("商户日统计重建完成: from={}, to={}, 商户日={}, 商品日={}", from, to, days, products);
+    }
+
+    @Override
+    public List<LocalDate> findMismatchedDays(LocalDate from, LocalDate to) {
+        TreeSet<LocalDate> days = new TreeSet<>(baseMapper.findMismatchedDays(from, to));
+        days.addAll(productDailySalesMapper.findMismatchedDays(from, to));
+        return new ArrayList<>(days);
+    }
+
+    /**
+     * 同一变化量写入日统计及所在月份的月汇总
+     */
+    private void apply(Long merchantId, LocalDate date, Consumer<MerchantDailyStats> fill) {
+        MerchantDailyStats delta = MerchantDailyStats.empty(merchantId, date);
+        fill.accept(delta);
+        baseMapper.applyDelta(delta);
+        baseMapper.applyMonthlyDelta(delta, date.withDayOfMonth(1));
+    }
+
+    private record MerchantDay(Long merchantId, LocalDate date) {
+    }
+
+    private Map<MerchantDay, Long> countByMerchantDay(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Map.of();
+        }
+        return orderMapper.selectList(new LambdaQueryWrapper<Order>()
+                        .select(Order::getId, Order::getMerchantId, Order::getCreateTime)
+                        .in(Order::getId, orderIds))
+                .stream()
+                .filter(order -> order.getMerchantId() != null)
+                .collect(Collectors.groupingBy(order -> new MerchantDay(order.getMerchantId(), statDate(order)),
+                        Collectors.counting()));
+    }
+
+    private static LocalDate statDate(Order order) {
+        return order.getCreateTime() != null ? order.getCreateTime().toLocalDate() : LocalDate.now();
+    }
+
+    private static BigDecimal amount(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
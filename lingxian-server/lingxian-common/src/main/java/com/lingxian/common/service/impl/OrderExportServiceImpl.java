@@ -0,0 +1,340 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.constant.RedisConstant;
+import com.lingxian.common.entity.Order;
+import com.lingxian.common.entity.OrderItem;
+import com.lingxian.common.exception.BusinessException;
+import com.lingxian.common.export.ExportFormat;
+import com.lingxian.common.export.OrderExportQuery;
+import com.lingxian.common.export.RowWriter;
+import com.lingxian.common.mapper.OrderItemMapper;
+import com.lingxian.common.mapper.OrderMapper;
+import com.lingxian.common.service.OrderExportService;
+import com.lingxian.common.storage.StorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final List<String> HEADER = List.of(
+            "订单号", "订单状态", "订单类型", "用户ID", "用户昵称", "用户手机号", "商户ID", "商户名称",
+            "商品明细", "商品件数", "商品金额", "优惠金额", "运费", "实付金额", "支付方式", "支付时间",
+            "收货人", "收货电话", "收货地址", "备注", "下单时间", "发货时间", "收货时间", "完成时间",
+            "取消时间", "取消原因");
+
+    private static final String[] STATUS_NAMES = {"", "待付款", "待发货", "待收货", "待评价", "已完成", "已取消"};
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    /**
+     * 每导出这么多订单回调一次进度
+     */
+    private static final int PROGRESS_BATCH = 5000;
+
+    /**
+     * 并发执行的异步导出任务数、排队上限
+     */
+    private static final int JOB_THREADS = 2;
+    private static final int JOB_QUEUE = 8;
+
+    /**
+     * 任务进度保留时间（小时）
+     */
+    private static final long JOB_EXPIRE_HOURS = 24;
+
+    private final OrderMapper orderMapper;
+    private final OrderItemMapper orderItemMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final StringRedisTemplate redisTemplate;
+    private final StorageService storageService;
+
+    private TransactionTemplate readOnlyTransaction;
+    private ThreadPoolExecutor jobExecutor;
+
+    @PostConstruct
+    public void init() {
+        // 游标须在事务内遍历，PostgreSQL 驱动只有关闭自动提交时才按 fetchSize 分批读取
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        AtomicInteger threadIndex = new AtomicInteger();
+        jobExecutor = new ThreadPoolExecutor(JOB_THREADS, JOB_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(JOB_QUEUE),
+                r -> new Thread(r, "order-export-" + threadIndex.incrementAndGet()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    @Override
+    public String fileName(ExportFormat format, boolean gzip) {
+        return "orders-" + LocalDateTime.now().format(FILE_TIME_FORMAT) + "." + format.getExtension()
+                + (gzip ? ".gz" : "");
+    }
+
+    @Override
+    public String contentType(ExportFormat format, boolean gzip) {
+        return gzip ? "application/gzip" : format.getContentType();
+    }
+
+    @Override
+    public long export(OrderExportQuery query, ExportFormat format, boolean gzip, OutputStream out,
+                       LongConsumer progress) throws IOException {
+        try {
+            Long count = readOnlyTransaction.execute(status -> {
+                try {
+                    return doExport(query, format, gzip, out, progress);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return count != null ? count : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public String submit(OrderExportQuery query, ExportFormat format, boolean gzip, Long adminId) {
+        String jobId = UUID.randomUUID().toString().replace("-", "");
+        String key = RedisConstant.ORDER_EXPORT_JOB_PREFIX + jobId;
+        String fileName = fileName(format, gzip);
+
+        Map<String, String> job = new HashMap<>();
+        job.put("status", "running");
+        job.put("fileName", fileName);
+        job.put("total", String.valueOf(countOrders(query)));
+        job.put("exported", "0");
+        job.put("createTime", LocalDateTime.now().format(TIME_FORMAT));
+        if (adminId != null) {
+            job.put("adminId", adminId.toString());
+        }
+        redisTemplate.opsForHash().putAll(key, job);
+        redisTemplate.expire(key, JOB_EXPIRE_HOURS, TimeUnit.HOURS);
+
+        try {
+            jobExecutor.execute(() -> runJob(key, query, format, gzip, fileName));
+        } catch (RejectedExecutionException e) {
+            redisTemplate.delete(key);
+            throw new BusinessException("导出任务较多，请稍后再试");
+        }
+        log.info("提交订单导出任务: jobId={}, query={}, format={}, adminId={}", jobId, query, format, adminId);
+        return jobId;
+    }
+
+    @Override
+    public Map<String, Object> getJob(String jobId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(RedisConstant.ORDER_EXPORT_JOB_PREFIX + jobId);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> job = new HashMap<>();
+        entries.forEach((field, value) -> job.put(field.toString(), value));
+        job.put("jobId", jobId);
+        job.put("total", Long.parseLong(job.get("total").toString()));
+        job.put("exported", Long.parseLong(job.get("exported").toString()));
+        // 签名地址有时效，每次查询重新生成
+        Object path = job.remove("path");
+        if (path != null) {
+            job.put("url", storageService.generateUrl(path.toString()));
+        }
+        return job;
+    }
+
+    private void runJob(String key, OrderExportQuery query, ExportFormat format, boolean gzip, String fileName) {
+        Path file = null;
+        try {
+            file = Files.createTempFile("order-export-", "." + format.getExtension());
+            long count;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+                count = export(query, format, gzip, out,
+                        exported -> redisTemplate.opsForHash().put(key, "exported", String.valueOf(exported)));
+            }
+
+            String path = "export/orders/" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "/" + fileName;
+            String storedPath;
+            try (InputStream in = Files.newInputStream(file)) {
+                storedPath = storageService.upload(in, Files.size(file), path, contentType(format, gzip));
+            }
+
+            Map<String, String> result = new HashMap<>();
+            result.put("status", "success");
+            result.put("exported", String.valueOf(count));
+            result.put("path", storedPath);
+            result.put("finishTime", LocalDateTime.now().format(TIME_FORMAT));
+            redisTemplate.opsForHash().putAll(key, result);
+            log.info("订单导出完成: key={}, count={}, path={}", key, count, storedPath);
+        } catch (Exception e) {
+            log.error("订单导出失败: key={}", key, e);
+            redisTemplate.opsForHash().put(key, "status", "failed");
+            redisTemplate.opsForHash().put(key, "error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("删除导出临时文件失败: {}", file, e);
+                }
+            }
+        }
+    }
+
+    private long doExport(OrderExportQuery query, ExportFormat format, boolean gzip, OutputStream out,
+                          LongConsumer progress) throws IOException {
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        long count = 0;
+        try (Cursor<Order> orders = orderMapper.streamExportOrders(query.status(), query.startTime(), query.endTime());
+             Cursor<OrderItem> items = orderItemMapper.streamExportItems(query.status(), query.startTime(), query.endTime());
+             RowWriter writer = format.open(gzipOut != null ? gzipOut : out)) {
+            writer.writeRow(HEADER);
+
+            // 两个游标都按订单ID升序，归并得到每个订单的订单项
+            Iterator<OrderItem> itemIterator = items.iterator();
+            OrderItem item = itemIterator.hasNext() ? itemIterator.next() : null;
+            StringBuilder summary = new StringBuilder();
+            for (Order order : orders) {
+                summary.setLength(0);
+                int quantity = 0;
+                while (item != null && item.getOrderId() < order.getId()) {
+                    item = itemIterator.hasNext() ? itemIterator.next() : null;
+                }
+                while (item != null && item.getOrderId().equals(order.getId())) {
+                    if (!summary.isEmpty()) {
+                        summary.append("; ");
+                    }
+                    summary.append(item.getProductName());
+                    if (item.getSkuName() != null && !item.getSkuName().isEmpty()) {
+                        summary.append(' ').append(item.getSkuName());
+                    }
+                    summary.append(" x").append(item.getQuantity());
+                    quantity += item.getQuantity() != null ? item.getQuantity() : 0;
+                    item = itemIterator.hasNext() ? itemIterator.next() : null;
+                }
+                writer.writeRow(row(order, summary.toString(), quantity));
+
+                if (++count % PROGRESS_BATCH == 0 && progress != null) {
+                    progress.accept(count);
+                }
+            }
+        }
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        out.flush();
+        if (progress != null) {
+            progress.accept(count);
+        }
+        return count;
+    }
+
+    private List<Object> row(Order order, String items, int quantity) {
+        List<Object> row = new ArrayList<>(HEADER.size());
+        row.addAll(Arrays.asList(
+                order.getOrderNo(),
+                statusName(order.getStatus()),
+                order.getOrderType() != null && order.getOrderType() == 2 ? "拼团订单" : "普通订单",
+                order.getUserId(),
+                order.getUserNickname(),
+                order.getUserPhone(),
+                order.getMerchantId(),
+                order.getMerchantName(),
+                items,
+                quantity,
+                order.getTotalAmount(),
+                order.getDiscountAmount(),
+                order.getFreightAmount(),
+                order.getPayAmount(),
+                payTypeName(order.getPayType()),
+                time(order.getPayTime()),
+                order.getReceiverName(),
+                order.getReceiverPhone(),
+                address(order),
+                order.getRemark(),
+                time(order.getCreateTime()),
+                time(order.getDeliveryTime()),
+                time(order.getReceiveTime()),
+                time(order.getCompleteTime()),
+                time(order.getCancelTime()),
+                order.getCancelReason()));
+        return row;
+    }
+
+    /**
+     * 待导出订单数，条件与 {@link OrderMapper#EXPORT_FILTER} 一致（含 deleted = 0）
+     */
+    private long countOrders(OrderExportQuery query) {
+        return orderMapper.selectCount(new LambdaQueryWrapper<Order>()
+                .eq(Order::getDeleted, 0)
+                .eq(query.status() != null, Order::getStatus, query.status())
+                .ge(query.startTime() != null, Order::getCreateTime, query.startTime())
+                .le(query.endTime() != null, Order::getCreateTime, query.endTime()));
+    }
+
+    private static String statusName(Integer status) {
+        return status != null && status > 0 && status < STATUS_NAMES.length ? STATUS_NAMES[status] : "";
+    }
+
+    private static String payTypeName(Integer payType) {
+        if (payType == null) {
+            return "";
+        }
+        return switch (payType) {
+            case 1 -> "微信支付";
+            case 2 -> "余额支付";
+            default -> "";
+        };
+    }
+
+    private static String address(Order order) {
+        StringBuilder address = new StringBuilder();
+        for (String part : new String[]{order.getReceiverProvince(), order.getReceiverCity(),
+                order.getReceiverDistrict(), order.getReceiverAddress()}) {
+            if (part != null) {
+                address.append(part);
+            }
+        }
+        return address.toString();
+    }
+
+    private static String time(LocalDateTime time) {
+        return time != null ? time.format(TIME_FORMAT) : null;
+    }
+}
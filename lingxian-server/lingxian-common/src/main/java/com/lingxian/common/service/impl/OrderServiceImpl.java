@@ -1,11 +1,130 @@
 package com.lingxian.common.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.lingxian.common.entity.Order;
+import com.lingxian.common.entity.OrderItem;
 import com.lingxian.common.mapper.OrderMapper;
+import com.lingxian.common.service.MerchantDailyStatsService;
+import com.lingxian.common.service.OrderItemService;
 import com.lingxian.common.service.OrderService;
+import com.lingxian.common.service.OrderStatusCountService;
+import com.lingxian.common.service.PlatformStatsService;
+import com.lingxian.common.service.StockService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
+@RequiredArgsConstructor
 public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements OrderService {
+
+    private static final String TIMEOUT_CANCEL_REASON = "超时未支付，系统自动取消";
+
+    private final OrderItemService orderItemService;
+    private final StockService stockService;
+    private final PlatformStatsService platformStatsService;
+    private final MerchantDailyStatsService merchantDailyStatsService;
+    private final OrderStatusCountService orderStatusCountService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean changeStatus(Long orderId, int fromStatus, int toStatus, LambdaUpdateWrapper<Order> update) {
+        LambdaUpdateWrapper<Order> wrapper = update != null ? update : new LambdaUpdateWrapper<>();
+        boolean changed = update(wrapper
+                .eq(Order::getId, orderId)
+                .eq(Order::getStatus, fromStatus)
+                .set(Order::getStatus, toStatus));
+        if (changed) {
+            orderStatusCountService.onOrdersChanged(List.of(orderId), fromStatus, toStatus);
+        }
+        return changed;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean cancelOrder(Long orderId, Integer fromStatus, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean cancelled = update(new LambdaUpdateWrapper<Order>()
+                .eq(Order::getId, orderId)
+                .eq(Order::getStatus, fromStatus)
+                .set(Order::getStatus, 6)
+                .set(Order::getCancelReason, reason)
+                .set(Order::getCancelTime, now)
+                .set(Order::getUpdateTime, now));
+        if (cancelled) {
+            orderStatusCountService.onOrdersChanged(List.of(orderId), fromStatus, 6);
+            releaseStockAfterCommit(List.of(orderId));
+            platformStatsService.onOrderCancelled(getById(orderId));
+        }
+        return cancelled;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> cancelTimeoutOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> cancelled = baseMapper.cancelUnpaid(orderIds, TIMEOUT_CANCEL_REASON, LocalDateTime.now());
+        orderStatusCountService.onOrdersChanged(cancelled, 1, 6);
+        releaseStockAfterCommit(cancelled);
+        platformStatsService.onUnpaidOrdersCancelled(cancelled.size());
+        return cancelled;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> autoReceive(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> received = baseMapper.receiveDelivered(orderIds, LocalDateTime.now());
+        orderStatusCountService.onOrdersChanged(received, 3, 4);
+        merchantDailyStatsService.onOrdersReceived(received);
+        return received;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> autoComplete(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> completed = baseMapper.completeReceived(orderIds, LocalDateTime.now());
+        orderStatusCountService.onOrdersChanged(completed, 4, 5);
+        platformStatsService.onOrdersCompleted(completed.size());
+        merchantDailyStatsService.onOrdersCompleted(completed);
+        return completed;
+    }
+
+    /**
+     * 订单状态提交后再归还库存，避免回滚时库存已被释放
+     */
+    private void releaseStockAfterCommit(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        orderItemService.list(new LambdaQueryWrapper<OrderItem>()
+                        .in(OrderItem::getOrderId, orderIds)
+                        .select(OrderItem::getProductId, OrderItem::getQuantity))
+                .forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stockService.release(quantities);
+            }
+        });
+    }
 }
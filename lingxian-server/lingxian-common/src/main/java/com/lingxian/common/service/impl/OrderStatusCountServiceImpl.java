@@ -0,0 +1,87 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lingxian.common.entity.OrderStatusCount;
+import com.lingxian.common.mapper.OrderStatusCountMapper;
+import com.lingxian.common.service.OrderStatusCountService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderStatusCountServiceImpl extends ServiceImpl<OrderStatusCountMapper, OrderStatusCount>
+        implements OrderStatusCountService {
+
+    private final AfterCommitWriter afterCommitWriter;
+
+    @Override
+    public Map<Integer, Long> getOrderCounts(Long merchantId) {
+        return getCounts(OrderStatusCount.KIND_ORDER, merchantId);
+    }
+
+    @Override
+    public Map<Integer, Long> getRefundCounts(Long merchantId) {
+        return getCounts(OrderStatusCount.KIND_REFUND, merchantId);
+    }
+
+    @Override
+    public void onOrdersChanged(Collection<Long> orderIds, Integer fromStatus, int toStatus) {
+        if (orderIds.isEmpty() || Integer.valueOf(toStatus).equals(fromStatus)) {
+            return;
+        }
+        baseMapper.applyOrderChange(orderIds, fromStatus, toStatus);
+        int count = orderIds.size();
+        afterCommitWriter.execute("状态计数全平台合计", () -> baseMapper.applyPlatformChange(
+                OrderStatusCount.KIND_ORDER, fromStatus, toStatus, count));
+    }
+
+    @Override
+    public void onRefundsChanged(Collection<Long> refundIds, Integer fromStatus, int toStatus) {
+        if (refundIds.isEmpty() || Integer.valueOf(toStatus).equals(fromStatus)) {
+            return;
+        }
+        baseMapper.applyRefundChange(refundIds, fromStatus, toStatus);
+        int count = refundIds.size();
+        afterCommitWriter.execute("状态计数全平台合计", () -> baseMapper.applyPlatformChange(
+                OrderStatusCount.KIND_REFUND, fromStatus, toStatus, count));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public long reconcile() {
+        // 先不加锁核对，绝大多数情况下计数一致，无需阻塞状态变更
+        long mismatches = baseMapper.countOrderMismatches() + baseMapper.countRefundMismatches();
+        if (mismatches == 0) {
+            return 0;
+        }
+        // 核对期间可能有状态变更尚未提交，加锁后再核对一次，确认不一致才重建
+        baseMapper.lockTable();
+        mismatches = baseMapper.countOrderMismatches() + baseMapper.countRefundMismatches();
+        if (mismatches > 0) {
+            baseMapper.resetKind(OrderStatusCount.KIND_ORDER);
+            baseMapper.rebuildOrders();
+            baseMapper.resetKind(OrderStatusCount.KIND_REFUND);
+            baseMapper.rebuildRefunds();
+            log.warn("订单状态计数与实际不一致，已重建: mismatches={}", mismatches);
+        }
+        return mismatches;
+    }
+
+    private Map<Integer, Long> getCounts(int kind, Long merchantId) {
+        Map<Integer, Long> counts = new HashMap<>();
+        list(new LambdaQueryWrapper<OrderStatusCount>()
+                .eq(OrderStatusCount::getMerchantId, merchantId != null ? merchantId : OrderStatusCount.PLATFORM)
+                .eq(OrderStatusCount::getKind, kind)
+                .select(OrderStatusCount::getStatus, OrderStatusCount::getTotal))
+                .forEach(count -> counts.put(count.getStatus(), count.getTotal()));
+        return counts;
+    }
+}
@@ -0,0 +1,442 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.lingxian.common.entity.Order;
+import com.lingxian.common.entity.PlatformDimStats;
+import com.lingxian.common.entity.PlatformStats;
+import com.lingxian.common.entity.Refund;
+import com.lingxian.common.entity.User;
+import com.lingxian.common.mapper.OrderMapper;
+import com.lingxian.common.mapper.PlatformDimStatsMapper;
+import com.lingxian.common.mapper.PlatformStatsMapper;
+import com.lingxian.common.mapper.RefundMapper;
+import com.lingxian.common.mapper.UserActivityMapper;
+import com.lingxian.common.mapper.UserMapper;
+import com.lingxian.common.service.PlatformStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlatformStatsServiceImpl extends ServiceImpl<PlatformStatsMapper, PlatformStats>
+        implements PlatformStatsService {
+
+    private static final int BACKFILL_BATCH = 1000;
+
+    private final PlatformDimStatsMapper platformDimStatsMapper;
+    private final UserActivityMapper userActivityMapper;
+    private final OrderMapper orderMapper;
+    private final RefundMapper refundMapper;
+    private final UserMapper userMapper;
+    private final AfterCommitWriter afterCommitWriter;
+
+    /**
+     * 本实例已记录过当天活跃的用户，避免每个请求都写库
+     */
+    private final Cache<Long, LocalDate> activeToday = CacheBuilder.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    @Override
+    public List<PlatformStats> getDays(LocalDate from, LocalDate to) {
+        Map<LocalDateTime, PlatformStats> byStart = list(new LambdaQueryWrapper<PlatformStats>()
+                .eq(PlatformStats::getPeriodType, PlatformStats.PERIOD_DAY)
+                .ge(PlatformStats::getPeriodStart, from.atStartOfDay())
+                .le(PlatformStats::getPeriodStart, to.atStartOfDay()))
+                .stream()
+                .collect(Collectors.toMap(PlatformStats::getPeriodStart, Function.identity()));
+        List<PlatformStats> result = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            PlatformStats stats = byStart.get(date.atStartOfDay());
+            result.add(stats != null ? stats : PlatformStats.empty(PlatformStats.PERIOD_DAY, date.atStartOfDay()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<PlatformStats> getHours(LocalDate date) {
+        LocalDateTime start = date.atStartOfDay();
+        Map<LocalDateTime, PlatformStats> byStart = list(new LambdaQueryWrapper<PlatformStats>()
+                .eq(PlatformStats::getPeriodType, PlatformStats.PERIOD_HOUR)
+                .ge(PlatformStats::getPeriodStart, start)
+                .lt(PlatformStats::getPeriodStart, start.plusDays(1)))
+                .stream()
+                .collect(Collectors.toMap(PlatformStats::getPeriodStart, Function.identity()));
+        List<PlatformStats> result = new ArrayList<>(24);
+        for (int hour = 0; hour < 24; hour++) {
+            LocalDateTime periodStart = start.plusHours(hour);
+            PlatformStats stats = byStart.get(periodStart);
+            result.add(stats != null ? stats : PlatformStats.empty(PlatformStats.PERIOD_HOUR, periodStart));
+        }
+        return result;
+    }
+
+    @Override
+    public PlatformStats sum(LocalDate from, LocalDate to) {
+        return baseMapper.sumDays(from.atStartOfDay(), to.atStartOfDay());
+    }
+
+    @Override
+    public List<PlatformDimStats> sumByDimension(int dimension, LocalDate from, LocalDate to) {
+        return platformDimStatsMapper.sumByDimension(dimension, from, to);
+    }
+
+    @Override
+    public long countActiveUsersSince(LocalDate since) {
+        return userActivityMapper.countActiveSince(since);
+    }
+
+    @Override
+    public long countUsersByMinOrders(int minOrders) {
+        return userActivityMapper.countByMinOrders(minOrders);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onOrdersCreated(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        apply(now, delta -> delta.setCreatedOrders((long) orders.size()));
+        Map<Long, List<Order>> byType = orders.stream()
+                .collect(Collectors.groupingBy(order -> dimKey(order.getOrderType())));
+        afterCommitWriter.execute("平台分维度统计", () -> byType.forEach((type, typed) -> platformDimStatsMapper.applyDelta(
+                now.toLocalDate(), PlatformDimStats.DIM_ORDER_TYPE, type, typed.size(),
+                typed.stream().map(order -> amount(order.getPayAmount())).reduce(BigDecimal.ZERO, BigDecimal::add))));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onOrderPaid(Order order) {
+        LocalDateTime payTime = order.getPayTime() != null ? order.getPayTime() : LocalDateTime.now();
+        LocalDate date = payTime.toLocalDate();
+        boolean firstActive = false;
+        boolean firstOrder = false;
+        if (order.getUserId() != null) {
+            firstActive = userActivityMapper.markActive(order.getUserId(), date) > 0;
+            firstOrder = userActivityMapper.markOrdered(order.getUserId(), date) > 0;
+            if (!firstOrder) {
+                userActivityMapper.incrementOrderCount(order.getUserId());
+            }
+            activeToday.put(order.getUserId(), date);
+        }
+        long activeDelta = firstActive ? 1 : 0;
+        long orderingDelta = firstOrder ? 1 : 0;
+        apply(payTime, delta -> {
+            delta.setPaidOrders(1L);
+            delta.setSalesAmount(amount(order.getPayAmount()));
+            delta.setActiveUsers(activeDelta);
+            delta.setOrderingUsers(orderingDelta);
+        });
+        afterCommitWriter.execute("平台分维度统计", () -> {
+            platformDimStatsMapper.applyDelta(date, PlatformDimStats.DIM_PAY_TYPE, dimKey(order.getPayType()), 1,
+                    amount(order.getPayAmount()));
+            platformDimStatsMapper.applyCategoryDelta(date, order.getId());
+        });
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onOrderCancelled(Order order) {
+        boolean paid = order.getPayTime() != null;
+        apply(LocalDateTime.now(), delta -> {
+            delta.setCancelledOrders(1L);
+            if (paid) {
+                delta.setRefundCount(1L);
+                delta.setRefundAmount(amount(order.getPayAmount()));
+            }
+        });
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onUnpaidOrdersCancelled(int count) {
+        if (count > 0) {
+            apply(LocalDateTime.now(), delta -> delta.setCancelledOrders((long) count));
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onOrdersCompleted(int count) {
+        if (count > 0) {
+            apply(LocalDateTime.now(), delta -> delta.setCompletedOrders((long) count));
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onRefundApproved(Refund refund) {
+        LocalDateTime at = refund.getAuditTime() != null ? refund.getAuditTime() : LocalDateTime.now();
+        apply(at, delta -> {
+            delta.setRefundCount(1L);
+            delta.setRefundAmount(amount(refund.getRefundAmount()));
+        });
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onUserRegistered(Long userId) {
+        LocalDate today = LocalDate.now();
+        long activeDelta = userActivityMapper.markActive(userId, today) > 0 ? 1 : 0;
+        activeToday.put(userId, today);
+        apply(LocalDateTime.now(), delta -> {
+            delta.setNewUsers(1L);
+            delta.setActiveUsers(activeDelta);
+        });
+    }
+
+    @Override
+    public void onUserActive(Long userId) {
+        LocalDate today = LocalDate.now();
+        if (today.equals(activeToday.getIfPresent(userId))) {
+            return;
+        }
+        try {
+            if (userActivityMapper.markActive(userId, today) > 0) {
+                apply(LocalDateTime.now(), delta -> delta.setActiveUsers(1L));
+            }
+            activeToday.put(userId, today);
+        } catch (Exception e) {
+            log.warn("记录用户活跃失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int backfillDay(LocalDate date) {
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = start.plusDays(1);
+
+        // 活跃用户无法从业务表完整还原，保留已记录值与还原值中的较大者
+        Map<LocalDateTime, Long> recordedActive = new HashMap<>();
+        getHours(date).forEach(hour -> recordedActive.put(hour.getPeriodStart(), hour.getActiveUsers()));
+
+        baseMapper.deleteBetween(start, end);
+        platformDimStatsMapper.deleteDate(date);
+
+        Map<LocalDateTime, PlatformStats> hours = new TreeMap<>();
+        Map<Long, PlatformDimStats> orderTypes = new HashMap<>();
+        Map<Long, PlatformDimStats> payTypes = new HashMap<>();
+        Map<Long, PlatformDimStats> categories = new HashMap<>();
+        Map<Long, LocalDateTime> firstActive = new HashMap<>();
+        Map<Long, LocalDateTime> firstPaid = new HashMap<>();
+
+        // 1. 订单：下单、支付、取消、完成时间各自按 (时间, ID) 游标分批读取当天的订单，每个时间列走各自的索引
+        int scanned = scanOrders(Order::getCreateTime, "create_time", start, end, order -> {
+            PlatformStats created = hour(hours, order.getCreateTime());
+            created.setCreatedOrders(created.getCreatedOrders() + 1);
+            accumulate(orderTypes, PlatformDimStats.DIM_ORDER_TYPE, dimKey(order.getOrderType()),
+                    1, amount(order.getPayAmount()));
+        }, null);
+        scanned += scanOrders(Order::getPayTime, "pay_time", start, end, order -> {
+            BigDecimal payAmount = amount(order.getPayAmount());
+            PlatformStats paid = hour(hours, order.getPayTime());
+            paid.setPaidOrders(paid.getPaidOrders() + 1);
+            paid.setSalesAmount(paid.getSalesAmount().add(payAmount));
+            accumulate(payTypes, PlatformDimStats.DIM_PAY_TYPE, dimKey(order.getPayType()), 1, payAmount);
+            if (order.getUserId() != null) {
+                firstPaid.merge(order.getUserId(), order.getPayTime(), this::earlier);
+                firstActive.merge(order.getUserId(), order.getPayTime(), this::earlier);
+            }
+        }, paidIds -> platformDimStatsMapper.sumCategoryByOrders(paidIds).forEach(category -> accumulate(categories,
+                PlatformDimStats.DIM_CATEGORY, category.getDimKey(), category.getOrderCount(), category.getAmount())));
+        scanned += scanOrders(Order::getCancelTime, "cancel_time", start, end, order -> {
+            if (order.getStatus() != 6) {
+                return;
+            }
+            PlatformStats cancelled = hour(hours, order.getCancelTime());
+            cancelled.setCancelledOrders(cancelled.getCancelledOrders() + 1);
+            if (order.getPayTime() != null) {
+                cancelled.setRefundCount(cancelled.getRefundCount() + 1);
+                cancelled.setRefundAmount(cancelled.getRefundAmount().add(amount(order.getPayAmount())));
+            }
+        }, null);
+        scanned += scanOrders(Order::getCompleteTime, "complete_time", start, end, order -> {
+            PlatformStats completed = hour(hours, order.getCompleteTime());
+            completed.setCompletedOrders(completed.getCompletedOrders() + 1);
+        }, null);
+
+        // 2. 退款：当天审核通过的退款单
+        refundMapper.selectList(new LambdaQueryWrapper<Refund>()
+                        .select(Refund::getRefundAmount, Refund::getAuditTime)
+                        .in(Refund::getStatus, 1, 2)
+                        .ge(Refund::getAuditTime, start)
+                        .lt(Refund::getAuditTime, end))
+                .forEach(refund -> {
+                    PlatformStats stats = hour(hours, refund.getAuditTime());
+                    stats.setRefundCount(stats.getRefundCount() + 1);
+                    stats.setRefundAmount(stats.getRefundAmount().add(amount(refund.getRefundAmount())));
+                });
+
+        // 3. 用户：当天注册或最近一次登录在当天的用户
+        userMapper.selectList(new LambdaQueryWrapper<User>()
+                        .select(User::getId, User::getCreateTime, User::getLastLoginTime)
+                        .and(w -> w.ge(User::getCreateTime, start).lt(User::getCreateTime, end)
+                                .or().ge(User::getLastLoginTime, start).lt(User::getLastLoginTime, end)))
+                .forEach(user -> {
+                    if (within(user.getCreateTime(), start, end)) {
+                        PlatformStats stats = hour(hours, user.getCreateTime());
+                        stats.setNewUsers(stats.getNewUsers() + 1);
+                        firstActive.merge(user.getId(), user.getCreateTime(), this::earlier);
+                    }
+                    if (within(user.getLastLoginTime(), start, end)) {
+                        firstActive.merge(user.getId(), user.getLastLoginTime(), this::earlier);
+                    }
+                });
+        firstActive.values().forEach(at -> {
+            PlatformStats stats = hour(hours, at);
+            stats.setActiveUsers(stats.getActiveUsers() + 1);
+        });
+        firstPaid.values().forEach(at -> {
+            PlatformStats stats = hour(hours, at);
+            stats.setOrderingUsers(stats.getOrderingUsers() + 1);
+        });
+        recordedActive.forEach((periodStart, active) -> {
+            if (active > 0) {
+                PlatformStats stats = hour(hours, periodStart);
+                stats.setActiveUsers(Math.max(stats.getActiveUsers(), active));
+            }
+        });
+
+        // 4. 写入小时、日统计及分维度统计
+        PlatformStats day = PlatformStats.empty(PlatformStats.PERIOD_DAY, start);
+        hours.values().forEach(stats -> {
+            baseMapper.applyDelta(stats);
+            day.add(stats);
+        });
+        baseMapper.applyDelta(day);
+        for (Map<Long, PlatformDimStats> dims : List.of(orderTypes, payTypes, categories)) {
+            dims.values().forEach(dim -> platformDimStatsMapper.applyDelta(date, dim.getDimension(),
+                    dim.getDimKey(), dim.getOrderCount(), dim.getAmount()));
+        }
+
+        log.info("平台统计回填完成: date={}, 订单={}", date, scanned);
+        return scanned;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuildUserActivity() {
+        int users = userActivityMapper.rebuildOrders();
+        log.info("用户下单情况刷新完成: 用户={}", users);
+    }
+
+    /**
+     * 同一变化量写入所在小时与所在天；小时、日统计行被所有订单共用，在当前事务提交后单独写入
+     */
+    private void apply(LocalDateTime at, Consumer<PlatformStats> fill) {
+        PlatformStats hourly = PlatformStats.empty(PlatformStats.PERIOD_HOUR, at.truncatedTo(ChronoUnit.HOURS));
+        fill.accept(hourly);
+        PlatformStats daily = PlatformStats.empty(PlatformStats.PERIOD_DAY, at.truncatedTo(ChronoUnit.DAYS));
+        fill.accept(daily);
+        afterCommitWriter.execute("平台统计", () -> {
+            baseMapper.applyDelta(hourly);
+            baseMapper.applyDelta(daily);
+        });
+    }
+
+    /**
+     * 按 (时间列, ID) 游标分批读取时间列落在 [start, end) 内的订单
+     *
+     * @param columnName 时间列的列名，用于行值比较
+     * @param handler    逐个处理订单
+     * @param batchIds   每批处理完后回调该批订单ID，可为空
+     * @return 读取的订单数
+     */
+    private int scanOrders(SFunction<Order, LocalDateTime> column, String columnName,
+                           LocalDateTime start, LocalDateTime end,
+                           Consumer<Order> handler, Consumer<List<Long>> batchIds) {
+        int scanned = 0;
+        LocalDateTime lastTime = null;
+        long lastId = 0;
+        while (true) {
+            LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<Order>()
+                    .select(Order::getId, Order::getUserId, Order::getStatus, Order::getOrderType,
+                            Order::getPayType, Order::getPayAmount, Order::getCreateTime, Order::getPayTime,
+                            Order::getCancelTime, Order::getCompleteTime)
+                    .ge(column, start)
+                    .lt(column, end);
+            if (lastTime != null) {
+                wrapper.apply("(" + columnName + ", id) > ({0}, {1})", lastTime, lastId);
+            }
+            List<Order> orders = orderMapper.selectList(wrapper
+                    .orderByAsc(column)
+                    .orderByAsc(Order::getId)
+                    .last("LIMIT " + BACKFILL_BATCH));
+            if (orders.isEmpty()) {
+                break;
+            }
+            orders.forEach(handler);
+            if (batchIds != null) {
+                batchIds.accept(orders.stream().map(Order::getId).collect(Collectors.toList()));
+            }
+            scanned += orders.size();
+            Order last = orders.get(orders.size() - 1);
+            lastTime = column.apply(last);
+            lastId = last.getId();
+            if (orders.size() < BACKFILL_BATCH) {
+                break;
+            }
+        }
+        return scanned;
+    }
+
+    private static PlatformStats hour(Map<LocalDateTime, PlatformStats> hours, LocalDateTime at) {
+        return hours.computeIfAbsent(at.truncatedTo(ChronoUnit.HOURS),
+                start -> PlatformStats.empty(PlatformStats.PERIOD_HOUR, start));
+    }
+
+    private static void accumulate(Map<Long, PlatformDimStats> dims, int dimension, Long key,
+                                   long count, BigDecimal amount) {
+        PlatformDimStats dim = dims.computeIfAbsent(key, k -> {
+            PlatformDimStats stats = new PlatformDimStats();
+            stats.setDimension(dimension);
+            stats.setDimKey(k);
+            stats.setOrderCount(0L);
+            stats.setAmount(BigDecimal.ZERO);
+            return stats;
+        });
+        dim.setOrderCount(dim.getOrderCount() + count);
+        dim.setAmount(dim.getAmount().add(amount));
+    }
+
+    private LocalDateTime earlier(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static boolean within(LocalDateTime time, LocalDateTime start, LocalDateTime end) {
+        return time != null && !time.isBefore(start) && time.isBefore(end);
+    }
+
+    private static Long dimKey(Integer value) {
+        return value != null ? value.longValue() : 0L;
+    }
+
+    private static BigDecimal amount(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -1,11 +1,87 @@
 package com.lingxian.common.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.lingxian.common.entity.ProductComment;
 import com.lingxian.common.mapper.ProductCommentMapper;
 import com.lingxian.common.service.ProductCommentService;
+import com.lingxian.common.service.RatingStatsService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
+@RequiredArgsConstructor
 public class ProductCommentServiceImpl extends ServiceImpl<ProductCommentMapper, ProductComment> implements ProductCommentService {
+
+    private final RatingStatsService ratingStatsService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void addComments(List<ProductComment> comments) {
+        for (ProductComment comment : comments) {
+            save(comment);
+            ratingStatsService.onCommentAdded(comment);
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean reply(Long commentId, String content) {
+        ProductComment comment = getById(commentId);
+        if (comment == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // 条件更新，并发回复时只有一个成功
+        boolean updated = update(new LambdaUpdateWrapper<ProductComment>()
+                .eq(ProductComment::getId, commentId)
+                .isNull(ProductComment::getReplyContent)
+                .set(ProductComment::getReplyContent, content)
+                .set(ProductComment::getReplyTime, now)
+                .set(ProductComment::getUpdateTime, now));
+        if (updated) {
+            ratingStatsService.onCommentReplied(comment);
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateStatus(Long commentId, Integer status) {
+        ProductComment comment = getById(commentId);
+        if (comment == null) {
+            return false;
+        }
+        boolean visible = Integer.valueOf(1).equals(status);
+        boolean wasVisible = Integer.valueOf(1).equals(comment.getStatus());
+        // 条件更新，状态未变化时不重复计数
+        boolean updated = update(new LambdaUpdateWrapper<ProductComment>()
+                .eq(ProductComment::getId, commentId)
+                .eq(comment.getStatus() != null, ProductComment::getStatus, comment.getStatus())
+                .isNull(comment.getStatus() == null, ProductComment::getStatus)
+                .set(ProductComment::getStatus, status)
+                .set(ProductComment::getUpdateTime, LocalDateTime.now()));
+        if (updated && visible != wasVisible) {
+            ratingStatsService.onCommentVisibilityChanged(comment, visible);
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeComment(Long commentId) {
+        ProductComment comment = getById(commentId);
+        if (comment == null) {
+            return false;
+        }
+        boolean removed = removeById(commentId);
+        if (removed) {
+            ratingStatsService.onCommentRemoved(comment);
+        }
+        return removed;
+    }
 }
@@ -0,0 +1,106 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lingxian.common.entity.ProductComment;
+import com.lingxian.common.entity.RatingStats;
+import com.lingxian.common.mapper.RatingStatsMapper;
+import com.lingxian.common.service.RatingStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+public class RatingStatsServiceImpl extends ServiceImpl<RatingStatsMapper, RatingStats> implements RatingStatsService {
+
+    private static final long PLATFORM_ID = 0L;
+
+    @Override
+    public RatingStats getProductStats(Long productId) {
+        return getStats(RatingStats.TYPE_PRODUCT, productId);
+    }
+
+    @Override
+    public RatingStats getMerchantStats(Long merchantId) {
+        return getStats(RatingStats.TYPE_MERCHANT, merchantId);
+    }
+
+    @Override
+    public RatingStats getPlatformStats() {
+        return getStats(RatingStats.TYPE_PLATFORM, PLATFORM_ID);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onCommentAdded(ProductComment comment) {
+        applyDelta(comment, 1);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onCommentRemoved(ProductComment comment) {
+        applyDelta(comment, -1);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onCommentVisibilityChanged(ProductComment comment, boolean visible) {
+        if (comment.getProductId() != null) {
+            baseMapper.applyDelta(RatingStats.TYPE_PRODUCT, comment.getProductId(),
+                    normalizeRating(comment.getRating()), visible ? 1 : -1, 0);
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onCommentReplied(ProductComment comment) {
+        if (comment.getMerchantId() != null) {
+            baseMapper.applyDelta(RatingStats.TYPE_MERCHANT, comment.getMerchantId(), 0, 0, -1);
+        }
+        baseMapper.applyDelta(RatingStats.TYPE_PLATFORM, PLATFORM_ID, 0, 0, -1);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        baseMapper.deleteAll();
+        int products = baseMapper.rebuildProductStats();
+        int merchants = baseMapper.rebuildMerchantStats();
+        baseMapper.rebuildPlatformStats();
+        baseMapper.refreshAllMerchantRatings();
+        log.info("评分统计重建完成: 商品={}, 商户={}, 耗时={}ms", products, merchants, System.currentTimeMillis() - start);
+    }
+
+    private RatingStats getStats(int targetType, Long targetId) {
+        RatingStats stats = targetId == null ? null : getOne(new LambdaQueryWrapper<RatingStats>()
+                .eq(RatingStats::getTargetType, targetType)
+                .eq(RatingStats::getTargetId, targetId));
+        return stats != null ? stats : RatingStats.empty(targetType, targetId);
+    }
+
+    /**
+     * 商品统计只在评价显示时变化，商户和平台统计总是变化
+     */
+    private void applyDelta(ProductComment comment, int delta) {
+        int rating = normalizeRating(comment.getRating());
+        int unrepliedDelta = comment.getReplyContent() == null ? delta : 0;
+
+        if (comment.getProductId() != null && Integer.valueOf(1).equals(comment.getStatus())) {
+            baseMapper.applyDelta(RatingStats.TYPE_PRODUCT, comment.getProductId(), rating, delta, 0);
+        }
+        if (comment.getMerchantId() != null) {
+            baseMapper.applyDelta(RatingStats.TYPE_MERCHANT, comment.getMerchantId(), rating, delta, unrepliedDelta);
+            baseMapper.refreshMerchantRating(comment.getMerchantId());
+        }
+        baseMapper.applyDelta(RatingStats.TYPE_PLATFORM, PLATFORM_ID, rating, delta, unrepliedDelta);
+    }
+
+    private int normalizeRating(Integer rating) {
+        if (rating == null) {
+            return 5;
+        }
+        return Math.max(1, Math.min(5, rating));
+    }
+}
@@ -1,11 +1,34 @@
 package com.lingxian.common.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.lingxian.common.entity.Refund;
 import com.lingxian.common.mapper.RefundMapper;
+import com.lingxian.common.service.OrderStatusCountService;
 import com.lingxian.common.service.RefundService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Service
+@RequiredArgsConstructor
 public class RefundServiceImpl extends ServiceImpl<RefundMapper, Refund> implements RefundService {
+
+    private final OrderStatusCountService orderStatusCountService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean changeStatus(Long refundId, int fromStatus, int toStatus, LambdaUpdateWrapper<Refund> update) {
+        LambdaUpdateWrapper<Refund> wrapper = update != null ? update : new LambdaUpdateWrapper<>();
+        boolean changed = update(wrapper
+                .eq(Refund::getId, refundId)
+                .eq(Refund::getStatus, fromStatus)
+                .set(Refund::getStatus, toStatus));
+        if (changed) {
+            orderStatusCountService.onRefundsChanged(List.of(refundId), fromStatus, toStatus);
+        }
+        return changed;
+    }
 }
@@ -2,6 +2,7 @@ package com.lingxian.common.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lingxian.common.cache.AdminPermissionIndex;
 import com.lingxian.common.entity.Role;
 import com.lingxian.common.entity.RolePermission;
 import com.lingxian.common.mapper.RoleMapper;
@@ -10,6 +11,8 @@ import com.lingxian.common.service.RoleService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,6 +25,7 @@ import java.util.List;
 public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements RoleService {
 
     private final RolePermissionMapper rolePermissionMapper;
+    private final AdminPermissionIndex adminPermissionIndex;
 
     @Override
     public Role getByCode(String code) {
@@ -52,5 +56,13 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
                 rolePermissionMapper.insert(rp);
             }
         }
+
+        // 提交后再重建授权快照，避免其他实例读到未提交的绑定关系
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                adminPermissionIndex.onRolesChanged();
+            }
+        });
     }
 }
@@ -0,0 +1,254 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.config.SystemSettings;
+import com.lingxian.common.constant.RedisConstant;
+import com.lingxian.common.entity.PointsRecord;
+import com.lingxian.common.entity.User;
+import com.lingxian.common.exception.BusinessException;
+import com.lingxian.common.mapper.UserMapper;
+import com.lingxian.common.service.PointsRecordService;
+import com.lingxian.common.service.SignInService;
+import com.lingxian.common.service.SystemConfigService;
+import com.lingxian.common.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SignInServiceImpl implements SignInService {
+
+    /**
+     * 签到：KEYS[1] 当月位图；ARGV[1] 当天偏移，ARGV[2] 位图过期毫秒，ARGV[3] 读取类型（u + 当天日期）。
+     * 返回 -1 表示今日已签到，否则为当月1日至今日的签到位（今日为最低位）
+     */
+    private static final RedisScript<Long> SIGN_IN_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SETBIT', KEYS[1], ARGV[1], 1) == 1 then return -1 end\n" +
+            "redis.call('PEXPIREAT', KEYS[1], ARGV[2])\n" +
+            "return redis.call('BITFIELD', KEYS[1], 'GET', ARGV[3], 0)[1]", Long.class);
+
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /**
+     * 位图保留的月数，连续签到天数最多向前追溯这么多个月
+     */
+    private static final int RETENTION_MONTHS = 13;
+
+    /**
+     * 积分记录类型：签到
+     */
+    private static final int SIGN_IN_TYPE = 1;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserService userService;
+    private final UserMapper userMapper;
+    private final PointsRecordService pointsRecordService;
+    private final SystemConfigService systemConfigService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public SignInResult signIn(Long userId) {
+        User user = userService.getById(userId);
+        if (user == null) {
+            throw new BusinessException("用户不存在");
+        }
+
+        LocalDate today = LocalDate.now();
+        YearMonth month = YearMonth.from(today);
+        int day = today.getDayOfMonth();
+        String key = key(userId, month);
+        Long bits = redisTemplate.execute(SIGN_IN_SCRIPT, List.of(key),
+                String.valueOf(day - 1), String.valueOf(expireAt(month)), "u" + day);
+        if (bits == null || bits < 0) {
+            throw new BusinessException("今日已签到");
+        }
+        // 积分未能落库时撤销签到位，用户可重新签到
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    redisTemplate.opsForValue().setBit(key, day - 1, false);
+                }
+            }
+        });
+
+        int continuousDays = continuousDays(userId, month, bits, day);
+        SystemSettings settings = systemConfigService.current();
+        int bonusPoints = settings.getStreakBonus(continuousDays);
+        int points = settings.getSignInPoints() + bonusPoints;
+
+        // 余额取更新语句返回的值，不用签到前读到的积分推算，避免与并发的积分变动（如下单抵扣）交错时记错
+        LocalDateTime now = LocalDateTime.now();
+        Integer balance = userMapper.addPoints(userId, points, now);
+        if (balance == null) {
+            throw new BusinessException("用户不存在");
+        }
+
+        PointsRecord record = new PointsRecord();
+        record.setUserId(userId);
+        record.setType(SIGN_IN_TYPE);
+        record.setPoints(points);
+        record.setBalance(balance);
+        record.setDescription(bonusPoints > 0
+                ? "每日签到（连续签到" + continuousDays + "天奖励" + bonusPoints + "积分）"
+                : "每日签到");
+        record.setCreateTime(now);
+        pointsRecordService.save(record);
+
+        log.info("用户签到: userId={}, continuousDays={}, points={}, bonus={}", userId, continuousDays, points, bonusPoints);
+        return new SignInResult(points, bonusPoints, balance, continuousDays);
+    }
+
+    @Override
+    public SignInStatus getStatus(Long userId) {
+        LocalDate today = LocalDate.now();
+        YearMonth month = YearMonth.from(today);
+        int day = today.getDayOfMonth();
+        long bits = readBits(userId, month, day);
+
+        List<LocalDate> signedDates = new ArrayList<>();
+        for (int d = 1; d <= day; d++) {
+            if ((bits >>> (day - d) & 1) != 0) {
+                signedDates.add(month.atDay(d));
+            }
+        }
+
+        boolean signedToday = (bits & 1) != 0;
+        int continuousDays;
+        if (signedToday) {
+            continuousDays = continuousDays(userId, month, bits, day);
+        } else if (day > 1) {
+            // 今日还可签到，连续天数截至昨日
+            continuousDays = continuousDays(userId, month, bits >>> 1, day - 1);
+        } else {
+            YearMonth previous = month.minusMonths(1);
+            continuousDays = continuousDays(userId, previous,
+                    readBits(userId, previous, previous.lengthOfMonth()), previous.lengthOfMonth());
+        }
+        return new SignInStatus(signedToday, Long.bitCount(bits), continuousDays, signedDates);
+    }
+
+    /**
+     * 启动时从积分记录回填签到位图（只执行一次），覆盖保留期内改为位图之前的签到
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            Boolean first = redisTemplate.opsForValue().setIfAbsent(RedisConstant.USER_SIGN_BACKFILLED,
+                    LocalDateTime.now().toString());
+            if (!Boolean.TRUE.equals(first)) {
+                return;
+            }
+            try {
+                backfill(YearMonth.now().minusMonths(RETENTION_MONTHS - 1).atDay(1));
+            } catch (Exception e) {
+                // 置位是幂等的，清除标记后下次启动重新回填
+                redisTemplate.delete(RedisConstant.USER_SIGN_BACKFILLED);
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("签到位图回填失败", e);
+        }
+    }
+
+    /**
+     * 按ID顺序分批读取 from 之后的签到积分记录，管道写入位图
+     */
+    private void backfill(LocalDate from) {
+        long lastId = 0;
+        int total = 0;
+        while (true) {
+            List<PointsRecord> records = pointsRecordService.list(new LambdaQueryWrapper<PointsRecord>()
+                    .select(PointsRecord::getId, PointsRecord::getUserId, PointsRecord::getCreateTime)
+                    .eq(PointsRecord::getType, SIGN_IN_TYPE)
+                    .ge(PointsRecord::getCreateTime, from.atStartOfDay())
+                    .gt(PointsRecord::getId, lastId)
+                    .orderByAsc(PointsRecord::getId)
+                    .last("LIMIT " + BATCH_SIZE));
+            if (records.isEmpty()) {
+                break;
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (PointsRecord record : records) {
+                    LocalDate date = record.getCreateTime().toLocalDate();
+                    YearMonth month = YearMonth.from(date);
+                    String key = key(record.getUserId(), month);
+                    conn.setBit(key, date.getDayOfMonth() - 1, true);
+                    conn.pExpireAt(key, expireAt(month));
+                }
+                return null;
+            });
+            total += records.size();
+            lastId = records.get(records.size() - 1).getId();
+            if (records.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+        log.info("签到位图回填完成: from={}, 记录数={}", from, total);
+    }
+
+    /**
+     * 截至某天的连续签到天数
+     *
+     * @param bits   当月1日至该天的签到位，该天为最低位
+     * @param length 位数，即该天的日期
+     */
+    private int continuousDays(Long userId, YearMonth month, long bits, int length) {
+        int days = 0;
+        for (int i = 0; i < RETENTION_MONTHS; i++) {
+            int run = Long.numberOfTrailingZeros(~bits);
+            days += Math.min(run, length);
+            if (run < length) {
+                break;
+            }
+            // 整月连续签到，继续向前一个月追溯
+            month = month.minusMonths(1);
+            length = month.lengthOfMonth();
+            bits = readBits(userId, month, length);
+        }
+        return days;
+    }
+
+    /**
+     * 读取当月1日至第 length 天的签到位，第 length 天为最低位；键不存在时为0
+     */
+    private long readBits(Long userId, YearMonth month, int length) {
+        List<Long> values = redisTemplate.opsForValue().bitField(key(userId, month), BitFieldSubCommands.create()
+                .get(BitFieldSubCommands.BitFieldType.unsigned(length)).valueAt(0));
+        Long value = values != null && !values.isEmpty() ? values.get(0) : null;
+        return value != null ? value : 0L;
+    }
+
+    private static String key(Long userId, YearMonth month) {
+        return RedisConstant.USER_SIGN_PREFIX + userId + ":" + month.format(MONTH_FORMATTER);
+    }
+
+    private static long expireAt(YearMonth month) {
+        return month.plusMonths(RETENTION_MONTHS).atDay(1)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,405 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.constant.RedisConstant;
+import com.lingxian.common.entity.Product;
+import com.lingxian.common.exception.BusinessException;
+import com.lingxian.common.mapper.ProductMapper;
+import com.lingxian.common.service.StockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockServiceImpl implements StockService {
+
+    /**
+     * 原子调整多个商品库存（释放）
+     * KEYS[1..n] 库存键，KEYS[n+1] 待回写集合；ARGV[1..n] 变化量，ARGV[n+1..2n] 商品ID。
+     * 返回 0 成功，i 表示第 i 个商品库存不足，-i 表示第 i 个商品未加载。
+     */
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+            "local n = #KEYS - 1\n" +
+            "for i = 1, n do\n" +
+            "  local stock = redis.call('GET', KEYS[i])\n" +
+            "  if not stock then return -i end\n" +
+            "  local delta = tonumber(ARGV[i])\n" +
+            "  if delta < 0 and tonumber(stock) + delta < 0 then return i end\n" +
+            "end\n" +
+            "for i = 1, n do\n" +
+            "  redis.call('INCRBY', KEYS[i], ARGV[i])\n" +
+            "  redis.call('SADD', KEYS[n + 1], ARGV[n + i])\n" +
+            "end\n" +
+            "return 0", Long.class);
+
+    /**
+     * 预占库存：KEYS[1..n] 库存键，KEYS[n+1] 待回写集合；ARGV[1..n] 数量，ARGV[n+1..2n] 商品ID。
+     * 返回空表示成功，{i, j...} 表示这些商品库存不足，{-i} 表示第 i 个商品未加载。
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List<Long>> RESERVE_SCRIPT = (RedisScript) new DefaultRedisScript<>(
+            "local n = #KEYS - 1\n" +
+            "local short = {}\n" +
+            "for i = 1, n do\n" +
+            "  local stock = redis.call('GET', KEYS[i])\n" +
+            "  if not stock then return {-i} end\n" +
+            "  if tonumber(stock) < tonumber(ARGV[i]) then short[#short + 1] = i end\n" +
+            "end\n" +
+            "if #short > 0 then return short end\n" +
+            "for i = 1, n do\n" +
+            "  redis.call('DECRBY', KEYS[i], ARGV[i])\n" +
+            "  redis.call('SADD', KEYS[n + 1], ARGV[n + i])\n" +
+            "end\n" +
+            "return {}", List.class);
+
+    /**
+     * 设置库存并标记待回写
+     */
+    private static final RedisScript<Long> SET_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SET', KEYS[1], ARGV[1])\n" +
+            "redis.call('SADD', KEYS[2], ARGV[2])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 持有者匹配时释放锁
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end\n" +
+            "return 0", Long.class);
+
+    private static final String FLUSH_LOCK = RedisConstant.STOCK_LOCK_PREFIX + "flush";
+    private static final String RECONCILE_LOCK = RedisConstant.STOCK_LOCK_PREFIX + "reconcile";
+    private static final long LOCK_TIMEOUT_SECONDS = 60;
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductMapper productMapper;
+
+    @Override
+    public void reserve(Map<Long, Integer> quantities) {
+        Set<Long> insufficient = tryReserve(quantities);
+        if (!insufficient.isEmpty()) {
+            Product product = productMapper.selectById(insufficient.iterator().next());
+            throw new BusinessException("商品库存不足: " + (product != null ? product.getName() : ""));
+        }
+    }
+
+    @Override
+    public Set<Long> tryReserve(Map<Long, Integer> quantities) {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (quantity == null || quantity <= 0) {
+                throw new BusinessException("商品数量不正确");
+            }
+            deltas.put(productId, quantity);
+        });
+        if (deltas.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        List<Long> productIds = new ArrayList<>(deltas.keySet());
+        List<String> keys = stockKeys(productIds);
+        keys.add(RedisConstant.PRODUCT_STOCK_DIRTY);
+        List<String> args = new ArrayList<>(productIds.size() * 2);
+        deltas.values().forEach(quantity -> args.add(String.valueOf(quantity)));
+        productIds.forEach(productId -> args.add(String.valueOf(productId)));
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            List<Long> codes = redisTemplate.execute(RESERVE_SCRIPT, keys, args.toArray());
+            if (codes == null || codes.isEmpty()) {
+                return Collections.emptySet();
+            }
+            if (codes.get(0) > 0) {
+                Set<Long> insufficient = new LinkedHashSet<>();
+                codes.forEach(code -> insufficient.add(productIds.get(code.intValue() - 1)));
+                return insufficient;
+            }
+            Set<Long> missing = load(productIds);
+            if (!missing.isEmpty()) {
+                throw new BusinessException("商品不存在: " + missing.iterator().next());
+            }
+        }
+        throw new BusinessException("库存繁忙，请稍后重试");
+    }
+
+    @Override
+    public void release(Map<Long, Integer> quantities) {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (quantity != null && quantity > 0) {
+                deltas.put(productId, quantity);
+            }
+        });
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && !deltas.isEmpty(); attempt++) {
+            if (adjust(deltas) == 0) {
+                return;
+            }
+            // 已删除的商品无需归还
+            load(new ArrayList<>(deltas.keySet())).forEach(deltas::remove);
+        }
+        if (!deltas.isEmpty()) {
+            log.error("释放库存失败: {}", deltas);
+        }
+    }
+
+    @Override
+    public void setStock(Long productId, int stock) {
+        if (stock < 0) {
+            throw new BusinessException("库存不能为负数");
+        }
+        redisTemplate.execute(SET_SCRIPT,
+                List.of(RedisConstant.PRODUCT_STOCK_PREFIX + productId, RedisConstant.PRODUCT_STOCK_DIRTY),
+                String.valueOf(stock), String.valueOf(productId));
+        productMapper.batchUpdateStock(Map.of(productId, stock));
+    }
+
+    @Override
+    public int getStock(Long productId) {
+        return getStocks(List.of(productId)).getOrDefault(productId, 0);
+    }
+
+    @Override
+    public Map<Long, Integer> getStocks(Collection<Long> productIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        if (productIds == null || productIds.isEmpty()) {
+            return result;
+        }
+        List<Long> ids = new ArrayList<>(new HashSet<>(productIds));
+        List<String> values = redisTemplate.opsForValue().multiGet(stockKeys(ids));
+        List<Long> unloaded = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String value = values != null ? values.get(i) : null;
+            if (value != null) {
+                result.put(ids.get(i), Integer.parseInt(value));
+            } else {
+                unloaded.add(ids.get(i));
+            }
+        }
+        if (!unloaded.isEmpty()) {
+            selectStocks(unloaded).forEach(result::put);
+        }
+        return result;
+    }
+
+    @Override
+    public int flush() {
+        String token = tryLock(FLUSH_LOCK);
+        if (token == null) {
+            return 0;
+        }
+        int flushed = 0;
+        try {
+            while (true) {
+                List<String> members = redisTemplate.opsForSet().pop(RedisConstant.PRODUCT_STOCK_DIRTY, BATCH_SIZE);
+                if (members == null || members.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = members.stream().map(Long::valueOf).collect(Collectors.toList());
+                try {
+                    flushed += writeBack(ids);
+                } catch (RuntimeException e) {
+                    redisTemplate.opsForSet().add(RedisConstant.PRODUCT_STOCK_DIRTY, members.toArray(new String[0]));
+                    throw e;
+                }
+            }
+        } finally {
+            unlock(FLUSH_LOCK, token);
+        }
+        return flushed;
+    }
+
+    @Override
+    public void reconcile() {
+        String token = tryLock(RECONCILE_LOCK);
+        if (token == null) {
+            return;
+        }
+        try {
+            int flushed = flush();
+            int fixed = 0;
+            int removed = 0;
+            List<Long> batch = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(RedisConstant.PRODUCT_STOCK_PREFIX + "*")
+                    .count(BATCH_SIZE)
+                    .build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    String suffix = cursor.next().substring(RedisConstant.PRODUCT_STOCK_PREFIX.length());
+                    if (!suffix.chars().allMatch(Character::isDigit)) {
+                        continue;
+                    }
+                    batch.add(Long.valueOf(suffix));
+                    if (batch.size() >= BATCH_SIZE) {
+                        int[] counts = reconcileBatch(batch);
+                        fixed += counts[0];
+                        removed += counts[1];
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                int[] counts = reconcileBatch(batch);
+                fixed += counts[0];
+                removed += counts[1];
+            }
+            log.info("库存对账完成: 回写={}, 修正={}, 清理={}", flushed, fixed, removed);
+        } finally {
+            unlock(RECONCILE_LOCK, token);
+        }
+    }
+
+    /**
+     * 定时批量回写库存
+     */
+    @Scheduled(fixedDelay = 1000, initialDelay = 5000)
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("库存回写失败", e);
+        }
+    }
+
+    /**
+     * 启动时对账，补写上次停机前未回写的库存
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("启动库存对账失败", e);
+        }
+    }
+
+    private long adjust(Map<Long, Integer> deltas) {
+        List<String> keys = new ArrayList<>(deltas.size() + 1);
+        List<String> args = new ArrayList<>(deltas.size() * 2);
+        List<String> ids = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> {
+            keys.add(RedisConstant.PRODUCT_STOCK_PREFIX + productId);
+            args.add(String.valueOf(delta));
+            ids.add(String.valueOf(productId));
+        });
+        keys.add(RedisConstant.PRODUCT_STOCK_DIRTY);
+        args.addAll(ids);
+        Long code = redisTemplate.execute(ADJUST_SCRIPT, keys, args.toArray());
+        return code != null ? code : -1;
+    }
+
+    /**
+     * 将数据库库存加载到 Redis（已加载的不覆盖）
+     *
+     * @return 数据库中不存在的商品ID
+     */
+    private Set<Long> load(List<Long> productIds) {
+        Map<Long, Integer> stocks = selectStocks(productIds);
+        Set<Long> missing = new HashSet<>(productIds);
+        stocks.forEach((productId, stock) -> {
+            missing.remove(productId);
+            redisTemplate.opsForValue().setIfAbsent(RedisConstant.PRODUCT_STOCK_PREFIX + productId, String.valueOf(stock));
+        });
+        return missing;
+    }
+
+    private int writeBack(List<Long> productIds) {
+        List<String> values = redisTemplate.opsForValue().multiGet(stockKeys(productIds));
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            String value = values != null ? values.get(i) : null;
+            if (value != null) {
+                stocks.put(productIds.get(i), Integer.parseInt(value));
+            }
+        }
+        if (stocks.isEmpty()) {
+            return 0;
+        }
+        productMapper.batchUpdateStock(stocks);
+        return stocks.size();
+    }
+
+    /**
+     * 对账一批计数器
+     *
+     * @return [修正数, 清理数]
+     */
+    private int[] reconcileBatch(List<Long> productIds) {
+        Map<Long, Integer> dbStocks = selectStocks(productIds);
+        List<String> values = redisTemplate.opsForValue().multiGet(stockKeys(productIds));
+        Map<Long, Integer> corrections = new HashMap<>();
+        List<String> orphanKeys = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            Long productId = productIds.get(i);
+            String value = values != null ? values.get(i) : null;
+            if (value == null) {
+                continue;
+            }
+            Integer dbStock = dbStocks.get(productId);
+            if (dbStock == null) {
+                orphanKeys.add(RedisConstant.PRODUCT_STOCK_PREFIX + productId);
+            } else if (dbStock != Integer.parseInt(value)) {
+                corrections.put(productId, Integer.parseInt(value));
+            }
+        }
+        if (!corrections.isEmpty()) {
+            log.warn("库存不一致，以 Redis 为准回写: {}", corrections);
+            productMapper.batchUpdateStock(corrections);
+        }
+        if (!orphanKeys.isEmpty()) {
+            redisTemplate.delete(orphanKeys);
+        }
+        return new int[]{corrections.size(), orphanKeys.size()};
+    }
+
+    private Map<Long, Integer> selectStocks(Collection<Long> productIds) {
+        return productMapper.selectList(new LambdaQueryWrapper<Product>()
+                        .select(Product::getId, Product::getStock)
+                        .in(Product::getId, productIds))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, p -> p.getStock() != null ? p.getStock() : 0, (a, b) -> a));
+    }
+
+    private List<String> stockKeys(List<Long> productIds) {
+        return productIds.stream()
+                .map(id -> RedisConstant.PRODUCT_STOCK_PREFIX + id)
+                .collect(Collectors.toList());
+    }
+
+    private String tryLock(String key) {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(key, token, LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return Boolean.TRUE.equals(locked) ? token : null;
+    }
+
+    private void unlock(String key, String token) {
+        redisTemplate.execute(UNLOCK_SCRIPT, List.of(key), token);
+    }
+}
@@ -0,0 +1,207 @@
+package com.lingxian.common.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lingxian.common.cache.CacheInvalidationBus;
+import com.lingxian.common.config.SystemConfigKey;
+import com.lingxian.common.config.SystemSettings;
+import com.lingxian.common.constant.RedisConstant;
+import com.lingxian.common.entity.SystemConfig;
+import com.lingxian.common.exception.BusinessException;
+import com.lingxian.common.mapper.SystemConfigMapper;
+import com.lingxian.common.service.SystemConfigService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, SystemConfig> implements SystemConfigService {
+
+    public static final String CACHE_NAME = "system-config";
+
+    private static final Map<String, SystemConfigKey> KEYS = new HashMap<>();
+
+    static {
+        for (SystemConfigKey key : SystemConfigKey.values()) {
+            KEYS.put(key.getKey(), key);
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheInvalidationBus invalidationBus;
+
+    private volatile SystemSettings snapshot;
+
+    @PostConstruct
+    public void init() {
+        // 广播内容为新版本号，本地快照已不旧于该版本时不再重复加载
+        invalidationBus.subscribe(CACHE_NAME, key -> {
+            SystemSettings current = snapshot;
+            if (current == null) {
+                return;
+            }
+            if (CacheInvalidationBus.ALL.equals(key) || Long.parseLong(key) > current.getVersion()) {
+                reload();
+            }
+        });
+    }
+
+    @Override
+    public SystemSettings current() {
+        SystemSettings current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                    log.info("系统配置已加载: version={}", current.getVersion());
+                }
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void updateConfigs(Map<String, Object> body) {
+        List<SystemConfig> configs = new ArrayList<>();
+        body.forEach((group, fields) -> {
+            if (!(fields instanceof Map<?, ?> fieldMap)) {
+                return;
+            }
+            fieldMap.forEach((field, value) -> {
+                SystemConfigKey key = SystemConfigKey.of(group, String.valueOf(field));
+                if (key == null) {
+                    log.debug("忽略未定义的配置项: {}.{}", group, field);
+                    return;
+                }
+                String raw = normalize(value);
+                try {
+                    key.parse(raw);
+                } catch (NumberFormatException e) {
+                    throw new BusinessException(key.getDescription() + "格式不正确");
+                } catch (IllegalArgumentException e) {
+                    throw new BusinessException(e.getMessage());
+                }
+                SystemConfig config = new SystemConfig();
+                config.setConfigKey(key.getKey());
+                config.setConfigValue(raw);
+                config.setDescription(key.getDescription());
+                configs.add(config);
+            });
+        });
+        if (configs.isEmpty()) {
+            return;
+        }
+
+        baseMapper.upsertBatch(configs);
+        String version;
+        try {
+            version = String.valueOf(redisTemplate.opsForValue().increment(RedisConstant.SYSTEM_CONFIG_VERSION));
+        } catch (Exception e) {
+            log.warn("更新系统配置版本号失败: {}", e.getMessage());
+            version = CacheInvalidationBus.ALL;
+        }
+        invalidationBus.publish(CACHE_NAME, version);
+        log.info("系统配置已保存: keys={}, version={}",
+                configs.stream().map(SystemConfig::getConfigKey).toList(), version);
+    }
+
+    @Override
+    public synchronized void reload() {
+        snapshot = load();
+        log.info("系统配置已重新加载: version={}", snapshot.getVersion());
+    }
+
+    /**
+     * 定时比对 Redis 中的版本号，兜底处理丢失的广播
+     */
+    @Scheduled(fixedDelay = 30 * 1000, initialDelay = 30 * 1000)
+    public void checkVersion() {
+        SystemSettings current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Long version = readVersion();
+        if (version == null) {
+            // 版本号丢失（Redis 清空或淘汰）时按本地快照的版本号补回并视为未变化，否则各实例会反复全量加载；
+            // 多个实例同时补回时以先写入的为准，其余实例下次比对时重新加载一次
+            seedVersion(current.getVersion());
+            return;
+        }
+        if (version >= 0 && version != current.getVersion()) {
+            reload();
+        }
+    }
+
+    /**
+     * 先读版本号再查库，加载期间有新的保存时版本号会落后，下次比对即重新加载
+     */
+    private SystemSettings load() {
+        Long version = readVersion();
+        Map<SystemConfigKey, Object> values = new EnumMap<>(SystemConfigKey.class);
+        for (SystemConfig config : list()) {
+            SystemConfigKey key = KEYS.get(config.getConfigKey());
+            if (key == null) {
+                continue;
+            }
+            try {
+                values.put(key, key.parse(config.getConfigValue()));
+            } catch (IllegalArgumentException e) {
+                log.warn("系统配置取值无效，使用默认值: key={}, value={}", config.getConfigKey(), config.getConfigValue());
+            }
+        }
+        return new SystemSettings(version != null ? version : 0, values);
+    }
+
+    /**
+     * Redis 中的配置版本号，键不存在（从未保存过或已丢失）时返回null，读取失败返回-1
+     */
+    private Long readVersion() {
+        try {
+            String value = redisTemplate.opsForValue().get(RedisConstant.SYSTEM_CONFIG_VERSION);
+            return value != null ? Long.parseLong(value) : null;
+        } catch (Exception e) {
+            log.warn("读取系统配置版本号失败: {}", e.getMessage());
+            return -1L;
+        }
+    }
+
+    /**
+     * 版本号不存在时写入，已存在时不覆盖
+     */
+    private void seedVersion(long version) {
+        String value = String.valueOf(Math.max(version, 0));
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(RedisConstant.SYSTEM_CONFIG_VERSION, value))) {
+                log.info("系统配置版本号已补回: version={}", value);
+            }
+        } catch (Exception e) {
+            log.warn("补回系统配置版本号失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 数字统一转为不带多余小数位的字符串，如 5.0 -> "5"
+     */
+    private static String normalize(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+        }
+        return value.toString().trim();
+    }
+}
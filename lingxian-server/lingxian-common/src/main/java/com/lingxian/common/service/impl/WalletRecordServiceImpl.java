@@ -5,6 +5,8 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.lingxian.common.entity.WalletRecord;
 import com.lingxian.common.mapper.WalletRecordMapper;
+import com.lingxian.common.pagination.KeysetCursor;
+import com.lingxian.common.result.PageResult;
 import com.lingxian.common.service.WalletRecordService;
 import org.springframework.stereotype.Service;
 
@@ -13,14 +15,23 @@ public class WalletRecordServiceImpl extends ServiceImpl<WalletRecordMapper, Wal
 
     @Override
     public Page<WalletRecord> getByMerchantId(Long merchantId, Integer type, int page, int pageSize) {
+        return page(new Page<>(page, pageSize), buildMerchantQuery(merchantId, type));
+    }
+
+    @Override
+    public PageResult<WalletRecord> getByMerchantId(Long merchantId, Integer type, String cursor, int pageSize) {
+        return KeysetCursor.page(this, buildMerchantQuery(merchantId, type), cursor, pageSize);
+    }
+
+    private LambdaQueryWrapper<WalletRecord> buildMerchantQuery(Long merchantId, Integer type) {
         LambdaQueryWrapper<WalletRecord> wrapper = new LambdaQueryWrapper<WalletRecord>()
                 .eq(WalletRecord::getMerchantId, merchantId)
-                .orderByDesc(WalletRecord::getCreateTime);
+                .orderByDesc(WalletRecord::getCreateTime)
+                .orderByDesc(WalletRecord::getId);
 
         if (type != null) {
             wrapper.eq(WalletRecord::getType, type);
         }
-
-        return page(new Page<>(page, pageSize), wrapper);
+        return wrapper;
     }
 }
@@ -0,0 +1,82 @@
+package com.lingxian.common.storage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 预签名URL缓存
+ * 按对象键缓存已签名的访问URL，缓存有效期短于签名有效期。签名URL之上最多再叠加 {@link #DERIVED_CACHE_LAYERS} 层缓存
+ * （图片JSON转换缓存、接口数据缓存），每层不超过 {@link #DERIVED_CACHE_TTL}，保证返回给前端的URL至少还有 {@link #MIN_REMAINING_VALIDITY} 可用。
+ */
+public class PresignedUrlCache {
+
+    /**
+     * 签名有效期
+     */
+    public static final Duration URL_EXPIRY = Duration.ofHours(1);
+
+    /**
+     * 返回给前端的URL剩余的最短有效期，需覆盖前端页面停留的时间
+     */
+    public static final Duration MIN_REMAINING_VALIDITY = Duration.ofMinutes(15);
+
+    /**
+     * 缓存签名URL（或含签名URL的数据）的上层缓存，每层的最长缓存时间
+     */
+    public static final Duration DERIVED_CACHE_TTL = Duration.ofMinutes(5);
+
+    /**
+     * 上层缓存的最大叠加层数：图片JSON转换缓存 + 商品详情、首页等接口数据缓存
+     */
+    public static final int DERIVED_CACHE_LAYERS = 2;
+
+    /**
+     * 缓存过期后URL剩余的最短有效期，为上层缓存叠加的最长时间加上返回给前端的最短有效期
+     */
+    public static final Duration SAFETY_MARGIN = MIN_REMAINING_VALIDITY
+            .plus(DERIVED_CACHE_TTL.multipliedBy(DERIVED_CACHE_LAYERS));
+
+    private final Cache<String, String> cache;
+
+    public PresignedUrlCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(URL_EXPIRY.minus(SAFETY_MARGIN))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取缓存的签名URL，未命中返回null
+     */
+    public String get(String objectKey) {
+        return cache.getIfPresent(objectKey);
+    }
+
+    public void put(String objectKey, String url) {
+        cache.put(objectKey, url);
+    }
+
+    public void invalidate(String objectKey) {
+        cache.invalidate(objectKey);
+    }
+
+    /**
+     * 命中统计
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.size());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.requestCount() == 0 ? 0 : Math.round(stats.hitRate() * 10000) / 100.0);
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+}
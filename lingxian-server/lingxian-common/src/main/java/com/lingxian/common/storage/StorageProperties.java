@@ -75,6 +75,10 @@ public class StorageProperties {
          * 存储目录前缀
          */
         private String prefix = "uploads/";
+        /**
+         * 签名URL缓存最大条目数
+         */
+        private long urlCacheSize = 20000;
     }
 
     @Data
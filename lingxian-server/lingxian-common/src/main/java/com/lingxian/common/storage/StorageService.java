@@ -2,6 +2,8 @@ package com.lingxian.common.storage;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+
 /**
  * 存储服务接口
  */
@@ -34,6 +36,17 @@ public interface StorageService {
      */
     String upload(byte[] bytes, String path, String contentType);
 
+    /**
+     * 上传输入流，不把内容整体读入内存，适合导出文件等大文件
+     *
+     * @param inputStream 输入流，由调用方关闭
+     * @param size        内容长度
+     * @param path        存储路径
+     * @param contentType 内容类型
+     * @return 文件访问URL
+     */
+    String upload(InputStream inputStream, long size, String path, String contentType);
+
     /**
      * 删除文件
      *
@@ -75,4 +88,13 @@ public interface StorageService {
         }
         return paths.stream().map(this::generateUrl).toList();
     }
+
+    /**
+     * 获取签名URL缓存统计，不签名的存储返回空
+     *
+     * @return 命中数、未命中数、命中率等
+     */
+    default java.util.Map<String, Object> getUrlCacheStats() {
+        return java.util.Collections.emptyMap();
+    }
 }
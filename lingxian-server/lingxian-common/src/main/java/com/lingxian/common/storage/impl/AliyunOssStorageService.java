@@ -10,6 +10,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
@@ -96,6 +97,21 @@ public class AliyunOssStorageService implements StorageService {
         return objectKey;
     }
 
+    @Override
+    public String upload(InputStream inputStream, long size, String path, String contentType) {
+        StorageProperties.AliyunConfig config = properties.getAliyun();
+        String objectKey = config.getPrefix() + path;
+
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        metadata.setContentLength(size);
+
+        getClient().putObject(config.getBucketName(), objectKey, inputStream, metadata);
+
+        // 返回相对路径
+        return objectKey;
+    }
+
     @Override
     public void delete(String path) {
         try {
@@ -7,9 +7,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
@@ -74,6 +76,24 @@ public class LocalStorageService implements StorageService {
         }
     }
 
+    @Override
+    public String upload(InputStream inputStream, long size, String path, String contentType) {
+        try {
+            Path storagePath = Paths.get(properties.getLocal().getPath(), path);
+            Files.createDirectories(storagePath.getParent());
+            Files.copy(inputStream, storagePath, StandardCopyOption.REPLACE_EXISTING);
+
+            String domain = properties.getLocal().getDomain();
+            if (!domain.endsWith("/")) {
+                domain += "/";
+            }
+            return domain + "uploads/" + path;
+        } catch (IOException e) {
+            log.error("本地文件上传失败", e);
+            throw new RuntimeException("文件上传失败", e);
+        }
+    }
+
     @Override
     public void delete(String path) {
         try {
@@ -1,5 +1,6 @@
 package com.lingxian.common.storage.impl;
 
+import com.lingxian.common.storage.PresignedUrlCache;
 import com.lingxian.common.storage.StorageProperties;
 import com.lingxian.common.storage.StorageService;
 import io.minio.*;
@@ -11,6 +12,10 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -21,10 +26,12 @@ import java.util.concurrent.TimeUnit;
 public class MinioStorageService implements StorageService {
 
     private final StorageProperties properties;
+    private final PresignedUrlCache urlCache;
     private MinioClient minioClient;
 
     public MinioStorageService(StorageProperties properties) {
         this.properties = properties;
+        this.urlCache = new PresignedUrlCache(properties.getMinio().getUrlCacheSize());
         initClient();
     }
 
@@ -124,6 +131,29 @@ public class MinioStorageService implements StorageService {
         }
     }
 
+    @Override
+    public String upload(InputStream inputStream, long size, String path, String contentType) {
+        try {
+            StorageProperties.MinioConfig config = properties.getMinio();
+            String objectKey = config.getPrefix() + path;
+
+            getClient().putObject(
+                    PutObjectArgs.builder()
+                            .bucket(config.getBucketName())
+                            .object(objectKey)
+                            .stream(inputStream, size, -1)
+                            .contentType(contentType)
+                            .build()
+            );
+
+            // 返回相对路径，不返回带签名的URL
+            return objectKey;
+        } catch (Exception e) {
+            log.error("MinIO文件上传失败", e);
+            throw new RuntimeException("文件上传失败", e);
+        }
+    }
+
     @Override
     public void delete(String path) {
         try {
@@ -135,6 +165,7 @@ public class MinioStorageService implements StorageService {
                             .object(objectKey)
                             .build()
             );
+            urlCache.invalidate(objectKey);
         } catch (Exception e) {
             log.error("MinIO文件删除失败", e);
         }
@@ -160,6 +191,33 @@ public class MinioStorageService implements StorageService {
 
     @Override
     public String generateUrl(String path) {
+        StorageProperties.MinioConfig config = properties.getMinio();
+        return generateUrl(path, config, getEndpointHost(config));
+    }
+
+    /**
+     * 批量生成临时访问URL，配置只解析一次，已缓存的对象键不再重新签名
+     */
+    @Override
+    public List<String> generateUrls(List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            return Collections.emptyList();
+        }
+        StorageProperties.MinioConfig config = properties.getMinio();
+        String endpointHost = getEndpointHost(config);
+        List<String> urls = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            urls.add(generateUrl(path, config, endpointHost));
+        }
+        return urls;
+    }
+
+    @Override
+    public Map<String, Object> getUrlCacheStats() {
+        return urlCache.stats();
+    }
+
+    private String generateUrl(String path, StorageProperties.MinioConfig config, String endpointHost) {
         if (path == null || path.isEmpty()) {
             return null;
         }
@@ -174,8 +232,6 @@ public class MinioStorageService implements StorageService {
         // 如果已经是完整URL（http开头），判断是否需要重新生成签名
         if (path.startsWith("http://") || path.startsWith("https://")) {
             // 如果是外部URL（如picsum.photos、placeholder.com），直接返回
-            StorageProperties.MinioConfig config = properties.getMinio();
-            String endpointHost = config.getEndpoint().replace("http://", "").replace("https://", "");
             if (!path.contains(endpointHost)) {
                 return path;
             }
@@ -195,7 +251,7 @@ public class MinioStorageService implements StorageService {
                         log.warn("检测到无效的objectKey: {}", objectKey);
                         return null;
                     }
-                    return generatePresignedUrl(objectKey);
+                    return getPresignedUrl(objectKey, config);
                 }
             } catch (Exception e) {
                 log.warn("解析MinIO URL失败: {}", path);
@@ -204,32 +260,28 @@ public class MinioStorageService implements StorageService {
         }
 
         // 相对路径，直接生成签名URL
-        return generatePresignedUrl(path);
+        return getPresignedUrl(path, config);
+    }
+
+    private String getEndpointHost(StorageProperties.MinioConfig config) {
+        return config.getEndpoint().replace("http://", "").replace("https://", "");
     }
 
     /**
-     * 生成预签名的临时访问URL
-     * @param objectKey 对象键
-     * @return 带签名的临时访问URL（有效期1小时）
+     * 优先从缓存获取预签名URL，未命中时签名并写入缓存
      */
-    private String generatePresignedUrl(String objectKey) {
-        StorageProperties.MinioConfig config = properties.getMinio();
-
+    private String getPresignedUrl(String objectKey, StorageProperties.MinioConfig config) {
+        String cached = urlCache.get(objectKey);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            // 生成预签名URL，有效期1小时
-            String presignedUrl = getClient().getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .method(Method.GET)
-                            .bucket(config.getBucketName())
-                            .object(objectKey)
-                            .expiry(1, TimeUnit.HOURS)
-                            .build()
-            );
-            log.debug("生成预签名URL: {}", presignedUrl);
+            String presignedUrl = generatePresignedUrl(objectKey, config);
+            urlCache.put(objectKey, presignedUrl);
             return presignedUrl;
         } catch (Exception e) {
             log.error("生成预签名URL失败", e);
-            // 降级到普通URL
+            // 降级到普通URL，不写入缓存
             String endpoint = config.getEndpoint();
             if (!endpoint.endsWith("/")) {
                 endpoint += "/";
@@ -237,4 +289,22 @@ public class MinioStorageService implements StorageService {
             return endpoint + config.getBucketName() + "/" + objectKey;
         }
     }
+
+    /**
+     * 生成预签名的临时访问URL
+     * @param objectKey 对象键
+     * @return 带签名的临时访问URL（有效期1小时）
+     */
+    private String generatePresignedUrl(String objectKey, StorageProperties.MinioConfig config) throws Exception {
+        String presignedUrl = getClient().getPresignedObjectUrl(
+                GetPresignedObjectUrlArgs.builder()
+                        .method(Method.GET)
+                        .bucket(config.getBucketName())
+                        .object(objectKey)
+                        .expiry((int) PresignedUrlCache.URL_EXPIRY.toSeconds(), TimeUnit.SECONDS)
+                        .build()
+        );
+        log.debug("生成预签名URL: {}", presignedUrl);
+        return presignedUrl;
+    }
 }
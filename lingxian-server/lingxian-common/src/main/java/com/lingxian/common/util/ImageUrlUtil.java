@@ -2,12 +2,21 @@ package com.lingxian.common.util;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.lingxian.common.storage.PresignedUrlCache;
 import com.lingxian.common.storage.StorageService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * 图片URL处理工具类
@@ -17,9 +26,32 @@ import java.util.stream.Collectors;
 @Component
 public class ImageUrlUtil {
 
+    /**
+     * 图片JSON转换结果含签名URL，缓存时间计入签名URL缓存的安全余量
+     */
+    private static final Duration JSON_CACHE_TTL = PresignedUrlCache.DERIVED_CACHE_TTL;
+
+    private static final int JSON_CACHE_SIZE = 10000;
+
     private final StorageService storageService;
     private final ObjectMapper objectMapper;
 
+    /**
+     * 原始图片JSON -> 解析后的路径列表，内容不变，只按容量淘汰
+     */
+    private final Cache<String, List<String>> parsedJsonCache = CacheBuilder.newBuilder()
+            .maximumSize(JSON_CACHE_SIZE)
+            .build();
+
+    /**
+     * 原始图片JSON -> 带签名URL的JSON
+     */
+    private final Cache<String, String> signedJsonCache = CacheBuilder.newBuilder()
+            .maximumSize(JSON_CACHE_SIZE)
+            .expireAfterWrite(JSON_CACHE_TTL)
+            .recordStats()
+            .build();
+
     public ImageUrlUtil(StorageService storageService, ObjectMapper objectMapper) {
         this.storageService = storageService;
         this.objectMapper = objectMapper;
@@ -48,9 +80,7 @@ public class ImageUrlUtil {
         if (paths == null || paths.isEmpty()) {
             return paths;
         }
-        return paths.stream()
-                .map(this::generateUrl)
-                .collect(Collectors.toList());
+        return new ArrayList<>(storageService.generateUrls(paths));
     }
 
     /**
@@ -63,10 +93,15 @@ public class ImageUrlUtil {
         if (imagesJson == null || imagesJson.isEmpty()) {
             return imagesJson;
         }
+        String cached = signedJsonCache.getIfPresent(imagesJson);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            List<String> paths = objectMapper.readValue(imagesJson, new TypeReference<List<String>>() {});
-            List<String> urls = generateUrls(paths);
-            return objectMapper.writeValueAsString(urls);
+            List<String> urls = generateUrls(parseImagesJson(imagesJson));
+            String signedJson = objectMapper.writeValueAsString(urls);
+            signedJsonCache.put(imagesJson, signedJson);
+            return signedJson;
         } catch (Exception e) {
             log.warn("解析图片JSON失败: {}", imagesJson, e);
             return imagesJson;
@@ -84,11 +119,49 @@ public class ImageUrlUtil {
             return null;
         }
         try {
-            List<String> paths = objectMapper.readValue(imagesJson, new TypeReference<List<String>>() {});
-            return generateUrls(paths);
+            return generateUrls(parseImagesJson(imagesJson));
         } catch (Exception e) {
             log.warn("解析图片JSON失败: {}", imagesJson, e);
             return null;
         }
     }
+
+    /**
+     * 获取图片URL缓存统计
+     *
+     * @return url-签名URL缓存，json-图片JSON转换缓存
+     */
+    public Map<String, Object> getCacheStats() {
+        CacheStats stats = signedJsonCache.stats();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("size", signedJsonCache.size());
+        json.put("hitCount", stats.hitCount());
+        json.put("missCount", stats.missCount());
+        json.put("hitRate", stats.requestCount() == 0 ? 0 : Math.round(stats.hitRate() * 10000) / 100.0);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("storageType", storageService.getType());
+        result.put("url", storageService.getUrlCacheStats());
+        result.put("json", json);
+        return result;
+    }
+
+    /**
+     * 定时输出缓存命中情况
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void logCacheStats() {
+        if (signedJsonCache.stats().requestCount() > 0 || !storageService.getUrlCacheStats().isEmpty()) {
+            log.info("图片URL缓存统计: {}", getCacheStats());
+        }
+    }
+
+    private List<String> parseImagesJson(String imagesJson) throws Exception {
+        List<String> paths = parsedJsonCache.getIfPresent(imagesJson);
+        if (paths == null) {
+            paths = Collections.unmodifiableList(objectMapper.readValue(imagesJson, new TypeReference<List<String>>() {}));
+            parsedJsonCache.put(imagesJson, paths);
+        }
+        return paths;
+    }
 }
@@ -0,0 +1,47 @@
+package com.lingxian.common.util;
+
+/**
+ * 已验证的 token 主体
+ *
+ * @param userId     用户ID（用户端为用户ID，商户端为商户用户ID，管理后台为管理员ID）
+ * @param merchantId 商户ID，仅商户端 token 携带
+ * @param role       token 角色，旧版 token 未携带时为 null
+ * @param version    token 版本号，未携带时为0
+ * @param expiresAt  过期时间（毫秒时间戳）
+ */
+public record JwtPrincipal(Long userId, Long merchantId, String role, long version, long expiresAt) {
+
+    public static final String ROLE_USER = "user";
+    public static final String ROLE_MERCHANT = "merchant";
+    public static final String ROLE_ADMIN = "admin";
+
+    /**
+     * refresh token 的角色后缀，refresh token 的角色与访问 token 不同，不能当作访问 token 使用
+     */
+    private static final String REFRESH_SUFFIX = ":refresh";
+
+    /**
+     * 指定角色的 refresh token 所携带的角色
+     */
+    public static String refreshRole(String role) {
+        return role + REFRESH_SUFFIX;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+
+    /**
+     * 角色是否匹配，未携带角色的 token 不匹配任何角色
+     */
+    public boolean hasRole(String expected) {
+        return expected != null && expected.equals(role);
+    }
+
+    /**
+     * 是否为未携带角色的旧版用户端 token，只有用户端可以接受
+     */
+    public boolean isLegacy() {
+        return role == null;
+    }
+}
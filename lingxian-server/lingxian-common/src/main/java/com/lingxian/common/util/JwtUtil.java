@@ -1,19 +1,25 @@
 package com.lingxian.common.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * JWT工具类
+ * 签名密钥与解析器启动时构建一次；验证通过的 token 按摘要缓存其主体，重复请求只需一次哈希查找。
  */
 @Slf4j
 @Component
@@ -28,17 +34,46 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration:2592000000}")
     private long refreshExpiration;
 
+    /**
+     * 已验证主体缓存容量
+     */
+    @Value("${jwt.principal-cache-size:10000}")
+    private long principalCacheSize;
+
+    /**
+     * 主体缓存的最长驻留时间，token 过期时间更早时以过期时间为准
+     */
+    private static final Duration PRINCIPAL_TTL = Duration.ofMinutes(10);
+
+    private SecretKey secretKey;
+    private JwtParser parser;
+    private Cache<String, JwtPrincipal> principalCache;
+
+    @PostConstruct
+    public void init() {
+        secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(secretKey).build();
+        principalCache = CacheBuilder.newBuilder()
+                .maximumSize(principalCacheSize)
+                .expireAfterWrite(PRINCIPAL_TTL)
+                .build();
+    }
+
     private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return secretKey;
     }
 
     /**
-     * 生成 token
+     * 生成带角色的 token
+     *
+     * @param userId      主体ID
+     * @param role        角色，见 {@link JwtPrincipal}
+     * @param extraClaims 其他声明
      */
-    public String generateToken(Long userId, String openid) {
-        Map<String, Object> claims = new HashMap<>();
+    public String generateToken(Long userId, String role, Map<String, Object> extraClaims) {
+        Map<String, Object> claims = new HashMap<>(extraClaims);
         claims.put("userId", userId);
-        claims.put("openid", openid);
+        claims.put("role", role);
 
         return Jwts.builder()
                 .claims(claims)
@@ -51,9 +86,13 @@ public class JwtUtil {
 
     /**
      * 生成 refresh token
+     *
+     * @param userId 主体ID
+     * @param role   访问 token 的角色，refresh token 携带 {@link JwtPrincipal#refreshRole(String)}
      */
-    public String generateRefreshToken(Long userId) {
+    public String generateRefreshToken(Long userId, String role) {
         return Jwts.builder()
+                .claim("role", JwtPrincipal.refreshRole(role))
                 .subject(String.valueOf(userId))
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + refreshExpiration))
@@ -66,11 +105,7 @@ public class JwtUtil {
      */
     public Claims parseToken(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSecretKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             log.warn("Token已过期: {}", e.getMessage());
             throw e;
@@ -81,34 +116,56 @@ public class JwtUtil {
     }
 
     /**
-     * 获取用户ID
+     * 验证 token 并返回主体，无效或已过期返回 null
+     * 同一 token 只做一次签名校验与解析，之后按摘要从缓存读取
      */
-    public Long getUserId(String token) {
-        try {
-            Claims claims = parseToken(token);
-            Object userId = claims.get("userId");
-            if (userId instanceof Integer) {
-                return ((Integer) userId).longValue();
-            } else if (userId instanceof Long) {
-                return (Long) userId;
-            } else {
-                return Long.parseLong(claims.getSubject());
+    public JwtPrincipal verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String digest = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+        JwtPrincipal principal = principalCache.getIfPresent(digest);
+        if (principal != null) {
+            if (!principal.isExpired(now)) {
+                return principal;
             }
+            principalCache.invalidate(digest);
+            return null;
+        }
+
+        Claims claims;
+        try {
+            claims = parseToken(token);
         } catch (Exception e) {
             return null;
         }
+        principal = new JwtPrincipal(
+                toLong(claims.get("userId"), claims.getSubject()),
+                toLong(claims.get("merchantId"), null),
+                claims.get("role", String.class),
+                claims.get("ver") instanceof Number ver ? ver.longValue() : 0L,
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+        if (principal.userId() == null) {
+            return null;
+        }
+        principalCache.put(digest, principal);
+        return principal;
+    }
+
+    /**
+     * 获取用户ID
+     */
+    public Long getUserId(String token) {
+        JwtPrincipal principal = verify(token);
+        return principal != null ? principal.userId() : null;
     }
 
     /**
      * 验证 token 是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            parseToken(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return verify(token) != null;
     }
 
     /**
@@ -124,4 +181,19 @@ public class JwtUtil {
             return true;
         }
     }
+
+    private static Long toLong(Object value, String fallback) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        String text = value != null ? value.toString() : fallback;
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
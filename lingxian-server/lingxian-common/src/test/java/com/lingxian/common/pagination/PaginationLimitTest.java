@@ -0,0 +1,121 @@
+package com.lingxian.common.pagination;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.config.MybatisPlusConfig;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分页下推回归测试
+ * 用 MybatisPlusConfig 注册的拦截器改写 page() 查询，分页插件被移除、改错方言或单页上限截断 SlicePage 时失败
+ */
+class PaginationLimitTest {
+
+    private static final String SQL = "SELECT id, order_no FROM t_order ORDER BY create_time DESC, id DESC";
+
+    private final MybatisPlusInterceptor interceptor = new MybatisPlusConfig().mybatisPlusInterceptor();
+    private final MybatisConfiguration configuration = new MybatisConfiguration();
+
+    @Test
+    void pageQueryIsLimitedOnFirstPage() throws SQLException {
+        BoundSql boundSql = paginate(new Page<>(1, 10));
+
+        assertTrue(boundSql.getSql().contains(" LIMIT "), boundSql.getSql());
+        assertEquals(List.of(10L), paginationArgs(boundSql));
+    }
+
+    @Test
+    void pageQueryIsLimitedAndOffsetOnLaterPages() throws SQLException {
+        BoundSql boundSql = paginate(new Page<>(3, 20));
+
+        assertTrue(boundSql.getSql().contains(" LIMIT "), boundSql.getSql());
+        assertTrue(boundSql.getSql().contains(" OFFSET "), boundSql.getSql());
+        assertEquals(List.of(20L, 40L), paginationArgs(boundSql));
+    }
+
+    @Test
+    void oversizedPageIsClampedToMaxPageSize() throws SQLException {
+        BoundSql boundSql = paginate(new Page<>(1, 100_000));
+
+        assertEquals(List.of(MybatisPlusConfig.MAX_PAGE_SIZE), paginationArgs(boundSql));
+    }
+
+    @Test
+    void slicePageFetchesOneExtraRow() throws SQLException {
+        BoundSql boundSql = paginate(new SlicePage<>(2, 20));
+
+        assertEquals(List.of(21L, 20L), paginationArgs(boundSql));
+    }
+
+    @Test
+    void slicePageAtMaxPageSizeStillDetectsMore() throws SQLException {
+        SlicePage<Object> page = new SlicePage<>(1, MybatisPlusConfig.MAX_PAGE_SIZE);
+        BoundSql boundSql = paginate(page);
+
+        assertEquals(List.of(MybatisPlusConfig.MAX_PAGE_SIZE + 1), paginationArgs(boundSql));
+
+        List<Object> rows = new ArrayList<>();
+        for (long i = 0; i <= MybatisPlusConfig.MAX_PAGE_SIZE; i++) {
+            rows.add(i);
+        }
+        page.setRecords(rows);
+        assertTrue(page.hasMore());
+        assertEquals(MybatisPlusConfig.MAX_PAGE_SIZE, page.getRecords().size());
+    }
+
+    @Test
+    void slicePageSizeIsClampedToMaxPageSize() throws SQLException {
+        SlicePage<Object> page = new SlicePage<>(1, 100_000);
+        BoundSql boundSql = paginate(page);
+
+        assertEquals(MybatisPlusConfig.MAX_PAGE_SIZE, page.getPageSize());
+        assertEquals(List.of(MybatisPlusConfig.MAX_PAGE_SIZE + 1), paginationArgs(boundSql));
+    }
+
+    @Test
+    void slicePageSkipsCount() {
+        assertFalse(new SlicePage<>(1, 10).searchCount());
+    }
+
+    /**
+     * 依次执行所有内部拦截器的查询前处理，与 MybatisPlusInterceptor 对 page() 查询的改写一致（COUNT 查询不在此验证）
+     */
+    private BoundSql paginate(Page<?> page) throws SQLException {
+        MappedStatement ms = new MappedStatement.Builder(configuration, "test.selectPage",
+                new StaticSqlSource(configuration, SQL), SqlCommandType.SELECT).build();
+        BoundSql boundSql = ms.getBoundSql(page);
+        for (InnerInterceptor inner : interceptor.getInterceptors()) {
+            inner.beforeQuery(null, ms, page, RowBounds.DEFAULT, null, boundSql);
+        }
+        return boundSql;
+    }
+
+    /**
+     * 分页插件追加的参数（LIMIT、OFFSET），按在 SQL 中出现的顺序
+     */
+    private static List<Long> paginationArgs(BoundSql boundSql) {
+        List<Long> args = new ArrayList<>();
+        for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+            if (boundSql.hasAdditionalParameter(mapping.getProperty())) {
+                args.add(((Number) boundSql.getAdditionalParameter(mapping.getProperty())).longValue());
+            }
+        }
+        return args;
+    }
+}
@@ -1,5 +1,7 @@
 package com.lingxian.merchant.config;
 
+import com.lingxian.common.cache.MerchantTokenVersions;
+import com.lingxian.common.util.JwtPrincipal;
 import com.lingxian.common.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -14,38 +16,52 @@ import java.io.IOException;
 
 /**
  * JWT认证过滤器 - 商户端
- * 从Authorization头提取JWT，验证后将商户用户ID设置到请求头
+ * 从Authorization头提取JWT，验证后将商户用户ID、商户ID设置到请求头；
+ * 客户端自带的同名请求头总是先被移除，同时写入请求属性 {@link #MERCHANT_USER_ID_ATTRIBUTE}，鉴权只认该属性。
+ * token 版本落后（已换绑商户或商户状态变化）时视为未登录，需 refresh 重新签发
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    public static final String MERCHANT_USER_ID_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".merchantUserId";
+
+    private static final String MERCHANT_USER_ID_HEADER = "X-Merchant-User-Id";
+    private static final String MERCHANT_ID_HEADER = "X-Merchant-Id";
+
     private final JwtUtil jwtUtil;
+    private final MerchantTokenVersions tokenVersions;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
+        // 身份请求头只能由本过滤器写入
+        MutableHttpServletRequest mutableRequest = new MutableHttpServletRequest(request);
+        mutableRequest.removeHeader(MERCHANT_USER_ID_HEADER);
+        mutableRequest.removeHeader(MERCHANT_ID_HEADER);
+
         String authorization = request.getHeader("Authorization");
 
         if (authorization != null && authorization.startsWith("Bearer ")) {
             String token = authorization.substring(7);
 
             try {
-                if (jwtUtil.validateToken(token)) {
-                    Long userId = jwtUtil.getUserId(token);
-                    // 使用 MutableHttpServletRequest 包装原请求，添加自定义头
-                    MutableHttpServletRequest mutableRequest = new MutableHttpServletRequest(request);
-                    mutableRequest.putHeader("X-Merchant-User-Id", String.valueOf(userId));
-                    filterChain.doFilter(mutableRequest, response);
-                    return;
+                JwtPrincipal principal = jwtUtil.verify(token);
+                if (principal != null && principal.hasRole(JwtPrincipal.ROLE_MERCHANT)
+                        && tokenVersions.isCurrent(principal.userId(), principal.version())) {
+                    mutableRequest.putHeader(MERCHANT_USER_ID_HEADER, String.valueOf(principal.userId()));
+                    if (principal.merchantId() != null) {
+                        mutableRequest.putHeader(MERCHANT_ID_HEADER, String.valueOf(principal.merchantId()));
+                    }
+                    mutableRequest.setAttribute(MERCHANT_USER_ID_ATTRIBUTE, principal.userId());
                 }
             } catch (Exception e) {
                 log.warn("JWT验证失败: {}", e.getMessage());
             }
         }
 
-        filterChain.doFilter(request, response);
+        filterChain.doFilter(mutableRequest, response);
     }
 }
@@ -1,8 +1,15 @@
 package com.lingxian.merchant.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lingxian.common.result.Result;
+import com.lingxian.common.result.ResultCode;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -10,12 +17,16 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final ObjectMapper objectMapper;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -28,16 +39,35 @@ public class SecurityConfig {
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
             // 配置请求授权
             .authorizeHttpRequests(auth -> auth
-                // 放行所有商户端接口 (开发阶段)
-                .requestMatchers("/merchant/**").permitAll()
+                // 放行跨域预检请求
+                .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                // 放行登录、登录状态检查、刷新 token 接口
+                .requestMatchers("/merchant/auth/wx-login", "/merchant/auth/login",
+                        "/merchant/auth/check", "/merchant/auth/refresh").permitAll()
+                // 其余商户端接口要求 token 有效（由 JWT 过滤器写入请求属性）
+                .requestMatchers("/merchant/**").access((authentication, context) -> new AuthorizationDecision(
+                        context.getRequest().getAttribute(JwtAuthenticationFilter.MERCHANT_USER_ID_ATTRIBUTE) != null))
                 // 放行 Swagger 文档
                 .requestMatchers("/doc.html", "/webjars/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-resources/**").permitAll()
                 // 放行健康检查
                 .requestMatchers("/actuator/**").permitAll()
                 // 其他请求需要认证
                 .anyRequest().authenticated()
+            )
+            // 未登录或 token 失效返回401
+            .exceptionHandling(exception -> exception
+                .authenticationEntryPoint((request, response, e) -> writeFailure(response, ResultCode.UNAUTHORIZED))
+                .accessDeniedHandler((request, response, e) -> writeFailure(response, ResultCode.FORBIDDEN))
             );
 
         return http.build();
     }
+
+    private void writeFailure(HttpServletResponse response, ResultCode resultCode) throws IOException {
+        response.setStatus(resultCode == ResultCode.UNAUTHORIZED
+                ? HttpServletResponse.SC_UNAUTHORIZED : HttpServletResponse.SC_FORBIDDEN);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getWriter(), Result.failed(resultCode));
+    }
 }
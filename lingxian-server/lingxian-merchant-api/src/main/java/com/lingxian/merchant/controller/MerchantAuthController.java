@@ -4,12 +4,17 @@ import cn.binarywang.wx.miniapp.api.WxMaService;
 import cn.binarywang.wx.miniapp.bean.WxMaJscode2SessionResult;
 import cn.binarywang.wx.miniapp.bean.WxMaPhoneNumberInfo;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.cache.MerchantAvailabilityIndex;
+import com.lingxian.common.cache.MerchantTokenVersions;
 import com.lingxian.common.entity.Merchant;
 import com.lingxian.common.entity.MerchantUser;
+import com.lingxian.common.exception.BusinessException;
 import com.lingxian.common.result.Result;
+import com.lingxian.common.result.ResultCode;
 import com.lingxian.common.service.MerchantService;
 import com.lingxian.common.service.MerchantUserService;
 import com.lingxian.common.util.ImageUrlUtil;
+import com.lingxian.common.util.JwtPrincipal;
 import com.lingxian.common.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -38,6 +43,8 @@ public class MerchantAuthController {
     private final MerchantService merchantService;
     private final JwtUtil jwtUtil;
     private final ImageUrlUtil imageUrlUtil;
+    private final MerchantTokenVersions tokenVersions;
+    private final MerchantAvailabilityIndex merchantAvailabilityIndex;
 
     @Value("${spring.profiles.active:dev}")
     private String activeProfile;
@@ -47,12 +54,16 @@ public class MerchantAuthController {
             MerchantUserService merchantUserService,
             MerchantService merchantService,
             JwtUtil jwtUtil,
-            ImageUrlUtil imageUrlUtil) {
+            ImageUrlUtil imageUrlUtil,
+            MerchantTokenVersions tokenVersions,
+            MerchantAvailabilityIndex merchantAvailabilityIndex) {
         this.wxMaService = wxMaService;
         this.merchantUserService = merchantUserService;
         this.merchantService = merchantService;
         this.jwtUtil = jwtUtil;
         this.imageUrlUtil = imageUrlUtil;
+        this.tokenVersions = tokenVersions;
+        this.merchantAvailabilityIndex = merchantAvailabilityIndex;
     }
 
     @PostMapping("/wx-login")
@@ -125,9 +136,12 @@ public class MerchantAuthController {
                 log.info("商户用户登录: userId={}", merchantUser.getId());
             }
 
+            Merchant merchant = merchantUser.getMerchantId() != null
+                    ? merchantService.getById(merchantUser.getMerchantId()) : null;
+
             // 生成 token (使用商户用户ID)
-            String token = jwtUtil.generateToken(merchantUser.getId(), openid);
-            String refreshToken = jwtUtil.generateRefreshToken(merchantUser.getId());
+            String token = issueToken(merchantUser, merchant);
+            String refreshToken = jwtUtil.generateRefreshToken(merchantUser.getId(), JwtPrincipal.ROLE_MERCHANT);
 
             // 构建返回数据
             Map<String, Object> result = new HashMap<>();
@@ -145,7 +159,6 @@ public class MerchantAuthController {
 
             // 商户信息（如果已关联）
             if (merchantUser.getMerchantId() != null) {
-                Merchant merchant = merchantService.getById(merchantUser.getMerchantId());
                 if (merchant != null) {
                     Map<String, Object> merchantInfo = buildMerchantInfo(merchant);
                     result.put("merchantInfo", merchantInfo);
@@ -222,9 +235,12 @@ public class MerchantAuthController {
             merchantUserService.updateById(merchantUser);
         }
 
+        Merchant merchant = merchantUser.getMerchantId() != null
+                ? merchantService.getById(merchantUser.getMerchantId()) : null;
+
         // 生成 token
-        String token = jwtUtil.generateToken(merchantUser.getId(), merchantUser.getOpenid());
-        String refreshToken = jwtUtil.generateRefreshToken(merchantUser.getId());
+        String token = issueToken(merchantUser, merchant);
+        String refreshToken = jwtUtil.generateRefreshToken(merchantUser.getId(), JwtPrincipal.ROLE_MERCHANT);
 
         // 构建返回数据
         Map<String, Object> result = new HashMap<>();
@@ -242,7 +258,6 @@ public class MerchantAuthController {
 
         // 商户信息
         if (merchantUser.getMerchantId() != null) {
-            Merchant merchant = merchantService.getById(merchantUser.getMerchantId());
             if (merchant != null) {
                 Map<String, Object> merchantInfo = buildMerchantInfo(merchant);
                 result.put("merchantInfo", merchantInfo);
@@ -313,10 +328,11 @@ public class MerchantAuthController {
             return Result.success(result);
         }
 
-        String token = authorization.substring(7);
-        if (jwtUtil.validateToken(token)) {
-            Long userId = jwtUtil.getUserId(token);
-            MerchantUser merchantUser = merchantUserService.getById(userId);
+        // 与过滤器一致：只认当前版本的商户端 token
+        JwtPrincipal principal = jwtUtil.verify(authorization.substring(7));
+        if (principal != null && principal.hasRole(JwtPrincipal.ROLE_MERCHANT)
+                && tokenVersions.isCurrent(principal.userId(), principal.version())) {
+            MerchantUser merchantUser = merchantUserService.getById(principal.userId());
 
             if (merchantUser != null && merchantUser.getStatus() == 1) {
                 result.put("isLogin", true);
@@ -415,6 +431,7 @@ public class MerchantAuthController {
         merchant.setUpdateTime(now);
 
         merchantService.save(merchant);
+        merchantAvailabilityIndex.onMerchantChanged(merchant.getId());
 
         // 关联商户用户
         merchantUser.setMerchantId(merchant.getId());
@@ -424,7 +441,11 @@ public class MerchantAuthController {
 
         log.info("入驻申请提交成功: merchantId={}", merchant.getId());
 
+        // 绑定商户后旧 token 失效，返回携带商户ID的新 token
+        tokenVersions.revoke(merchantUser.getId());
+
         Map<String, Object> result = new HashMap<>();
+        result.put("token", issueToken(merchantUser, merchant));
         result.put("merchantId", merchant.getId());
         result.put("verifyStatus", 1);
         result.put("message", "申请已提交，请等待审核");
@@ -514,10 +535,15 @@ public class MerchantAuthController {
         merchant.setUpdateTime(now);
 
         merchantService.updateById(merchant);
+        merchantAvailabilityIndex.onMerchantChanged(merchant.getId());
 
         log.info("入驻申请更新成功: merchantId={}", merchant.getId());
 
+        // 审核状态变化，旧 token 失效
+        tokenVersions.revoke(merchantUser.getId());
+
         Map<String, Object> result = new HashMap<>();
+        result.put("token", issueToken(merchantUser, merchant));
         result.put("merchantId", merchant.getId());
         result.put("verifyStatus", 1);
         result.put("message", "申请已重新提交，请等待审核");
@@ -624,20 +650,23 @@ public class MerchantAuthController {
             return Result.failed("refreshToken不能为空");
         }
 
-        if (!jwtUtil.validateToken(refreshToken)) {
+        JwtPrincipal principal = jwtUtil.verify(refreshToken);
+        if (principal == null || !principal.hasRole(JwtPrincipal.refreshRole(JwtPrincipal.ROLE_MERCHANT))) {
             return Result.failed("refreshToken无效或已过期");
         }
 
-        Long userId = jwtUtil.getUserId(refreshToken);
-        MerchantUser merchantUser = merchantUserService.getById(userId);
+        MerchantUser merchantUser = merchantUserService.getById(principal.userId());
 
         if (merchantUser == null || merchantUser.getStatus() != 1) {
             return Result.failed("用户不存在或已禁用");
         }
 
-        // 生成新 token
-        String newToken = jwtUtil.generateToken(merchantUser.getId(), merchantUser.getOpenid());
-        String newRefreshToken = jwtUtil.generateRefreshToken(merchantUser.getId());
+        Merchant merchant = merchantUser.getMerchantId() != null
+                ? merchantService.getById(merchantUser.getMerchantId()) : null;
+
+        // 生成新 token，携带最新的商户ID、审核状态与版本号
+        String newToken = issueToken(merchantUser, merchant);
+        String newRefreshToken = jwtUtil.generateRefreshToken(merchantUser.getId(), JwtPrincipal.ROLE_MERCHANT);
 
         Map<String, Object> result = new HashMap<>();
         result.put("token", newToken);
@@ -646,6 +675,24 @@ public class MerchantAuthController {
         return Result.success(result);
     }
 
+    /**
+     * 签发商户端 token，携带商户ID、商户审核状态及当前 token 版本号
+     */
+    private String issueToken(MerchantUser merchantUser, Merchant merchant) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("openid", merchantUser.getOpenid());
+        Long version = tokenVersions.current(merchantUser.getId());
+        if (version == null) {
+            // 版本号不可用时签发的 token 无法通过校验，直接提示稍后重试
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE);
+        }
+        claims.put("ver", version);
+        if (merchant != null) {
+            claims.put("merchantId", merchant.getId());
+        }
+        return jwtUtil.generateToken(merchantUser.getId(), JwtPrincipal.ROLE_MERCHANT, claims);
+    }
+
     /**
      * 构建商户信息Map
      */
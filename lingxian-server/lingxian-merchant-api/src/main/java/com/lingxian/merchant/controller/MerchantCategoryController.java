@@ -1,9 +1,8 @@
 package com.lingxian.merchant.controller;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.cache.CategoryTree;
 import com.lingxian.common.entity.Category;
 import com.lingxian.common.result.Result;
-import com.lingxian.common.service.CategoryService;
 import com.lingxian.common.util.ImageUrlUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -21,19 +20,14 @@ import java.util.stream.Collectors;
 @Tag(name = "商户端-分类管理", description = "商户商品分类管理接口")
 public class MerchantCategoryController {
 
-    private final CategoryService categoryService;
+    private final CategoryTree categoryTree;
     private final ImageUrlUtil imageUrlUtil;
 
     @GetMapping
     @Operation(summary = "获取分类列表（扁平结构）")
     public Result<List<Map<String, Object>>> getCategoryList() {
-        // 查询所有启用的分类（@TableLogic会自动过滤已删除的）
-        List<Category> categories = categoryService.list(
-                new LambdaQueryWrapper<Category>()
-                        .eq(Category::getStatus, 1)
-                        .orderByAsc(Category::getSort)
-                        .orderByAsc(Category::getId)
-        );
+        // 所有启用的分类
+        List<Category> categories = categoryTree.list(true);
 
         List<Map<String, Object>> result = categories.stream().map(category -> {
             Map<String, Object> map = new HashMap<>();
@@ -54,22 +48,8 @@ public class MerchantCategoryController {
     @GetMapping("/tree")
     @Operation(summary = "获取分类树形结构")
     public Result<List<Map<String, Object>>> getCategoryTree() {
-        // 查询所有启用的分类
-        List<Category> categories = categoryService.list(
-                new LambdaQueryWrapper<Category>()
-                        .eq(Category::getStatus, 1)
-                        .orderByAsc(Category::getSort)
-                        .orderByAsc(Category::getId)
-        );
-
-        // 分离一级和二级分类
-        List<Category> parentCategories = categories.stream()
-                .filter(c -> c.getParentId() == null || c.getParentId() == 0)
-                .collect(Collectors.toList());
-
-        Map<Long, List<Category>> childrenMap = categories.stream()
-                .filter(c -> c.getParentId() != null && c.getParentId() > 0)
-                .collect(Collectors.groupingBy(Category::getParentId));
+        // 启用的一级分类及其启用的子分类
+        List<Category> parentCategories = categoryTree.getTree(true);
 
         // 构建树形结构
         List<Map<String, Object>> result = parentCategories.stream().map(parent -> {
@@ -80,7 +60,7 @@ public class MerchantCategoryController {
             map.put("image", imageUrlUtil.generateUrl(parent.getImage()));
 
             // 获取子分类
-            List<Category> children = childrenMap.getOrDefault(parent.getId(), new ArrayList<>());
+            List<Category> children = parent.getChildren();
             List<Map<String, Object>> childList = children.stream().map(child -> {
                 Map<String, Object> childMap = new HashMap<>();
                 childMap.put("id", child.getId());
@@ -1,9 +1,12 @@
 package com.lingxian.merchant.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.ProductDetailCache;
 import com.lingxian.common.entity.*;
+import com.lingxian.common.loader.BatchLoader;
+import com.lingxian.common.loader.BatchLoaders;
+import com.lingxian.common.pagination.KeysetCursor;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.*;
@@ -16,7 +19,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
@@ -33,21 +35,21 @@ public class MerchantCommentController {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private final ProductCommentService productCommentService;
-    private final MerchantUserService merchantUserService;
-    private final UserService userService;
-    private final ProductService productService;
+    private final RatingStatsService ratingStatsService;
+    private final BatchLoaders batchLoaders;
     private final ImageUrlUtil imageUrlUtil;
+    private final ProductDetailCache productDetailCache;
 
     @GetMapping
-    @Operation(summary = "获取评价列表")
+    @Operation(summary = "获取评价列表（传 cursor 时按游标分页）")
     public Result<PageResult<Map<String, Object>>> getCommentList(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer pageSize,
             @RequestParam(required = false) String ratingType,
-            @RequestParam(required = false) Integer unreplied) {
+            @RequestParam(required = false) Integer unreplied,
+            @RequestParam(required = false) String cursor) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -56,7 +58,8 @@ public class MerchantCommentController {
         LambdaQueryWrapper<ProductComment> wrapper = new LambdaQueryWrapper<ProductComment>()
                 .eq(ProductComment::getMerchantId, merchantId)
                 .eq(ProductComment::getDeleted, 0)
-                .orderByDesc(ProductComment::getCreateTime);
+                .orderByDesc(ProductComment::getCreateTime)
+                .orderByDesc(ProductComment::getId);
 
         // 评分筛选
         if ("good".equals(ratingType)) {
@@ -72,15 +75,18 @@ public class MerchantCommentController {
             wrapper.isNull(ProductComment::getReplyContent);
         }
 
+        // 游标分页
+        if (cursor != null) {
+            PageResult<ProductComment> cursorData = KeysetCursor.page(productCommentService, wrapper, cursor, pageSize);
+            List<Map<String, Object>> records = buildCommentMaps(cursorData.getRecords());
+            return Result.success(PageResult.ofCursor(cursorData.getSize(), records, cursorData.getNextCursor()));
+        }
+
         // 分页查询
         Page<ProductComment> pageData = productCommentService.page(new Page<>(page, pageSize), wrapper);
 
         // 获取用户和商品信息
-        List<Map<String, Object>> records = new ArrayList<>();
-        for (ProductComment comment : pageData.getRecords()) {
-            Map<String, Object> map = buildCommentMap(comment);
-            records.add(map);
-        }
+        List<Map<String, Object>> records = buildCommentMaps(pageData.getRecords());
 
         PageResult<Map<String, Object>> pageResult = PageResult.of(
                 pageData.getTotal(),
@@ -94,10 +100,9 @@ public class MerchantCommentController {
     @GetMapping("/{id}")
     @Operation(summary = "获取评价详情")
     public Result<Map<String, Object>> getCommentDetail(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -107,17 +112,16 @@ public class MerchantCommentController {
             return Result.failed("评价不存在");
         }
 
-        return Result.success(buildCommentMap(comment));
+        return Result.success(buildCommentMap(comment, batchLoaders.create()));
     }
 
     @PutMapping("/{id}/reply")
     @Operation(summary = "回复评价")
     public Result<Void> replyComment(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id,
             @RequestBody Map<String, String> body) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -138,13 +142,10 @@ public class MerchantCommentController {
         }
 
         // 更新回复
-        LambdaUpdateWrapper<ProductComment> updateWrapper = new LambdaUpdateWrapper<>();
-        updateWrapper.eq(ProductComment::getId, id)
-                .set(ProductComment::getReplyContent, content.trim())
-                .set(ProductComment::getReplyTime, LocalDateTime.now())
-                .set(ProductComment::getUpdateTime, LocalDateTime.now());
-
-        productCommentService.update(updateWrapper);
+        if (!productCommentService.reply(id, content.trim())) {
+            return Result.failed("该评价已回复，不能重复回复");
+        }
+        productDetailCache.evictProduct(comment.getProductId());
 
         return Result.success();
     }
@@ -152,52 +153,17 @@ public class MerchantCommentController {
     @GetMapping("/stats")
     @Operation(summary = "获取评价统计")
     public Result<Map<String, Object>> getCommentStats(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
 
-        // 查询总评价数
-        long totalCount = productCommentService.count(
-                new LambdaQueryWrapper<ProductComment>()
-                        .eq(ProductComment::getMerchantId, merchantId)
-                        .eq(ProductComment::getDeleted, 0)
-        );
-
-        // 查询好评数 (4-5星)
-        long goodCount = productCommentService.count(
-                new LambdaQueryWrapper<ProductComment>()
-                        .eq(ProductComment::getMerchantId, merchantId)
-                        .eq(ProductComment::getDeleted, 0)
-                        .ge(ProductComment::getRating, 4)
-        );
-
-        // 查询待回复数
-        long unrepliedCount = productCommentService.count(
-                new LambdaQueryWrapper<ProductComment>()
-                        .eq(ProductComment::getMerchantId, merchantId)
-                        .eq(ProductComment::getDeleted, 0)
-                        .isNull(ProductComment::getReplyContent)
-        );
-
-        // 计算平均评分
-        List<ProductComment> allComments = productCommentService.list(
-                new LambdaQueryWrapper<ProductComment>()
-                        .eq(ProductComment::getMerchantId, merchantId)
-                        .eq(ProductComment::getDeleted, 0)
-                        .select(ProductComment::getRating)
-        );
-
-        BigDecimal avgRating = BigDecimal.valueOf(5.0);
-        if (!allComments.isEmpty()) {
-            double sum = allComments.stream()
-                    .mapToInt(c -> c.getRating() != null ? c.getRating() : 5)
-                    .sum();
-            avgRating = BigDecimal.valueOf(sum / allComments.size())
-                    .setScale(1, RoundingMode.HALF_UP);
-        }
+        RatingStats ratingStats = ratingStatsService.getMerchantStats(merchantId);
+        long totalCount = ratingStats.getRatingCount();
+        long goodCount = ratingStats.getGoodCount();
+        long unrepliedCount = ratingStats.getUnrepliedCount();
+        BigDecimal avgRating = ratingStats.getAvgRating();
 
         // 计算好评率
         String goodRate = "100%";
@@ -216,10 +182,24 @@ public class MerchantCommentController {
         return Result.success(stats);
     }
 
+    /**
+     * 批量构建评价Map，整页的用户和商品各只查一次
+     */
+    private List<Map<String, Object>> buildCommentMaps(List<ProductComment> comments) {
+        BatchLoader loader = batchLoaders.create();
+        loader.users().primeAll(comments, ProductComment::getUserId);
+        loader.products().primeAll(comments, ProductComment::getProductId);
+        List<Map<String, Object>> records = new ArrayList<>(comments.size());
+        for (ProductComment comment : comments) {
+            records.add(buildCommentMap(comment, loader));
+        }
+        return records;
+    }
+
     /**
      * 构建评价响应数据
      */
-    private Map<String, Object> buildCommentMap(ProductComment comment) {
+    private Map<String, Object> buildCommentMap(ProductComment comment, BatchLoader loader) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", comment.getId());
         map.put("userId", comment.getUserId());
@@ -236,37 +216,19 @@ public class MerchantCommentController {
                 comment.getCreateTime().format(FORMATTER) : null);
 
         // 获取用户信息
-        if (comment.getUserId() != null) {
-            User user = userService.getById(comment.getUserId());
-            if (user != null) {
-                map.put("userName", user.getNickname());
-                map.put("userAvatar", imageUrlUtil.generateUrl(user.getAvatar()));
-            }
+        User user = loader.users().get(comment.getUserId());
+        if (user != null) {
+            map.put("userName", user.getNickname());
+            map.put("userAvatar", imageUrlUtil.generateUrl(user.getAvatar()));
         }
 
         // 获取商品信息
-        if (comment.getProductId() != null) {
-            Product product = productService.getById(comment.getProductId());
-            if (product != null) {
-                map.put("productName", product.getName());
-                map.put("productImage", imageUrlUtil.generateUrl(product.getImage()));
-            }
+        Product product = loader.products().get(comment.getProductId());
+        if (product != null) {
+            map.put("productName", product.getName());
+            map.put("productImage", imageUrlUtil.generateUrl(product.getImage()));
         }
 
         return map;
     }
-
-    /**
-     * 获取商户ID
-     */
-    private Long getMerchantId(Long userId) {
-        if (userId == null) {
-            return null;
-        }
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null) {
-            return null;
-        }
-        return merchantUser.getMerchantId();
-    }
 }
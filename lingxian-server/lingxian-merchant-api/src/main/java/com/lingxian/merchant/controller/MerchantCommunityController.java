@@ -1,13 +1,12 @@
 package com.lingxian.merchant.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.cache.MerchantAvailabilityIndex;
 import com.lingxian.common.entity.Community;
 import com.lingxian.common.entity.MerchantCommunity;
-import com.lingxian.common.entity.MerchantUser;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.CommunityService;
 import com.lingxian.common.service.MerchantCommunityService;
-import com.lingxian.common.service.MerchantUserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -30,25 +29,23 @@ public class MerchantCommunityController {
 
     private final CommunityService communityService;
     private final MerchantCommunityService merchantCommunityService;
-    private final MerchantUserService merchantUserService;
+    private final MerchantAvailabilityIndex merchantAvailabilityIndex;
 
     @GetMapping("/list")
     @Operation(summary = "获取所有小区列表", description = "返回所有可用小区及当前商户的配送状态")
     public Result<List<Map<String, Object>>> getCommunityList(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
         log.info("获取配送小区列表: userId={}", userId);
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Long merchantId = merchantUser.getMerchantId();
-
         // 查询所有启用的小区
         LambdaQueryWrapper<Community> communityQuery = new LambdaQueryWrapper<>();
         communityQuery.eq(Community::getStatus, 1)
@@ -105,20 +102,18 @@ public class MerchantCommunityController {
     @GetMapping("/my")
     @Operation(summary = "获取我的配送小区", description = "只返回商户已配置的小区")
     public Result<List<Map<String, Object>>> getMyCommunities(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
         log.info("获取我的配送小区: userId={}", userId);
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Long merchantId = merchantUser.getMerchantId();
-
         // 查询商户已配置的小区
         LambdaQueryWrapper<MerchantCommunity> mcQuery = new LambdaQueryWrapper<>();
         mcQuery.eq(MerchantCommunity::getMerchantId, merchantId)
@@ -169,6 +164,7 @@ public class MerchantCommunityController {
     @Operation(summary = "添加配送小区")
     public Result<Void> addCommunity(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestBody Map<String, Object> body) {
         Long communityId = body.get("communityId") != null ? Long.parseLong(body.get("communityId").toString()) : null;
         log.info("添加配送小区: userId={}, communityId={}", userId, communityId);
@@ -181,13 +177,10 @@ public class MerchantCommunityController {
             return Result.failed("小区ID不能为空");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Long merchantId = merchantUser.getMerchantId();
-
         // 检查小区是否存在
         Community community = communityService.getById(communityId);
         if (community == null || community.getStatus() != 1) {
@@ -221,6 +214,7 @@ public class MerchantCommunityController {
         mc.setUpdateTime(LocalDateTime.now());
         mc.setDeleted(0);
         merchantCommunityService.save(mc);
+        merchantAvailabilityIndex.onMerchantChanged(merchantId);
 
         log.info("添加配送小区成功: merchantId={}, communityId={}", merchantId, communityId);
         return Result.success();
@@ -230,6 +224,7 @@ public class MerchantCommunityController {
     @Operation(summary = "删除配送小区")
     public Result<Void> removeCommunity(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long configId) {
         log.info("删除配送小区: userId={}, configId={}", userId, configId);
 
@@ -237,13 +232,10 @@ public class MerchantCommunityController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Long merchantId = merchantUser.getMerchantId();
-
         // 检查配置是否存在且属于当前商户
         MerchantCommunity mc = merchantCommunityService.getById(configId);
         if (mc == null || !mc.getMerchantId().equals(merchantId)) {
@@ -251,6 +243,7 @@ public class MerchantCommunityController {
         }
 
         merchantCommunityService.removeById(configId);
+        merchantAvailabilityIndex.onMerchantChanged(merchantId);
         log.info("删除配送小区成功: merchantId={}, configId={}", merchantId, configId);
         return Result.success();
     }
@@ -259,6 +252,7 @@ public class MerchantCommunityController {
     @Operation(summary = "切换配送小区开放状态")
     public Result<Void> toggleCommunity(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long configId,
             @RequestBody Map<String, Object> body) {
         Boolean enabled = (Boolean) body.get("enabled");
@@ -272,13 +266,10 @@ public class MerchantCommunityController {
             return Result.failed("状态参数不能为空");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Long merchantId = merchantUser.getMerchantId();
-
         // 检查配置是否存在且属于当前商户
         MerchantCommunity mc = merchantCommunityService.getById(configId);
         if (mc == null || !mc.getMerchantId().equals(merchantId)) {
@@ -288,6 +279,7 @@ public class MerchantCommunityController {
         mc.setEnabled(enabled ? 1 : 0);
         mc.setUpdateTime(LocalDateTime.now());
         merchantCommunityService.updateById(mc);
+        merchantAvailabilityIndex.onMerchantChanged(merchantId);
 
         log.info("切换配送小区状态成功: merchantId={}, configId={}, enabled={}", merchantId, configId, enabled);
         return Result.success();
@@ -297,6 +289,7 @@ public class MerchantCommunityController {
     @Operation(summary = "批量切换配送小区开放状态")
     public Result<Void> batchToggle(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestBody Map<String, Object> body) {
         @SuppressWarnings("unchecked")
         List<Number> configIds = (List<Number>) body.get("configIds");
@@ -315,12 +308,10 @@ public class MerchantCommunityController {
             return Result.failed("状态参数不能为空");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Long merchantId = merchantUser.getMerchantId();
         List<Long> ids = configIds.stream().map(Number::longValue).collect(Collectors.toList());
 
         // 批量更新
@@ -333,6 +324,7 @@ public class MerchantCommunityController {
                 merchantCommunityService.updateById(mc);
             }
         }
+        merchantAvailabilityIndex.onMerchantChanged(merchantId);
 
         log.info("批量切换配送小区状态成功: merchantId={}, count={}", merchantId, ids.size());
         return Result.success();
@@ -341,20 +333,18 @@ public class MerchantCommunityController {
     @GetMapping("/enabled")
     @Operation(summary = "获取当前开放的配送小区")
     public Result<List<Map<String, Object>>> getEnabledCommunities(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
         log.info("获取当前开放的配送小区: userId={}", userId);
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Long merchantId = merchantUser.getMerchantId();
-
         // 查询商户已开放的小区
         LambdaQueryWrapper<MerchantCommunity> mcQuery = new LambdaQueryWrapper<>();
         mcQuery.eq(MerchantCommunity::getMerchantId, merchantId)
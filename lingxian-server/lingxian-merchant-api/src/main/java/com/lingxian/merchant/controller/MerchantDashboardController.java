@@ -14,10 +14,7 @@ import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -26,20 +23,16 @@ import java.util.stream.Collectors;
 @Tag(name = "商户端-工作台", description = "商户工作台接口")
 public class MerchantDashboardController {
 
-    private final OrderService orderService;
-    private final OrderItemService orderItemService;
     private final ProductService productService;
-    private final RefundService refundService;
-    private final MerchantUserService merchantUserService;
-    private final MerchantService merchantService;
+    private final OrderStatusCountService orderStatusCountService;
+    private final MerchantDailyStatsService merchantDailyStatsService;
     private final ImageUrlUtil imageUrlUtil;
 
     @GetMapping
     @Operation(summary = "获取工作台数据")
     public Result<Map<String, Object>> getDashboardData(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -47,10 +40,7 @@ public class MerchantDashboardController {
         Map<String, Object> data = new HashMap<>();
 
         // 今日统计
-        LocalDateTime todayStart = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime todayEnd = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-
-        Map<String, Object> todayStats = getTodayStatsData(merchantId, todayStart, todayEnd);
+        Map<String, Object> todayStats = getTodayStatsData(merchantDailyStatsService.getDay(merchantId, LocalDate.now()));
         data.put("todayStats", todayStats);
 
         // 待处理数量
@@ -71,30 +61,19 @@ public class MerchantDashboardController {
     @GetMapping("/today")
     @Operation(summary = "获取今日统计")
     public Result<Map<String, Object>> getTodayStats(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
 
-        LocalDateTime todayStart = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime todayEnd = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-        LocalDateTime yesterdayStart = LocalDateTime.of(LocalDate.now().minusDays(1), LocalTime.MIN);
-        LocalDateTime yesterdayEnd = LocalDateTime.of(LocalDate.now().minusDays(1), LocalTime.MAX);
+        LocalDate today = LocalDate.now();
+        List<MerchantDailyStats> days = merchantDailyStatsService.getRange(merchantId, today.minusDays(1), today);
 
-        Map<String, Object> todayStats = getTodayStatsData(merchantId, todayStart, todayEnd);
+        Map<String, Object> todayStats = getTodayStatsData(days.get(1));
 
         // 昨日销售额用于计算环比
-        List<Order> yesterdayOrders = orderService.list(new LambdaQueryWrapper<Order>()
-                .eq(Order::getMerchantId, merchantId)
-                .ge(Order::getStatus, 2) // 已支付
-                .ge(Order::getCreateTime, yesterdayStart)
-                .le(Order::getCreateTime, yesterdayEnd));
-
-        BigDecimal yesterdaySales = yesterdayOrders.stream()
-                .map(Order::getPayAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal yesterdaySales = days.get(0).getSalesAmount();
 
         BigDecimal todaySales = (BigDecimal) todayStats.get("salesAmount");
         BigDecimal compareYesterday = BigDecimal.ZERO;
@@ -112,9 +91,8 @@ public class MerchantDashboardController {
     @GetMapping("/pending")
     @Operation(summary = "获取待处理数量")
     public Result<Map<String, Object>> getPendingCount(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -123,66 +101,14 @@ public class MerchantDashboardController {
         return Result.success(pending);
     }
 
-    /**
-     * 获取商户ID
-     */
-    private Long getMerchantId(Long userId) {
-        if (userId == null) {
-            return null;
-        }
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
-            return null;
-        }
-        return merchantUser.getMerchantId();
-    }
-
     /**
      * 获取今日统计数据
      */
-    private Map<String, Object> getTodayStatsData(Long merchantId, LocalDateTime todayStart, LocalDateTime todayEnd) {
+    private Map<String, Object> getTodayStatsData(MerchantDailyStats today) {
         Map<String, Object> stats = new HashMap<>();
 
-        // 今日订单（已支付及之后状态）
-        List<Order> todayOrders = orderService.list(new LambdaQueryWrapper<Order>()
-                .eq(Order::getMerchantId, merchantId)
-                .ge(Order::getStatus, 2) // 已支付
-                .ge(Order::getCreateTime, todayStart)
-                .le(Order::getCreateTime, todayEnd));
-
-        int orderCount = todayOrders.size();
-        BigDecimal salesAmount = todayOrders.stream()
-                .map(Order::getPayAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // 今日已配送数量（状态>=3，即配送中、待评价、已完成）
-        int deliveryCount = (int) todayOrders.stream()
-                .filter(o -> o.getStatus() >= 3)
-                .count();
-
-        // 今日待处理数量（状态=2，待发货）
-        int pendingCount = (int) todayOrders.stream()
-                .filter(o -> o.getStatus() == 2)
-                .count();
-
-        // 今日新客户数（根据用户首次下单时间）
-        Set<Long> todayUserIds = todayOrders.stream()
-                .map(Order::getUserId)
-                .collect(Collectors.toSet());
-        int newCustomers = 0;
-        for (Long uid : todayUserIds) {
-            Order firstOrder = orderService.getOne(new LambdaQueryWrapper<Order>()
-                    .eq(Order::getMerchantId, merchantId)
-                    .eq(Order::getUserId, uid)
-                    .ge(Order::getStatus, 2)
-                    .orderByAsc(Order::getCreateTime)
-                    .last("LIMIT 1"));
-            if (firstOrder != null &&
-                    !firstOrder.getCreateTime().isBefore(todayStart) &&
-                    !firstOrder.getCreateTime().isAfter(todayEnd)) {
-                newCustomers++;
-            }
-        }
+        long orderCount = today.getOrderCount();
+        BigDecimal salesAmount = today.getSalesAmount();
 
         // 平均客单价
         BigDecimal avgOrderAmount = orderCount > 0
@@ -191,9 +117,10 @@ public class MerchantDashboardController {
 
         stats.put("orderCount", orderCount);
         stats.put("salesAmount", salesAmount.setScale(2, RoundingMode.HALF_UP));
-        stats.put("deliveryCount", deliveryCount);
-        stats.put("pendingCount", pendingCount);
-        stats.put("newCustomers", newCustomers);
+        stats.put("deliveryCount", today.getDeliveredCount());
+        stats.put("pendingCount", today.getPendingCount());
+        stats.put("newCustomers", today.getNewCustomers());
+        stats.put("returningCustomers", today.getReturningCustomers());
         stats.put("avgOrderAmount", avgOrderAmount);
 
         return stats;
@@ -205,15 +132,10 @@ public class MerchantDashboardController {
     private Map<String, Object> getPendingData(Long merchantId) {
         Map<String, Object> pending = new HashMap<>();
 
-        // 待接单数量（状态2：已支付待接单）
-        long pendingOrders = orderService.count(new LambdaQueryWrapper<Order>()
-                .eq(Order::getMerchantId, merchantId)
-                .eq(Order::getStatus, 2));
-
-        // 待配送数量（状态3：已接单待配送）
-        long pendingDelivery = orderService.count(new LambdaQueryWrapper<Order>()
-                .eq(Order::getMerchantId, merchantId)
-                .eq(Order::getStatus, 3));
+        // 待接单、待配送数量读取状态计数（状态2：已支付待接单，状态3：配送中）
+        Map<Integer, Long> counts = orderStatusCountService.getOrderCounts(merchantId);
+        long pendingOrders = counts.getOrDefault(2, 0L);
+        long pendingDelivery = counts.getOrDefault(3, 0L);
 
         // 库存不足商品数量（库存 <= 10）
         long lowStock = productService.count(new LambdaQueryWrapper<Product>()
@@ -221,10 +143,8 @@ public class MerchantDashboardController {
                 .eq(Product::getStatus, 1) // 上架中
                 .le(Product::getStock, 10));
 
-        // 待处理退款数量（状态1：待审核）
-        long refundApply = refundService.count(new LambdaQueryWrapper<Refund>()
-                .eq(Refund::getMerchantId, merchantId)
-                .eq(Refund::getStatus, 1));
+        // 待处理退款数量（状态0：待审核）
+        long refundApply = orderStatusCountService.getRefundCounts(merchantId).getOrDefault(0, 0L);
 
         pending.put("pendingOrders", pendingOrders);
         pending.put("pendingDelivery", pendingDelivery);
@@ -241,26 +161,12 @@ public class MerchantDashboardController {
         List<Map<String, Object>> trends = new ArrayList<>();
         String[] weekdays = {"周日", "周一", "周二", "周三", "周四", "周五", "周六"};
 
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-            LocalDateTime dayStart = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime dayEnd = LocalDateTime.of(date, LocalTime.MAX);
-
-            List<Order> dayOrders = orderService.list(new LambdaQueryWrapper<Order>()
-                    .eq(Order::getMerchantId, merchantId)
-                    .ge(Order::getStatus, 2)
-                    .ge(Order::getCreateTime, dayStart)
-                    .le(Order::getCreateTime, dayEnd));
-
-            int orderCount = dayOrders.size();
-            BigDecimal salesAmount = dayOrders.stream()
-                    .map(Order::getPayAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+        LocalDate today = LocalDate.now();
+        for (MerchantDailyStats day : merchantDailyStatsService.getRange(merchantId, today.minusDays(6), today)) {
             Map<String, Object> trend = new HashMap<>();
-            trend.put("date", weekdays[date.getDayOfWeek().getValue() % 7]);
-            trend.put("orderCount", orderCount);
-            trend.put("salesAmount", salesAmount.setScale(2, RoundingMode.HALF_UP));
+            trend.put("date", weekdays[day.getStatDate().getDayOfWeek().getValue() % 7]);
+            trend.put("orderCount", day.getOrderCount());
+            trend.put("salesAmount", day.getSalesAmount().setScale(2, RoundingMode.HALF_UP));
             trends.add(trend);
         }
 
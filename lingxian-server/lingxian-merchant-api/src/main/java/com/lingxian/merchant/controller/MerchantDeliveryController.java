@@ -1,8 +1,12 @@
 package com.lingxian.merchant.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.delay.OrderTimeoutTasks;
 import com.lingxian.common.entity.*;
+import com.lingxian.common.loader.BatchLoader;
+import com.lingxian.common.loader.BatchLoaders;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.*;
@@ -27,39 +31,39 @@ public class MerchantDeliveryController {
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private final OrderService orderService;
-    private final OrderItemService orderItemService;
-    private final MerchantUserService merchantUserService;
+    private final BatchLoaders batchLoaders;
     private final ImageUrlUtil imageUrlUtil;
+    private final OrderTimeoutTasks orderTimeoutTasks;
+    private final MerchantDailyStatsService merchantDailyStatsService;
 
     @GetMapping("/pending")
     @Operation(summary = "获取待发货列表")
     public Result<PageResult<Map<String, Object>>> getPendingDeliveries(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer pageSize) {
-        return getDeliveryList(userId, page, pageSize, 2); // 状态2：待发货
+        return getDeliveryList(merchantId, page, pageSize, 2); // 状态2：待发货
     }
 
     @GetMapping("/delivering")
     @Operation(summary = "获取配送中列表")
     public Result<PageResult<Map<String, Object>>> getDeliveringList(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer pageSize) {
-        return getDeliveryList(userId, page, pageSize, 3); // 状态3：配送中
+        return getDeliveryList(merchantId, page, pageSize, 3); // 状态3：配送中
     }
 
     @GetMapping("/completed")
     @Operation(summary = "获取已完成列表")
     public Result<PageResult<Map<String, Object>>> getCompletedDeliveries(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer pageSize) {
-        return getDeliveryListCompleted(userId, page, pageSize); // 状态>=4：待评价、已完成
+        return getDeliveryListCompleted(merchantId, page, pageSize); // 状态>=4：待评价、已完成
     }
 
-    private Result<PageResult<Map<String, Object>>> getDeliveryList(Long userId, Integer page, Integer pageSize, Integer status) {
-        Long merchantId = getMerchantId(userId);
+    private Result<PageResult<Map<String, Object>>> getDeliveryList(Long merchantId, Integer page, Integer pageSize, Integer status) {
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -73,10 +77,12 @@ public class MerchantDeliveryController {
         // 分页查询
         Page<Order> pageData = orderService.page(new Page<>(page, pageSize), wrapper);
 
-        // 转换数据
+        // 转换数据，整页订单项一次查出
+        BatchLoader loader = batchLoaders.create();
+        loader.orderItems().primeAll(pageData.getRecords(), Order::getId);
         List<Map<String, Object>> orders = new ArrayList<>();
         for (Order order : pageData.getRecords()) {
-            Map<String, Object> orderMap = buildDeliveryMap(order);
+            Map<String, Object> orderMap = buildDeliveryMap(order, loader);
             orders.add(orderMap);
         }
 
@@ -92,8 +98,7 @@ public class MerchantDeliveryController {
     /**
      * 获取已完成配送列表（状态>=4：待评价、已完成）
      */
-    private Result<PageResult<Map<String, Object>>> getDeliveryListCompleted(Long userId, Integer page, Integer pageSize) {
-        Long merchantId = getMerchantId(userId);
+    private Result<PageResult<Map<String, Object>>> getDeliveryListCompleted(Long merchantId, Integer page, Integer pageSize) {
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -108,10 +113,12 @@ public class MerchantDeliveryController {
         // 分页查询
         Page<Order> pageData = orderService.page(new Page<>(page, pageSize), wrapper);
 
-        // 转换数据
+        // 转换数据，整页订单项一次查出
+        BatchLoader loader = batchLoaders.create();
+        loader.orderItems().primeAll(pageData.getRecords(), Order::getId);
         List<Map<String, Object>> orders = new ArrayList<>();
         for (Order order : pageData.getRecords()) {
-            Map<String, Object> orderMap = buildDeliveryMap(order);
+            Map<String, Object> orderMap = buildDeliveryMap(order, loader);
             orders.add(orderMap);
         }
 
@@ -127,10 +134,9 @@ public class MerchantDeliveryController {
     @GetMapping("/{id}")
     @Operation(summary = "获取配送详情")
     public Result<Map<String, Object>> getDeliveryDetail(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -140,17 +146,16 @@ public class MerchantDeliveryController {
             return Result.failed("订单不存在");
         }
 
-        Map<String, Object> delivery = buildDeliveryMap(order);
+        Map<String, Object> delivery = buildDeliveryMap(order, batchLoaders.create());
         return Result.success(delivery);
     }
 
     @PostMapping("/batch")
     @Operation(summary = "批量开始配送")
     public Result<Void> batchDelivery(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestBody Map<String, List<Long>> body) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -166,11 +171,14 @@ public class MerchantDeliveryController {
         for (Long orderId : orderIds) {
             Order order = orderService.getById(orderId);
             // 状态2=待发货，批量开始配送后变为状态3=配送中
-            if (order != null && order.getMerchantId().equals(merchantId) && order.getStatus() == 2) {
-                order.setStatus(3); // 配送中
+            if (order != null && order.getMerchantId().equals(merchantId) && order.getStatus() == 2
+                    && orderService.changeStatus(orderId, 2, 3, new LambdaUpdateWrapper<Order>() // 配送中
+                    .set(Order::getDeliveryTime, now)
+                    .set(Order::getUpdateTime, now))) {
+                order.setStatus(3);
                 order.setDeliveryTime(now);
-                order.setUpdateTime(now);
-                orderService.updateById(order);
+                orderTimeoutTasks.onOrderDelivered(orderId);
+                merchantDailyStatsService.onOrderDelivered(order);
                 successCount++;
             }
         }
@@ -179,24 +187,10 @@ public class MerchantDeliveryController {
         return Result.success();
     }
 
-    /**
-     * 获取商户ID
-     */
-    private Long getMerchantId(Long userId) {
-        if (userId == null) {
-            return null;
-        }
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
-            return null;
-        }
-        return merchantUser.getMerchantId();
-    }
-
     /**
      * 构建配送信息Map
      */
-    private Map<String, Object> buildDeliveryMap(Order order) {
+    private Map<String, Object> buildDeliveryMap(Order order, BatchLoader loader) {
         Map<String, Object> delivery = new HashMap<>();
         delivery.put("id", order.getId());
         delivery.put("orderNo", order.getOrderNo());
@@ -212,8 +206,7 @@ public class MerchantDeliveryController {
         delivery.put("deliveryStartTime", order.getDeliveryTime() != null ? order.getDeliveryTime().format(formatter) : null);
 
         // 获取订单商品
-        List<OrderItem> items = orderItemService.list(new LambdaQueryWrapper<OrderItem>()
-                .eq(OrderItem::getOrderId, order.getId()));
+        List<OrderItem> items = loader.orderItems().get(order.getId());
 
         List<Map<String, Object>> products = new ArrayList<>();
         int totalQuantity = 0;
@@ -1,7 +1,9 @@
 package com.lingxian.merchant.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.delay.OrderTimeoutTasks;
 import com.lingxian.common.entity.*;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
@@ -29,19 +31,19 @@ public class MerchantOrderController {
     private final OrderService orderService;
     private final OrderItemService orderItemService;
     private final UserService userService;
-    private final MerchantUserService merchantUserService;
     private final ProductCommentService productCommentService;
     private final ImageUrlUtil imageUrlUtil;
+    private final OrderTimeoutTasks orderTimeoutTasks;
+    private final MerchantDailyStatsService merchantDailyStatsService;
 
     @GetMapping
     @Operation(summary = "获取订单列表")
     public Result<PageResult<Map<String, Object>>> getOrderList(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer pageSize,
             @RequestParam(required = false) Integer status) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -82,10 +84,9 @@ public class MerchantOrderController {
     @GetMapping("/{id}")
     @Operation(summary = "获取订单详情")
     public Result<Map<String, Object>> getOrderDetail(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -102,10 +103,9 @@ public class MerchantOrderController {
     @PutMapping("/{id}/accept")
     @Operation(summary = "接单（发货）")
     public Result<Void> acceptOrder(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -121,10 +121,16 @@ public class MerchantOrderController {
         }
 
         // 更新订单状态为待收货（配送中）
+        LocalDateTime now = LocalDateTime.now();
+        if (!orderService.changeStatus(id, 2, 3, new LambdaUpdateWrapper<Order>()
+                .set(Order::getDeliveryTime, now)
+                .set(Order::getUpdateTime, now))) {
+            return Result.failed("订单状态不正确，无法接单");
+        }
         order.setStatus(3);
-        order.setDeliveryTime(LocalDateTime.now());
-        order.setUpdateTime(LocalDateTime.now());
-        orderService.updateById(order);
+        order.setDeliveryTime(now);
+        orderTimeoutTasks.onOrderDelivered(id);
+        merchantDailyStatsService.onOrderDelivered(order);
 
         log.info("商户接单发货: orderId={}, merchantId={}", id, merchantId);
         return Result.success();
@@ -133,11 +139,10 @@ public class MerchantOrderController {
     @PutMapping("/{id}/reject")
     @Operation(summary = "拒单")
     public Result<Void> rejectOrder(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id,
             @RequestBody Map<String, String> body) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -153,12 +158,11 @@ public class MerchantOrderController {
 
         String reason = body.get("reason");
 
-        // 更新订单状态为已取消
-        order.setStatus(6); // 已取消
-        order.setCancelReason(reason != null ? reason : "商家拒单");
-        order.setCancelTime(LocalDateTime.now());
-        order.setUpdateTime(LocalDateTime.now());
-        orderService.updateById(order);
+        // 更新订单状态为已取消并归还库存
+        if (!orderService.cancelOrder(id, 2, reason != null ? reason : "商家拒单")) {
+            return Result.failed("订单状态不正确，无法拒单");
+        }
+        merchantDailyStatsService.onPaidOrderCancelled(order);
 
         // TODO: 退款逻辑
 
@@ -169,10 +173,9 @@ public class MerchantOrderController {
     @PutMapping("/{id}/delivery")
     @Operation(summary = "开始配送")
     public Result<Void> startDelivery(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -188,10 +191,16 @@ public class MerchantOrderController {
         }
 
         // 更新订单状态为待收货（配送中）
+        LocalDateTime now = LocalDateTime.now();
+        if (!orderService.changeStatus(id, 2, 3, new LambdaUpdateWrapper<Order>()
+                .set(Order::getDeliveryTime, now)
+                .set(Order::getUpdateTime, now))) {
+            return Result.failed("订单状态不正确，无法开始配送");
+        }
         order.setStatus(3);
-        order.setDeliveryTime(LocalDateTime.now());
-        order.setUpdateTime(LocalDateTime.now());
-        orderService.updateById(order);
+        order.setDeliveryTime(now);
+        orderTimeoutTasks.onOrderDelivered(id);
+        merchantDailyStatsService.onOrderDelivered(order);
 
         log.info("开始配送: orderId={}, merchantId={}", id, merchantId);
         return Result.success();
@@ -200,10 +209,9 @@ public class MerchantOrderController {
     @PutMapping("/{id}/complete")
     @Operation(summary = "完成配送")
     public Result<Void> completeDelivery(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
-        Long merchantId = getMerchantId(userId);
         if (merchantId == null) {
             return Result.failed("请先完成商户入驻");
         }
@@ -219,29 +227,19 @@ public class MerchantOrderController {
         }
 
         // 更新订单状态为待评价
-        order.setStatus(4);
-        order.setReceiveTime(LocalDateTime.now());
-        order.setUpdateTime(LocalDateTime.now());
-        orderService.updateById(order);
+        LocalDateTime now = LocalDateTime.now();
+        if (!orderService.changeStatus(id, 3, 4, new LambdaUpdateWrapper<Order>()
+                .set(Order::getReceiveTime, now)
+                .set(Order::getUpdateTime, now))) {
+            return Result.failed("订单状态不正确，无法完成配送");
+        }
+        orderTimeoutTasks.onOrderReceived(id);
+        merchantDailyStatsService.onOrdersReceived(List.of(id));
 
         log.info("完成配送: orderId={}, merchantId={}", id, merchantId);
         return Result.success();
     }
 
-    /**
-     * 获取商户ID
-     */
-    private Long getMerchantId(Long userId) {
-        if (userId == null) {
-            return null;
-        }
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
-            return null;
-        }
-        return merchantUser.getMerchantId();
-    }
-
     /**
      * 构建订单Map
      */
@@ -2,14 +2,15 @@ package com.lingxian.merchant.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.CategoryTree;
+import com.lingxian.common.cache.ProductDetailCache;
 import com.lingxian.common.entity.Category;
-import com.lingxian.common.entity.MerchantUser;
 import com.lingxian.common.entity.Product;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
-import com.lingxian.common.service.CategoryService;
-import com.lingxian.common.service.MerchantUserService;
+import com.lingxian.common.search.ProductSearchIndex;
 import com.lingxian.common.service.ProductService;
+import com.lingxian.common.service.StockService;
 import com.lingxian.common.util.ImageUrlUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -31,14 +32,17 @@ import java.util.stream.Collectors;
 public class MerchantProductController {
 
     private final ProductService productService;
-    private final CategoryService categoryService;
-    private final MerchantUserService merchantUserService;
+    private final CategoryTree categoryTree;
     private final ImageUrlUtil imageUrlUtil;
+    private final ProductDetailCache productDetailCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final StockService stockService;
 
     @GetMapping
     @Operation(summary = "获取商品列表")
     public Result<PageResult<Map<String, Object>>> getProductList(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer pageSize,
             @RequestParam(required = false) Long categoryId,
@@ -49,13 +53,10 @@ public class MerchantProductController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Long merchantId = merchantUser.getMerchantId();
-
         // 构建查询条件（@TableLogic会自动处理deleted条件）
         LambdaQueryWrapper<Product> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Product::getMerchantId, merchantId);
@@ -75,9 +76,13 @@ public class MerchantProductController {
         Page<Product> pageParam = new Page<>(page, pageSize);
         Page<Product> pageResult = productService.page(pageParam, queryWrapper);
 
-        // 获取所有分类用于映射
-        Map<Long, String> categoryMap = categoryService.list().stream()
-                .collect(Collectors.toMap(Category::getId, Category::getName, (a, b) -> a));
+        // 当前页商品的分类名称
+        Map<Long, String> categoryMap = categoryTree.getNames(pageResult.getRecords().stream()
+                .map(Product::getCategoryId).collect(Collectors.toSet()));
+
+        // 实时库存以库存服务为准
+        Map<Long, Integer> stocks = stockService.getStocks(
+                pageResult.getRecords().stream().map(Product::getId).collect(Collectors.toList()));
 
         // 转换为返回格式
         List<Map<String, Object>> products = pageResult.getRecords().stream().map(product -> {
@@ -89,7 +94,7 @@ public class MerchantProductController {
             map.put("categoryName", product.getCategoryId() != null ? categoryMap.get(product.getCategoryId()) : "");
             map.put("price", product.getPrice());
             map.put("originalPrice", product.getOriginalPrice());
-            map.put("stock", product.getStock() != null ? product.getStock() : 0);
+            map.put("stock", stocks.getOrDefault(product.getId(), 0));
             map.put("sales", product.getSalesCount() != null ? product.getSalesCount() : 0);
             map.put("status", product.getStatus() != null ? product.getStatus() : 0);
             map.put("unit", product.getUnit() != null ? product.getUnit() : "份");
@@ -109,14 +114,14 @@ public class MerchantProductController {
     @Operation(summary = "获取商品详情")
     public Result<Map<String, Object>> getProductDetail(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
@@ -126,17 +131,14 @@ public class MerchantProductController {
         }
 
         // 验证商品属于当前商户
-        if (!product.getMerchantId().equals(merchantUser.getMerchantId())) {
+        if (!product.getMerchantId().equals(merchantId)) {
             return Result.failed("无权限查看此商品");
         }
 
         // 获取分类名称
-        String categoryName = "";
-        if (product.getCategoryId() != null) {
-            Category category = categoryService.getById(product.getCategoryId());
-            if (category != null) {
-                categoryName = category.getName();
-            }
+        String categoryName = categoryTree.getName(product.getCategoryId());
+        if (categoryName == null) {
+            categoryName = "";
         }
 
         Map<String, Object> result = new HashMap<>();
@@ -150,7 +152,7 @@ public class MerchantProductController {
         result.put("price", product.getPrice());
         result.put("originalPrice", product.getOriginalPrice());
         result.put("costPrice", product.getCostPrice());
-        result.put("stock", product.getStock() != null ? product.getStock() : 0);
+        result.put("stock", stockService.getStock(product.getId()));
         result.put("sales", product.getSalesCount() != null ? product.getSalesCount() : 0);
         result.put("status", product.getStatus() != null ? product.getStatus() : 0);
         result.put("unit", product.getUnit() != null ? product.getUnit() : "份");
@@ -169,6 +171,7 @@ public class MerchantProductController {
     @Operation(summary = "添加商品")
     public Result<Long> addProduct(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestBody Map<String, Object> body) {
 
         log.info("添加商品: userId={}, body={}", userId, body);
@@ -177,13 +180,12 @@ public class MerchantProductController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
         Product product = new Product();
-        product.setMerchantId(merchantUser.getMerchantId());
+        product.setMerchantId(merchantId);
         product.setName((String) body.get("name"));
         product.setImage((String) body.get("mainImage"));
 
@@ -219,6 +221,7 @@ public class MerchantProductController {
         product.setDeleted(0);
 
         productService.save(product);
+        productSearchIndex.onProductChanged(product.getId());
         log.info("商品添加成功: productId={}", product.getId());
 
         return Result.success(product.getId());
@@ -228,6 +231,7 @@ public class MerchantProductController {
     @Operation(summary = "更新商品")
     public Result<Void> updateProduct(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id,
             @RequestBody Map<String, Object> body) {
 
@@ -237,8 +241,7 @@ public class MerchantProductController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
@@ -248,7 +251,7 @@ public class MerchantProductController {
         }
 
         // 验证商品属于当前商户
-        if (!product.getMerchantId().equals(merchantUser.getMerchantId())) {
+        if (!product.getMerchantId().equals(merchantId)) {
             return Result.failed("无权限修改此商品");
         }
 
@@ -284,9 +287,6 @@ public class MerchantProductController {
         if (body.containsKey("costPrice")) {
             product.setCostPrice(body.get("costPrice") != null ? new BigDecimal(body.get("costPrice").toString()) : null);
         }
-        if (body.containsKey("stock")) {
-            product.setStock(body.get("stock") != null ? Integer.valueOf(body.get("stock").toString()) : 0);
-        }
         if (body.containsKey("unit")) {
             product.setUnit((String) body.get("unit"));
         }
@@ -317,6 +317,11 @@ public class MerchantProductController {
 
         product.setUpdateTime(LocalDateTime.now());
         productService.updateById(product);
+        if (body.containsKey("stock")) {
+            stockService.setStock(id, body.get("stock") != null ? Integer.parseInt(body.get("stock").toString()) : 0);
+        }
+        productDetailCache.evictProduct(id);
+        productSearchIndex.onProductChanged(id);
 
         log.info("商品更新成功: productId={}", id);
         return Result.success();
@@ -326,6 +331,7 @@ public class MerchantProductController {
     @Operation(summary = "删除商品")
     public Result<Void> deleteProduct(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
         log.info("删除商品: userId={}, productId={}", userId, id);
@@ -334,8 +340,7 @@ public class MerchantProductController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
@@ -345,12 +350,14 @@ public class MerchantProductController {
         }
 
         // 验证商品属于当前商户
-        if (!product.getMerchantId().equals(merchantUser.getMerchantId())) {
+        if (!product.getMerchantId().equals(merchantId)) {
             return Result.failed("无权限删除此商品");
         }
 
         // 软删除（使用MyBatis-Plus的removeById会自动处理逻辑删除）
         productService.removeById(id);
+        productDetailCache.evictProduct(id);
+        productSearchIndex.onProductChanged(id);
 
         log.info("商品删除成功: productId={}", id);
         return Result.success();
@@ -360,6 +367,7 @@ public class MerchantProductController {
     @Operation(summary = "更新商品状态")
     public Result<Void> updateProductStatus(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id,
             @RequestBody Map<String, Integer> body) {
 
@@ -370,8 +378,7 @@ public class MerchantProductController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
@@ -381,13 +388,15 @@ public class MerchantProductController {
         }
 
         // 验证商品属于当前商户
-        if (!product.getMerchantId().equals(merchantUser.getMerchantId())) {
+        if (!product.getMerchantId().equals(merchantId)) {
             return Result.failed("无权限修改此商品");
         }
 
         product.setStatus(status);
         product.setUpdateTime(LocalDateTime.now());
         productService.updateById(product);
+        productDetailCache.evictProduct(id);
+        productSearchIndex.onProductChanged(id);
 
         log.info("商品状态更新成功: productId={}, status={}", id, status);
         return Result.success();
@@ -397,6 +406,7 @@ public class MerchantProductController {
     @Operation(summary = "更新商品库存")
     public Result<Void> updateProductStock(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id,
             @RequestBody Map<String, Integer> body) {
 
@@ -407,8 +417,7 @@ public class MerchantProductController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
@@ -418,13 +427,16 @@ public class MerchantProductController {
         }
 
         // 验证商品属于当前商户
-        if (!product.getMerchantId().equals(merchantUser.getMerchantId())) {
+        if (!product.getMerchantId().equals(merchantId)) {
             return Result.failed("无权限修改此商品");
         }
 
-        product.setStock(stock);
-        product.setUpdateTime(LocalDateTime.now());
-        productService.updateById(product);
+        if (stock == null || stock < 0) {
+            return Result.failed("库存不能为负数");
+        }
+
+        stockService.setStock(id, stock);
+        productDetailCache.evictProduct(id);
 
         log.info("商品库存更新成功: productId={}, stock={}", id, stock);
         return Result.success();
@@ -433,11 +445,7 @@ public class MerchantProductController {
     @GetMapping("/categories")
     @Operation(summary = "获取商品分类列表")
     public Result<List<Map<String, Object>>> getCategories() {
-        List<Category> categories = categoryService.list(
-                new LambdaQueryWrapper<Category>()
-                        .eq(Category::getStatus, 1)
-                        .orderByAsc(Category::getSort)
-        );
+        List<Category> categories = categoryTree.list(true);
 
         List<Map<String, Object>> result = categories.stream().map(category -> {
             Map<String, Object> map = new HashMap<>();
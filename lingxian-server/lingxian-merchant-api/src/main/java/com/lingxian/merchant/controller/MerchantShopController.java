@@ -1,12 +1,12 @@
 package com.lingxian.merchant.controller;
 
+import com.lingxian.common.cache.MerchantAvailabilityIndex;
+import com.lingxian.common.cache.ProductDetailCache;
 import com.lingxian.common.entity.Merchant;
 import com.lingxian.common.entity.MerchantInfoAudit;
-import com.lingxian.common.entity.MerchantUser;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.MerchantInfoAuditService;
 import com.lingxian.common.service.MerchantService;
-import com.lingxian.common.service.MerchantUserService;
 import com.lingxian.common.util.ImageUrlUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -26,25 +26,26 @@ import java.util.*;
 public class MerchantShopController {
 
     private final MerchantService merchantService;
-    private final MerchantUserService merchantUserService;
     private final MerchantInfoAuditService merchantInfoAuditService;
     private final ImageUrlUtil imageUrlUtil;
+    private final MerchantAvailabilityIndex merchantAvailabilityIndex;
+    private final ProductDetailCache productDetailCache;
 
     @GetMapping
     @Operation(summary = "获取店铺信息", description = "包含审核状态、待审核数据、本月修改次数等")
     public Result<Map<String, Object>> getShopInfo(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Merchant merchant = merchantService.getById(merchantUser.getMerchantId());
+        Merchant merchant = merchantService.getById(merchantId);
         if (merchant == null) {
             return Result.failed("商户信息不存在");
         }
@@ -134,6 +135,7 @@ public class MerchantShopController {
     @Operation(summary = "更新店铺信息", description = "店铺名称、头像、联系电话、地址等需要审核；营业设置、配送设置即时生效")
     public Result<Map<String, Object>> updateShopInfo(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestBody Map<String, Object> body) {
         log.info("更新店铺信息: userId={}, body={}", userId, body);
 
@@ -141,12 +143,11 @@ public class MerchantShopController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Merchant merchant = merchantService.getById(merchantUser.getMerchantId());
+        Merchant merchant = merchantService.getById(merchantId);
         if (merchant == null) {
             return Result.failed("商户信息不存在");
         }
@@ -240,7 +241,8 @@ public class MerchantShopController {
         }
 
         Integer shopStatus = body.get("shopStatus") != null ? ((Number) body.get("shopStatus")).intValue() : null;
-        if (shopStatus != null && !shopStatus.equals(merchant.getStatus())) {
+        boolean statusChanged = shopStatus != null && !shopStatus.equals(merchant.getStatus());
+        if (statusChanged) {
             merchant.setStatus(shopStatus);
             hasInstantUpdate = true;
         }
@@ -250,6 +252,10 @@ public class MerchantShopController {
         if (hasInstantUpdate) {
             merchant.setUpdateTime(now);
             merchantService.updateById(merchant);
+            if (statusChanged) {
+                merchantAvailabilityIndex.onMerchantChanged(merchant.getId());
+            }
+            productDetailCache.evictMerchant(merchant.getId());
         }
 
         Map<String, Object> result = new HashMap<>();
@@ -267,6 +273,7 @@ public class MerchantShopController {
     @Operation(summary = "更新营业状态", description = "即时生效，不需要审核")
     public Result<Void> updateShopStatus(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestBody Map<String, Integer> body) {
         Integer status = body.get("status");
         log.info("更新营业状态: userId={}, status={}", userId, status);
@@ -279,12 +286,11 @@ public class MerchantShopController {
             return Result.failed("状态参数不能为空");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        Merchant merchant = merchantService.getById(merchantUser.getMerchantId());
+        Merchant merchant = merchantService.getById(merchantId);
         if (merchant == null) {
             return Result.failed("商户信息不存在");
         }
@@ -293,6 +299,7 @@ public class MerchantShopController {
         merchant.setStatus(status);
         merchant.setUpdateTime(LocalDateTime.now());
         merchantService.updateById(merchant);
+        merchantAvailabilityIndex.onMerchantChanged(merchant.getId());
 
         log.info("营业状态更新成功: merchantId={}, status={}", merchant.getId(), status);
         return Result.success();
@@ -1,17 +1,38 @@
 package com.lingxian.merchant.controller;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lingxian.common.cache.CategoryTree;
+import com.lingxian.common.entity.MerchantDailyStats;
+import com.lingxian.common.entity.Product;
+import com.lingxian.common.entity.ProductDailySales;
+import com.lingxian.common.exception.BusinessException;
 import com.lingxian.common.result.Result;
+import com.lingxian.common.result.ResultCode;
+import com.lingxian.common.service.MerchantDailyStatsService;
+import com.lingxian.common.service.ProductService;
+import com.lingxian.common.util.ImageUrlUtil;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * 商户数据统计
+ * 读取商户日统计、月汇总及商品日销量，按订单下单日期统计；环比与上一个等长周期的汇总比较
+ */
 @Slf4j
 @RestController
 @RequestMapping("/merchant/statistics")
@@ -19,35 +40,59 @@ import java.util.*;
 @Tag(name = "商户端-数据统计", description = "商户数据统计接口")
 public class MerchantStatisticsController {
 
+    /**
+     * 超过该天数的区间按月展示趋势
+     */
+    private static final int MAX_DAILY_TREND_DAYS = 62;
+
+    private static final int MAX_RANGE_DAYS = 366 * 3;
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("MM-dd");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final MerchantDailyStatsService merchantDailyStatsService;
+    private final ProductService productService;
+    private final CategoryTree categoryTree;
+    private final ImageUrlUtil imageUrlUtil;
+
     @GetMapping("/sales")
     @Operation(summary = "销售统计")
     public Result<Map<String, Object>> getSalesStatistics(
-            @RequestParam(defaultValue = "week") String period) {
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
+            @Parameter(description = "统计周期: week/month/year") @RequestParam(defaultValue = "week") String period,
+            @Parameter(description = "开始日期，与结束日期同时指定时忽略周期") @RequestParam(required = false) String startDate,
+            @Parameter(description = "结束日期") @RequestParam(required = false) String endDate) {
+
+        if (merchantId == null) {
+            return Result.failed("请先完成商户入驻");
+        }
+
+        StatPeriod current = resolvePeriod(period, startDate, endDate);
+        MerchantDailyStats total = sum(merchantId, current);
+        MerchantDailyStats previous = sum(merchantId, current.previous());
 
         Map<String, Object> data = new HashMap<>();
-        Random random = new Random();
+        data.put("period", current.toMap());
 
         // 汇总数据
         Map<String, Object> summary = new HashMap<>();
-        summary.put("totalAmount", new BigDecimal("18680.50"));
-        summary.put("totalOrders", 256);
-        summary.put("avgOrderAmount", new BigDecimal("72.97"));
-        summary.put("compareLastPeriod", new BigDecimal("15.8")); // 较上期增长%
+        summary.put("totalAmount", money(total.getSalesAmount()));
+        summary.put("totalOrders", total.getOrderCount());
+        summary.put("avgOrderAmount", avgAmount(total));
+        summary.put("refundAmount", money(total.getRefundAmount()));
+        summary.put("compareLastPeriod", growth(total.getSalesAmount(), previous.getSalesAmount())); // 较上期增长%
+        summary.put("compareLastPeriodOrders", growth(BigDecimal.valueOf(total.getOrderCount()),
+                BigDecimal.valueOf(previous.getOrderCount())));
+        summary.put("lastPeriodAmount", money(previous.getSalesAmount()));
         data.put("summary", summary);
 
         // 趋势数据
         List<Map<String, Object>> trends = new ArrayList<>();
-        int days = period.equals("week") ? 7 : (period.equals("month") ? 30 : 12);
-        LocalDate today = LocalDate.now();
-        DateTimeFormatter formatter = period.equals("year") ?
-            DateTimeFormatter.ofPattern("yyyy-MM") : DateTimeFormatter.ofPattern("MM-dd");
-
-        for (int i = days - 1; i >= 0; i--) {
+        for (MerchantDailyStats bucket : trend(merchantId, current)) {
             Map<String, Object> item = new HashMap<>();
-            LocalDate date = period.equals("year") ? today.minusMonths(i) : today.minusDays(i);
-            item.put("date", date.format(formatter));
-            item.put("amount", new BigDecimal(1500 + random.nextInt(2000)));
-            item.put("orders", 20 + random.nextInt(30));
+            item.put("date", current.label(bucket.getStatDate()));
+            item.put("amount", money(bucket.getSalesAmount()));
+            item.put("orders", bucket.getOrderCount());
             trends.add(item);
         }
         data.put("trends", trends);
@@ -58,41 +103,50 @@ public class MerchantStatisticsController {
     @GetMapping("/orders")
     @Operation(summary = "订单统计")
     public Result<Map<String, Object>> getOrderStatistics(
-            @RequestParam(defaultValue = "week") String period) {
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
+            @Parameter(description = "统计周期: week/month/year") @RequestParam(defaultValue = "week") String period,
+            @Parameter(description = "开始日期，与结束日期同时指定时忽略周期") @RequestParam(required = false) String startDate,
+            @Parameter(description = "结束日期") @RequestParam(required = false) String endDate) {
+
+        if (merchantId == null) {
+            return Result.failed("请先完成商户入驻");
+        }
+
+        StatPeriod current = resolvePeriod(period, startDate, endDate);
+        MerchantDailyStats total = sum(merchantId, current);
+        MerchantDailyStats previous = sum(merchantId, current.previous());
 
         Map<String, Object> data = new HashMap<>();
-        Random random = new Random();
+        data.put("period", current.toMap());
 
         // 汇总数据
         Map<String, Object> summary = new HashMap<>();
-        summary.put("totalOrders", 256);
-        summary.put("completedOrders", 240);
-        summary.put("canceledOrders", 12);
-        summary.put("refundOrders", 4);
-        summary.put("completionRate", new BigDecimal("93.75"));
+        summary.put("totalOrders", total.getOrderCount());
+        summary.put("completedOrders", total.getCompletedCount());
+        summary.put("canceledOrders", total.getCancelledCount());
+        summary.put("refundOrders", total.getRefundCount());
+        summary.put("completionRate", percentage(total.getCompletedCount(), total.getOrderCount()));
+        summary.put("compareLastPeriod", growth(BigDecimal.valueOf(total.getOrderCount()),
+                BigDecimal.valueOf(previous.getOrderCount())));
         data.put("summary", summary);
 
-        // 订单状态分布
+        // 订单状态分布：周期内下单的订单当前所处状态
         List<Map<String, Object>> statusDist = new ArrayList<>();
-        String[] statuses = {"待接单", "待配送", "配送中", "已完成", "已取消"};
-        int[] values = {8, 15, 5, 240, 12};
-        for (int i = 0; i < statuses.length; i++) {
-            Map<String, Object> item = new HashMap<>();
-            item.put("name", statuses[i]);
-            item.put("value", values[i]);
-            statusDist.add(item);
-        }
+        statusDist.add(statusItem("待发货", total.getPendingCount()));
+        statusDist.add(statusItem("配送中", total.getDeliveredCount() - total.getReceivedCount()));
+        statusDist.add(statusItem("待评价", total.getReceivedCount() - total.getCompletedCount()));
+        statusDist.add(statusItem("已完成", total.getCompletedCount()));
+        statusDist.add(statusItem("已取消", total.getCancelledCount()));
         data.put("statusDistribution", statusDist);
 
         // 趋势数据
         List<Map<String, Object>> trends = new ArrayList<>();
-        int days = period.equals("week") ? 7 : 30;
-        LocalDate today = LocalDate.now();
-        for (int i = days - 1; i >= 0; i--) {
+        for (MerchantDailyStats bucket : trend(merchantId, current)) {
             Map<String, Object> item = new HashMap<>();
-            item.put("date", today.minusDays(i).format(DateTimeFormatter.ofPattern("MM-dd")));
-            item.put("total", 25 + random.nextInt(20));
-            item.put("completed", 22 + random.nextInt(18));
+            item.put("date", current.label(bucket.getStatDate()));
+            item.put("total", bucket.getOrderCount());
+            item.put("completed", bucket.getCompletedCount());
+            item.put("canceled", bucket.getCancelledCount());
             trends.add(item);
         }
         data.put("trends", trends);
@@ -103,46 +157,189 @@ public class MerchantStatisticsController {
     @GetMapping("/products")
     @Operation(summary = "商品统计")
     public Result<Map<String, Object>> getProductStatistics(
-            @RequestParam(defaultValue = "week") String period) {
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
+            @Parameter(description = "统计周期: week/month/year") @RequestParam(defaultValue = "week") String period,
+            @Parameter(description = "开始日期，与结束日期同时指定时忽略周期") @RequestParam(required = false) String startDate,
+            @Parameter(description = "结束日期") @RequestParam(required = false) String endDate) {
+
+        if (merchantId == null) {
+            return Result.failed("请先完成商户入驻");
+        }
+
+        StatPeriod current = resolvePeriod(period, startDate, endDate);
 
         Map<String, Object> data = new HashMap<>();
-        Random random = new Random();
+        data.put("period", current.toMap());
 
         // 汇总数据
+        long totalProducts = productService.count(new LambdaQueryWrapper<Product>()
+                .eq(Product::getMerchantId, merchantId));
+        long onSaleProducts = productService.count(new LambdaQueryWrapper<Product>()
+                .eq(Product::getMerchantId, merchantId)
+                .eq(Product::getStatus, 1));
         Map<String, Object> summary = new HashMap<>();
-        summary.put("totalProducts", 86);
-        summary.put("onSaleProducts", 72);
-        summary.put("offSaleProducts", 14);
-        summary.put("lowStockProducts", 5);
+        summary.put("totalProducts", totalProducts);
+        summary.put("onSaleProducts", onSaleProducts);
+        summary.put("offSaleProducts", totalProducts - onSaleProducts);
+        summary.put("lowStockProducts", productService.count(new LambdaQueryWrapper<Product>()
+                .eq(Product::getMerchantId, merchantId)
+                .eq(Product::getStatus, 1) // 上架中
+                .le(Product::getStock, 10)));
         data.put("summary", summary);
 
         // 热销商品TOP10
+        List<ProductDailySales> top = merchantDailyStatsService.getTopProducts(
+                merchantId, current.from(), current.to(), 10);
+        Map<Long, Product> products = top.isEmpty() ? Collections.emptyMap()
+                : productService.listByIds(top.stream().map(ProductDailySales::getProductId).toList())
+                .stream().collect(Collectors.toMap(Product::getId, Function.identity()));
         List<Map<String, Object>> hotProducts = new ArrayList<>();
-        String[] names = {"新鲜蔬菜套餐", "精选水果拼盘", "有机鸡蛋", "进口牛肉", "海鲜礼盒",
-                         "农家土鸡", "有机牛奶", "手工水饺", "现磨豆浆", "五谷杂粮"};
-        for (int i = 0; i < 10; i++) {
-            Map<String, Object> product = new HashMap<>();
-            product.put("id", i + 1);
-            product.put("name", names[i]);
-            product.put("image", "https://via.placeholder.com/60x60");
-            product.put("sales", 150 - i * 12);
-            product.put("amount", new BigDecimal(4200 - i * 350));
-            hotProducts.add(product);
+        for (ProductDailySales sales : top) {
+            Product product = products.get(sales.getProductId());
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", sales.getProductId());
+            item.put("name", product != null ? product.getName() : "");
+            item.put("image", product != null ? imageUrlUtil.generateUrl(product.getImage()) : "");
+            item.put("sales", sales.getQuantity());
+            item.put("amount", money(sales.getAmount()));
+            hotProducts.add(item);
         }
         data.put("hotProducts", hotProducts);
 
-        // 分类销售占比
+        // 分类销售占比（按销售金额）
+        List<ProductDailySales> categories = merchantDailyStatsService.getCategorySales(
+                merchantId, current.from(), current.to());
+        List<Long> categoryIds = categories.stream().map(ProductDailySales::getCategoryId)
+                .filter(Objects::nonNull).toList();
+        Map<Long, String> categoryNames = categoryTree.getNames(categoryIds);
+        BigDecimal categoryTotal = categories.stream().map(ProductDailySales::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
         List<Map<String, Object>> categoryDist = new ArrayList<>();
-        String[] categories = {"蔬菜", "水果", "肉类", "海鲜", "蛋奶", "其他"};
-        int[] percentages = {25, 22, 18, 15, 12, 8};
-        for (int i = 0; i < categories.length; i++) {
+        for (ProductDailySales category : categories) {
             Map<String, Object> item = new HashMap<>();
-            item.put("name", categories[i]);
-            item.put("value", percentages[i]);
+            item.put("name", categoryNames.getOrDefault(category.getCategoryId(), "其他"));
+            item.put("value", categoryTotal.signum() == 0 ? 0 : category.getAmount().multiply(BigDecimal.valueOf(100))
+                    .divide(categoryTotal, 1, RoundingMode.HALF_UP).doubleValue());
+            item.put("amount", money(category.getAmount()));
             categoryDist.add(item);
         }
         data.put("categoryDistribution", categoryDist);
 
         return Result.success(data);
     }
+
+    /**
+     * 统计周期（含首尾）；monthly 为 true 时按月汇总，from、to 为月初与月末
+     */
+    private record StatPeriod(LocalDate from, LocalDate to, boolean monthly) {
+
+        /**
+         * 上一个等长周期
+         */
+        StatPeriod previous() {
+            if (monthly) {
+                long months = ChronoUnit.MONTHS.between(from, to.plusDays(1));
+                LocalDate previousFrom = from.minusMonths(months);
+                return new StatPeriod(previousFrom, from.minusDays(1), true);
+            }
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            return new StatPeriod(from.minusDays(days), from.minusDays(1), false);
+        }
+
+        String label(LocalDate date) {
+            return date.format(monthly ? MONTH_FORMAT : DAY_FORMAT);
+        }
+
+        /**
+         * 实际统计的日期范围，按月统计时已扩展到整月
+         */
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("startDate", from.toString());
+            map.put("endDate", to.toString());
+            map.put("granularity", monthly ? "month" : "day");
+            return map;
+        }
+    }
+
+    private StatPeriod resolvePeriod(String period, String startDate, String endDate) {
+        LocalDate today = LocalDate.now();
+        if (StringUtils.hasText(startDate) && StringUtils.hasText(endDate)) {
+            try {
+                LocalDate from = LocalDate.parse(startDate);
+                LocalDate to = LocalDate.parse(endDate);
+                long days = ChronoUnit.DAYS.between(from, to) + 1;
+                if (days < 1 || days > MAX_RANGE_DAYS) {
+                    throw new BusinessException(ResultCode.VALIDATE_FAILED, "统计日期范围不正确");
+                }
+                if (days > MAX_DAILY_TREND_DAYS) {
+                    // 按月汇总，范围扩展到首尾整月，实际范围随响应的 period 返回
+                    return new StatPeriod(from.withDayOfMonth(1), to.withDayOfMonth(to.lengthOfMonth()), true);
+                }
+                return new StatPeriod(from, to, false);
+            } catch (DateTimeParseException e) {
+                throw new BusinessException(ResultCode.VALIDATE_FAILED, "日期格式不正确");
+            }
+        }
+        return switch (period) {
+            case "month" -> new StatPeriod(today.minusDays(29), today, false);
+            case "year" -> new StatPeriod(today.withDayOfMonth(1).minusMonths(11),
+                    today.withDayOfMonth(today.lengthOfMonth()), true);
+            default -> new StatPeriod(today.minusDays(6), today, false);
+        };
+    }
+
+    private List<MerchantDailyStats> trend(Long merchantId, StatPeriod period) {
+        if (period.monthly()) {
+            return merchantDailyStatsService.getMonths(merchantId, period.from(), period.to().withDayOfMonth(1));
+        }
+        return merchantDailyStatsService.getRange(merchantId, period.from(), period.to());
+    }
+
+    /**
+     * 周期汇总：按月的周期直接累加月汇总
+     */
+    private MerchantDailyStats sum(Long merchantId, StatPeriod period) {
+        if (!period.monthly()) {
+            return merchantDailyStatsService.sum(merchantId, period.from(), period.to());
+        }
+        MerchantDailyStats total = MerchantDailyStats.empty(merchantId, period.from());
+        trend(merchantId, period).forEach(total::add);
+        return total;
+    }
+
+    private Map<String, Object> statusItem(String name, long value) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("name", name);
+        item.put("value", Math.max(value, 0));
+        return item;
+    }
+
+    private static BigDecimal avgAmount(MerchantDailyStats stats) {
+        return stats.getOrderCount() > 0
+                ? stats.getSalesAmount().divide(BigDecimal.valueOf(stats.getOrderCount()), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO.setScale(2);
+    }
+
+    /**
+     * 增长率%，上期为0时返回0
+     */
+    private static BigDecimal growth(BigDecimal current, BigDecimal previous) {
+        if (previous.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return current.subtract(previous).multiply(BigDecimal.valueOf(100))
+                .divide(previous, 1, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal percentage(long part, long total) {
+        if (total == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(part * 100).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
 }
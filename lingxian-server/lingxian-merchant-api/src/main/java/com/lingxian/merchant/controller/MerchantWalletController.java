@@ -1,6 +1,7 @@
 package com.lingxian.merchant.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.config.SystemSettings;
 import com.lingxian.common.entity.*;
 import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
@@ -23,34 +24,30 @@ import java.util.*;
 @Tag(name = "商户端-钱包管理", description = "商户钱包和提现管理接口")
 public class MerchantWalletController {
 
-    private final MerchantUserService merchantUserService;
     private final MerchantWalletService merchantWalletService;
     private final WithdrawAccountService withdrawAccountService;
     private final WithdrawRecordService withdrawRecordService;
     private final WalletRecordService walletRecordService;
+    private final SystemConfigService systemConfigService;
 
-    // 手续费率 0.6%
-    private static final BigDecimal FEE_RATE = new BigDecimal("0.006");
-    // 最低手续费 1元
+    // 最低手续费 1元（手续费率、最低提现金额见系统配置）
     private static final BigDecimal MIN_FEE = new BigDecimal("1");
-    // 最低提现金额 10元
-    private static final BigDecimal MIN_WITHDRAW = new BigDecimal("10");
 
     @GetMapping("/balance")
     @Operation(summary = "获取钱包余额")
     public Result<Map<String, Object>> getBalance(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        MerchantWallet wallet = merchantWalletService.getOrCreateByMerchantId(merchantUser.getMerchantId());
+        MerchantWallet wallet = merchantWalletService.getOrCreateByMerchantId(merchantId);
 
         Map<String, Object> data = new HashMap<>();
         data.put("balance", wallet.getBalance().setScale(2, RoundingMode.HALF_UP).toString());
@@ -62,28 +59,46 @@ public class MerchantWalletController {
     }
 
     @GetMapping("/records")
-    @Operation(summary = "获取收支明细")
+    @Operation(summary = "获取收支明细（传 cursor 时按游标分页）")
     public Result<PageResult<Map<String, Object>>> getRecords(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "20") Integer pageSize,
-            @RequestParam(required = false) Integer type) {
+            @RequestParam(required = false) Integer type,
+            @RequestParam(required = false) String cursor) {
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
+        if (cursor != null) {
+            PageResult<WalletRecord> cursorData = walletRecordService.getByMerchantId(
+                    merchantId, type, cursor, pageSize);
+            return Result.success(PageResult.ofCursor(cursorData.getSize(),
+                    convertWalletRecords(cursorData.getRecords()), cursorData.getNextCursor()));
+        }
+
         Page<WalletRecord> pageData = walletRecordService.getByMerchantId(
-                merchantUser.getMerchantId(), type, page, pageSize);
+                merchantId, type, page, pageSize);
+
+        PageResult<Map<String, Object>> result = PageResult.of(
+                pageData.getTotal(),
+                (long) page,
+                (long) pageSize,
+                convertWalletRecords(pageData.getRecords())
+        );
+        return Result.success(result);
+    }
 
+    private List<Map<String, Object>> convertWalletRecords(List<WalletRecord> walletRecords) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         List<Map<String, Object>> records = new ArrayList<>();
-        for (WalletRecord record : pageData.getRecords()) {
+        for (WalletRecord record : walletRecords) {
             Map<String, Object> item = new HashMap<>();
             item.put("id", record.getId());
             item.put("title", record.getTitle());
@@ -92,31 +107,24 @@ public class MerchantWalletController {
             item.put("createTime", record.getCreateTime().format(formatter));
             records.add(item);
         }
-
-        PageResult<Map<String, Object>> result = PageResult.of(
-                pageData.getTotal(),
-                (long) page,
-                (long) pageSize,
-                records
-        );
-        return Result.success(result);
+        return records;
     }
 
     @GetMapping("/accounts")
     @Operation(summary = "获取提现账户列表")
     public Result<List<Map<String, Object>>> getAccounts(
-            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId) {
+            @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId) {
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
-        List<WithdrawAccount> accounts = withdrawAccountService.getByMerchantId(merchantUser.getMerchantId());
+        List<WithdrawAccount> accounts = withdrawAccountService.getByMerchantId(merchantId);
 
         List<Map<String, Object>> result = new ArrayList<>();
         for (WithdrawAccount account : accounts) {
@@ -139,6 +147,7 @@ public class MerchantWalletController {
     @Operation(summary = "添加提现账户")
     public Result<Long> addAccount(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestBody Map<String, Object> body) {
 
         log.info("添加提现账户: userId={}, body={}", userId, body);
@@ -147,8 +156,7 @@ public class MerchantWalletController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
@@ -170,7 +178,7 @@ public class MerchantWalletController {
         }
 
         WithdrawAccount account = new WithdrawAccount();
-        account.setMerchantId(merchantUser.getMerchantId());
+        account.setMerchantId(merchantId);
         account.setType(type);
         account.setRealName(realName.trim());
         account.setAccountNo(accountNo.trim());
@@ -181,9 +189,9 @@ public class MerchantWalletController {
         withdrawAccountService.save(account);
 
         // 如果设置为默认，或者是第一个账户，则设置为默认
-        List<WithdrawAccount> existingAccounts = withdrawAccountService.getByMerchantId(merchantUser.getMerchantId());
+        List<WithdrawAccount> existingAccounts = withdrawAccountService.getByMerchantId(merchantId);
         if (Boolean.TRUE.equals(isDefault) || existingAccounts.size() == 1) {
-            withdrawAccountService.setDefault(merchantUser.getMerchantId(), account.getId());
+            withdrawAccountService.setDefault(merchantId, account.getId());
         }
 
         log.info("添加提现账户成功: id={}, type={}, realName={}", account.getId(), type, realName);
@@ -195,6 +203,7 @@ public class MerchantWalletController {
     @Operation(summary = "删除提现账户")
     public Result<Void> removeAccount(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
         log.info("删除提现账户: userId={}, accountId={}", userId, id);
@@ -203,13 +212,12 @@ public class MerchantWalletController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
         WithdrawAccount account = withdrawAccountService.getById(id);
-        if (account == null || !account.getMerchantId().equals(merchantUser.getMerchantId())) {
+        if (account == null || !account.getMerchantId().equals(merchantId)) {
             return Result.failed("账户不存在");
         }
 
@@ -221,6 +229,7 @@ public class MerchantWalletController {
     @Operation(summary = "设置默认提现账户")
     public Result<Void> setDefaultAccount(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
         log.info("设置默认提现账户: userId={}, accountId={}", userId, id);
@@ -229,17 +238,16 @@ public class MerchantWalletController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
         WithdrawAccount account = withdrawAccountService.getById(id);
-        if (account == null || !account.getMerchantId().equals(merchantUser.getMerchantId())) {
+        if (account == null || !account.getMerchantId().equals(merchantId)) {
             return Result.failed("账户不存在");
         }
 
-        withdrawAccountService.setDefault(merchantUser.getMerchantId(), id);
+        withdrawAccountService.setDefault(merchantId, id);
         return Result.success();
     }
 
@@ -247,6 +255,7 @@ public class MerchantWalletController {
     @Operation(summary = "发起提现")
     public Result<Long> withdraw(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestBody Map<String, Object> body) {
 
         log.info("发起提现: userId={}, body={}", userId, body);
@@ -255,16 +264,17 @@ public class MerchantWalletController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
         BigDecimal amount = body.get("amount") != null ? new BigDecimal(body.get("amount").toString()) : null;
         Long accountId = body.get("accountId") != null ? Long.valueOf(body.get("accountId").toString()) : null;
 
-        if (amount == null || amount.compareTo(MIN_WITHDRAW) < 0) {
-            return Result.failed("最低提现金额" + MIN_WITHDRAW + "元");
+        SystemSettings settings = systemConfigService.current();
+        BigDecimal minWithdraw = settings.getMinWithdrawAmount();
+        if (amount == null || amount.compareTo(minWithdraw) < 0) {
+            return Result.failed("最低提现金额" + minWithdraw.toPlainString() + "元");
         }
         if (accountId == null) {
             return Result.failed("请选择提现账户");
@@ -272,18 +282,18 @@ public class MerchantWalletController {
 
         // 校验账户
         WithdrawAccount account = withdrawAccountService.getById(accountId);
-        if (account == null || !account.getMerchantId().equals(merchantUser.getMerchantId())) {
+        if (account == null || !account.getMerchantId().equals(merchantId)) {
             return Result.failed("提现账户不存在");
         }
 
         // 校验余额
-        MerchantWallet wallet = merchantWalletService.getOrCreateByMerchantId(merchantUser.getMerchantId());
+        MerchantWallet wallet = merchantWalletService.getOrCreateByMerchantId(merchantId);
         if (wallet.getBalance().compareTo(amount) < 0) {
             return Result.failed("余额不足");
         }
 
         // 计算手续费
-        BigDecimal fee = amount.multiply(FEE_RATE).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal fee = amount.multiply(settings.getWithdrawFeeRate()).setScale(2, RoundingMode.HALF_UP);
         if (fee.compareTo(MIN_FEE) < 0) {
             fee = MIN_FEE;
         }
@@ -291,7 +301,7 @@ public class MerchantWalletController {
 
         // 创建提现记录
         WithdrawRecord record = new WithdrawRecord();
-        record.setMerchantId(merchantUser.getMerchantId());
+        record.setMerchantId(merchantId);
         record.setAccountId(accountId);
         record.setAccountType(account.getType());
         record.setAccountName(getAccountName(account));
@@ -306,7 +316,7 @@ public class MerchantWalletController {
 
         // 扣减余额
         merchantWalletService.subtractBalance(
-                merchantUser.getMerchantId(),
+                merchantId,
                 amount,
                 "提现",
                 "withdraw",
@@ -326,6 +336,7 @@ public class MerchantWalletController {
     @Operation(summary = "获取提现记录")
     public Result<PageResult<Map<String, Object>>> getWithdrawRecords(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "20") Integer pageSize) {
 
@@ -333,13 +344,12 @@ public class MerchantWalletController {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
         Page<WithdrawRecord> pageData = withdrawRecordService.getByMerchantId(
-                merchantUser.getMerchantId(), page, pageSize);
+                merchantId, page, pageSize);
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         List<Map<String, Object>> records = new ArrayList<>();
@@ -367,19 +377,19 @@ public class MerchantWalletController {
     @Operation(summary = "获取提现详情")
     public Result<Map<String, Object>> getWithdrawDetail(
             @RequestHeader(value = "X-Merchant-User-Id", required = false) Long userId,
+            @RequestHeader(value = "X-Merchant-Id", required = false) Long merchantId,
             @PathVariable Long id) {
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        MerchantUser merchantUser = merchantUserService.getById(userId);
-        if (merchantUser == null || merchantUser.getMerchantId() == null) {
+        if (merchantId == null) {
             return Result.failed("商户信息不存在");
         }
 
         WithdrawRecord record = withdrawRecordService.getById(id);
-        if (record == null || !record.getMerchantId().equals(merchantUser.getMerchantId())) {
+        if (record == null || !record.getMerchantId().equals(merchantId)) {
             return Result.failed("提现记录不存在");
         }
 
@@ -1,5 +1,7 @@
 package com.lingxian.user.config;
 
+import com.lingxian.common.service.PlatformStatsService;
+import com.lingxian.common.util.JwtPrincipal;
 import com.lingxian.common.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -24,6 +26,7 @@ import java.util.*;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final PlatformStatsService platformStatsService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -34,14 +37,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authorization != null && authorization.startsWith("Bearer ")) {
             String token = authorization.substring(7);
             try {
-                if (jwtUtil.validateToken(token)) {
-                    Long userId = jwtUtil.getUserId(token);
-                    if (userId != null) {
-                        // 创建包装请求，添加X-User-Id头
-                        HttpServletRequest wrappedRequest = new UserIdHeaderWrapper(request, userId);
-                        filterChain.doFilter(wrappedRequest, response);
-                        return;
-                    }
+                JwtPrincipal principal = jwtUtil.verify(token);
+                // 兼容升级前签发的未携带角色的用户 token，商户端、管理后台不接受
+                if (principal != null && (principal.hasRole(JwtPrincipal.ROLE_USER) || principal.isLegacy())) {
+                    platformStatsService.onUserActive(principal.userId());
+                    // 创建包装请求，添加X-User-Id头
+                    HttpServletRequest wrappedRequest = new UserIdHeaderWrapper(request, principal.userId());
+                    filterChain.doFilter(wrappedRequest, response);
+                    return;
                 }
             } catch (Exception e) {
                 log.debug("Token验证失败: {}", e.getMessage());
@@ -6,8 +6,10 @@ import cn.binarywang.wx.miniapp.bean.WxMaPhoneNumberInfo;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.lingxian.common.entity.User;
 import com.lingxian.common.result.Result;
+import com.lingxian.common.service.PlatformStatsService;
 import com.lingxian.common.service.UserService;
 import com.lingxian.common.util.ImageUrlUtil;
+import com.lingxian.common.util.JwtPrincipal;
 import com.lingxian.common.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -35,6 +37,7 @@ public class UserAuthController {
     private final UserService userService;
     private final JwtUtil jwtUtil;
     private final ImageUrlUtil imageUrlUtil;
+    private final PlatformStatsService platformStatsService;
 
     @Value("${spring.profiles.active:dev}")
     private String activeProfile;
@@ -108,6 +111,7 @@ public class UserAuthController {
                 user.setCreateTime(now);
                 user.setUpdateTime(now);
                 userService.save(user);
+                platformStatsService.onUserRegistered(user.getId());
                 isNewUser = true;
                 log.info("创建新用户: userId={}", user.getId());
             } else {
@@ -121,12 +125,13 @@ public class UserAuthController {
                     user.setAvatar(avatar);
                 }
                 userService.updateById(user);
+                platformStatsService.onUserActive(user.getId());
                 log.info("用户登录: userId={}", user.getId());
             }
 
             // 生成 token
-            String token = jwtUtil.generateToken(user.getId(), openid);
-            String refreshToken = jwtUtil.generateRefreshToken(user.getId());
+            String token = issueToken(user.getId(), openid);
+            String refreshToken = jwtUtil.generateRefreshToken(user.getId(), JwtPrincipal.ROLE_USER);
 
             // 返回用户信息和 token
             Map<String, Object> result = new HashMap<>();
@@ -214,10 +219,10 @@ public class UserAuthController {
             return Result.success(result);
         }
 
-        String token = authorization.substring(7);
-        if (jwtUtil.validateToken(token)) {
-            Long userId = jwtUtil.getUserId(token);
-            User user = userService.getById(userId);
+        // 与过滤器一致：只认用户端 token
+        JwtPrincipal principal = jwtUtil.verify(authorization.substring(7));
+        if (principal != null && (principal.hasRole(JwtPrincipal.ROLE_USER) || principal.isLegacy())) {
+            User user = userService.getById(principal.userId());
 
             if (user != null && user.getStatus() == 1) {
                 result.put("isLogin", true);
@@ -252,20 +257,22 @@ public class UserAuthController {
             return Result.failed("refreshToken不能为空");
         }
 
-        if (!jwtUtil.validateToken(refreshToken)) {
+        // 兼容升级前签发的未携带角色的 refresh token
+        JwtPrincipal principal = jwtUtil.verify(refreshToken);
+        if (principal == null || !(principal.hasRole(JwtPrincipal.refreshRole(JwtPrincipal.ROLE_USER))
+                || principal.isLegacy())) {
             return Result.failed("refreshToken无效或已过期");
         }
 
-        Long userId = jwtUtil.getUserId(refreshToken);
-        User user = userService.getById(userId);
+        User user = userService.getById(principal.userId());
 
         if (user == null || user.getStatus() != 1) {
             return Result.failed("用户不存在或已禁用");
         }
 
         // 生成新 token
-        String newToken = jwtUtil.generateToken(user.getId(), user.getOpenid());
-        String newRefreshToken = jwtUtil.generateRefreshToken(user.getId());
+        String newToken = issueToken(user.getId(), user.getOpenid());
+        String newRefreshToken = jwtUtil.generateRefreshToken(user.getId(), JwtPrincipal.ROLE_USER);
 
         Map<String, Object> result = new HashMap<>();
         result.put("token", newToken);
@@ -273,4 +280,13 @@ public class UserAuthController {
 
         return Result.success(result);
     }
+
+    /**
+     * 签发用户端 token
+     */
+    private String issueToken(Long userId, String openid) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("openid", openid);
+        return jwtUtil.generateToken(userId, JwtPrincipal.ROLE_USER, claims);
+    }
 }
@@ -2,12 +2,11 @@ package com.lingxian.user.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.MerchantAvailabilityIndex;
 import com.lingxian.common.entity.Category;
-import com.lingxian.common.entity.Merchant;
 import com.lingxian.common.entity.Product;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.CategoryService;
-import com.lingxian.common.service.MerchantService;
 import com.lingxian.common.service.ProductService;
 import com.lingxian.common.util.ImageUrlUtil;
 import io.swagger.v3.oas.annotations.Operation;
@@ -20,7 +19,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -31,7 +29,7 @@ public class UserCategoryController {
 
     private final CategoryService categoryService;
     private final ProductService productService;
-    private final MerchantService merchantService;
+    private final MerchantAvailabilityIndex merchantAvailabilityIndex;
     private final ImageUrlUtil imageUrlUtil;
 
     @GetMapping
@@ -52,7 +50,7 @@ public class UserCategoryController {
             @RequestParam(defaultValue = "10") Integer pageSize) {
 
         // 获取营业中的商户ID列表
-        List<Long> openMerchantIds = getOpenMerchantIds();
+        List<Long> openMerchantIds = merchantAvailabilityIndex.getAvailableMerchantIds(null);
 
         // 如果没有营业中的商户，返回空结果
         if (openMerchantIds.isEmpty()) {
@@ -111,16 +109,4 @@ public class UserCategoryController {
         product.setImages(imageUrlUtil.generateUrlsFromJson(product.getImages()));
         product.setVideo(imageUrlUtil.generateUrl(product.getVideo()));
     }
-
-    /**
-     * 获取营业中的商户ID列表
-     */
-    private List<Long> getOpenMerchantIds() {
-        List<Merchant> openMerchants = merchantService.list(new LambdaQueryWrapper<Merchant>()
-                .eq(Merchant::getStatus, 1)
-                .select(Merchant::getId));
-        return openMerchants.stream()
-                .map(Merchant::getId)
-                .collect(Collectors.toList());
-    }
 }
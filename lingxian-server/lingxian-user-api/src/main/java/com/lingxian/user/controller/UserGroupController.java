@@ -2,7 +2,11 @@ package com.lingxian.user.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.GroupActivityIndex;
+import com.lingxian.common.cache.MerchantAvailabilityIndex;
 import com.lingxian.common.entity.*;
+import com.lingxian.common.loader.BatchLoader;
+import com.lingxian.common.loader.BatchLoaders;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.*;
 import com.lingxian.common.util.ImageUrlUtil;
@@ -12,13 +16,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
-import org.springframework.transaction.annotation.Transactional;
-
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,9 +32,11 @@ public class UserGroupController {
     private final GroupActivityService groupActivityService;
     private final GroupRecordService groupRecordService;
     private final GroupMemberService groupMemberService;
+    private final GroupBuyService groupBuyService;
     private final ProductService productService;
-    private final MerchantService merchantService;
-    private final UserService userService;
+    private final MerchantAvailabilityIndex merchantAvailabilityIndex;
+    private final GroupActivityIndex groupActivityIndex;
+    private final BatchLoaders batchLoaders;
     private final ImageUrlUtil imageUrlUtil;
 
     @GetMapping("/activities")
@@ -43,49 +46,14 @@ public class UserGroupController {
             @RequestParam(defaultValue = "10") Integer pageSize) {
         log.info("获取拼团活动列表: page={}, pageSize={}", page, pageSize);
 
-        // 获取营业中的商户ID列表
-        List<Long> openMerchantIds = getOpenMerchantIds();
-
-        LocalDateTime now = LocalDateTime.now();
-        // 先获取更多数据，后面过滤
-        List<GroupActivity> allActivities = groupActivityService.list(
-                new LambdaQueryWrapper<GroupActivity>()
-                        .eq(GroupActivity::getStatus, 1) // 进行中
-                        .le(GroupActivity::getStartTime, now)
-                        .ge(GroupActivity::getEndTime, now)
-                        .orderByDesc(GroupActivity::getCreateTime)
-        );
-
-        // 批量获取商品并过滤休息中商户的活动
-        List<Long> productIds = allActivities.stream()
-                .map(GroupActivity::getProductId)
-                .collect(Collectors.toList());
-        Map<Long, Product> productMap = productIds.isEmpty() ? new HashMap<>() :
-                productService.listByIds(productIds).stream()
-                        .collect(Collectors.toMap(Product::getId, p -> p));
-
-        List<GroupActivity> filteredActivities = allActivities.stream()
-                .filter(activity -> {
-                    Product product = productMap.get(activity.getProductId());
-                    return product != null && openMerchantIds.contains(product.getMerchantId());
-                })
-                .peek(activity -> {
-                    Product product = productMap.get(activity.getProductId());
-                    activity.setProductName(product.getName());
-                    activity.setProductImage(imageUrlUtil.generateUrl(product.getImage()));
-                })
-                .collect(Collectors.toList());
-
-        // 手动分页
-        int total = filteredActivities.size();
-        int start = (page - 1) * pageSize;
-        int end = Math.min(start + pageSize, total);
-        List<GroupActivity> pagedActivities = start < total ?
-                filteredActivities.subList(start, end) : new java.util.ArrayList<>();
+        // 从进行中活动索引分页，已按商户营业状态过滤
+        GroupActivityIndex.ActivityPage activityPage = groupActivityIndex.page(null, (page - 1) * pageSize, pageSize);
+        List<GroupActivity> pagedActivities = activityPage.records();
+        pagedActivities.forEach(activity -> activity.setProductImage(imageUrlUtil.generateUrl(activity.getProductImage())));
 
         Map<String, Object> result = new HashMap<>();
         result.put("records", pagedActivities);
-        result.put("total", total);
+        result.put("total", activityPage.total());
         result.put("page", page);
         result.put("pageSize", pageSize);
 
@@ -106,11 +74,9 @@ public class UserGroupController {
         Product product = productService.getById(activity.getProductId());
 
         // 检查商户是否营业中
-        if (product != null && product.getMerchantId() != null) {
-            Merchant merchant = merchantService.getById(product.getMerchantId());
-            if (merchant == null || merchant.getStatus() != 1) {
-                return Result.failed("商户已休息，暂时无法查看该拼团活动");
-            }
+        if (product != null && product.getMerchantId() != null
+                && !merchantAvailabilityIndex.isOpen(product.getMerchantId())) {
+            return Result.failed("商户已休息，暂时无法查看该拼团活动");
         }
 
         Map<String, Object> result = new HashMap<>();
@@ -148,6 +114,13 @@ public class UserGroupController {
                         .orderByAsc(GroupRecord::getExpireTime)
                         .last("LIMIT 10")
         );
+        // 数据库进度有回写延迟，以 Redis 中的人数、状态为准，剔除刚成团的
+        groupBuyService.applyLiveState(records);
+        records.removeIf(record -> record.getStatus() != 0);
+
+        // 团长信息整批查询
+        BatchLoader loader = batchLoaders.create();
+        loader.users().primeAll(records, GroupRecord::getLeaderId);
 
         List<Map<String, Object>> result = records.stream().map(record -> {
             Map<String, Object> map = new HashMap<>();
@@ -168,7 +141,7 @@ public class UserGroupController {
             }
 
             // 团长信息
-            User leader = userService.getById(record.getLeaderId());
+            User leader = loader.users().get(record.getLeaderId());
             if (leader != null) {
                 map.put("leaderId", leader.getId());
                 map.put("leaderNickname", leader.getNickname());
@@ -216,9 +189,12 @@ public class UserGroupController {
 
         Page<GroupRecord> pageResult = groupRecordService.page(new Page<>(page, pageSize), wrapper);
 
-        // 填充信息
+        // 填充信息：活动取回后再登记其商品，整页每类数据只查一次
+        BatchLoader loader = batchLoaders.create();
+        loader.groupActivities().getAll(pageResult.getRecords().stream().map(GroupRecord::getActivityId).toList())
+                .values().forEach(activity -> loader.products().prime(activity != null ? activity.getProductId() : null));
         for (GroupRecord record : pageResult.getRecords()) {
-            fillRecordInfo(record);
+            fillRecordInfo(record, loader);
         }
 
         Map<String, Object> result = new HashMap<>();
@@ -230,7 +206,6 @@ public class UserGroupController {
 
     @PostMapping("/start")
     @Operation(summary = "发起拼团")
-    @Transactional
     public Result<Map<String, Object>> startGroup(
             @RequestHeader(value = "X-User-Id", required = false) Long userId,
             @RequestBody Map<String, Object> body) {
@@ -241,56 +216,7 @@ public class UserGroupController {
             return Result.failed("请先登录");
         }
 
-        // 校验活动
-        GroupActivity activity = groupActivityService.getById(activityId);
-        if (activity == null) {
-            return Result.failed("拼团活动不存在");
-        }
-
-        LocalDateTime now = LocalDateTime.now();
-        if (activity.getStatus() != 1) {
-            return Result.failed("活动未在进行中");
-        }
-        if (now.isBefore(activity.getStartTime()) || now.isAfter(activity.getEndTime())) {
-            return Result.failed("活动不在有效期内");
-        }
-        if (activity.getStock() <= 0) {
-            return Result.failed("库存不足");
-        }
-
-        // 检查用户是否已有进行中的拼团（同一活动）
-        long existingCount = groupRecordService.count(new LambdaQueryWrapper<GroupRecord>()
-                .eq(GroupRecord::getActivityId, activityId)
-                .eq(GroupRecord::getLeaderId, userId)
-                .eq(GroupRecord::getStatus, 0));
-        if (existingCount > 0) {
-            return Result.failed("您已有进行中的拼团");
-        }
-
-        // 创建拼团记录
-        GroupRecord record = new GroupRecord();
-        record.setGroupNo(generateGroupNo());
-        record.setActivityId(activityId);
-        record.setLeaderId(userId);
-        record.setGroupSize(activity.getGroupSize());
-        record.setCurrentSize(1);
-        record.setGroupPrice(activity.getGroupPrice());
-        record.setStatus(0); // 拼团中
-        record.setExpireTime(now.plusHours(activity.getExpireHours() != null ? activity.getExpireHours() : 24));
-        record.setCreateTime(now);
-        groupRecordService.save(record);
-
-        // 添加团长为成员
-        GroupMember member = new GroupMember();
-        member.setGroupId(record.getId());
-        member.setUserId(userId);
-        member.setIsLeader(1);
-        member.setJoinTime(now);
-        groupMemberService.save(member);
-
-        // 更新活动统计
-        activity.setGroupCount((activity.getGroupCount() != null ? activity.getGroupCount() : 0) + 1);
-        groupActivityService.updateById(activity);
+        GroupRecord record = groupBuyService.startGroup(activityId, userId);
 
         Map<String, Object> result = new HashMap<>();
         result.put("groupId", record.getId());
@@ -303,7 +229,6 @@ public class UserGroupController {
 
     @PostMapping("/join")
     @Operation(summary = "参与拼团")
-    @Transactional
     public Result<Map<String, Object>> joinGroup(
             @RequestHeader(value = "X-User-Id", required = false) Long userId,
             @RequestBody Map<String, Object> body) {
@@ -314,60 +239,8 @@ public class UserGroupController {
             return Result.failed("请先登录");
         }
 
-        // 校验拼团记录
-        GroupRecord record = groupRecordService.getById(groupId);
-        if (record == null) {
-            return Result.failed("拼团不存在");
-        }
-
-        LocalDateTime now = LocalDateTime.now();
-        if (record.getStatus() != 0) {
-            return Result.failed("该拼团已结束");
-        }
-        if (now.isAfter(record.getExpireTime())) {
-            return Result.failed("该拼团已过期");
-        }
-        if (record.getCurrentSize() >= record.getGroupSize()) {
-            return Result.failed("该拼团人数已满");
-        }
-
-        // 检查用户是否已参与该拼团
-        long memberCount = groupMemberService.count(new LambdaQueryWrapper<GroupMember>()
-                .eq(GroupMember::getGroupId, groupId)
-                .eq(GroupMember::getUserId, userId));
-        if (memberCount > 0) {
-            return Result.failed("您已参与该拼团");
-        }
-
-        // 校验活动库存
-        GroupActivity activity = groupActivityService.getById(record.getActivityId());
-        if (activity == null || activity.getStock() <= 0) {
-            return Result.failed("库存不足");
-        }
-
-        // 添加成员
-        GroupMember member = new GroupMember();
-        member.setGroupId(groupId);
-        member.setUserId(userId);
-        member.setIsLeader(0);
-        member.setJoinTime(now);
-        groupMemberService.save(member);
-
-        // 更新拼团人数
-        record.setCurrentSize(record.getCurrentSize() + 1);
-
-        // 检查是否成团
-        if (record.getCurrentSize() >= record.getGroupSize()) {
-            record.setStatus(1); // 拼团成功
-            record.setCompleteTime(now);
-
-            // 更新活动统计
-            activity.setSoldCount((activity.getSoldCount() != null ? activity.getSoldCount() : 0) + record.getGroupSize());
-            activity.setStock(activity.getStock() - record.getGroupSize());
-            groupActivityService.updateById(activity);
-        }
-
-        groupRecordService.updateById(record);
+        // 占位、查重、成团判断在 Redis 中原子完成，成员和进度异步落库
+        GroupRecord record = groupBuyService.joinGroup(groupId, userId);
 
         Map<String, Object> result = new HashMap<>();
         result.put("groupId", record.getId());
@@ -380,13 +253,6 @@ public class UserGroupController {
         return Result.success(result);
     }
 
-    /**
-     * 生成团号
-     */
-    private String generateGroupNo() {
-        return "PT" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
-    }
-
     @GetMapping("/records/{id}")
     @Operation(summary = "获取拼团记录详情")
     public Result<Map<String, Object>> getGroupDetail(@PathVariable Long id) {
@@ -397,7 +263,10 @@ public class UserGroupController {
             return Result.failed("拼团记录不存在");
         }
 
-        fillRecordInfo(record);
+        groupBuyService.applyLiveState(List.of(record));
+        BatchLoader loader = batchLoaders.create();
+        loader.users().prime(record.getLeaderId());
+        fillRecordInfo(record, loader);
 
         // 获取成员列表
         List<GroupMember> members = groupMemberService.list(
@@ -406,8 +275,9 @@ public class UserGroupController {
                         .orderByAsc(GroupMember::getJoinTime)
         );
 
+        loader.users().primeAll(members, GroupMember::getUserId);
         for (GroupMember member : members) {
-            User user = userService.getById(member.getUserId());
+            User user = loader.users().get(member.getUserId());
             if (user != null) {
                 member.setNickname(user.getNickname());
                 member.setAvatar(imageUrlUtil.generateUrl(user.getAvatar()));
@@ -433,7 +303,7 @@ public class UserGroupController {
         result.put("members", members);
 
         // 团长信息
-        User leader = userService.getById(record.getLeaderId());
+        User leader = loader.users().get(record.getLeaderId());
         if (leader != null) {
             result.put("leaderNickname", leader.getNickname());
             result.put("leaderAvatar", imageUrlUtil.generateUrl(leader.getAvatar()));
@@ -458,21 +328,17 @@ public class UserGroupController {
     /**
      * 填充拼团记录信息
      */
-    private void fillRecordInfo(GroupRecord record) {
+    private void fillRecordInfo(GroupRecord record, BatchLoader loader) {
         // 填充活动信息
-        if (record.getActivityId() != null) {
-            GroupActivity activity = groupActivityService.getById(record.getActivityId());
-            if (activity != null) {
-                record.setActivityName(activity.getName());
-                record.setProductId(activity.getProductId());
-
-                if (activity.getProductId() != null) {
-                    Product product = productService.getById(activity.getProductId());
-                    if (product != null) {
-                        record.setProductName(product.getName());
-                        record.setProductImage(imageUrlUtil.generateUrl(product.getImage()));
-                    }
-                }
+        GroupActivity activity = loader.groupActivities().get(record.getActivityId());
+        if (activity != null) {
+            record.setActivityName(activity.getName());
+            record.setProductId(activity.getProductId());
+
+            Product product = loader.products().get(activity.getProductId());
+            if (product != null) {
+                record.setProductName(product.getName());
+                record.setProductImage(imageUrlUtil.generateUrl(product.getImage()));
             }
         }
 
@@ -482,16 +348,4 @@ public class UserGroupController {
             record.setStatusName(statusNames[record.getStatus()]);
         }
     }
-
-    /**
-     * 获取营业中的商户ID列表
-     */
-    private List<Long> getOpenMerchantIds() {
-        List<Merchant> openMerchants = merchantService.list(new LambdaQueryWrapper<Merchant>()
-                .eq(Merchant::getStatus, 1)
-                .select(Merchant::getId));
-        return openMerchants.stream()
-                .map(Merchant::getId)
-                .collect(Collectors.toList());
-    }
 }
@@ -2,11 +2,10 @@ package com.lingxian.user.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.lingxian.common.entity.Category;
+import com.lingxian.common.cache.CategoryTree;
 import com.lingxian.common.entity.Merchant;
 import com.lingxian.common.entity.Product;
 import com.lingxian.common.result.Result;
-import com.lingxian.common.service.CategoryService;
 import com.lingxian.common.service.MerchantService;
 import com.lingxian.common.service.ProductService;
 import com.lingxian.common.util.ImageUrlUtil;
@@ -20,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,7 +31,7 @@ public class UserMerchantController {
 
     private final MerchantService merchantService;
     private final ProductService productService;
-    private final CategoryService categoryService;
+    private final CategoryTree categoryTree;
     private final ImageUrlUtil imageUrlUtil;
 
     @GetMapping("/{id}")
@@ -73,13 +73,15 @@ public class UserMerchantController {
 
         List<Map<String, Object>> categories = new ArrayList<>();
         if (!categoryIds.isEmpty()) {
-            List<Category> categoryList = categoryService.listByIds(categoryIds);
-            categories = categoryList.stream().map(cat -> {
-                Map<String, Object> catMap = new HashMap<>();
-                catMap.put("id", cat.getId());
-                catMap.put("name", cat.getName());
-                return catMap;
-            }).collect(Collectors.toList());
+            categories = categoryIds.stream()
+                    .map(categoryTree::get)
+                    .filter(Objects::nonNull)
+                    .map(cat -> {
+                        Map<String, Object> catMap = new HashMap<>();
+                        catMap.put("id", cat.id());
+                        catMap.put("name", cat.name());
+                        return catMap;
+                    }).collect(Collectors.toList());
         }
         result.put("categories", categories);
 
@@ -3,7 +3,11 @@ package com.lingxian.user.controller;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.lingxian.common.cache.ProductDetailCache;
+import com.lingxian.common.delay.OrderTimeoutTasks;
 import com.lingxian.common.entity.*;
+import com.lingxian.common.pagination.KeysetCursor;
+import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.*;
 import com.lingxian.common.util.ImageUrlUtil;
@@ -31,30 +35,30 @@ public class UserOrderController {
     private final OrderService orderService;
     private final OrderItemService orderItemService;
     private final ProductService productService;
-    private final UserAddressService userAddressService;
-    private final CartService cartService;
-    private final MerchantService merchantService;
     private final ProductCommentService productCommentService;
-    private final MerchantCommunityService merchantCommunityService;
-    private final CommunityService communityService;
     private final ImageUrlUtil imageUrlUtil;
+    private final ProductDetailCache productDetailCache;
+    private final CheckoutService checkoutService;
+    private final OrderTimeoutTasks orderTimeoutTasks;
+    private final MerchantDailyStatsService merchantDailyStatsService;
+    private final PlatformStatsService platformStatsService;
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @GetMapping
-    @Operation(summary = "获取订单列表")
+    @Operation(summary = "获取订单列表（传 cursor 时按游标分页）")
     public Result<Map<String, Object>> getOrderList(
             @RequestHeader(value = "X-User-Id", required = false) Long userId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer pageSize,
-            @RequestParam(required = false) Integer status) {
-        log.info("获取订单列表: userId={}, page={}, pageSize={}, status={}", userId, page, pageSize, status);
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String cursor) {
+        log.info("获取订单列表: userId={}, page={}, pageSize={}, status={}, cursor={}", userId, page, pageSize, status, cursor);
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        Page<Order> pageParam = new Page<>(page, pageSize);
         LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Order::getUserId, userId)
                 .eq(Order::getDeleted, 0);
@@ -64,12 +68,26 @@ public class UserOrderController {
             queryWrapper.eq(Order::getStatus, status);
         }
 
-        queryWrapper.orderByDesc(Order::getCreateTime);
+        queryWrapper.orderByDesc(Order::getCreateTime)
+                .orderByDesc(Order::getId);
 
-        Page<Order> pageResult = orderService.page(pageParam, queryWrapper);
+        Map<String, Object> result = new HashMap<>();
+        List<Order> orders;
+        if (cursor != null) {
+            PageResult<Order> cursorResult = KeysetCursor.page(orderService, queryWrapper, cursor, pageSize);
+            orders = cursorResult.getRecords();
+            result.put("nextCursor", cursorResult.getNextCursor());
+            result.put("hasMore", cursorResult.getHasMore());
+        } else {
+            Page<Order> pageResult = orderService.page(new Page<>(page, pageSize), queryWrapper);
+            orders = pageResult.getRecords();
+            result.put("total", pageResult.getTotal());
+            result.put("pages", pageResult.getPages());
+            result.put("current", pageResult.getCurrent());
+            result.put("hasMore", pageResult.getCurrent() < pageResult.getPages());
+        }
 
         // 查询订单商品
-        List<Order> orders = pageResult.getRecords();
         if (!orders.isEmpty()) {
             List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
             LambdaQueryWrapper<OrderItem> itemQuery = new LambdaQueryWrapper<>();
@@ -87,12 +105,7 @@ public class UserOrderController {
 
         // 转换响应格式
         List<Map<String, Object>> records = orders.stream().map(this::convertOrder).collect(Collectors.toList());
-
-        Map<String, Object> result = new HashMap<>();
         result.put("records", records);
-        result.put("total", pageResult.getTotal());
-        result.put("pages", pageResult.getPages());
-        result.put("current", pageResult.getCurrent());
 
         return Result.success(result);
     }
@@ -141,164 +154,34 @@ public class UserOrderController {
             return Result.failed("订单数据不能为空");
         }
 
+        List<CheckoutService.MerchantOrder> merchantOrders;
+        try {
+            merchantOrders = parseMerchantOrders(ordersData);
+        } catch (NumberFormatException | NullPointerException | ClassCastException e) {
+            return Result.failed("订单数据格式不正确");
+        }
+
+        CheckoutService.CheckoutResult checkout = checkoutService.checkout(userId, merchantOrders);
+        if (checkout.orders().isEmpty()) {
+            return Result.failed(checkout.failures().get(0).reason());
+        }
+
         List<Long> orderIds = new ArrayList<>();
         List<String> orderNos = new ArrayList<>();
         java.math.BigDecimal totalPayAmount = java.math.BigDecimal.ZERO;
-
-        for (Map<String, Object> orderData : ordersData) {
-            Long merchantId = orderData.get("merchantId") != null ?
-                    Long.parseLong(orderData.get("merchantId").toString()) : null;
-            Long addressId = orderData.get("addressId") != null ?
-                    Long.parseLong(orderData.get("addressId").toString()) : null;
-            Long communityId = orderData.get("communityId") != null ?
-                    Long.parseLong(orderData.get("communityId").toString()) : null;
-            String deliveryTime = (String) orderData.get("deliveryTime");
-            String remark = (String) orderData.get("remark");
-
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> products = (List<Map<String, Object>>) orderData.get("products");
-
-            if (addressId == null) {
-                return Result.failed("收货地址不能为空");
-            }
-
-            if (communityId == null) {
-                return Result.failed("请先选择配送小区");
-            }
-
-            if (products == null || products.isEmpty()) {
-                return Result.failed("商品不能为空");
-            }
-
-            // 验证收货地址
-            UserAddress address = userAddressService.getById(addressId);
-            if (address == null || !address.getUserId().equals(userId)) {
-                return Result.failed("收货地址不存在");
-            }
-
-            // 验证小区是否存在
-            Community community = communityService.getById(communityId);
-            if (community == null || community.getStatus() != 1) {
-                return Result.failed("所选小区不可配送");
-            }
-
-            // 查询商户信息
-            Merchant merchant = merchantId != null ? merchantService.getById(merchantId) : null;
-
-            // 验证商户是否对该小区开放配送
-            if (merchantId != null) {
-                LambdaQueryWrapper<MerchantCommunity> mcQuery = new LambdaQueryWrapper<>();
-                mcQuery.eq(MerchantCommunity::getMerchantId, merchantId)
-                        .eq(MerchantCommunity::getCommunityId, communityId)
-                        .eq(MerchantCommunity::getEnabled, 1)
-                        .eq(MerchantCommunity::getDeleted, 0);
-                MerchantCommunity mc = merchantCommunityService.getOne(mcQuery);
-                if (mc == null) {
-                    String merchantName = merchant != null ? merchant.getName() : "该商户";
-                    return Result.failed(merchantName + "暂不支持配送到" + community.getName());
-                }
-            }
-
-            // 计算订单金额并创建订单项
-            java.math.BigDecimal orderTotalAmount = java.math.BigDecimal.ZERO;
-            List<OrderItem> orderItems = new ArrayList<>();
-            List<Long> productIds = new ArrayList<>();
-
-            for (Map<String, Object> productData : products) {
-                Long productId = Long.parseLong(productData.get("productId").toString());
-                Integer quantity = Integer.parseInt(productData.get("quantity").toString());
-                productIds.add(productId);
-
-                Product product = productService.getById(productId);
-                if (product == null) {
-                    return Result.failed("商品不存在: " + productId);
-                }
-                if (product.getStatus() != 1) {
-                    return Result.failed("商品已下架: " + product.getName());
-                }
-                if (product.getStock() < quantity) {
-                    return Result.failed("商品库存不足: " + product.getName());
-                }
-
-                // 计算商品小计
-                java.math.BigDecimal itemTotal = product.getPrice()
-                        .multiply(java.math.BigDecimal.valueOf(quantity));
-                orderTotalAmount = orderTotalAmount.add(itemTotal);
-
-                // 创建订单项
-                OrderItem orderItem = new OrderItem();
-                orderItem.setProductId(productId);
-                orderItem.setProductName(product.getName());
-                orderItem.setProductImage(product.getImage());
-                orderItem.setPrice(product.getPrice());
-                orderItem.setQuantity(quantity);
-                orderItem.setTotalAmount(itemTotal);
-                orderItem.setCreateTime(LocalDateTime.now());
-                orderItems.add(orderItem);
-            }
-
-            // 配送费（暂设为5元/单）
-            java.math.BigDecimal freightAmount = java.math.BigDecimal.valueOf(5);
-            java.math.BigDecimal payAmount = orderTotalAmount.add(freightAmount);
-
-            // 生成订单号
-            String orderNo = generateOrderNo();
-
-            // 创建订单
-            Order order = new Order();
-            order.setOrderNo(orderNo);
-            order.setUserId(userId);
-            order.setMerchantId(merchantId);
-            order.setOrderType(1); // 普通订单
-            order.setStatus(1); // 待付款
-            order.setTotalAmount(orderTotalAmount);
-            order.setFreightAmount(freightAmount);
-            order.setDiscountAmount(java.math.BigDecimal.ZERO);
-            order.setPayAmount(payAmount);
-            order.setRemark(remark);
-
-            // 收货信息
-            order.setReceiverName(address.getName());
-            order.setReceiverPhone(address.getPhone());
-            order.setReceiverProvince(address.getProvince());
-            order.setReceiverCity(address.getCity());
-            order.setReceiverDistrict(address.getDistrict());
-            order.setReceiverAddress(address.getDetail());
-
-            order.setCreateTime(LocalDateTime.now());
-            order.setUpdateTime(LocalDateTime.now());
-            order.setDeleted(0);
-
-            orderService.save(order);
-
-            // 保存订单项
-            for (OrderItem item : orderItems) {
-                item.setOrderId(order.getId());
-                item.setOrderNo(orderNo);
-            }
-            orderItemService.saveBatch(orderItems);
-
-            // 扣减库存
-            for (Map<String, Object> productData : products) {
-                Long productId = Long.parseLong(productData.get("productId").toString());
-                Integer quantity = Integer.parseInt(productData.get("quantity").toString());
-                productService.update(new LambdaUpdateWrapper<Product>()
-                        .eq(Product::getId, productId)
-                        .setSql("stock = stock - " + quantity));
-            }
-
-            // 删除购物车中对应的商品
-            LambdaUpdateWrapper<Cart> cartUpdate = new LambdaUpdateWrapper<>();
-            cartUpdate.eq(Cart::getUserId, userId)
-                    .in(Cart::getProductId, productIds)
-                    .eq(Cart::getDeleted, 0)
-                    .set(Cart::getDeleted, 1)
-                    .set(Cart::getUpdateTime, LocalDateTime.now());
-            cartService.update(cartUpdate);
-
+        for (Order order : checkout.orders()) {
             orderIds.add(order.getId());
-            orderNos.add(orderNo);
-            totalPayAmount = totalPayAmount.add(payAmount);
+            orderNos.add(order.getOrderNo());
+            totalPayAmount = totalPayAmount.add(order.getPayAmount());
+        }
+
+        List<Map<String, Object>> failures = new ArrayList<>();
+        for (CheckoutService.Failure failure : checkout.failures()) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("merchantId", failure.merchantId());
+            item.put("merchantName", failure.merchantName());
+            item.put("reason", failure.reason());
+            failures.add(item);
         }
 
         Map<String, Object> result = new HashMap<>();
@@ -306,15 +189,41 @@ public class UserOrderController {
         result.put("orderNos", orderNos);
         result.put("totalPayAmount", totalPayAmount);
         result.put("orderCount", orderIds.size());
+        result.put("failures", failures);
 
         return Result.success(result);
     }
 
     /**
-     * 生成订单号
+     * 解析按商户拆分的订单请求
      */
-    private String generateOrderNo() {
-        return "LX" + System.currentTimeMillis() + String.format("%04d", new Random().nextInt(10000));
+    private List<CheckoutService.MerchantOrder> parseMerchantOrders(List<Map<String, Object>> ordersData) {
+        List<CheckoutService.MerchantOrder> merchantOrders = new ArrayList<>(ordersData.size());
+        for (Map<String, Object> orderData : ordersData) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> products = (List<Map<String, Object>>) orderData.get("products");
+            List<CheckoutService.Line> lines = null;
+            if (products != null) {
+                lines = new ArrayList<>(products.size());
+                for (Map<String, Object> productData : products) {
+                    lines.add(new CheckoutService.Line(
+                            Long.parseLong(productData.get("productId").toString()),
+                            Integer.parseInt(productData.get("quantity").toString())));
+                }
+            }
+            merchantOrders.add(new CheckoutService.MerchantOrder(
+                    parseLong(orderData.get("merchantId")),
+                    parseLong(orderData.get("addressId")),
+                    parseLong(orderData.get("communityId")),
+                    (String) orderData.get("deliveryTime"),
+                    (String) orderData.get("remark"),
+                    lines));
+        }
+        return merchantOrders;
+    }
+
+    private static Long parseLong(Object value) {
+        return value != null ? Long.parseLong(value.toString()) : null;
     }
 
     @PutMapping("/{id}/cancel")
@@ -339,11 +248,11 @@ public class UserOrderController {
             return Result.failed("当前订单状态不允许取消");
         }
 
-        order.setStatus(6); // 已取消
-        order.setCancelTime(LocalDateTime.now());
-        order.setCancelReason(body != null ? body.get("reason") : "用户取消");
-        order.setUpdateTime(LocalDateTime.now());
-        orderService.updateById(order);
+        String reason = body != null && body.get("reason") != null ? body.get("reason") : "用户取消";
+        if (!orderService.cancelOrder(id, 1, reason)) {
+            return Result.failed("当前订单状态不允许取消");
+        }
+        orderTimeoutTasks.onOrderPaidOrCancelled(id);
 
         return Result.success();
     }
@@ -369,10 +278,14 @@ public class UserOrderController {
             return Result.failed("当前订单状态不允许确认收货");
         }
 
-        order.setStatus(4); // 待评价
-        order.setReceiveTime(LocalDateTime.now());
-        order.setUpdateTime(LocalDateTime.now());
-        orderService.updateById(order);
+        LocalDateTime now = LocalDateTime.now();
+        if (!orderService.changeStatus(id, 3, 4, new LambdaUpdateWrapper<Order>() // 待评价
+                .set(Order::getReceiveTime, now)
+                .set(Order::getUpdateTime, now))) {
+            return Result.failed("当前订单状态不允许确认收货");
+        }
+        orderTimeoutTasks.onOrderReceived(id);
+        merchantDailyStatsService.onOrdersReceived(List.of(id));
 
         return Result.success();
     }
@@ -399,12 +312,21 @@ public class UserOrderController {
         }
 
         // TODO: 调用微信支付接口
-        // 这里模拟直接支付成功
-        order.setStatus(2); // 待发货
-        order.setPayTime(LocalDateTime.now());
-        order.setPayType(1); // 微信支付
-        order.setUpdateTime(LocalDateTime.now());
-        orderService.updateById(order);
+        // 这里模拟直接支付成功；按状态条件更新，避免与超时自动取消并发时覆盖已取消的订单
+        LocalDateTime now = LocalDateTime.now();
+        boolean paid = orderService.changeStatus(id, 1, 2, new LambdaUpdateWrapper<Order>() // 待发货
+                .set(Order::getPayTime, now)
+                .set(Order::getPayType, 1) // 微信支付
+                .set(Order::getUpdateTime, now));
+        if (!paid) {
+            return Result.failed("当前订单状态不允许支付");
+        }
+        orderTimeoutTasks.onOrderPaidOrCancelled(id);
+        order.setStatus(2);
+        order.setPayTime(now);
+        order.setPayType(1);
+        merchantDailyStatsService.onOrderPaid(order);
+        platformStatsService.onOrderPaid(order);
 
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
@@ -462,6 +384,14 @@ public class UserOrderController {
             return Result.failed("当前订单状态不允许评价");
         }
 
+        // 先按状态条件把订单更新为已完成，重复提交时只有一次能成功，避免重复保存评价
+        LocalDateTime now = LocalDateTime.now();
+        if (!orderService.changeStatus(id, 4, 5, new LambdaUpdateWrapper<Order>() // 已完成
+                .set(Order::getCompleteTime, now)
+                .set(Order::getUpdateTime, now))) {
+            return Result.failed("当前订单状态不允许评价");
+        }
+
         // 获取评价内容
         String content = (String) body.get("content");
         @SuppressWarnings("unchecked")
@@ -477,6 +407,7 @@ public class UserOrderController {
             String imagesJson = images != null && !images.isEmpty() ?
                     String.join(",", images) : null;
 
+            List<ProductComment> comments = new ArrayList<>();
             for (Map<String, Object> item : items) {
                 Long orderItemId = item.get("orderItemId") != null ?
                         Long.parseLong(item.get("orderItemId").toString()) : null;
@@ -500,15 +431,15 @@ public class UserOrderController {
                 comment.setUpdateTime(LocalDateTime.now());
                 comment.setDeleted(0);
 
-                productCommentService.save(comment);
+                comments.add(comment);
             }
+            productCommentService.addComments(comments);
+            comments.forEach(comment -> productDetailCache.evictProduct(comment.getProductId()));
         }
 
-        // 更新订单状态为已完成
-        order.setStatus(5); // 已完成
-        order.setCompleteTime(LocalDateTime.now());
-        order.setUpdateTime(LocalDateTime.now());
-        orderService.updateById(order);
+        orderTimeoutTasks.onOrderCompleted(id);
+        merchantDailyStatsService.onOrdersCompleted(List.of(id));
+        platformStatsService.onOrdersCompleted(1);
 
         return Result.success();
     }
@@ -1,25 +1,23 @@
 package com.lingxian.user.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.config.SystemSettings;
 import com.lingxian.common.entity.PointsRecord;
-import com.lingxian.common.entity.User;
+import com.lingxian.common.pagination.KeysetCursor;
+import com.lingxian.common.pagination.SlicePage;
+import com.lingxian.common.result.PageResult;
 import com.lingxian.common.result.Result;
 import com.lingxian.common.service.PointsRecordService;
-import com.lingxian.common.service.UserService;
+import com.lingxian.common.service.SignInService;
+import com.lingxian.common.service.SystemConfigService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.TemporalAdjusters;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -32,14 +30,9 @@ import java.util.stream.Collectors;
 @Tag(name = "用户端-积分", description = "积分签到管理接口")
 public class UserPointsController {
 
-    private final UserService userService;
     private final PointsRecordService pointsRecordService;
-    private final StringRedisTemplate redisTemplate;
-
-    // 签到积分
-    private static final int SIGN_IN_POINTS = 10;
-    // Redis签到key前缀
-    private static final String SIGN_IN_KEY_PREFIX = "user:sign:";
+    private final SignInService signInService;
+    private final SystemConfigService systemConfigService;
 
     @PostMapping("/sign-in")
     @Operation(summary = "每日签到")
@@ -51,42 +44,13 @@ public class UserPointsController {
             return Result.failed("请先登录");
         }
 
-        User user = userService.getById(userId);
-        if (user == null) {
-            return Result.failed("用户不存在");
-        }
-
-        // 检查今日是否已签到
-        String today = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String signKey = SIGN_IN_KEY_PREFIX + userId + ":" + today;
-
-        Boolean hasSignedIn = redisTemplate.hasKey(signKey);
-        if (Boolean.TRUE.equals(hasSignedIn)) {
-            return Result.failed("今日已签到");
-        }
-
-        // 签到成功，记录到Redis
-        redisTemplate.opsForValue().set(signKey, "1", 2, TimeUnit.DAYS);
-
-        // 增加积分
-        int newPoints = (user.getPoints() == null ? 0 : user.getPoints()) + SIGN_IN_POINTS;
-        user.setPoints(newPoints);
-        user.setUpdateTime(LocalDateTime.now());
-        userService.updateById(user);
-
-        // 记录积分变动
-        PointsRecord record = new PointsRecord();
-        record.setUserId(userId);
-        record.setType(1); // 1-签到
-        record.setPoints(SIGN_IN_POINTS);
-        record.setBalance(newPoints);
-        record.setDescription("每日签到");
-        record.setCreateTime(LocalDateTime.now());
-        pointsRecordService.save(record);
+        SignInService.SignInResult signIn = signInService.signIn(userId);
 
         Map<String, Object> result = new HashMap<>();
-        result.put("points", SIGN_IN_POINTS);
-        result.put("totalPoints", newPoints);
+        result.put("points", signIn.points());
+        result.put("bonusPoints", signIn.bonusPoints());
+        result.put("totalPoints", signIn.totalPoints());
+        result.put("continuousDays", signIn.continuousDays());
 
         return Result.success(result);
     }
@@ -101,63 +65,71 @@ public class UserPointsController {
             return Result.failed("请先登录");
         }
 
-        // 检查今日是否已签到
-        String today = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String signKey = SIGN_IN_KEY_PREFIX + userId + ":" + today;
-        Boolean signedToday = Boolean.TRUE.equals(redisTemplate.hasKey(signKey));
-
-        // 获取本月签到记录
-        LocalDate now = LocalDate.now();
-        LocalDate firstDayOfMonth = now.with(TemporalAdjusters.firstDayOfMonth());
-        LocalDate lastDayOfMonth = now.with(TemporalAdjusters.lastDayOfMonth());
-
-        // 从数据库查询本月签到记录
-        LambdaQueryWrapper<PointsRecord> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(PointsRecord::getUserId, userId)
-                .eq(PointsRecord::getType, 1) // 签到类型
-                .ge(PointsRecord::getCreateTime, firstDayOfMonth.atStartOfDay())
-                .le(PointsRecord::getCreateTime, lastDayOfMonth.plusDays(1).atStartOfDay())
-                .orderByAsc(PointsRecord::getCreateTime);
-
-        List<PointsRecord> records = pointsRecordService.list(queryWrapper);
+        SignInService.SignInStatus status = signInService.getStatus(userId);
 
         // 提取签到日期
         DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE;
-        List<String> signedDates = records.stream()
-                .map(r -> r.getCreateTime().toLocalDate().format(formatter))
-                .distinct()
+        List<String> signedDates = status.signedDates().stream()
+                .map(date -> date.format(formatter))
                 .collect(Collectors.toList());
 
         Map<String, Object> result = new HashMap<>();
-        result.put("signedToday", signedToday);
-        result.put("signDays", signedDates.size());
+        result.put("signedToday", status.signedToday());
+        result.put("signDays", status.signDays());
+        result.put("continuousDays", status.continuousDays());
         result.put("signedDates", signedDates);
 
+        // 当前配置的签到积分与连续签到奖励，页面按此展示
+        SystemSettings settings = systemConfigService.current();
+        List<Map<String, Object>> streakBonuses = new ArrayList<>();
+        settings.getStreakBonuses().forEach((days, points) -> {
+            Map<String, Object> bonus = new HashMap<>();
+            bonus.put("days", days);
+            bonus.put("points", points);
+            streakBonuses.add(bonus);
+        });
+        result.put("signInPoints", settings.getSignInPoints());
+        result.put("streakBonuses", streakBonuses);
+
         return Result.success(result);
     }
 
     @GetMapping("/records")
-    @Operation(summary = "获取积分记录")
+    @Operation(summary = "获取积分记录（传 cursor 时按游标分页）")
     public Result<Map<String, Object>> getRecords(
             @RequestHeader(value = "X-User-Id", required = false) Long userId,
             @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
-        log.info("获取积分记录: userId={}, page={}, pageSize={}", userId, page, pageSize);
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String cursor) {
+        log.info("获取积分记录: userId={}, page={}, pageSize={}, cursor={}", userId, page, pageSize, cursor);
 
         if (userId == null) {
             return Result.failed("请先登录");
         }
 
-        Page<PointsRecord> pageParam = new Page<>(page, pageSize);
         LambdaQueryWrapper<PointsRecord> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(PointsRecord::getUserId, userId)
-                .orderByDesc(PointsRecord::getCreateTime);
+                .orderByDesc(PointsRecord::getCreateTime)
+                .orderByDesc(PointsRecord::getId);
 
-        Page<PointsRecord> pageResult = pointsRecordService.page(pageParam, queryWrapper);
+        Map<String, Object> result = new HashMap<>();
+        List<PointsRecord> pointsRecords;
+        if (cursor != null) {
+            PageResult<PointsRecord> cursorResult = KeysetCursor.page(pointsRecordService, queryWrapper, cursor,
+                    pageSize, PointsRecord::getCreateTime, PointsRecord::getId);
+            pointsRecords = cursorResult.getRecords();
+            result.put("nextCursor", cursorResult.getNextCursor());
+            result.put("hasMore", cursorResult.getHasMore());
+        } else {
+            // 小程序只需要 hasMore，跳过 COUNT 查询
+            SlicePage<PointsRecord> pageResult = pointsRecordService.page(new SlicePage<>(page, pageSize), queryWrapper);
+            pointsRecords = pageResult.getRecords();
+            result.put("hasMore", pageResult.hasMore());
+        }
 
         // 转换记录格式
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        List<Map<String, Object>> recordList = pageResult.getRecords().stream()
+        List<Map<String, Object>> recordList = pointsRecords.stream()
                 .map(record -> {
                     Map<String, Object> map = new HashMap<>();
                     map.put("id", record.getId());
@@ -168,11 +140,7 @@ public class UserPointsController {
                     return map;
                 })
                 .collect(Collectors.toList());
-
-        Map<String, Object> result = new HashMap<>();
         result.put("records", recordList);
-        result.put("total", pageResult.getTotal());
-        result.put("hasMore", pageResult.getCurrent() < pageResult.getPages());
 
         return Result.success(result);
     }
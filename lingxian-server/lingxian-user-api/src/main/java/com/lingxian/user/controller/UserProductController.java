@@ -2,18 +2,21 @@ package com.lingxian.user.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lingxian.common.cache.MerchantAvailabilityIndex;
+import com.lingxian.common.cache.ProductDetailCache;
 import com.lingxian.common.entity.GroupActivity;
 import com.lingxian.common.entity.Merchant;
 import com.lingxian.common.entity.Product;
 import com.lingxian.common.entity.ProductComment;
+import com.lingxian.common.entity.RatingStats;
 import com.lingxian.common.entity.User;
 import com.lingxian.common.result.Result;
-import com.lingxian.common.entity.MerchantCommunity;
+import com.lingxian.common.search.ProductSearchIndex;
 import com.lingxian.common.service.GroupActivityService;
-import com.lingxian.common.service.MerchantCommunityService;
 import com.lingxian.common.service.MerchantService;
 import com.lingxian.common.service.ProductCommentService;
 import com.lingxian.common.service.ProductService;
+import com.lingxian.common.service.RatingStatsService;
 import com.lingxian.common.service.UserService;
 import com.lingxian.common.util.ImageUrlUtil;
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,11 +26,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,13 +45,21 @@ public class UserProductController {
     private final ProductService productService;
     private final GroupActivityService groupActivityService;
     private final MerchantService merchantService;
-    private final MerchantCommunityService merchantCommunityService;
+    private final MerchantAvailabilityIndex merchantAvailabilityIndex;
+    private final ProductDetailCache productDetailCache;
+    private final ProductSearchIndex productSearchIndex;
     private final ProductCommentService commentService;
+    private final RatingStatsService ratingStatsService;
     private final UserService userService;
     private final ImageUrlUtil imageUrlUtil;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    /**
+     * 商品列表关键词筛选时最多匹配的商品数（已按营业状态、商户、分类过滤）
+     */
+    private static final int KEYWORD_MATCH_LIMIT = 1000;
+
     @GetMapping("/recommend")
     @Operation(summary = "获取推荐商品")
     public Result<Map<String, Object>> getRecommendProducts(
@@ -58,7 +68,7 @@ public class UserProductController {
             @RequestParam(required = false) Long communityId) {
 
         // 获取营业中的商户ID列表（如果指定了小区，还要过滤该小区可配送的商户）
-        List<Long> openMerchantIds = getAvailableMerchantIds(communityId);
+        List<Long> openMerchantIds = merchantAvailabilityIndex.getAvailableMerchantIds(communityId);
 
         LambdaQueryWrapper<Product> queryWrapper = new LambdaQueryWrapper<Product>()
                 .eq(Product::getStatus, 1)
@@ -107,7 +117,7 @@ public class UserProductController {
             @RequestParam(defaultValue = "10") Integer pageSize) {
 
         // 获取营业中的商户ID列表（如果指定了小区，还要过滤该小区可配送的商户）
-        List<Long> openMerchantIds = getAvailableMerchantIds(communityId);
+        List<Long> openMerchantIds = merchantAvailabilityIndex.getAvailableMerchantIds(communityId);
 
         // 如果没有营业中的商户，返回空结果
         if (openMerchantIds.isEmpty()) {
@@ -126,7 +136,7 @@ public class UserProductController {
         // 指定商户筛选
         if (merchantId != null) {
             // 检查指定商户是否营业中
-            if (!openMerchantIds.contains(merchantId)) {
+            if (!merchantAvailabilityIndex.isAvailable(merchantId, communityId)) {
                 Map<String, Object> result = new HashMap<>();
                 result.put("records", new ArrayList<>());
                 result.put("total", 0);
@@ -142,9 +152,22 @@ public class UserProductController {
             queryWrapper.eq(Product::getCategoryId, categoryId);
         }
 
-        // 关键词搜索
+        // 关键词搜索，由搜索索引按营业状态、商户、分类过滤后匹配商品ID
+        boolean truncated = false;
         if (StringUtils.hasText(keyword)) {
-            queryWrapper.like(Product::getName, keyword);
+            ProductSearchIndex.KeywordMatch match = productSearchIndex.matchProductIds(
+                    keyword, communityId, merchantId, categoryId, KEYWORD_MATCH_LIMIT);
+            List<Long> matchedIds = match.productIds();
+            truncated = match.truncated();
+            if (matchedIds.isEmpty()) {
+                Map<String, Object> result = new HashMap<>();
+                result.put("records", new ArrayList<>());
+                result.put("total", 0);
+                result.put("page", page);
+                result.put("pageSize", pageSize);
+                return Result.success(result);
+            }
+            queryWrapper.in(Product::getId, matchedIds);
         }
 
         // 排序
@@ -176,6 +199,9 @@ public class UserProductController {
         result.put("total", pageResult.getTotal());
         result.put("page", page);
         result.put("pageSize", pageSize);
+        result.put("hasMore", pageResult.getCurrent() < pageResult.getPages());
+        // 关键词匹配数超过上限时，total 只统计相关度最高的前 KEYWORD_MATCH_LIMIT 个商品
+        result.put("truncated", truncated);
 
         return Result.success(result);
     }
@@ -183,17 +209,26 @@ public class UserProductController {
     @GetMapping("/{id}")
     @Operation(summary = "获取商品详情")
     public Result<Map<String, Object>> getProductDetail(@PathVariable Long id) {
-        Product product = productService.getById(id);
-        if (product == null || product.getStatus() != 1) {
+        ProductDetailCache.Entry detail = productDetailCache.get(id, this::loadProductDetail);
+        if (!detail.isPresent()) {
             return Result.failed("商品不存在或已下架");
         }
 
         // 检查商户是否营业中
-        if (product.getMerchantId() != null) {
-            Merchant merchant = merchantService.getById(product.getMerchantId());
-            if (merchant == null || merchant.getStatus() != 1) {
-                return Result.failed("商户已休息，暂时无法查看该商品");
-            }
+        if (detail.merchantId() != null && !merchantAvailabilityIndex.isOpen(detail.merchantId())) {
+            return Result.failed("商户已休息，暂时无法查看该商品");
+        }
+
+        return Result.success(detail.payload());
+    }
+
+    /**
+     * 查库组装商品详情，结果由 {@link ProductDetailCache} 缓存
+     */
+    private ProductDetailCache.Entry loadProductDetail(Long id) {
+        Product product = productService.getById(id);
+        if (product == null || product.getStatus() != 1) {
+            return ProductDetailCache.Entry.absent();
         }
 
         Map<String, Object> result = new HashMap<>();
@@ -203,8 +238,9 @@ public class UserProductController {
         result.put("price", product.getPrice());
         result.put("originalPrice", product.getOriginalPrice());
         // 处理图片URL
-        result.put("mainImage", imageUrlUtil.generateUrl(product.getImage()));
-        result.put("image", imageUrlUtil.generateUrl(product.getImage()));
+        String mainImage = imageUrlUtil.generateUrl(product.getImage());
+        result.put("mainImage", mainImage);
+        result.put("image", mainImage);
         result.put("images", imageUrlUtil.generateUrlsFromJson(product.getImages()));
         result.put("detail", product.getDetail());
         result.put("sales", product.getSalesCount());
@@ -251,42 +287,16 @@ public class UserProductController {
             result.put("groupEnabled", false);
         }
 
-        // 查询评价统计
-        long totalComments = commentService.count(new LambdaQueryWrapper<ProductComment>()
-                .eq(ProductComment::getProductId, id)
-                .eq(ProductComment::getStatus, 1)
-                .eq(ProductComment::getDeleted, 0));
-
-        // 好评数（4-5星）
-        long goodComments = commentService.count(new LambdaQueryWrapper<ProductComment>()
-                .eq(ProductComment::getProductId, id)
-                .eq(ProductComment::getStatus, 1)
-                .eq(ProductComment::getDeleted, 0)
-                .ge(ProductComment::getRating, 4));
-
-        // 计算好评率
-        int goodRate = totalComments > 0 ? (int) (goodComments * 100 / totalComments) : 100;
-
-        // 计算平均评分
-        BigDecimal avgRating = BigDecimal.valueOf(5.0);
-        if (totalComments > 0) {
-            List<ProductComment> allComments = commentService.list(new LambdaQueryWrapper<ProductComment>()
-                    .eq(ProductComment::getProductId, id)
-                    .eq(ProductComment::getStatus, 1)
-                    .eq(ProductComment::getDeleted, 0)
-                    .select(ProductComment::getRating));
-            double avg = allComments.stream()
-                    .mapToInt(ProductComment::getRating)
-                    .average()
-                    .orElse(5.0);
-            avgRating = BigDecimal.valueOf(avg).setScale(1, RoundingMode.HALF_UP);
-        }
+        // 评价统计
+        RatingStats ratingStats = ratingStatsService.getProductStats(id);
+        long totalComments = ratingStats.getRatingCount();
+        long goodComments = ratingStats.getGoodCount();
 
         Map<String, Object> commentStats = new HashMap<>();
         commentStats.put("total", totalComments);
         commentStats.put("goodCount", goodComments);
-        commentStats.put("goodRate", goodRate);
-        commentStats.put("avgRating", avgRating);
+        commentStats.put("goodRate", totalComments > 0 ? (int) (goodComments * 100 / totalComments) : 100);
+        commentStats.put("avgRating", ratingStats.getAvgRating());
         result.put("commentStats", commentStats);
 
         // 查询最新3条评价
@@ -300,7 +310,7 @@ public class UserProductController {
         List<Map<String, Object>> commentList = convertComments(latestComments);
         result.put("comments", commentList);
 
-        return Result.success(result);
+        return new ProductDetailCache.Entry(product.getMerchantId(), Collections.unmodifiableMap(result));
     }
 
     @GetMapping("/{id}/comments")
@@ -408,54 +418,4 @@ public class UserProductController {
         product.setImages(imageUrlUtil.generateUrlsFromJson(product.getImages()));
         product.setVideo(imageUrlUtil.generateUrl(product.getVideo()));
     }
-
-    /**
-     * 获取营业中的商户ID列表
-     */
-    private List<Long> getOpenMerchantIds() {
-        List<Merchant> openMerchants = merchantService.list(new LambdaQueryWrapper<Merchant>()
-                .eq(Merchant::getStatus, 1)
-                .select(Merchant::getId));
-        return openMerchants.stream()
-                .map(Merchant::getId)
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * 获取可用的商户ID列表（营业中且可配送到指定小区）
-     * @param communityId 小区ID，如果为null则返回所有营业中的商户
-     */
-    private List<Long> getAvailableMerchantIds(Long communityId) {
-        // 先获取营业中的商户ID
-        List<Long> openMerchantIds = getOpenMerchantIds();
-
-        if (openMerchantIds.isEmpty()) {
-            return openMerchantIds;
-        }
-
-        // 如果指定了小区，还要过滤该小区可配送的商户
-        if (communityId != null) {
-            // 查询该小区开放配送的商户ID
-            List<MerchantCommunity> merchantCommunities = merchantCommunityService.list(
-                    new LambdaQueryWrapper<MerchantCommunity>()
-                            .eq(MerchantCommunity::getCommunityId, communityId)
-                            .eq(MerchantCommunity::getEnabled, 1)
-            );
-
-            if (merchantCommunities.isEmpty()) {
-                return new ArrayList<>();
-            }
-
-            List<Long> communityMerchantIds = merchantCommunities.stream()
-                    .map(MerchantCommunity::getMerchantId)
-                    .collect(Collectors.toList());
-
-            // 取交集：营业中且可配送到该小区的商户
-            openMerchantIds = openMerchantIds.stream()
-                    .filter(communityMerchantIds::contains)
-                    .collect(Collectors.toList());
-        }
-
-        return openMerchantIds;
-    }
 }
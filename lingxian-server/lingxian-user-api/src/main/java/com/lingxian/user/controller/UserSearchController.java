@@ -1,10 +1,13 @@
 package com.lingxian.user.controller;
 
 import com.lingxian.common.result.Result;
+import com.lingxian.common.search.ProductSearchIndex;
+import com.lingxian.common.util.ImageUrlUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
@@ -19,30 +22,39 @@ import java.util.Map;
 @Tag(name = "用户端-搜索", description = "搜索相关接口")
 public class UserSearchController {
 
+    private final ProductSearchIndex productSearchIndex;
+    private final ImageUrlUtil imageUrlUtil;
+
     @GetMapping("/search")
     @Operation(summary = "搜索商品")
     public Result<Map<String, Object>> search(
             @RequestParam String keyword,
+            @RequestParam(required = false) Long communityId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer pageSize) {
 
         Map<String, Object> result = new HashMap<>();
         List<Map<String, Object>> products = new ArrayList<>();
-
-        for (int i = 1; i <= pageSize; i++) {
-            int id = (page - 1) * pageSize + i;
-            Map<String, Object> product = new HashMap<>();
-            product.put("id", id);
-            product.put("name", keyword + "-搜索结果" + id);
-            product.put("price", 9.9 + id % 10);
-            product.put("originalPrice", 19.9 + id % 10);
-            product.put("mainImage", "https://via.placeholder.com/200x200");
-            product.put("sales", 100 + id * 10);
-            products.add(product);
+        long total = 0;
+
+        if (StringUtils.hasText(keyword)) {
+            ProductSearchIndex.SearchResult searchResult =
+                    productSearchIndex.search(keyword.trim(), communityId, page, pageSize);
+            total = searchResult.total();
+            for (ProductSearchIndex.SearchDoc doc : searchResult.records()) {
+                Map<String, Object> product = new HashMap<>();
+                product.put("id", doc.productId());
+                product.put("name", doc.name());
+                product.put("price", doc.price());
+                product.put("originalPrice", doc.originalPrice());
+                product.put("mainImage", imageUrlUtil.generateUrl(doc.image()));
+                product.put("sales", doc.salesCount());
+                products.add(product);
+            }
         }
 
         result.put("list", products);
-        result.put("total", 20);
+        result.put("total", total);
         result.put("page", page);
         result.put("pageSize", pageSize);
 